@@ -0,0 +1,57 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Benchmark do BCryptPasswordEncoder (codificar e conferir) por fator de custo.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+public class BCryptBenchmark {
+
+    @Param({"4", "8", "10", "12"})
+    private int custo;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void preparar() {
+        encoder = new BCryptPasswordEncoder(custo);
+        hash = encoder.encode("Senha@Fleet23");
+    }
+
+    @Benchmark
+    public String codificar() {
+        return encoder.encode("Senha@Fleet23");
+    }
+
+    @Benchmark
+    public boolean conferir() {
+        return encoder.matches("Senha@Fleet23", hash);
+    }
+
+}
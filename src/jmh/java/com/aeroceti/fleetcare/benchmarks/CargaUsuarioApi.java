@@ -0,0 +1,172 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Teste de carga da API de Usuarios, para comparar o modo de threads do
+ * servidor (pool do Tomcat x threads virtuais) com a aplicacao ja no ar.
+ *
+ * Cada cliente simulado roda numa thread virtual e repete as requisicoes do
+ * cenario ate o fim do tempo; ao final sao exibidos a vazao e a latencia
+ * (p50, p99 e maxima) das respostas.
+ *
+ * Cenarios:  consulta (buscarID + listar/pagina), senha (login com BCrypt)
+ *            e misto (uma senha a cada dez consultas).
+ *
+ * Exemplo:   mvn -Pbenchmark compile exec:java -Dexec.mainClass=com.aeroceti.fleetcare.benchmarks.CargaUsuarioApi
+ *                -Dexec.args="url=http://localhost:8080 clientes=400 duracao=30 cenario=misto"
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public class CargaUsuarioApi {
+
+    private static final String SENHA = "Senha@Fleet23";
+    private static final Pattern USUARIO_ID = Pattern.compile("\"usuarioID\"\\s*:\\s*\"([0-9a-f-]{36})\"");
+
+    private final HttpClient cliente;
+    private final String api;
+    private final String email;
+    private String usuarioID;
+
+    public CargaUsuarioApi(String url) {
+        this.cliente = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5)).build();
+        this.api = url + "/api/v1/usuario";
+        this.email = "carga" + System.nanoTime() + "@fleetcare.com";
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opcoes = new HashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (igual > 0) {
+                opcoes.put(arg.substring(0, igual), arg.substring(igual + 1));
+            }
+        }
+        String url = opcoes.getOrDefault("url", "http://localhost:8080");
+        int clientes = Integer.parseInt(opcoes.getOrDefault("clientes", "200"));
+        int duracao = Integer.parseInt(opcoes.getOrDefault("duracao", "30"));
+        String cenario = opcoes.getOrDefault("cenario", "misto");
+
+        CargaUsuarioApi carga = new CargaUsuarioApi(url);
+        carga.preparar();
+        carga.executar(clientes, Duration.ofSeconds(duracao), cenario);
+    }
+
+    // cadastra o usuario usado nas requisicoes e obtem o seu ID
+    private void preparar() throws Exception {
+        String cpf = String.format("%011d", Math.abs(System.nanoTime() % 100000000000L));
+        String json = "{\"nome\":\"Usuario Carga\",\"email\":\"" + email + "\",\"cpf\":\"" + cpf
+                + "\",\"whatsapp\":\"92991234567\",\"dataNascimento\":\"01/01/1990\",\"sexo\":\"M\",\"password\":\""
+                + SENHA + "\"}";
+        enviar(HttpRequest.newBuilder(URI.create(api + "/cadastrar"))
+                .header("Content-Type", "application/json").PUT(HttpRequest.BodyPublishers.ofString(json)).build());
+        HttpResponse<String> resposta = enviar(HttpRequest.newBuilder(URI.create(api + "/buscar/" + email)).GET().build());
+        Matcher encontrado = USUARIO_ID.matcher(resposta.body());
+        if (resposta.statusCode() != 200 || !encontrado.find()) {
+            throw new IllegalStateException("Nao foi possivel cadastrar o usuario de teste: " + resposta.body());
+        }
+        usuarioID = encontrado.group(1);
+    }
+
+    private void executar(int clientes, Duration duracao, String cenario) throws InterruptedException {
+        System.out.println("Carga: " + clientes + " clientes, " + duracao.toSeconds() + "s, cenario " + cenario);
+        long fim = System.nanoTime() + duracao.toNanos();
+        long[][] latencias = new long[clientes][];
+        int[] quantidades = new int[clientes];
+        AtomicLong erros = new AtomicLong();
+        AtomicLong recusadas = new AtomicLong();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clientes; c++) {
+                final int indice = c;
+                executor.submit(() -> {
+                    long[] amostras = new long[1024];
+                    int total = 0;
+                    while (System.nanoTime() < fim) {
+                        HttpRequest requisicao = requisicao(cenario, total);
+                        long inicio = System.nanoTime();
+                        try {
+                            int status = enviar(requisicao).statusCode();
+                            if (status == 429) {
+                                recusadas.incrementAndGet();
+                            } else if (status >= 400) {
+                                erros.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            erros.incrementAndGet();
+                        }
+                        if (total == amostras.length) {
+                            amostras = Arrays.copyOf(amostras, total * 2);
+                        }
+                        amostras[total++] = System.nanoTime() - inicio;
+                    }
+                    latencias[indice] = amostras;
+                    quantidades[indice] = total;
+                    return null;
+                });
+            }
+        }
+        relatar(latencias, quantidades, duracao, erros.get(), recusadas.get());
+    }
+
+    private HttpRequest requisicao(String cenario, int sequencia) {
+        boolean senha = "senha".equals(cenario) || ("misto".equals(cenario) && sequencia % 10 == 9);
+        if (senha) {
+            String json = "{\"email\":\"" + email + "\",\"password\":\"" + SENHA + "\"}";
+            return HttpRequest.newBuilder(URI.create(api + "/senha"))
+                    .header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(json)).build();
+        }
+        String caminho = (sequencia % 2 == 0) ? "/buscarID/" + usuarioID : "/listar/pagina?tamanho=20";
+        return HttpRequest.newBuilder(URI.create(api + caminho)).GET().build();
+    }
+
+    private HttpResponse<String> enviar(HttpRequest requisicao) throws Exception {
+        return cliente.send(requisicao, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void relatar(long[][] latencias, int[] quantidades, Duration duracao, long erros, long recusadas) {
+        int total = Arrays.stream(quantidades).sum();
+        long[] todas = new long[total];
+        int posicao = 0;
+        for (int c = 0; c < latencias.length; c++) {
+            if (latencias[c] != null) {
+                System.arraycopy(latencias[c], 0, todas, posicao, quantidades[c]);
+                posicao += quantidades[c];
+            }
+        }
+        Arrays.sort(todas, 0, posicao);
+        System.out.printf("Requisicoes: %d  (%.1f req/s)  erros: %d  recusadas (429): %d%n",
+                posicao, posicao / (double) duracao.toSeconds(), erros, recusadas);
+        if (posicao > 0) {
+            System.out.printf("Latencia ms:  p50 %.2f  p99 %.2f  max %.2f%n",
+                    percentil(todas, posicao, 0.50), percentil(todas, posicao, 0.99), todas[posicao - 1] / 1e6);
+        }
+    }
+
+    private static double percentil(long[] ordenadas, int quantidade, double fracao) {
+        int indice = Math.min(quantidade - 1, (int) Math.ceil(fracao * quantidade) - 1);
+        return ordenadas[Math.max(0, indice)] / 1e6;
+    }
+
+}
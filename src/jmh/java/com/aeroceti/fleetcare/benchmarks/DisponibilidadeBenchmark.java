@@ -0,0 +1,138 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.benchmarks;
+
+import com.aeroceti.fleetcare.dataTransfers.VeiculoDisponivelDTO;
+import com.aeroceti.fleetcare.model.Veiculo;
+import com.aeroceti.fleetcare.services.DisponibilidadeIndice;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark da consulta de veiculos livres num periodo: indice de
+ * disponibilidade (busca binaria na agenda de cada veiculo) contra a
+ * varredura de todas as locacoes, com 10 mil veiculos e 1 milhao de locacoes.
+ *
+ * O metodo "varredura" reproduz o custo de resolver a consulta lendo todas as
+ * locacoes (como um NOT EXISTS sem indice no banco), para comparacao.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DisponibilidadeBenchmark {
+
+    private static final int VEICULOS = 10_000;
+    private static final int LOCACOES_POR_VEICULO = 100;
+    private static final int CONSULTAS = 1024;
+
+    @Param({"100", "10000"})
+    private int limite;
+
+    private DisponibilidadeIndice indice;
+    private UUID[] ids;
+    private String[] placas;
+    // locacoes para a varredura: indice do veiculo (em ordem de placa), retirada e devolucao (dias)
+    private int[] locacaoVeiculo;
+    private int[] locacaoRetirada;
+    private int[] locacaoDevolucao;
+    private LocalDate[] retiradas;
+    private LocalDate[] devolucoes;
+    private int proxima;
+
+    @Setup
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        LocalDate hoje = LocalDate.now();
+        indice = new DisponibilidadeIndice();
+        ids = new UUID[VEICULOS];
+        placas = new String[VEICULOS];
+        int total = VEICULOS * LOCACOES_POR_VEICULO;
+        locacaoVeiculo = new int[total];
+        locacaoRetirada = new int[total];
+        locacaoDevolucao = new int[total];
+        int n = 0;
+        for (int v = 0; v < VEICULOS; v++) {
+            Veiculo veiculo = new Veiculo(UUID.randomUUID());
+            veiculo.setPlaca(String.format("ABC%04d", v));
+            veiculo.setModelo("Modelo " + (v % 20));
+            indice.atualizar(veiculo);
+            ids[v] = veiculo.getVeiculoID();
+            placas[v] = veiculo.getPlaca();
+            // locacoes de 1 a 7 dias, com intervalos de 0 a 5 dias entre elas
+            LocalDate dia = hoje.plusDays(aleatorio.nextInt(5));
+            for (int i = 0; i < LOCACOES_POR_VEICULO; i++) {
+                LocalDate devolucao = dia.plusDays(1 + aleatorio.nextInt(7));
+                indice.reservar(veiculo.getVeiculoID(), dia, devolucao);
+                locacaoVeiculo[n] = v;
+                locacaoRetirada[n] = (int) dia.toEpochDay();
+                locacaoDevolucao[n] = (int) devolucao.toEpochDay();
+                n++;
+                dia = devolucao.plusDays(aleatorio.nextInt(6));
+            }
+        }
+        // periodos de 1 a 7 dias dentro do horizonte das locacoes (~650 dias)
+        retiradas = new LocalDate[CONSULTAS];
+        devolucoes = new LocalDate[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            retiradas[i] = hoje.plusDays(aleatorio.nextInt(600));
+            devolucoes[i] = retiradas[i].plusDays(1 + aleatorio.nextInt(7));
+        }
+        System.out.printf("%n[%d veiculos, %d locacoes] %d livres no primeiro periodo%n", indice.totalVeiculos(),
+                indice.totalLocacoes(), indice.disponiveis(retiradas[0], devolucoes[0], VEICULOS).size());
+    }
+
+    @Benchmark
+    public List<VeiculoDisponivelDTO> indice() {
+        int i = proxima++ & (CONSULTAS - 1);
+        return indice.disponiveis(retiradas[i], devolucoes[i], limite);
+    }
+
+    @Benchmark
+    public List<VeiculoDisponivelDTO> varredura() {
+        int i = proxima++ & (CONSULTAS - 1);
+        int inicio = (int) retiradas[i].toEpochDay();
+        int fim = (int) devolucoes[i].toEpochDay();
+        boolean[] ocupado = new boolean[VEICULOS];
+        for (int l = 0; l < locacaoVeiculo.length; l++) {
+            if (locacaoRetirada[l] < fim && locacaoDevolucao[l] > inicio) {
+                ocupado[locacaoVeiculo[l]] = true;
+            }
+        }
+        List<VeiculoDisponivelDTO> lista = new ArrayList<>(Math.min(limite, VEICULOS));
+        for (int v = 0; v < VEICULOS && lista.size() < limite; v++) {
+            if (!ocupado[v]) {
+                lista.add(new VeiculoDisponivelDTO(ids[v], placas[v], "", ""));
+            }
+        }
+        return lista;
+    }
+
+    @Benchmark
+    public boolean reservarELiberar() {
+        int i = proxima++ & (CONSULTAS - 1);
+        UUID veiculoID = ids[i * 7 % VEICULOS];
+        indice.reservar(veiculoID, retiradas[i].plusYears(5), devolucoes[i].plusYears(5));
+        indice.liberar(veiculoID, retiradas[i].plusYears(5), devolucoes[i].plusYears(5));
+        return indice.livre(veiculoID, retiradas[i], devolucoes[i]);
+    }
+
+}
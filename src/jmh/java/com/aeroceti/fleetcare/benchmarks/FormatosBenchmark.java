@@ -0,0 +1,103 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.benchmarks;
+
+import com.aeroceti.fleetcare.model.Usuario;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Benchmark dos formatos da API (JSON, CBOR e Smile): tempo de codificacao e
+ * decodificacao de listas de usuarios.
+ *
+ * O tamanho de cada formato (puro e com GZIP) e impresso no inicio de cada
+ * combinacao de parametros, ja que o JMH mede somente tempo.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FormatosBenchmark {
+
+    private static final TypeReference<List<Usuario>> LISTA = new TypeReference<>() {
+    };
+
+    @Param({"json", "cbor", "smile"})
+    private String formato;
+
+    @Param({"1", "100", "1000"})
+    private int quantidade;
+
+    private ObjectMapper mapper;
+    private List<Usuario> usuarios;
+    private byte[] codificado;
+
+    @Setup
+    public void preparar() throws IOException {
+        Jackson2ObjectMapperBuilder construtor = Jackson2ObjectMapperBuilder.json();
+        mapper = switch (formato) {
+            case "cbor" -> construtor.factory(new CBORFactory()).build();
+            case "smile" -> construtor.factory(new SmileFactory()).build();
+            default -> construtor.build();
+        };
+        usuarios = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Usuario user = new Usuario(UUID.randomUUID());
+            user.setNome("usuario numero " + i + " da silva");
+            user.setEmail("usuario" + i + "@fleetcare.com.br");
+            user.setCpf(String.format("%011d", i));
+            user.setWhatsapp("929" + String.format("%08d", i));
+            user.setDataNascimento("01021990");
+            user.setSexo(i % 2 == 0 ? "F" : "M");
+            user.setPassword("$2a$10$7AHB7ejRZhAPSQz/i2zxduhzZ9YZuHd97QDamCm198MizwjXSeBPW");
+            user.setVersao((long) i);
+            usuarios.add(user);
+        }
+        codificado = mapper.writeValueAsBytes(usuarios);
+        System.out.printf("%n[%s, %d usuarios] %d bytes, %d bytes com gzip%n",
+                formato, quantidade, codificado.length, compactado(codificado));
+    }
+
+    @Benchmark
+    public byte[] codificar() throws IOException {
+        return mapper.writeValueAsBytes(usuarios);
+    }
+
+    @Benchmark
+    public List<Usuario> decodificar() throws IOException {
+        return mapper.readValue(codificado, LISTA);
+    }
+
+    private static int compactado(byte[] dados) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(dados);
+        }
+        return saida.size();
+    }
+
+}
@@ -0,0 +1,72 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.benchmarks;
+
+import com.aeroceti.fleetcare.model.Usuario;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Benchmark da serializacao JSON (Jackson) de um usuario e de listas de usuarios.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SerializacaoBenchmark {
+
+    @Param({"100", "1000"})
+    private int quantidade;
+
+    private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+    private Usuario usuario;
+    private List<Usuario> usuarios;
+
+    @Setup
+    public void preparar() {
+        usuarios = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Usuario user = new Usuario(UUID.randomUUID());
+            user.setNome("usuario numero " + i + " da silva");
+            user.setEmail("usuario" + i + "@fleetcare.com.br");
+            user.setCpf(String.format("%011d", i));
+            user.setWhatsapp("929" + String.format("%08d", i));
+            user.setDataNascimento("01021990");
+            user.setSexo(i % 2 == 0 ? "F" : "M");
+            user.setPassword("$2a$10$7AHB7ejRZhAPSQz/i2zxduhzZ9YZuHd97QDamCm198MizwjXSeBPW");
+            user.setVersao((long) i);
+            usuarios.add(user);
+        }
+        usuario = usuarios.get(0);
+    }
+
+    @Benchmark
+    public byte[] serializarUsuario() throws JsonProcessingException {
+        return jsonMapper.writeValueAsBytes(usuario);
+    }
+
+    @Benchmark
+    public byte[] serializarLista() throws JsonProcessingException {
+        return jsonMapper.writeValueAsBytes(usuarios);
+    }
+
+}
@@ -0,0 +1,121 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.benchmarks;
+
+import com.aeroceti.fleetcare.model.Usuario;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark da construcao e normalizacao do objeto Usuario.
+ *
+ * Os metodos "legado" reproduzem a implementacao anterior (expressoes
+ * regulares a cada chamada) para comparacao com a atual.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UsuarioBenchmark {
+
+    private final String nome = "  maria DAS dores de souza e silva ";
+    private final String cpf = "123.456.789-01";
+    private final String whatsapp = "(92) 9 9123-4567";
+    private final String dataNascimento = "01/02/1990";
+    private final Usuario usuario = criar();
+
+    private Usuario criar() {
+        Usuario user = new Usuario();
+        user.setNome(nome);
+        user.setEmail("maria@fleetcare.com.br");
+        user.setCpf(cpf);
+        user.setWhatsapp(whatsapp);
+        user.setDataNascimento(dataNascimento);
+        user.setSexo("F");
+        return user;
+    }
+
+    @Benchmark
+    public Usuario construirUsuario() {
+        return criar();
+    }
+
+    @Benchmark
+    public String setNome() {
+        usuario.setNome(nome);
+        return usuario.getNome();
+    }
+
+    @Benchmark
+    public String setNomeLegado() {
+        return legadoNome(nome);
+    }
+
+    @Benchmark
+    public String setCpf() {
+        usuario.setCpf(cpf);
+        return usuario.getCpf();
+    }
+
+    @Benchmark
+    public String setCpfLegado() {
+        String limpo = cpf.replaceAll("\\D", "").trim();
+        return limpo.replaceAll("([0-9]{3})([0-9]{3})([0-9]{3})([0-9]{2})", "$1.$2.$3-$4").trim();
+    }
+
+    @Benchmark
+    public String setWhatsapp() {
+        usuario.setWhatsapp(whatsapp);
+        return usuario.getWhatsapp();
+    }
+
+    @Benchmark
+    public String setWhatsappLegado() {
+        String limpo = whatsapp.trim().replaceAll("\\D", "");
+        return limpo.length() == 10 ? limpo.replaceFirst("(\\d{2})(\\d{4})(\\d+)", "($1)$2-$3")
+                : limpo.replaceFirst("(\\d{2})(\\d{1})(\\d{4})(\\d+)", "($1)$2.$3-$4");
+    }
+
+    @Benchmark
+    public String setDataNascimento() {
+        usuario.setDataNascimento(dataNascimento);
+        return usuario.getDataNascimento();
+    }
+
+    @Benchmark
+    public String setDataNascimentoLegado() {
+        String limpo = dataNascimento.replaceAll("\\D", "");
+        return limpo.replaceAll("([0-9]{2})([0-9]{2})([0-9]{4})", "$1/$2/$3").trim();
+    }
+
+    private static String legadoNome(String nome) {
+        String[] partes = nome.split(" ");
+        StringBuilder sb = new StringBuilder();
+        String[] codes = {"da", "de", "do", "di", "dos", "das", "e", "d'"};
+        for (int i = 0; i < partes.length; i++) {
+            String parte = partes[i];
+            if (!parte.trim().equals("")) {
+                if (i != 0 && Arrays.asList(codes).contains(parte.toLowerCase().trim())) {
+                    parte = parte.toLowerCase();
+                } else {
+                    parte = parte.substring(0, 1).toUpperCase() + parte.substring(1).toLowerCase();
+                }
+                sb.append(" ").append(parte.trim());
+            }
+        }
+        return sb.toString().trim();
+    }
+
+}
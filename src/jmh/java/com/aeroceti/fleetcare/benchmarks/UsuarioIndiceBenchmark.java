@@ -0,0 +1,100 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.benchmarks;
+
+import com.aeroceti.fleetcare.dataTransfers.PesquisaUsuarioDTO;
+import com.aeroceti.fleetcare.model.Usuario;
+import com.aeroceti.fleetcare.services.UsuarioIndice;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark da pesquisa de usuarios no indice de n-gramas, com 50 mil
+ * usuarios: inicio de palavra (muitos candidatos), nome completo e nome com
+ * erro de digitacao, sempre com o limite de 20 resultados da API.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UsuarioIndiceBenchmark {
+
+    private static final int USUARIOS = 50_000;
+    private static final int CONSULTAS = 256;
+    private static final String[] NOMES = {"Ana", "Bruno", "Carla", "Daniel", "Eduarda", "Felipe", "Gabriela",
+        "Henrique", "Isabela", "Joao", "Larissa", "Marcos", "Mariana", "Nelson", "Otavio", "Patricia", "Rafael",
+        "Sebastiao", "Tatiana", "Vinicius"};
+    private static final String[] SOBRENOMES = {"Almeida", "Barbosa", "Cardoso", "Conceicao", "Costa", "Dias",
+        "Ferreira", "Gomes", "Lima", "Martins", "Mendes", "Nogueira", "Oliveira", "Pereira", "Ribeiro", "Rocha",
+        "Santos", "Silva", "Souza", "Teixeira"};
+
+    @Param({"prefixo", "nome", "erro"})
+    private String consulta;
+
+    private UsuarioIndice indice;
+    private String[] textos;
+    private int proxima;
+
+    @Setup
+    public void preparar() {
+        Random aleatorio = new Random(42);
+        indice = new UsuarioIndice();
+        String[] cadastrados = new String[USUARIOS];
+        indice.montar(consumidor -> {
+            for (int i = 0; i < USUARIOS; i++) {
+                Usuario user = new Usuario(UUID.randomUUID());
+                user.setNome(NOMES[aleatorio.nextInt(NOMES.length)] + " " + SOBRENOMES[aleatorio.nextInt(SOBRENOMES.length)]
+                        + " " + SOBRENOMES[aleatorio.nextInt(SOBRENOMES.length)]);
+                user.setEmail("usuario" + i + "@fleetcare.com.br");
+                user.setCpf(String.format("%011d", 10_000_000_000L + i * 7919L));
+                user.setVersao(0L);
+                cadastrados[i] = user.getNome();
+                consumidor.accept(user);
+            }
+        });
+        textos = new String[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            String nome = cadastrados[aleatorio.nextInt(USUARIOS)].toLowerCase();
+            textos[i] = switch (consulta) {
+                case "prefixo" -> nome.substring(0, 3);
+                case "nome" -> nome;
+                // uma letra trocada no meio de cada palavra
+                default -> trocarLetras(nome, aleatorio);
+            };
+        }
+        System.out.printf("%n[%d usuarios] \"%s\": %d resultados%n", indice.total(), textos[0],
+                indice.pesquisar(textos[0], 20).size());
+    }
+
+    @Benchmark
+    public List<PesquisaUsuarioDTO> pesquisar() {
+        return indice.pesquisar(textos[proxima++ & (CONSULTAS - 1)], 20);
+    }
+
+    private static String trocarLetras(String nome, Random aleatorio) {
+        StringBuilder texto = new StringBuilder();
+        for (String palavra : nome.split(" ")) {
+            char[] letras = palavra.toCharArray();
+            letras[letras.length / 2] = (char) ('a' + aleatorio.nextInt(26));
+            texto.append(texto.isEmpty() ? "" : " ").append(letras);
+        }
+        return texto.toString();
+    }
+
+}
@@ -0,0 +1,58 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.benchmarks;
+
+import com.aeroceti.fleetcare.dataTransfers.CatalogoErros;
+import com.aeroceti.fleetcare.model.Usuario;
+import com.aeroceti.fleetcare.services.UsuarioService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark da validacao de cadastro (nome e email) do UsuarioService.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidacaoEmailBenchmark {
+
+    @Param({"maria.souza@fleetcare.com.br", "email-invalido@"})
+    private String email;
+
+    private final UsuarioService userService = new UsuarioService();
+    private Usuario usuario;
+
+    @Setup
+    public void preparar() {
+        usuario = new Usuario();
+        usuario.setNome("Maria Souza");
+        usuario.setEmail(email);
+    }
+
+    @Benchmark
+    public CatalogoErros validarCadastro() {
+        return userService.validarCadastro(usuario);
+    }
+
+    @Benchmark
+    public boolean validarEmailLegado() {
+        Pattern pattern = Pattern.compile("^[\\w\\.-]+@([\\w\\-]+\\.)+[A-Z]{2,4}$", Pattern.CASE_INSENSITIVE);
+        return pattern.matcher(usuario.getEmail()).matches();
+    }
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.configurations;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Configuracao do acesso ao banco com replicas de leitura.
+ *
+ * Ativada quando a propriedade fleetcare.replica.urls informa uma ou mais
+ * replicas (separadas por virgula). O primario usa as propriedades
+ * spring.datasource.* e cada replica tem o seu proprio pool, configurado por
+ * fleetcare.replica.* (usuario, senha e fleetcare.replica.hikari.*).
+ * Sem a propriedade, vale o DataSource padrao do Spring Boot.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Configuration
+@ConditionalOnProperty(name = "fleetcare.replica.urls")
+public class DataSourceConfigurations {
+
+    @Value("${fleetcare.replica.urls}")
+    private List<String> urls;
+    @Value("${fleetcare.replica.username:${spring.datasource.username:}}")
+    private String usuario;
+    @Value("${fleetcare.replica.password:${spring.datasource.password:}}")
+    private String senha;
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    private final Logger logger = LoggerFactory.getLogger(DataSourceConfigurations.class);
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties propriedades, Environment ambiente, MeterRegistry registro) {
+        Binder binder = Binder.get(ambiente);
+
+        HikariDataSource primario = propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primario));
+        primario.setPoolName("primario");
+        primario.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registro));
+        pools.add(primario);
+
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(RoteamentoDataSource.PRIMARIO, primario);
+        int replicas = 0;
+        for (String url : urls) {
+            HikariDataSource replica = new HikariDataSource();
+            binder.bind("fleetcare.replica.hikari", Bindable.ofInstance(replica));
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(usuario);
+            replica.setPassword(senha);
+            replica.setDriverClassName(propriedades.determineDriverClassName());
+            replica.setReadOnly(true);
+            replica.setPoolName(RoteamentoDataSource.replica(replicas));
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registro));
+            destinos.put(RoteamentoDataSource.replica(replicas++), replica);
+            pools.add(replica);
+        }
+
+        RoteamentoDataSource roteamento = new RoteamentoDataSource(replicas);
+        roteamento.setTargetDataSources(destinos);
+        roteamento.setDefaultTargetDataSource(primario);
+        roteamento.afterPropertiesSet();
+        logger.info("Banco de dados com " + replicas + " replica(s) de leitura...");
+        return new LazyConnectionDataSourceProxy(roteamento);
+    }
+
+    @PreDestroy
+    public void finalizar() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+}
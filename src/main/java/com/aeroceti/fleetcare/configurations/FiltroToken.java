@@ -0,0 +1,98 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.configurations;
+
+import com.aeroceti.fleetcare.dataTransfers.CatalogoErros;
+import com.aeroceti.fleetcare.services.TokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Filtro de seguranca que autentica a requisicao pelo token de acesso
+ * (Authorization: Bearer), conferindo somente o HMAC do token.
+ *
+ * Requisicoes sem o cabecalho seguem sem autenticacao (as regras do
+ * SecurityConfigurations decidem se podem prosseguir); um token invalido,
+ * expirado ou revogado recebe 401 imediatamente. O login e a renovacao da
+ * sessao nao passam pelo filtro: sao as rotas usadas justamente quando o token
+ * de acesso expirou, e o cliente pode continuar enviando o token antigo.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public class FiltroToken extends OncePerRequestFilter {
+
+    private static final String PREFIXO = "Bearer ";
+    private static final List<SimpleGrantedAuthority> PERFIS = List.of(new SimpleGrantedAuthority("ROLE_USUARIO"));
+    // login e renovacao: nao exigem nem conferem o token de acesso
+    private static final RequestMatcher SEM_TOKEN = new OrRequestMatcher(
+            new AntPathRequestMatcher("/api/v1/usuario/senha/**"),
+            new AntPathRequestMatcher("/api/v1/usuario/renovar/**"));
+
+    private final TokenService tokenService;
+    private final ObjectMapper jsonMapper;
+
+    public FiltroToken(TokenService tokenService, ObjectMapper jsonMapper) {
+        this.tokenService = tokenService;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return SEM_TOKEN.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String cabecalho = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (cabecalho == null || !cabecalho.regionMatches(true, 0, PREFIXO, 0, PREFIXO.length())) {
+            chain.doFilter(request, response);
+            return;
+        }
+        UUID usuarioID = tokenService.validarAcesso(cabecalho.substring(PREFIXO.length()).trim());
+        if (usuarioID == null) {
+            recusar(response, CatalogoErros.TOKEN_INVALIDO);
+            return;
+        }
+        SecurityContext contexto = SecurityContextHolder.createEmptyContext();
+        contexto.setAuthentication(new UsernamePasswordAuthenticationToken(usuarioID.toString(), null, PERFIS));
+        SecurityContextHolder.setContext(contexto);
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Escreve a resposta 401 (application/problem+json) fora do Spring MVC.
+     *
+     * @param response - Resposta HTTP
+     * @param erro - Erro do catalogo
+     * @throws IOException - Falha na escrita da resposta
+     */
+    public void recusar(HttpServletResponse response, CatalogoErros erro) throws IOException {
+        response.setStatus(erro.getStatus().value());
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer");
+        response.setContentType(MediaType.APPLICATION_PROBLEM_JSON_VALUE);
+        jsonMapper.writeValue(response.getOutputStream(), erro.getProblema());
+    }
+
+}
@@ -0,0 +1,58 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.configurations;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Configuracao dos formatos BINARIOS (CBOR e Smile) da API, negociados pelo
+ * cabecalho Accept (respostas) e Content-Type (requisicoes).
+ *
+ * O JSON continua sendo o formato padrao (Accept ausente ou * / *); os
+ * clientes moveis podem pedir application/cbor ou application/x-jackson-smile
+ * para receber respostas menores e mais rapidas de decodificar. Os
+ * conversores usam o mesmo construtor do ObjectMapper JSON do Spring Boot, de
+ * modo que os campos e anotacoes serializados sao os mesmos em todos os
+ * formatos.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Configuration
+public class FormatosConfigurations {
+
+    /**
+     * Substitui o conversor CBOR padrao do Spring MVC (que usa um ObjectMapper
+     * proprio) por um com a configuracao do Spring Boot.
+     *
+     * @param construtor - Construtor do ObjectMapper do Spring Boot
+     * @return Conversor CBOR
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter conversorCbor(Jackson2ObjectMapperBuilder construtor) {
+        ObjectMapper cborMapper = construtor.createXmlMapper(false).factory(new CBORFactory()).build();
+        return new MappingJackson2CborHttpMessageConverter(cborMapper);
+    }
+
+    /**
+     * @param construtor - Construtor do ObjectMapper do Spring Boot
+     * @return Conversor Smile
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter conversorSmile(Jackson2ObjectMapperBuilder construtor) {
+        ObjectMapper smileMapper = construtor.createXmlMapper(false).factory(new SmileFactory()).build();
+        return new MappingJackson2SmileHttpMessageConverter(smileMapper);
+    }
+
+}
@@ -0,0 +1,78 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.configurations;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource que direciona as conexoes para o banco PRIMARIO ou para as REPLICAS.
+ *
+ * Transacoes somente leitura (readOnly) vao para as replicas, em rodizio; as
+ * demais (e o acesso fora de transacao) vao para o primario. Deve ser usado
+ * atras de um LazyConnectionDataSourceProxy, para que a conexao so seja obtida
+ * quando a transacao ja declarou se e somente leitura. Os bancos sao
+ * registrados com as chaves PRIMARIO e replica(indice), por quem cria o
+ * DataSource (setTargetDataSources e setDefaultTargetDataSource).
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public class RoteamentoDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARIO = "primario";
+    private static final ThreadLocal<Boolean> forcarPrimario = new ThreadLocal<>();
+
+    private final String[] replicas;
+    private final AtomicInteger proxima = new AtomicInteger();
+
+    public RoteamentoDataSource(int totalReplicas) {
+        this.replicas = new String[totalReplicas];
+        for (int i = 0; i < totalReplicas; i++) {
+            this.replicas[i] = replica(i);
+        }
+    }
+
+    /**
+     * @param indice - Posicao da replica (a partir de zero)
+     * @return Chave com que a replica e registrada nos destinos
+     */
+    public static String replica(int indice) {
+        return "replica-" + (indice + 1);
+    }
+
+    /**
+     * Executa uma consulta no banco PRIMARIO, mesmo dentro de uma transacao
+     * somente leitura (leitura da propria escrita, antes que a replica alcance).
+     *
+     * @param consulta - Consulta a executar
+     * @return Resultado da consulta
+     */
+    public static <T> T noPrimario(Supplier<T> consulta) {
+        Boolean anterior = forcarPrimario.get();
+        forcarPrimario.set(Boolean.TRUE);
+        try {
+            return consulta.get();
+        } finally {
+            if (anterior == null) {
+                forcarPrimario.remove();
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (replicas.length == 0 || forcarPrimario.get() != null
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return PRIMARIO;
+        }
+        return replicas[Math.floorMod(proxima.getAndIncrement(), replicas.length)];
+    }
+
+}
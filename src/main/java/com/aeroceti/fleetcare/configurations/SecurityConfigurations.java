@@ -6,22 +6,49 @@
  */
 package com.aeroceti.fleetcare.configurations;
 
+import com.aeroceti.fleetcare.dataTransfers.CatalogoErros;
 import com.aeroceti.fleetcare.services.CustomAccessDeniedHandler;
+import com.aeroceti.fleetcare.services.TokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.access.AccessDeniedHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.header.writers.CacheControlHeadersWriter;
+import org.springframework.security.web.header.writers.DelegatingRequestMatcherHeaderWriter;
+import org.springframework.security.web.header.writers.StaticHeadersWriter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.NegatedRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 
 /**
  * Configuracao do Security Sprint.
  *
  * Esta classe reconfigura o comportamento padrao do Spring Security.
  *
+ * A autenticacao e feita pelo token de acesso emitido no login (FiltroToken),
+ * sem sessao no servidor. Por padrao a API continua aberta; com a propriedade
+ * fleetcare.token.exigido=true as rotas /api/** (exceto login e renovacao)
+ * passam a exigir o token.
+ *
+ * As consultas de usuarios com ETag saem com Cache-Control "no-cache, private":
+ * o cliente guarda a resposta e a revalida com If-None-Match (304). As demais
+ * rotas mantem o padrao do Spring Security (no-store).
+ *
  * @author Sergio Murilo - smurilo at Gmail.com
  * @version 1.0
  */
@@ -29,16 +56,33 @@ import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 @EnableWebSecurity
 public class SecurityConfigurations {
 
+    // consultas respondidas com ETag (revalidadas pelo If-None-Match)
+    private static final RequestMatcher CONSULTAS_COM_ETAG = new OrRequestMatcher(
+            new AntPathRequestMatcher("/api/v1/usuario/listar/{ordenar:true|false}", HttpMethod.GET.name()),
+            new AntPathRequestMatcher("/api/v1/usuario/listar/pagina", HttpMethod.GET.name()),
+            new AntPathRequestMatcher("/api/v1/usuario/buscar/*", HttpMethod.GET.name()),
+            new AntPathRequestMatcher("/api/v1/usuario/buscarID/*", HttpMethod.GET.name()));
+
+    @Value("${fleetcare.token.exigido:false}")
+    private boolean tokenExigido;
+
+    private final Logger logger = LoggerFactory.getLogger(SecurityConfigurations.class);
+
     @Bean
-    public SecurityFilterChain filterChainAPI(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChainAPI(HttpSecurity http, TokenService tokenService, ObjectMapper jsonMapper) throws Exception {
+        FiltroToken filtroToken = new FiltroToken(tokenService, jsonMapper);
         // reconfigura o comportamento padrao de seguranca:
-        http.authorizeHttpRequests(request -> request
-                .requestMatchers("/", "/login", "/logout", "/dashboard",
-                        "/api/v1/usuario/email/**", "/api/v1/usuario/senha/**"
-                ).permitAll()
-                .anyRequest().permitAll() //.authenticated() 
-
-                ).csrf(t -> {
+        http.authorizeHttpRequests(request -> {
+            request.requestMatchers("/", "/login", "/logout", "/dashboard", "/dashboard/indicadores", "/dashboard/eventos",
+                    "/api/v1/usuario/email/**", "/api/v1/usuario/senha/**", "/api/v1/usuario/renovar/**",
+                    "/actuator/health", "/actuator/prometheus"
+            ).permitAll();
+            // com fleetcare.token.exigido=true a API so aceita requisicoes com token de acesso:
+            if (tokenExigido) {
+                request.requestMatchers("/api/**").authenticated();
+            }
+            request.anyRequest().permitAll();
+        }).csrf(t -> {
                     t.disable();
                 })
                 
@@ -50,17 +94,70 @@ public class SecurityConfigurations {
                         -> logout.logoutRequestMatcher(new AntPathRequestMatcher("/logout")).permitAll()
                         .logoutSuccessUrl("/login")
                 )
-                .exceptionHandling(ehc -> ehc.accessDeniedHandler(accessDeniedHandler()));
+                // consultas com ETag podem ficar no cache do cliente (sem o no-store padrao):
+                .headers(cabecalhos -> cabecalhos.cacheControl(cache -> cache.disable())
+                        .addHeaderWriter(new DelegatingRequestMatcherHeaderWriter(CONSULTAS_COM_ETAG,
+                                new StaticHeadersWriter(HttpHeaders.CACHE_CONTROL, "no-cache, private")))
+                        .addHeaderWriter(new DelegatingRequestMatcherHeaderWriter(
+                                new NegatedRequestMatcher(CONSULTAS_COM_ETAG), new CacheControlHeadersWriter())))
+                // sem sessao no servidor: cada requisicao traz o seu token (Authorization: Bearer)
+                .sessionManagement(sessao -> sessao.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(filtroToken, UsernamePasswordAuthenticationFilter.class)
+                .exceptionHandling(ehc -> ehc.accessDeniedHandler(accessDeniedHandler())
+                        .authenticationEntryPoint((requisicao, resposta, erro)
+                                -> filtroToken.recusar(resposta, CatalogoErros.TOKEN_AUSENTE)));
 
         return http.build();
     }
 
+    /**
+     * Codificador de senhas: BCrypt com o custo configurado ou calibrado na
+     * inicializacao, dentro de um DelegatingPasswordEncoder ({bcrypt}hash).
+     *
+     * Os hashes antigos (sem o prefixo) continuam conferindo pelo BCrypt; o
+     * upgradeEncoding indica os hashes com algoritmo ou custo diferentes do
+     * atual, que sao recodificados no login (SenhaService).
+     *
+     * @param custo - Custo (log2 das rodadas) fixo; 0 para calibrar
+     * @param alvo - Tempo alvo de um hash na calibracao (milissegundos)
+     * @param custoMinimo - Menor custo aceito na calibracao
+     * @param custoMaximo - Maior custo aceito na calibracao
+     * @return PasswordEncoder da aplicacao
+     */
     @Bean
-    public PasswordEncoder getPasswordEncoder() {
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+    public PasswordEncoder getPasswordEncoder(@Value("${fleetcare.senha.custo:0}") int custo,
+            @Value("${fleetcare.senha.alvo:250}") long alvo,
+            @Value("${fleetcare.senha.custo-minimo:10}") int custoMinimo,
+            @Value("${fleetcare.senha.custo-maximo:16}") int custoMaximo) {
+        int custoAtual = custo > 0 ? custo : calibrarCusto(alvo, custoMinimo, custoMaximo);
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(custoAtual);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
         return encoder;
     }
 
+    // maior custo cujo tempo estimado nao passa do alvo (cada +1 no custo dobra o tempo)
+    private int calibrarCusto(long alvo, int custoMinimo, int custoMaximo) {
+        BCryptPasswordEncoder medidor = new BCryptPasswordEncoder(custoMinimo);
+        for (int i = 0; i < 3; i++) {
+            medidor.encode("aquecimento");
+        }
+        long menor = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long inicio = System.nanoTime();
+            medidor.encode("calibracao");
+            menor = Math.min(menor, System.nanoTime() - inicio);
+        }
+        double estimado = menor / 1_000_000.0;
+        int custo = custoMinimo;
+        while (custo < custoMaximo && estimado * 2 <= alvo) {
+            custo++;
+            estimado *= 2;
+        }
+        logger.info("BCrypt calibrado: custo " + custo + " (~" + Math.round(estimado) + " ms por hash, alvo " + alvo + " ms)");
+        return custo;
+    }
+
     @Bean
     public AccessDeniedHandler accessDeniedHandler() {
         return new CustomAccessDeniedHandler();
@@ -0,0 +1,65 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.configurations;
+
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuracao das threads de execucao da aplicacao.
+ *
+ * Por padrao as requisicoes rodam no pool de threads do Tomcat e o trabalho
+ * assincrono (@Async e respostas em fluxo) no executor padrao do Spring Boot.
+ * Com a propriedade fleetcare.threads.virtuais=true, ambos passam a usar uma
+ * thread VIRTUAL por tarefa (Java 21), de modo que uma requisicao parada no
+ * JDBC ou na fila do BCrypt nao ocupa uma thread do sistema operacional.
+ *
+ * Para localizar trechos que prendem a thread virtual na thread portadora
+ * (pinning), rode com -Djdk.tracePinnedThreads=short.
+ *
+ * As tarefas agendadas (@Scheduled) rodam no agendador padrao do Spring Boot.
+ *
+ * OBS: o executor do Tomcat so e trocado no servidor embutido; num Tomcat
+ * externo (deploy do WAR) vale a configuracao do proprio servidor.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class ThreadsConfigurations {
+
+    private final Logger logger = LoggerFactory.getLogger(ThreadsConfigurations.class);
+
+    @Bean
+    @ConditionalOnProperty(name = "fleetcare.threads.virtuais", havingValue = "true")
+    public TomcatProtocolHandlerCustomizer<?> executorTomcatVirtual() {
+        logger.info("Requisicoes HTTP atendidas por threads VIRTUAIS...");
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+                  AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    @ConditionalOnProperty(name = "fleetcare.threads.virtuais", havingValue = "true")
+    public AsyncTaskExecutor executorAssincronoVirtual() {
+        logger.info("Tarefas assincronas (@Async e fluxos) executadas por threads VIRTUAIS...");
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+}
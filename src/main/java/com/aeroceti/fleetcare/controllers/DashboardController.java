@@ -6,12 +6,24 @@
  */
 package com.aeroceti.fleetcare.controllers;
 
+import com.aeroceti.fleetcare.dataTransfers.CatalogoErros;
+import com.aeroceti.fleetcare.dataTransfers.IndicadoresDTO;
+import com.aeroceti.fleetcare.services.ManutencaoAgenda;
+import com.aeroceti.fleetcare.services.PainelEventos;
+import com.aeroceti.fleetcare.services.PainelIndicadores;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 /**
  * REST Controller para a inicializacao do sistema.
@@ -23,6 +35,16 @@ import org.springframework.web.bind.annotation.RequestMapping;
 @RequestMapping
 public class DashboardController {
 
+    @Autowired
+    private ManutencaoAgenda agendaManutencao;
+    @Autowired
+    private PainelIndicadores painelIndicadores;
+    @Autowired
+    private PainelEventos painelEventos;
+
+    @Value("${fleetcare.painel.eventos.retry-after:5}")
+    private long retryAfter;
+
     Logger logger = LoggerFactory.getLogger(DashboardController.class);
     
     @GetMapping("/")
@@ -38,12 +60,32 @@ public class DashboardController {
         return "login";
     }
 
+    // o resumo da manutencao e os indicadores vem da memoria (O(1)), sem consulta ao banco
     @GetMapping("/dashboard")
-    public String getDashboard(){
+    public String getDashboard(Model model){
+        model.addAttribute("manutencao", agendaManutencao.resumo());
+        model.addAttribute("indicadores", painelIndicadores.indicadores());
         logger.info("Redirecionando view para Dashboard...");
         return "dashboard";
     }
 
+    @GetMapping("/dashboard/indicadores")
+    @ResponseBody
+    public IndicadoresDTO getIndicadores(){
+        return painelIndicadores.indicadores();
+    }
+
+    // fluxo de alteracoes (Server-Sent Events): a resposta continua aberta, escrita pelo PainelEventos
+    @GetMapping("/dashboard/eventos")
+    public ResponseEntity<?> getEventos(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!painelEventos.conectar(request, response)) {
+            logger.info("Painel recusado: " + CatalogoErros.PAINEL_LOTADO.getDetalhe());
+            return CatalogoErros.PAINEL_LOTADO.resposta(retryAfter);
+        }
+        logger.info("Painel conectado ao fluxo de eventos...");
+        return null;
+    }
+
     @GetMapping("/403erro")
     public String getErrorPage403(){
         logger.info("Redirecionando view para Pagina de Erro 403...");
@@ -0,0 +1,89 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.controllers;
+
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import com.aeroceti.fleetcare.dataTransfers.LocacaoDTO;
+import com.aeroceti.fleetcare.services.LocacaoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Classe REST Controller para o objeto Locacao.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/api/v1/locacao/")
+public class LocacaoController {
+
+    @Autowired
+    private LocacaoService locacaoService;
+
+    private final Logger logger = LoggerFactory.getLogger(LocacaoController.class);
+
+    /**
+     * Loca um veiculo para um usuario no periodo informado (retirada
+     * inclusive, devolucao exclusive). Responde 409 se o veiculo estiver
+     * ocupado em qualquer dia do periodo.
+     *
+     * @param dados - veiculoID, usuarioID, retirada e devolucao (AAAA-MM-DD)
+     * @return Objeto Locacao gravado ou mensagem de erro
+     */
+    @PutMapping("/cadastrar")
+    public ResponseEntity<?> cadastrarLocacao(@RequestBody LocacaoDTO dados) {
+        logger.info("Requisicao no LocacaoController para ativar servico ...");
+        return locacaoService.locar(dados);
+    }
+
+    /**
+     * Busca uma locacao pelo ID.
+     *
+     * @param locacaoID - ID da locacao
+     * @return ResponseEntity - Mensagem de Erro ou Objeto Locacao
+     */
+    @GetMapping("/buscarID/{locacaoID}")
+    public ResponseEntity<?> buscarPeloID(@PathVariable UUID locacaoID) {
+        logger.info("Requisicao no LocacaoController para ativar servico ...");
+        return locacaoService.selecionar(locacaoID);
+    }
+
+    /**
+     * Locacoes de um usuario, da mais recente para a mais antiga.
+     *
+     * @param usuarioID - ID do usuario
+     * @return ResponseEntity com um Array de locacoes
+     */
+    @GetMapping("/usuario/{usuarioID}")
+    public ResponseEntity<?> listarPorUsuario(@PathVariable UUID usuarioID) {
+        logger.info("Requisicao no LocacaoController para ativar servico ...");
+        return locacaoService.listarPorUsuario(usuarioID);
+    }
+
+    /**
+     * CANCELAR uma locacao, liberando o periodo do veiculo.
+     *
+     * @param locacaoID - ID da locacao a ser cancelada
+     * @return ResponseEntity - Contendo uma mensagem de erro ou sucesso
+     */
+    @DeleteMapping("/cancelar/{locacaoID}")
+    public ResponseEntity<?> cancelarLocacao(@PathVariable UUID locacaoID) {
+        logger.info("Requisicao no LocacaoController para ativar servico ...");
+        return locacaoService.cancelar(locacaoID);
+    }
+
+}
@@ -0,0 +1,151 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.controllers;
+
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import com.aeroceti.fleetcare.dataTransfers.ManutencaoDTO;
+import com.aeroceti.fleetcare.dataTransfers.PlanoManutencaoDTO;
+import com.aeroceti.fleetcare.services.ManutencaoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Classe REST Controller para os Planos de Manutencao e as Manutencoes.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/api/v1/manutencao/")
+public class ManutencaoController {
+
+    @Autowired
+    private ManutencaoService manutencaoService;
+
+    private final Logger logger = LoggerFactory.getLogger(ManutencaoController.class);
+
+    /**
+     * Cadastra um Plano de Manutencao de um veiculo.
+     *
+     * @param plano - Veiculo, descricao e intervalos (km e/ou dias)
+     * @return Objeto PlanoManutencao gravado ou mensagem de erro
+     */
+    @PutMapping("/plano/cadastrar")
+    public ResponseEntity<?> cadastrarPlano(@RequestBody PlanoManutencaoDTO plano) {
+        logger.info("Requisicao no ManutencaoController para ativar servico ...");
+        return manutencaoService.cadastrarPlano(plano);
+    }
+
+    /**
+     * ARQUIVAR um plano de manutencao: sai da agenda.
+     *
+     * @param planoID - ID do plano a ser processado
+     * @return ResponseEntity - Contendo uma mensagem de erro ou sucesso
+     */
+    @DeleteMapping("/plano/arquivar/{planoID}")
+    public ResponseEntity<?> arquivarPlano(@PathVariable UUID planoID) {
+        logger.info("Requisicao no ManutencaoController para ativar servico ...");
+        return manutencaoService.arquivarPlano(planoID, false);
+    }
+
+    /**
+     * ATIVAR um plano de manutencao arquivado.
+     *
+     * @param planoID - ID do plano a ser processado
+     * @return ResponseEntity - Contendo uma mensagem de erro ou sucesso
+     */
+    @DeleteMapping("/plano/ativar/{planoID}")
+    public ResponseEntity<?> ativarPlano(@PathVariable UUID planoID) {
+        logger.info("Requisicao no ManutencaoController para ativar servico ...");
+        return manutencaoService.arquivarPlano(planoID, true);
+    }
+
+    /**
+     * Planos de manutencao (ativos e arquivados) de um veiculo.
+     *
+     * @param veiculoID - ID do veiculo
+     * @return ResponseEntity com um Array em JSON de objetos PLANOMANUTENCAO
+     */
+    @GetMapping("/planos/{veiculoID}")
+    public ResponseEntity<?> planos(@PathVariable UUID veiculoID) {
+        logger.info("Requisicao no ManutencaoController para ativar servico ...");
+        return manutencaoService.listarPlanos(veiculoID);
+    }
+
+    /**
+     * Registra a execucao de um plano de manutencao.
+     *
+     * @param manutencao - Plano, dia e quilometragem da execucao
+     * @return Objeto Manutencao gravado ou mensagem de erro
+     */
+    @PutMapping("/registrar")
+    public ResponseEntity<?> registrar(@RequestBody ManutencaoDTO manutencao) {
+        logger.info("Requisicao no ManutencaoController para ativar servico ...");
+        return manutencaoService.registrar(manutencao);
+    }
+
+    /**
+     * Historico de manutencoes de um veiculo, da mais recente para a mais antiga.
+     *
+     * @param veiculoID - ID do veiculo
+     * @return ResponseEntity com um Array em JSON de objetos MANUTENCAO
+     */
+    @GetMapping("/historico/{veiculoID}")
+    public ResponseEntity<?> historico(@PathVariable UUID veiculoID) {
+        logger.info("Requisicao no ManutencaoController para ativar servico ...");
+        return manutencaoService.historico(veiculoID);
+    }
+
+    /**
+     * Situacao (em dia, proxima ou vencida) dos planos ativos de um veiculo.
+     *
+     * @param veiculoID - ID do veiculo
+     * @return ResponseEntity - Mensagem de Erro ou Array de planos com a situacao
+     */
+    @GetMapping("/situacao/{veiculoID}")
+    public ResponseEntity<?> situacao(@PathVariable UUID veiculoID) {
+        logger.info("Requisicao no ManutencaoController para ativar servico ...");
+        return manutencaoService.situacao(veiculoID);
+    }
+
+    /**
+     * Planos PROXIMOS do vencimento e VENCIDOS de toda a frota, dos mais
+     * urgentes para os menos urgentes.
+     *
+     * @param situacao - PROXIMA ou VENCIDA (opcional; as duas se omitida)
+     * @param limite - Quantidade maxima de planos (opcional)
+     * @return ResponseEntity - Mensagem de Erro ou Array de pendencias
+     */
+    @GetMapping("/pendentes")
+    public ResponseEntity<?> pendentes(@RequestParam(required = false) String situacao,
+            @RequestParam(required = false) Integer limite) {
+        logger.info("Requisicao no ManutencaoController para ativar servico ...");
+        return manutencaoService.pendentes(situacao, limite);
+    }
+
+    /**
+     * Contagem dos planos ativos por situacao.
+     *
+     * @return ResponseEntity com o resumo da agenda de manutencao
+     */
+    @GetMapping("/resumo")
+    public ResponseEntity<?> resumo() {
+        logger.info("Requisicao no ManutencaoController para ativar servico ...");
+        return manutencaoService.resumo();
+    }
+
+}
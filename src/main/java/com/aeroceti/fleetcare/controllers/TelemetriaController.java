@@ -0,0 +1,62 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.controllers;
+
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import com.aeroceti.fleetcare.dataTransfers.LeituraTelemetriaDTO;
+import com.aeroceti.fleetcare.services.TelemetriaService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Classe REST Controller para a Telemetria dos Veiculos.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/api/v1/telemetria/")
+public class TelemetriaController {
+
+    @Autowired
+    private TelemetriaService telemetriaService;
+
+    private final Logger logger = LoggerFactory.getLogger(TelemetriaController.class);
+
+    /**
+     * Recebe um lote de leituras de telemetria (gravadas de forma assincrona).
+     *
+     * @param leituras - Array de leituras (veiculo, instante, hodometro, combustivel e posicao)
+     * @return ResponseEntity - Mensagem de Erro ou a quantidade de leituras aceitas (202)
+     */
+    @PutMapping("/registrar")
+    public ResponseEntity<?> registrar(@RequestBody List<LeituraTelemetriaDTO> leituras) {
+        return telemetriaService.receber(leituras);
+    }
+
+    /**
+     * Posicao, hodometro e combustivel mais recentes de um veiculo.
+     *
+     * @param veiculoID - ID do veiculo
+     * @return ResponseEntity - Mensagem de Erro ou a ultima leitura do veiculo
+     */
+    @GetMapping("/posicao/{veiculoID}")
+    public ResponseEntity<?> posicao(@PathVariable UUID veiculoID) {
+        logger.info("Requisicao no TelemetriaController para ativar servico ...");
+        return telemetriaService.posicao(veiculoID);
+    }
+
+}
@@ -6,21 +6,30 @@
  */
 package com.aeroceti.fleetcare.controllers;
 
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.InputStream;
 import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
+import com.aeroceti.fleetcare.dataTransfers.RenovacaoDTO;
 import com.aeroceti.fleetcare.model.Usuario;
+import com.aeroceti.fleetcare.services.UsuarioExportacaoService;
+import com.aeroceti.fleetcare.services.UsuarioImportacaoService;
 import com.aeroceti.fleetcare.services.UsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Classe REST Controller para o objeto Usuario.
@@ -34,6 +43,10 @@ public class UsuarioController {
 
     @Autowired
     private final UsuarioService userService;
+    @Autowired
+    private UsuarioImportacaoService importacaoService;
+    @Autowired
+    private UsuarioExportacaoService exportacaoService;
 
     private final Logger logger = LoggerFactory.getLogger(UsuarioController.class);
 
@@ -59,6 +72,23 @@ public class UsuarioController {
         return userService.cadastrar(user);
     }
 
+    /**
+     * Importa usuarios em massa a partir de um arquivo CSV ou NDJSON.
+     *
+     * O arquivo e enviado no corpo da requisicao (Content-Type text/csv ou
+     * application/x-ndjson) e processado em fluxo, sem ser carregado todo na
+     * memoria. Cada linha segue as mesmas regras do cadastro.
+     *
+     * @param tipo - Content-Type do arquivo enviado
+     * @param corpo - Conteudo do arquivo
+     * @return ResponseEntity com o relatorio da importacao (erros por linha)
+     */
+    @PostMapping(value = "/importar", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importarUsuarios(@RequestHeader(HttpHeaders.CONTENT_TYPE) String tipo, InputStream corpo) {
+        logger.info("Requisicao no UserController para ativar servico ...");
+        return importacaoService.importar(corpo, tipo);
+    }
+
     /**
      * Atualiza um Usuario na base de dados.
      *
@@ -68,13 +98,19 @@ public class UsuarioController {
      *
      * Nao necessita ter todas as propriedades na requisicao.
      *
+     * Com o cabecalho If-Match (ETag obtida na consulta do usuario) a
+     * atualizacao so acontece se o usuario nao foi alterado desde entao: a
+     * resposta e 204 com a nova ETag, ou 412 se a versao for outra.
+     *
      * @param user - Objeto Usuario a ser persistido ou atualizado no banco
+     * @param seCoincidir - Cabecalho If-Match (opcional)
      * @return Objeto User, com todos as propriedades (em branco ou preenchidas)
      */
     @PutMapping("/atualizar")
-    public ResponseEntity<?> atualizarUsuario(@RequestBody Usuario user) {
+    public ResponseEntity<?> atualizarUsuario(@RequestBody Usuario user,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String seCoincidir) {
         logger.info("Requisicao no UserController para ativar servico ...");
-        return userService.atualizar(user);
+        return userService.atualizar(user, seCoincidir);
     }
 
     /**
@@ -85,54 +121,156 @@ public class UsuarioController {
      *
      * @param ordenar - Verdadeiro se desejar ordenar os nomes em ordem
      * alfabetica
+     * @param fields - Campos desejados, separados por virgula (opcional)
+     * @param seNenhum - Cabecalho If-None-Match (ETag ja obtida, opcional)
      * @return ResponseEntity com um Array em JSON com varios objetos USUARIO
      */
     @GetMapping("/listar/{ordenar}")
-    public ResponseEntity<?> listagem(@PathVariable boolean ordenar) {
+    public ResponseEntity<?> listagem(@PathVariable boolean ordenar,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String seNenhum) {
         // retorna todos os usuarios cadastrados.
         logger.info("Requisicao no UserController para ativar servico ...");
-        return userService.listar(ordenar);
+        return userService.listar(ordenar, fields, seNenhum);
+    }
+
+    /**
+     * Listagem PAGINADA dos usuarios cadastrados, ordenada por nome.
+     *
+     * Para obter a pagina seguinte, repetir a requisicao passando o valor de
+     * proximoCursor recebido; quando proximoCursor for nulo nao ha mais paginas.
+     *
+     * @param cursor - Cursor da pagina anterior (ausente na primeira pagina)
+     * @param tamanho - Quantidade de registros por pagina (opcional)
+     * @param fields - Campos desejados, separados por virgula (opcional)
+     * @param seNenhum - Cabecalho If-None-Match (ETag ja obtida, opcional)
+     * @return ResponseEntity com um objeto JSON contendo os usuarios da pagina
+     */
+    @GetMapping("/listar/pagina")
+    public ResponseEntity<?> listagemPaginada(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamanho, @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String seNenhum) {
+        logger.info("Requisicao no UserController para ativar servico ...");
+        return userService.listarPagina(cursor, tamanho, fields, seNenhum);
+    }
+
+    /**
+     * Pesquisa de usuarios por trecho do nome, do email ou do CPF.
+     *
+     * Aceita inicio de palavras, trechos e pequenos erros de digitacao; os
+     * resultados vem ordenados do mais para o menos semelhante.
+     *
+     * @param q - Texto a pesquisar
+     * @param limite - Quantidade maxima de resultados (opcional)
+     * @return ResponseEntity com um Array em JSON dos usuarios encontrados
+     */
+    @GetMapping("/pesquisar")
+    public ResponseEntity<?> pesquisarUsuarios(@RequestParam(required = false) String q,
+            @RequestParam(required = false) Integer limite) {
+        logger.info("Requisicao no UserController para ativar servico ...");
+        return userService.pesquisar(q, limite);
+    }
+
+    /**
+     * Listagem de TODOS os usuarios cadastrados enviada em fluxo.
+     *
+     * O Array (JSON, CBOR ou Smile, conforme o Accept) e escrito na resposta a
+     * medida que os registros sao lidos do banco de dados.
+     *
+     * @param aceita - Cabecalho Accept da requisicao
+     * @return ResponseEntity com um Array com varios objetos USUARIO
+     */
+    @GetMapping("/listar/fluxo")
+    public ResponseEntity<StreamingResponseBody> listagemFluxo(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String aceita) {
+        logger.info("Requisicao no UserController para ativar servico ...");
+        return userService.listarFluxo(aceita);
+    }
+
+    /**
+     * Exporta TODOS os usuarios em CSV ou NDJSON (relatorios).
+     *
+     * A resposta e enviada em fluxo (chunked) e compactada com GZIP quando o
+     * cliente informar Accept-Encoding: gzip. A senha nao e exportada.
+     *
+     * @param formato - csv ou ndjson
+     * @param aceita - Cabecalho Accept-Encoding da requisicao
+     * @return ResponseEntity com o arquivo exportado
+     */
+    @GetMapping("/exportar/{formato}")
+    public ResponseEntity<StreamingResponseBody> exportarUsuarios(@PathVariable String formato,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String aceita) {
+        logger.info("Requisicao no UserController para ativar servico ...");
+        return exportacaoService.exportar(formato, aceita != null && aceita.contains("gzip"));
     }
 
     /**
      * Busca todos os dados de um Usuario a partir do seu e-mail
      *
      * @param email endereco de email do usuario
+     * @param fields - Campos desejados, separados por virgula (opcional)
+     * @param seNenhum - Cabecalho If-None-Match (ETag ja obtida, opcional)
      * @return ResponseEntity - Contendo uma mensagem de erro ou um ojbeto JSON
      * contendo todos os dados cadastrados
      */
     @GetMapping("/buscar/{email}")
-    public ResponseEntity<?> buscarPeloEmail(@PathVariable String email) {
+    public ResponseEntity<?> buscarPeloEmail(@PathVariable String email,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String seNenhum) {
         // retorna UM usuario com o email informado.
         logger.info("Requisicao no UserController para ativar servico ...");
-        return userService.selecionar(email);
+        return userService.selecionar(email, fields, seNenhum);
     }
 
     /**
      * Busca todos os dados de um Usuario a partir do seu ID
      *
      * @param usuarioID ID do usuario
+     * @param fields - Campos desejados, separados por virgula (opcional)
+     * @param seNenhum - Cabecalho If-None-Match (ETag ja obtida, opcional)
      * @return ResponseEntity - Contendo uma mensagem de erro ou um ojbeto JSON
      * contendo todos os dados cadastrados
      */
     @GetMapping("/buscarID/{usuarioID}")
-    public ResponseEntity<?> buscarPeloEmail(@PathVariable UUID usuarioID) {
+    public ResponseEntity<?> buscarPeloEmail(@PathVariable UUID usuarioID,
+            @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String seNenhum) {
         // retorna UM usuario com o ID informado.
         logger.info("Requisicao no UserController para ativar servico ...");
-        return userService.selecionar(usuarioID);
+        return userService.selecionar(usuarioID, fields, seNenhum);
     }
 
     /**
      * Valida a senha do usuario para login no sistema
      *
+     * Tentativas em excesso (por email ou por IP) recebem 429 com Retry-After.
+     *
      * @param user - Objeto usuario com o login e senha
+     * @param fields - Campos desejados, separados por virgula (opcional)
+     * @param requisicao - Requisicao HTTP (IP de origem)
      * @return ResponseEntity - Contendo uma mensagem de erro (Login Invalido)
-     * ou um objeto Usuario (usuario logado)
+     * ou a sessao (tokens de acesso e renovacao) com o usuario logado
      */
     @PostMapping("/senha")
-    public ResponseEntity<?> validarSenhas(@RequestBody Usuario user) {
+    public ResponseEntity<?> validarSenhas(@RequestBody Usuario user,
+            @RequestParam(required = false) String fields, HttpServletRequest requisicao) {
+        logger.info("Requisicao no UserController para ativar servico ...");
+        return userService.validarSenha(user.getPassword(), user.getEmail(), fields, requisicao.getRemoteAddr());
+    }
+
+    /**
+     * Renova a sessao (novos tokens de acesso e renovacao) sem a senha.
+     *
+     * @param renovacao - Objeto com o token de renovacao recebido no login
+     * @param fields - Campos desejados, separados por virgula (opcional)
+     * @return ResponseEntity - Contendo uma mensagem de erro (token invalido)
+     * ou a nova sessao
+     */
+    @PostMapping("/renovar")
+    public ResponseEntity<?> renovarSessao(@RequestBody RenovacaoDTO renovacao,
+            @RequestParam(required = false) String fields) {
         logger.info("Requisicao no UserController para ativar servico ...");
-        return userService.validarSenha(user.getPassword(), user.getEmail());
+        return userService.renovarSessao(renovacao.tokenRenovacao(), fields);
     }
 
     /**
@@ -141,7 +279,7 @@ public class UsuarioController {
      * @param usuarioID - ID do usuario a ser processado
      * @return ResponseEntity - Contendo uma mensagem de erro ou sucesso
      */
-    @DeleteMapping("/arquivar/{email}")
+    @DeleteMapping("/arquivar/{usuarioID}")
     public ResponseEntity<?> arquivarUsuario(@PathVariable UUID usuarioID) {
         logger.info("Requisicao no UserController para ativar servico ...");
         return userService.arquivar(usuarioID, 0);
@@ -153,7 +291,7 @@ public class UsuarioController {
      * @param usuarioID - ID do usuario a ser processado
      * @return ResponseEntity - Contendo uma mensagem de erro ou sucesso
      */
-    @DeleteMapping("/ativar/{email}")
+    @DeleteMapping("/ativar/{usuarioID}")
     public ResponseEntity<?> ativarUsuario(@PathVariable UUID usuarioID) {
         logger.info("Requisicao no UserController para ativar servico ...");
         return userService.arquivar(usuarioID, 1);
@@ -165,7 +303,7 @@ public class UsuarioController {
      * @param usuarioID - ID do usuario a ser processado
      * @return ResponseEntity - Contendo uma mensagem de erro ou sucessoo
      */
-    @DeleteMapping("/bloquear/{email}")
+    @DeleteMapping("/bloquear/{usuarioID}")
     public ResponseEntity<?> deleteUsuario(@PathVariable UUID usuarioID) {
         logger.info("Requisicao no UserController para ativar servico ...");
         return userService.arquivar(usuarioID, 2);
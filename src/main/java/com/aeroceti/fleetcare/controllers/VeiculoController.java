@@ -0,0 +1,157 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.controllers;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import com.aeroceti.fleetcare.model.Veiculo;
+import com.aeroceti.fleetcare.services.VeiculoService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Classe REST Controller para o objeto Veiculo.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/api/v1/veiculo/")
+public class VeiculoController {
+
+    @Autowired
+    private VeiculoService veiculoService;
+
+    private final Logger logger = LoggerFactory.getLogger(VeiculoController.class);
+
+    /**
+     * Cadastra um Veiculo na frota.
+     *
+     * @param veiculo - Objeto Veiculo a ser persistido (placa e modelo obrigatorios)
+     * @return Objeto Veiculo gravado ou mensagem de erro
+     */
+    @PutMapping("/cadastrar")
+    public ResponseEntity<?> cadastrarVeiculo(@RequestBody Veiculo veiculo) {
+        logger.info("Requisicao no VeiculoController para ativar servico ...");
+        return veiculoService.cadastrar(veiculo);
+    }
+
+    /**
+     * Atualiza os dados de um Veiculo da frota (pelo veiculoID).
+     *
+     * @param veiculo - Objeto Veiculo com o ID e os novos dados
+     * @return Objeto Veiculo atualizado ou mensagem de erro
+     */
+    @PutMapping("/atualizar")
+    public ResponseEntity<?> atualizarVeiculo(@RequestBody Veiculo veiculo) {
+        logger.info("Requisicao no VeiculoController para ativar servico ...");
+        return veiculoService.atualizar(veiculo);
+    }
+
+    /**
+     * Registra a leitura do hodometro de um veiculo (a quilometragem nunca diminui).
+     *
+     * @param veiculoID - ID do veiculo
+     * @param quilometragem - Leitura atual do hodometro, em km
+     * @return Objeto Veiculo atualizado ou mensagem de erro
+     */
+    @PutMapping("/quilometragem/{veiculoID}")
+    public ResponseEntity<?> registrarQuilometragem(@PathVariable UUID veiculoID,
+            @RequestParam(required = false) Long quilometragem) {
+        logger.info("Requisicao no VeiculoController para ativar servico ...");
+        return veiculoService.registrarQuilometragem(veiculoID, quilometragem);
+    }
+
+    /**
+     * Listagem de TODA a frota, em ordem de placa.
+     *
+     * @return ResponseEntity com um Array em JSON de objetos VEICULO
+     */
+    @GetMapping("/listar")
+    public ResponseEntity<?> listagem() {
+        logger.info("Requisicao no VeiculoController para ativar servico ...");
+        return veiculoService.listar();
+    }
+
+    /**
+     * Busca um veiculo pelo ID.
+     *
+     * @param veiculoID - ID do veiculo
+     * @return ResponseEntity - Mensagem de Erro ou Objeto Veiculo
+     */
+    @GetMapping("/buscarID/{veiculoID}")
+    public ResponseEntity<?> buscarPeloID(@PathVariable UUID veiculoID) {
+        logger.info("Requisicao no VeiculoController para ativar servico ...");
+        return veiculoService.selecionar(veiculoID);
+    }
+
+    /**
+     * Agenda do veiculo: locacoes que terminam depois de hoje.
+     *
+     * @param veiculoID - ID do veiculo
+     * @return ResponseEntity - Mensagem de Erro ou Array de locacoes
+     */
+    @GetMapping("/agenda/{veiculoID}")
+    public ResponseEntity<?> agenda(@PathVariable UUID veiculoID) {
+        logger.info("Requisicao no VeiculoController para ativar servico ...");
+        return veiculoService.agenda(veiculoID);
+    }
+
+    /**
+     * Veiculos ativos LIVRES em todo o periodo, em ordem de placa. O veiculo
+     * fica ocupado da retirada ate o dia anterior a devolucao.
+     *
+     * @param retirada - Primeiro dia do periodo (AAAA-MM-DD)
+     * @param devolucao - Dia da devolucao (AAAA-MM-DD)
+     * @param limite - Quantidade maxima de veiculos (opcional)
+     * @return ResponseEntity - Mensagem de Erro ou Array de veiculos livres
+     */
+    @GetMapping("/disponiveis")
+    public ResponseEntity<?> disponiveis(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate retirada,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate devolucao,
+            @RequestParam(required = false) Integer limite) {
+        logger.info("Requisicao no VeiculoController para ativar servico ...");
+        return veiculoService.disponiveis(retirada, devolucao, limite);
+    }
+
+    /**
+     * ARQUIVAR um veiculo: deixa de ser oferecido para locacao.
+     *
+     * @param veiculoID - ID do veiculo a ser processado
+     * @return ResponseEntity - Contendo uma mensagem de erro ou sucesso
+     */
+    @DeleteMapping("/arquivar/{veiculoID}")
+    public ResponseEntity<?> arquivarVeiculo(@PathVariable UUID veiculoID) {
+        logger.info("Requisicao no VeiculoController para ativar servico ...");
+        return veiculoService.arquivar(veiculoID, false);
+    }
+
+    /**
+     * ATIVAR um veiculo arquivado.
+     *
+     * @param veiculoID - ID do veiculo a ser processado
+     * @return ResponseEntity - Contendo uma mensagem de erro ou sucesso
+     */
+    @DeleteMapping("/ativar/{veiculoID}")
+    public ResponseEntity<?> ativarVeiculo(@PathVariable UUID veiculoID) {
+        logger.info("Requisicao no VeiculoController para ativar servico ...");
+        return veiculoService.arquivar(veiculoID, true);
+    }
+
+}
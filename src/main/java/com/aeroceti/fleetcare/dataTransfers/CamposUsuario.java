@@ -0,0 +1,108 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import com.aeroceti.fleetcare.model.Usuario;
+import com.aeroceti.fleetcare.utilities.NormalizadorDados;
+import jakarta.persistence.Tuple;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Projecao de campos do Usuario (parametro fields= das consultas).
+ *
+ * Somente os campos da lista abaixo podem ser pedidos; a senha nunca faz
+ * parte de uma projecao. O resultado e um Map (na ordem pedida), serializado
+ * pelo Jackson como um objeto JSON so com esses campos.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public final class CamposUsuario {
+
+    public static final Set<String> PERMITIDOS = Set.of(
+            "usuarioID", "nome", "email", "cpf", "whatsapp", "dataNascimento", "sexo", "ativo", "versao");
+
+    private CamposUsuario() {
+    }
+
+    /**
+     * Le a lista de campos separados por virgula.
+     *
+     * @param fields - Valor do parametro fields (nulo ou vazio = entidade completa)
+     * @return Campos pedidos, sem repeticao; vazia se nenhum; NULL se houver campo invalido
+     */
+    public static List<String> ler(String fields) {
+        List<String> campos = new ArrayList<>();
+        if (fields == null || fields.isBlank()) {
+            return campos;
+        }
+        for (String campo : fields.split(",")) {
+            String nome = campo.trim();
+            if (!PERMITIDOS.contains(nome)) {
+                return null;
+            }
+            if (!campos.contains(nome)) {
+                campos.add(nome);
+            }
+        }
+        return campos;
+    }
+
+    /**
+     * Projeta os campos pedidos de um usuario ja carregado (por exemplo, do cache).
+     *
+     * @param user - Usuario
+     * @param campos - Campos pedidos
+     * @return Objeto com os campos pedidos
+     */
+    public static Map<String, Object> projetar(Usuario user, List<String> campos) {
+        Map<String, Object> objeto = new LinkedHashMap<>(campos.size() * 2);
+        for (String campo : campos) {
+            objeto.put(campo, switch (campo) {
+                case "usuarioID" -> user.getUsuarioID();
+                case "nome" -> user.getNome();
+                case "email" -> user.getEmail();
+                case "cpf" -> user.getCpf();
+                case "whatsapp" -> user.getWhatsapp();
+                case "dataNascimento" -> user.getDataNascimento();
+                case "sexo" -> user.getSexo();
+                case "ativo" -> user.isAtivo();
+                default -> user.getVersao();
+            });
+        }
+        return objeto;
+    }
+
+    /**
+     * Projeta os campos pedidos de uma linha (Tuple) consultada no banco,
+     * formatando CPF e telefone como na entidade.
+     *
+     * @param linha - Linha com os campos pedidos (alias = nome do campo)
+     * @param campos - Campos pedidos
+     * @return Objeto com os campos pedidos
+     */
+    public static Map<String, Object> projetar(Tuple linha, List<String> campos) {
+        Map<String, Object> objeto = new LinkedHashMap<>(campos.size() * 2);
+        for (String campo : campos) {
+            Object valor = linha.get(campo);
+            if (valor instanceof String texto) {
+                if (campo.equals("cpf")) {
+                    valor = NormalizadorDados.formatarCPF(texto);
+                } else if (campo.equals("whatsapp")) {
+                    valor = NormalizadorDados.formatarTelefone(texto);
+                }
+            }
+            objeto.put(campo, valor);
+        }
+        return objeto;
+    }
+
+}
@@ -0,0 +1,129 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Catalogo dos erros da API, com codigos estaveis.
+ *
+ * Cada erro tem o seu ProblemaDTO e a sua resposta HTTP montados uma unica vez;
+ * como sao imutaveis, sao compartilhados por todas as requisicoes sem
+ * sincronizacao e sem alocar objetos a cada erro. O formato do corpo e
+ * negociado pelo Accept (JSON como application/problem+json, CBOR ou Smile).
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public enum CatalogoErros {
+
+    // Usuarios:
+    NOME_OBRIGATORIO("USR-001", HttpStatus.BAD_REQUEST, "Dados do usuario invalidos", "NOME precisa ser PREENCHIDO!"),
+    EMAIL_INVALIDO("USR-002", HttpStatus.BAD_REQUEST, "Dados do usuario invalidos", "E-MAIL precisa ser VALIDO!"),
+    EMAIL_OBRIGATORIO("USR-003", HttpStatus.BAD_REQUEST, "Dados do usuario invalidos", "E-MAIL precisa ser INFORMADO!"),
+    SENHA_OBRIGATORIA("USR-004", HttpStatus.BAD_REQUEST, "Dados do usuario invalidos", "SENHA precisa ser informada!"),
+    USUARIO_INEXISTENTE("USR-005", HttpStatus.BAD_REQUEST, "Usuario nao encontrado", "Nao existe usuario com o ID informado!"),
+    EMAIL_NAO_ENCONTRADO("USR-006", HttpStatus.BAD_REQUEST, "Usuario nao encontrado", "Nenhum registro encontrado com o email informado!"),
+    ID_NAO_ENCONTRADO("USR-007", HttpStatus.BAD_REQUEST, "Usuario nao encontrado", "Nenhum registro encontrado com o ID informado!"),
+    EMAIL_DUPLICADO("USR-008", HttpStatus.BAD_REQUEST, "Email duplicado", "Foram encontrados mais de um Usuario com o email informado!"),
+    CURSOR_INVALIDO("USR-009", HttpStatus.BAD_REQUEST, "Parametro invalido", "CURSOR da paginacao invalido!"),
+    PESQUISA_VAZIA("USR-010", HttpStatus.BAD_REQUEST, "Parametro invalido", "Informe o TEXTO a ser pesquisado!"),
+    LINHA_INVALIDA("USR-011", HttpStatus.BAD_REQUEST, "Importacao invalida", "Linha com formato INVALIDO!"),
+    CAMPO_INVALIDO("USR-012", HttpStatus.BAD_REQUEST, "Parametro invalido", "FIELDS contem um campo INVALIDO!"),
+    VERSAO_DIVERGENTE("USR-013", HttpStatus.PRECONDITION_FAILED, "Versao divergente", "If-Match nao corresponde a versao ATUAL do usuario!"),
+
+    // Veiculos:
+    PLACA_INVALIDA("VEI-001", HttpStatus.BAD_REQUEST, "Dados do veiculo invalidos", "PLACA precisa ser VALIDA (ABC1234 ou ABC1D23)!"),
+    MODELO_OBRIGATORIO("VEI-002", HttpStatus.BAD_REQUEST, "Dados do veiculo invalidos", "MODELO precisa ser PREENCHIDO!"),
+    PLACA_DUPLICADA("VEI-003", HttpStatus.BAD_REQUEST, "Placa duplicada", "Ja existe um veiculo com a PLACA informada!"),
+    VEICULO_INEXISTENTE("VEI-004", HttpStatus.BAD_REQUEST, "Veiculo nao encontrado", "Nao existe veiculo com o ID informado!"),
+    QUILOMETRAGEM_INVALIDA("VEI-005", HttpStatus.BAD_REQUEST, "Quilometragem invalida", "A QUILOMETRAGEM nao pode ser negativa nem inferior a ATUAL do veiculo!"),
+
+    // Locacoes:
+    LOCACAO_INCOMPLETA("LOC-001", HttpStatus.BAD_REQUEST, "Dados da locacao invalidos", "Informe o VEICULO, o USUARIO e as datas de RETIRADA e DEVOLUCAO!"),
+    PERIODO_INVALIDO("LOC-002", HttpStatus.BAD_REQUEST, "Periodo invalido", "A DEVOLUCAO deve ser posterior a RETIRADA, que nao pode ser anterior a HOJE!"),
+    VEICULO_INDISPONIVEL("LOC-003", HttpStatus.CONFLICT, "Veiculo indisponivel", "O VEICULO esta ARQUIVADO ou ja locado no periodo informado!"),
+    LOCATARIO_INVALIDO("LOC-004", HttpStatus.BAD_REQUEST, "Usuario invalido", "Usuario INEXISTENTE ou ARQUIVADO nao pode locar veiculos!"),
+    LOCACAO_INEXISTENTE("LOC-005", HttpStatus.BAD_REQUEST, "Locacao nao encontrada", "Nao existe locacao com o ID informado!"),
+
+    // Manutencoes:
+    PLANO_INCOMPLETO("MAN-001", HttpStatus.BAD_REQUEST, "Dados do plano invalidos", "Informe o VEICULO, a DESCRICAO e ao menos um INTERVALO (km ou dias) positivo!"),
+    PLANO_INEXISTENTE("MAN-002", HttpStatus.BAD_REQUEST, "Plano nao encontrado", "Nao existe plano de manutencao com o ID informado!"),
+    MANUTENCAO_INVALIDA("MAN-003", HttpStatus.BAD_REQUEST, "Dados da manutencao invalidos", "Informe a DATA (ate hoje, nao anterior a ultima) e a QUILOMETRAGEM (nao inferior a ultima) da manutencao!"),
+    SITUACAO_INVALIDA("MAN-004", HttpStatus.BAD_REQUEST, "Parametro invalido", "SITUACAO deve ser PROXIMA ou VENCIDA!"),
+    AGENDA_MONTANDO("MAN-005", HttpStatus.SERVICE_UNAVAILABLE, "Agenda em montagem", "A agenda de manutencao esta sendo montada, tente novamente em instantes!"),
+
+    // Telemetria:
+    LOTE_TELEMETRIA_INVALIDO("TEL-001", HttpStatus.BAD_REQUEST, "Lote de telemetria invalido", "Envie de 1 ate o maximo permitido de LEITURAS por lote!"),
+    TELEMETRIA_SOBRECARGA("TEL-002", HttpStatus.TOO_MANY_REQUESTS, "Fila de telemetria cheia", "A fila de gravacao de telemetria esta CHEIA, reenvie o lote em instantes!"),
+    TELEMETRIA_CARREGANDO("TEL-003", HttpStatus.SERVICE_UNAVAILABLE, "Telemetria em carga", "O estado de telemetria da frota esta sendo carregado, tente novamente em instantes!"),
+    SEM_TELEMETRIA("TEL-004", HttpStatus.BAD_REQUEST, "Sem telemetria", "Nao existe leitura de telemetria para o veiculo informado!"),
+
+    // Login:
+    LOGIN_EMAIL("AUT-001", HttpStatus.BAD_REQUEST, "Login invalido", "Validacao incorreta: Confirme o email informado!"),
+    LOGIN_SENHA("AUT-002", HttpStatus.BAD_REQUEST, "Login invalido", "Validacao incorreta: Senha nao confere!"),
+    LOGIN_LIMITADO("AUT-003", HttpStatus.TOO_MANY_REQUESTS, "Tentativas excedidas", "Muitas tentativas de login, aguarde para tentar novamente!"),
+    LOGIN_INATIVO("AUT-004", HttpStatus.BAD_REQUEST, "Login invalido", "Usuario ARQUIVADO: acesso nao permitido!"),
+    TOKEN_INVALIDO("AUT-005", HttpStatus.UNAUTHORIZED, "Token invalido", "Token de acesso INVALIDO, EXPIRADO ou REVOGADO!"),
+    TOKEN_AUSENTE("AUT-006", HttpStatus.UNAUTHORIZED, "Nao autenticado", "Informe o token de acesso (Authorization: Bearer)!"),
+    RENOVACAO_INVALIDA("AUT-007", HttpStatus.UNAUTHORIZED, "Token invalido", "Token de renovacao INVALIDO, EXPIRADO ou REVOGADO!"),
+
+    // Banco de dados e sistema:
+    ESTADO_INCORRETO("BD-001", HttpStatus.BAD_REQUEST, "Alteracao nao realizada", "Alteracao nao realizada: ESTADO incorreto do Objeto!"),
+    BANCO_REINICIANDO("BD-002", HttpStatus.BAD_REQUEST, "Banco de dados indisponivel", "Falha na reinicializacao do Banco de Dados... Forcando RELOAD!"),
+    INTEGRIDADE("BD-003", HttpStatus.BAD_REQUEST, "Violacao de integridade", "Violacao de Integridade, PARAMETRO EXISTENTE no banco de dados!"),
+    SOBRECARGA("SIS-001", HttpStatus.TOO_MANY_REQUESTS, "Servico sobrecarregado", "Servico SOBRECARREGADO, tente novamente em instantes!"),
+    PAINEL_LOTADO("SIS-002", HttpStatus.SERVICE_UNAVAILABLE, "Painel lotado", "Limite de paineis conectados atingido, tente novamente em instantes!");
+
+    private static final String TIPO = "urn:fleetcare:erro:";
+
+    private final String codigo;
+    private final HttpStatus status;
+    private final ProblemaDTO problema;
+    private final ResponseEntity<ProblemaDTO> resposta;
+
+    CatalogoErros(String codigo, HttpStatus status, String titulo, String detalhe) {
+        this.codigo = codigo;
+        this.status = status;
+        this.problema = new ProblemaDTO(TIPO + codigo, titulo, status.value(), detalhe, codigo);
+        this.resposta = ResponseEntity.status(status).body(problema);
+    }
+
+    public String getCodigo() {
+        return codigo;
+    }
+
+    public HttpStatus getStatus() {
+        return status;
+    }
+
+    public String getDetalhe() {
+        return problema.detail();
+    }
+
+    public ProblemaDTO getProblema() {
+        return problema;
+    }
+
+    /**
+     * @return Resposta HTTP pre-alocada (imutavel) com o ProblemaDTO deste erro
+     */
+    public ResponseEntity<ProblemaDTO> resposta() {
+        return resposta;
+    }
+
+    /**
+     * @param retryAfter - Tempo, em segundos, para o cliente tentar novamente
+     * @return Resposta HTTP com o ProblemaDTO deste erro e o cabecalho Retry-After
+     */
+    public ResponseEntity<ProblemaDTO> resposta(long retryAfter) {
+        return ResponseEntity.status(status).header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter)).body(problema);
+    }
+
+}
@@ -0,0 +1,17 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+/**
+ * RECORD para apresentar o erro de uma linha na importacao de usuarios.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record ErroImportacaoDTO(int linha, String codigo, String mensagem) {
+
+}
@@ -0,0 +1,22 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * RECORD com uma alteracao enviada aos paineis conectados (Server-Sent
+ * Events): a entidade (usuario ou veiculo), o tipo da alteracao e o ID. Os
+ * dados pessoais nao sao enviados; o painel consulta o que precisar.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record EventoPainelDTO(String entidade, String tipo, UUID id, Instant instante) {
+
+}
@@ -0,0 +1,21 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import java.util.List;
+
+/**
+ * RECORD para apresentar o relatorio de uma importacao de usuarios.
+ *
+ * A lista de erros e limitada; o total de linhas recusadas esta em rejeitadas.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record ImportacaoDTO(int processadas, int importadas, int rejeitadas, List<ErroImportacaoDTO> erros) {
+
+}
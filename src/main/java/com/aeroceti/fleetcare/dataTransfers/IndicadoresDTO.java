@@ -0,0 +1,23 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * RECORD com os indicadores do painel (dashboard): usuarios ativos, arquivados
+ * e cadastrados no dia informado. Ate a primeira conferencia com o banco,
+ * pronto e FALSE e os numeros sao parciais.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record IndicadoresDTO(long usuariosAtivos, long usuariosArquivados, long usuariosCadastradosHoje,
+        LocalDate dia, Instant conferido, boolean pronto) {
+
+}
@@ -0,0 +1,22 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * RECORD com uma leitura de telemetria enviada pelo veiculo: instante (ISO-8601,
+ * em UTC), hodometro (km), nivel de combustivel (% do tanque) e posicao (graus).
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record LeituraTelemetriaDTO(UUID veiculoID, Instant instante, Long quilometragem, Float combustivel,
+        Double latitude, Double longitude) {
+
+}
@@ -0,0 +1,21 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * RECORD com os dados de uma nova locacao: veiculo, usuario e o periodo
+ * (retirada inclusive, devolucao exclusive, no formato AAAA-MM-DD).
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record LocacaoDTO(UUID veiculoID, UUID usuarioID, LocalDate retirada, LocalDate devolucao) {
+
+}
@@ -0,0 +1,21 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * RECORD com os dados da execucao de um plano de manutencao: dia (AAAA-MM-DD),
+ * quilometragem do veiculo e observacao (opcional).
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record ManutencaoDTO(UUID planoID, LocalDate data, Long quilometragem, String observacao) {
+
+}
@@ -6,32 +6,24 @@
  */
 package com.aeroceti.fleetcare.dataTransfers;
 
-import org.springframework.stereotype.Component;
-
 /**
- * Classe para apresentar mensagens para as requisicoes REST.
+ * RECORD para apresentar mensagens (de sucesso) para as requisicoes REST.
+ *
+ * Imutavel: as mensagens fixas sao pre-alocadas e compartilhadas entre as
+ * requisicoes. Os erros usam o CatalogoErros (ProblemaDTO).
  *
  * @author Sergio Murilo - smurilo at Gmail.com
  * @version 1.0
  */
-@Component
-public class MensagemDTO {
-
-    private String mensagem;
-
-    public MensagemDTO() {
-    }
-
-    public MensagemDTO(String mensagem) {
-        this.mensagem = mensagem;
-    }
-
-    public String getMensagem() {
-        return mensagem;
-    }
-
-    public void setMensagem(String mensagem) {
-        this.mensagem = mensagem;
-    }
+public record MensagemDTO(String mensagem) {
+
+    public static final MensagemDTO USUARIO_ARQUIVADO = new MensagemDTO("Usuario ARQUIVADO no Sistema!");
+    public static final MensagemDTO USUARIO_ATIVADO = new MensagemDTO("Usuario ATIVADO no Sistema!");
+    public static final MensagemDTO USUARIO_DELETADO = new MensagemDTO("Usuario DELETADO do Sistema!");
+    public static final MensagemDTO VEICULO_ARQUIVADO = new MensagemDTO("Veiculo ARQUIVADO na Frota!");
+    public static final MensagemDTO VEICULO_ATIVADO = new MensagemDTO("Veiculo ATIVADO na Frota!");
+    public static final MensagemDTO LOCACAO_CANCELADA = new MensagemDTO("Locacao CANCELADA no Sistema!");
+    public static final MensagemDTO PLANO_ARQUIVADO = new MensagemDTO("Plano de manutencao ARQUIVADO no Sistema!");
+    public static final MensagemDTO PLANO_ATIVADO = new MensagemDTO("Plano de manutencao ATIVADO no Sistema!");
 
 }
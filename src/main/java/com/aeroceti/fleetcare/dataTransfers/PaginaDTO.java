@@ -0,0 +1,23 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import java.util.List;
+
+/**
+ * RECORD para apresentar uma pagina da listagem de usuarios.
+ *
+ * O proximoCursor deve ser enviado na requisicao seguinte para obter a proxima
+ * pagina; quando for nulo a listagem chegou ao fim. Os usuarios sao entidades
+ * completas ou objetos so com os campos pedidos (fields=).
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record PaginaDTO(List<?> usuarios, String proximoCursor) {
+
+}
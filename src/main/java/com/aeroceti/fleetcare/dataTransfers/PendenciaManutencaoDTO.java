@@ -0,0 +1,23 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * RECORD para apresentar um plano de manutencao PROXIMO do vencimento ou
+ * VENCIDO: o veiculo, a quilometragem atual e o proximo vencimento (por km e/ou
+ * por data; nulo se o plano nao vence por aquele criterio).
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record PendenciaManutencaoDTO(UUID planoID, UUID veiculoID, String placa, String descricao,
+        SituacaoManutencao situacao, long quilometragem, Long proximaQuilometragem, LocalDate proximaData) {
+
+}
@@ -0,0 +1,21 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * RECORD com o periodo ocupado por uma locacao (projecao para a montagem do
+ * indice de disponibilidade, sem carregar as entidades).
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record PeriodoLocacaoDTO(UUID veiculoID, LocalDate retirada, LocalDate devolucao) {
+
+}
@@ -0,0 +1,23 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * RECORD com os dados de um novo plano de manutencao: veiculo, descricao e os
+ * intervalos (em km e/ou em dias; ao menos um). A ultima execucao e opcional:
+ * se omitida, vale a quilometragem atual do veiculo e o dia de hoje.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record PlanoManutencaoDTO(UUID veiculoID, String descricao, Integer intervaloKm, Integer intervaloDias,
+        Long ultimaQuilometragem, LocalDate ultimaData) {
+
+}
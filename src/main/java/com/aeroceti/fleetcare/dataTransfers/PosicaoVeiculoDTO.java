@@ -0,0 +1,21 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * RECORD para apresentar a leitura de telemetria mais recente de um veiculo.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record PosicaoVeiculoDTO(UUID veiculoID, Instant instante, long quilometragem, float combustivel,
+        double latitude, double longitude) {
+
+}
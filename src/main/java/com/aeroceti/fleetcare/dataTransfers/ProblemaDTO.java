@@ -0,0 +1,21 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+/**
+ * RECORD para apresentar um erro no formato "Problem Details" (RFC 7807),
+ * enviado como application/problem+json.
+ *
+ * Os campos type, title, status e detail seguem a RFC; codigo e o codigo
+ * estavel do erro no CatalogoErros, para uso pelos clientes da API.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record ProblemaDTO(String type, String title, int status, String detail, String codigo) {
+
+}
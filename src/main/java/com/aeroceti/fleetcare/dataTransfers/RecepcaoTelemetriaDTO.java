@@ -0,0 +1,21 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import java.util.List;
+
+/**
+ * RECORD com o resultado do recebimento de um lote de telemetria: quantidade
+ * de leituras aceitas e as posicoes (a partir de zero) das leituras recusadas
+ * por dados invalidos ou veiculo inexistente.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record RecepcaoTelemetriaDTO(int aceitas, List<Integer> rejeitadas) {
+
+}
@@ -7,11 +7,11 @@
 package com.aeroceti.fleetcare.dataTransfers;
 
 /**
- * RECORD para apresentar mensagens de erro.
+ * RECORD para receber o token de renovacao de uma sessao.
  *
  * @author Sergio Murilo - smurilo at Gmail.com
  * @version 1.0
  */
-public record ExceptionsDTO(String message, String typeError) {
+public record RenovacaoDTO(String tokenRenovacao) {
 
 }
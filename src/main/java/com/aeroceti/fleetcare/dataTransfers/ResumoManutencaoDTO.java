@@ -0,0 +1,20 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import java.time.LocalDate;
+
+/**
+ * RECORD com a contagem dos planos de manutencao ativos por situacao, no dia
+ * informado. Enquanto a agenda e montada, pronto e FALSE e a contagem e parcial.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record ResumoManutencaoDTO(int emDia, int proximas, int vencidas, LocalDate dia, boolean pronto) {
+
+}
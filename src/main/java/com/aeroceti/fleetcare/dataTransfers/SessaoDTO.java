@@ -0,0 +1,21 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+/**
+ * RECORD com a sessao emitida no login (ou na renovacao).
+ *
+ * O tokenAcesso vai no cabecalho Authorization (Bearer) das requisicoes e
+ * expira em expiraEm segundos; o tokenRenovacao obtem uma nova sessao em
+ * /api/v1/usuario/renovar sem informar a senha novamente.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record SessaoDTO(String tokenAcesso, String tokenRenovacao, String tipo, long expiraEm, Object usuario) {
+
+}
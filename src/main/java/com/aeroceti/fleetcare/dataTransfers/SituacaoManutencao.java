@@ -0,0 +1,22 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+/**
+ * Situacao de um plano de manutencao, da menos para a mais urgente: EM_DIA,
+ * PROXIMA (dentro da margem de km ou de dias antes do vencimento) e VENCIDA.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public enum SituacaoManutencao {
+
+    EM_DIA,
+    PROXIMA,
+    VENCIDA
+
+}
@@ -0,0 +1,19 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.dataTransfers;
+
+import java.util.UUID;
+
+/**
+ * RECORD para apresentar um veiculo livre no periodo consultado.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record VeiculoDisponivelDTO(UUID veiculoID, String placa, String marca, String modelo) {
+
+}
@@ -0,0 +1,232 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ *  Objeto base Locacao.
+ *
+ * Esta classe representa a locacao de um Veiculo por um Usuario. O periodo e
+ * semiaberto: o veiculo fica ocupado da data de retirada ate o dia anterior a
+ * devolucao, e pode ser retirado novamente no proprio dia da devolucao.
+ *
+ * O veiculo e o usuario sao carregados sob demanda (LAZY) e nao vao na
+ * resposta JSON; os seus IDs sao expostos pelas colunas somente leitura.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Entity
+@Table(name = "Locacao", indexes = {
+       @Index(name = "IDX_Locacao_veiculo_periodo", columnList = "veiculoID, retirada, devolucao"),
+       @Index(name = "IDX_Locacao_usuario",         columnList = "usuarioID, retirada")})
+public class Locacao implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Basic(optional = false)
+    @Column(name = "locacaoID", nullable = false)
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID locacaoID;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "veiculoID", nullable = false, foreignKey = @ForeignKey(name = "FK_Locacao_Veiculo"))
+    private Veiculo veiculo;
+    @Column(name = "veiculoID", insertable = false, updatable = false)
+    private UUID veiculoID;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "usuarioID", nullable = false, foreignKey = @ForeignKey(name = "FK_Locacao_Usuario"))
+    private Usuario usuario;
+    @Column(name = "usuarioID", insertable = false, updatable = false)
+    private UUID usuarioID;
+
+    @Column(name = "retirada",  nullable = false)
+    private LocalDate retirada;
+    @Column(name = "devolucao", nullable = false)
+    private LocalDate devolucao;
+    @Column(name = "cancelada")
+    private boolean cancelada  = false ;
+
+    @Version
+    @Column(name = "versao")
+    private Long versao;
+
+    public Locacao() {
+    }
+
+    public Locacao(Veiculo veiculo, Usuario usuario, LocalDate retirada, LocalDate devolucao) {
+        this.veiculo = veiculo;
+        this.veiculoID = veiculo == null ? null : veiculo.getVeiculoID();
+        this.usuario = usuario;
+        this.usuarioID = usuario == null ? null : usuario.getUsuarioID();
+        this.retirada = retirada;
+        this.devolucao = devolucao;
+    }
+
+    /**
+     * @return the serialVersionUID
+     */
+    public static long getSerialVersionUID() {
+        return serialVersionUID;
+    }
+
+    /**
+     * @return the locacaoID
+     */
+    public UUID getLocacaoID() {
+        return locacaoID;
+    }
+
+    /**
+     * @param locacaoID the locacaoID to set
+     */
+    public void setLocacaoID(UUID locacaoID) {
+        this.locacaoID = locacaoID;
+    }
+
+    /**
+     * @return the veiculo (carregado sob demanda)
+     */
+    public Veiculo getVeiculo() {
+        return veiculo;
+    }
+
+    /**
+     * @param veiculo the veiculo to set
+     */
+    public void setVeiculo(Veiculo veiculo) {
+        this.veiculo = veiculo;
+        this.veiculoID = veiculo == null ? null : veiculo.getVeiculoID();
+    }
+
+    /**
+     * @return the veiculoID
+     */
+    public UUID getVeiculoID() {
+        return veiculoID;
+    }
+
+    /**
+     * @return the usuario (carregado sob demanda)
+     */
+    public Usuario getUsuario() {
+        return usuario;
+    }
+
+    /**
+     * @param usuario the usuario to set
+     */
+    public void setUsuario(Usuario usuario) {
+        this.usuario = usuario;
+        this.usuarioID = usuario == null ? null : usuario.getUsuarioID();
+    }
+
+    /**
+     * @return the usuarioID
+     */
+    public UUID getUsuarioID() {
+        return usuarioID;
+    }
+
+    /**
+     * @return the retirada (primeiro dia da locacao)
+     */
+    public LocalDate getRetirada() {
+        return retirada;
+    }
+
+    /**
+     * @param retirada the retirada to set
+     */
+    public void setRetirada(LocalDate retirada) {
+        this.retirada = retirada;
+    }
+
+    /**
+     * @return the devolucao (dia em que o veiculo volta a ficar livre)
+     */
+    public LocalDate getDevolucao() {
+        return devolucao;
+    }
+
+    /**
+     * @param devolucao the devolucao to set
+     */
+    public void setDevolucao(LocalDate devolucao) {
+        this.devolucao = devolucao;
+    }
+
+    /**
+     * Verifica se a LOCACAO foi cancelada (nao ocupa mais o veiculo)
+     * @return True ou False
+     */
+    public boolean isCancelada() {
+        return cancelada;
+    }
+
+    /**
+     * @param cancelada - (True ou False) conforme o caso
+     */
+    public void setCancelada(boolean cancelada) {
+        this.cancelada = cancelada;
+    }
+
+    /**
+     * @return the versao
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * @param versao the versao to set
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
+    @Override
+    public int hashCode() {
+        return getLocacaoID() != null ? getLocacaoID().hashCode() : 0;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof Locacao)) {
+            return false;
+        }
+        Locacao other = (Locacao) object;
+        return this.getLocacaoID() == null ? other.getLocacaoID() == null : this.getLocacaoID().equals(other.getLocacaoID());
+    }
+
+    @Override
+    public String toString() {
+        return "Locacao[ id=" + getLocacaoID() + " - veiculo=" + getVeiculoID() + " - " + getRetirada() + " a " + getDevolucao() + " ]";
+    }
+
+}
@@ -0,0 +1,209 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ *  Objeto base Manutencao.
+ *
+ * Esta classe representa a execucao de um servico de um PlanoManutencao: o dia
+ * e a quilometragem do veiculo na execucao. O registro e historico (nao e
+ * alterado depois de gravado).
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Entity
+@Table(name = "Manutencao", indexes = {
+       @Index(name = "IDX_Manutencao_veiculo", columnList = "veiculoID, data")})
+public class Manutencao implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Basic(optional = false)
+    @Column(name = "manutencaoID", nullable = false)
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID manutencaoID;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "planoID", nullable = false, foreignKey = @ForeignKey(name = "FK_Manutencao_Plano"))
+    private PlanoManutencao plano;
+    @Column(name = "planoID", insertable = false, updatable = false)
+    private UUID planoID;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "veiculoID", nullable = false, foreignKey = @ForeignKey(name = "FK_Manutencao_Veiculo"))
+    private Veiculo veiculo;
+    @Column(name = "veiculoID", insertable = false, updatable = false)
+    private UUID veiculoID;
+
+    @Column(name = "data", nullable = false)
+    private LocalDate data;
+    @Column(name = "quilometragem", nullable = false)
+    private long quilometragem;
+    @Column(name = "observacao", length = 200)
+    private String observacao = "";
+
+    public Manutencao() {
+    }
+
+    public Manutencao(PlanoManutencao plano, Veiculo veiculo, LocalDate data, long quilometragem, String observacao) {
+        this.plano = plano;
+        this.planoID = plano == null ? null : plano.getPlanoID();
+        this.veiculo = veiculo;
+        this.veiculoID = veiculo == null ? null : veiculo.getVeiculoID();
+        this.data = data;
+        this.quilometragem = quilometragem;
+        this.observacao = observacao;
+    }
+
+    /**
+     * @return the serialVersionUID
+     */
+    public static long getSerialVersionUID() {
+        return serialVersionUID;
+    }
+
+    /**
+     * @return the manutencaoID
+     */
+    public UUID getManutencaoID() {
+        return manutencaoID;
+    }
+
+    /**
+     * @param manutencaoID the manutencaoID to set
+     */
+    public void setManutencaoID(UUID manutencaoID) {
+        this.manutencaoID = manutencaoID;
+    }
+
+    /**
+     * @return the plano (carregado sob demanda)
+     */
+    public PlanoManutencao getPlano() {
+        return plano;
+    }
+
+    /**
+     * @param plano the plano to set
+     */
+    public void setPlano(PlanoManutencao plano) {
+        this.plano = plano;
+        this.planoID = plano == null ? null : plano.getPlanoID();
+    }
+
+    /**
+     * @return the planoID
+     */
+    public UUID getPlanoID() {
+        return planoID;
+    }
+
+    /**
+     * @return the veiculo (carregado sob demanda)
+     */
+    public Veiculo getVeiculo() {
+        return veiculo;
+    }
+
+    /**
+     * @param veiculo the veiculo to set
+     */
+    public void setVeiculo(Veiculo veiculo) {
+        this.veiculo = veiculo;
+        this.veiculoID = veiculo == null ? null : veiculo.getVeiculoID();
+    }
+
+    /**
+     * @return the veiculoID
+     */
+    public UUID getVeiculoID() {
+        return veiculoID;
+    }
+
+    /**
+     * @return the data (dia da execucao do servico)
+     */
+    public LocalDate getData() {
+        return data;
+    }
+
+    /**
+     * @param data the data to set
+     */
+    public void setData(LocalDate data) {
+        this.data = data;
+    }
+
+    /**
+     * @return the quilometragem (hodometro na execucao do servico)
+     */
+    public long getQuilometragem() {
+        return quilometragem;
+    }
+
+    /**
+     * @param quilometragem the quilometragem to set
+     */
+    public void setQuilometragem(long quilometragem) {
+        this.quilometragem = quilometragem;
+    }
+
+    /**
+     * @return the observacao
+     */
+    public String getObservacao() {
+        return observacao;
+    }
+
+    /**
+     * @param observacao the observacao to set
+     */
+    public void setObservacao(String observacao) {
+        this.observacao = observacao;
+    }
+
+    @Override
+    public int hashCode() {
+        return getManutencaoID() != null ? getManutencaoID().hashCode() : 0;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof Manutencao)) {
+            return false;
+        }
+        Manutencao other = (Manutencao) object;
+        return this.getManutencaoID() == null ? other.getManutencaoID() == null : this.getManutencaoID().equals(other.getManutencaoID());
+    }
+
+    @Override
+    public String toString() {
+        return "Manutencao[ id=" + getManutencaoID() + " - plano=" + getPlanoID() + " - " + getData() + " ]";
+    }
+
+}
@@ -0,0 +1,247 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.ForeignKey;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ *  Objeto base PlanoManutencao.
+ *
+ * Esta classe representa um servico preventivo de um Veiculo (troca de oleo,
+ * revisao, pneus...), repetido a cada intervaloKm quilometros e/ou a cada
+ * intervaloDias dias - o que vencer primeiro. A ultima execucao (data e
+ * quilometragem) e atualizada a cada Manutencao registrada no plano.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Entity
+@Table(name = "PlanoManutencao", indexes = {
+       @Index(name = "IDX_PlanoManutencao_veiculo", columnList = "veiculoID")})
+public class PlanoManutencao implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Basic(optional = false)
+    @Column(name = "planoID", nullable = false)
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID planoID;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "veiculoID", nullable = false, foreignKey = @ForeignKey(name = "FK_PlanoManutencao_Veiculo"))
+    private Veiculo veiculo;
+    @Column(name = "veiculoID", insertable = false, updatable = false)
+    private UUID veiculoID;
+
+    @Column(name = "descricao", length = 60, nullable = false)
+    private String descricao = "";
+    @Column(name = "intervaloKm")
+    private Integer intervaloKm;
+    @Column(name = "intervaloDias")
+    private Integer intervaloDias;
+    @Column(name = "ultimaQuilometragem", nullable = false)
+    private long ultimaQuilometragem;
+    @Column(name = "ultimaData", nullable = false)
+    private LocalDate ultimaData;
+    @Column(name = "ativo")
+    private boolean ativo  = true ;
+
+    @Version
+    @Column(name = "versao")
+    private Long versao;
+
+    public PlanoManutencao() {
+    }
+
+    public PlanoManutencao(Veiculo veiculo, String descricao, Integer intervaloKm, Integer intervaloDias) {
+        this.veiculo = veiculo;
+        this.veiculoID = veiculo == null ? null : veiculo.getVeiculoID();
+        this.descricao = descricao;
+        this.intervaloKm = intervaloKm;
+        this.intervaloDias = intervaloDias;
+    }
+
+    /**
+     * @return the serialVersionUID
+     */
+    public static long getSerialVersionUID() {
+        return serialVersionUID;
+    }
+
+    /**
+     * @return the planoID
+     */
+    public UUID getPlanoID() {
+        return planoID;
+    }
+
+    /**
+     * @param planoID the planoID to set
+     */
+    public void setPlanoID(UUID planoID) {
+        this.planoID = planoID;
+    }
+
+    /**
+     * @return the veiculo (carregado sob demanda)
+     */
+    public Veiculo getVeiculo() {
+        return veiculo;
+    }
+
+    /**
+     * @param veiculo the veiculo to set
+     */
+    public void setVeiculo(Veiculo veiculo) {
+        this.veiculo = veiculo;
+        this.veiculoID = veiculo == null ? null : veiculo.getVeiculoID();
+    }
+
+    /**
+     * @return the veiculoID
+     */
+    public UUID getVeiculoID() {
+        return veiculoID;
+    }
+
+    /**
+     * @return the descricao
+     */
+    public String getDescricao() {
+        return descricao;
+    }
+
+    /**
+     * @param descricao the descricao to set
+     */
+    public void setDescricao(String descricao) {
+        this.descricao = descricao;
+    }
+
+    /**
+     * @return the intervaloKm (nulo se o plano nao vence por km)
+     */
+    public Integer getIntervaloKm() {
+        return intervaloKm;
+    }
+
+    /**
+     * @param intervaloKm the intervaloKm to set
+     */
+    public void setIntervaloKm(Integer intervaloKm) {
+        this.intervaloKm = intervaloKm;
+    }
+
+    /**
+     * @return the intervaloDias (nulo se o plano nao vence por data)
+     */
+    public Integer getIntervaloDias() {
+        return intervaloDias;
+    }
+
+    /**
+     * @param intervaloDias the intervaloDias to set
+     */
+    public void setIntervaloDias(Integer intervaloDias) {
+        this.intervaloDias = intervaloDias;
+    }
+
+    /**
+     * @return the ultimaQuilometragem (hodometro na ultima execucao do servico)
+     */
+    public long getUltimaQuilometragem() {
+        return ultimaQuilometragem;
+    }
+
+    /**
+     * @param ultimaQuilometragem the ultimaQuilometragem to set
+     */
+    public void setUltimaQuilometragem(long ultimaQuilometragem) {
+        this.ultimaQuilometragem = ultimaQuilometragem;
+    }
+
+    /**
+     * @return the ultimaData (dia da ultima execucao do servico)
+     */
+    public LocalDate getUltimaData() {
+        return ultimaData;
+    }
+
+    /**
+     * @param ultimaData the ultimaData to set
+     */
+    public void setUltimaData(LocalDate ultimaData) {
+        this.ultimaData = ultimaData;
+    }
+
+    /**
+     * Verifica se o PLANO esta ativo (entra na agenda de manutencao)
+     * @return True ou False
+     */
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    /**
+     * @param ativo - (True ou False) conforme o caso
+     */
+    public void setAtivo(boolean ativo) {
+        this.ativo = ativo;
+    }
+
+    /**
+     * @return the versao
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * @param versao the versao to set
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
+    @Override
+    public int hashCode() {
+        return getPlanoID() != null ? getPlanoID().hashCode() : 0;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof PlanoManutencao)) {
+            return false;
+        }
+        PlanoManutencao other = (PlanoManutencao) object;
+        return this.getPlanoID() == null ? other.getPlanoID() == null : this.getPlanoID().equals(other.getPlanoID());
+    }
+
+    @Override
+    public String toString() {
+        return getDescricao() + "[ id=" + getPlanoID() + " - veiculo=" + getVeiculoID() + " ]";
+    }
+
+}
@@ -6,17 +6,23 @@
  */
 package com.aeroceti.fleetcare.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.persistence.UniqueConstraint;
 import jakarta.persistence.Version;
+import com.aeroceti.fleetcare.utilities.NormalizadorDados;
 import java.io.Serializable;
-import java.util.Arrays;
+import java.time.LocalDate;
 import java.util.UUID;
 
 /**
@@ -29,7 +35,11 @@ import java.util.UUID;
  */
 @Entity
 @Table(name = "Usuario", uniqueConstraints = {
-       @UniqueConstraint(columnNames = {"CPF"})})
+       @UniqueConstraint(name = "UK_Usuario_CPF", columnNames = {"CPF"})}, indexes = {
+       @Index(name = "UK_Usuario_email",       columnList = "email", unique = true),
+       @Index(name = "IDX_Usuario_ativo_nome", columnList = "ativo, nome"),
+       @Index(name = "IDX_Usuario_nome_ID",    columnList = "nome, usuarioID"),
+       @Index(name = "IDX_Usuario_dataCadastro", columnList = "dataCadastro")})
 public class Usuario implements Serializable {
 
     private static final long serialVersionUID = 1L;
@@ -55,13 +65,23 @@ public class Usuario implements Serializable {
     @Column(name = "ativo")
     private boolean ativo          = true ;
     
+    // a senha chega no cadastro, na atualizacao e no login, mas o hash nunca sai nas respostas
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     @Column(name = "password",       length = 128)
     private String password        = "";
+    @Column(name = "dataCadastro",   updatable = false)
+    private LocalDate dataCadastro;
     
     @Version
     @Column(name = "versao")
     private Long versao;
 
+    // valores formatados, calculados uma vez por carga/alteracao (nao persistidos)
+    @Transient
+    private String cpfFormatado       = "";
+    @Transient
+    private String whatsappFormatado  = "";
+
     public Usuario() {
     }
 
@@ -69,6 +89,25 @@ public class Usuario implements Serializable {
         this.usuarioID = usuarioID;
     }
 
+    /**
+     * Calcula os valores formatados apos a carga do banco de dados.
+     */
+    @PostLoad
+    protected void formatarCampos() {
+        this.cpfFormatado = NormalizadorDados.formatarCPF(cpf);
+        this.whatsappFormatado = NormalizadorDados.formatarTelefone(whatsapp);
+    }
+
+    /**
+     * Registra o dia do cadastro na primeira gravacao.
+     */
+    @PrePersist
+    protected void registrarCadastro() {
+        if (dataCadastro == null) {
+            dataCadastro = LocalDate.now();
+        }
+    }
+
     /**
      * @return the serialVersionUID
      */
@@ -119,7 +158,7 @@ public class Usuario implements Serializable {
      * @return cpf - String contendo o CPF Formatado.
      */
     public String getCpf() {
-       return cpf.replaceAll( "([0-9]{3})([0-9]{3})([0-9]{3})([0-9]{2})", "$1.$2.$3-$4" ).trim();
+       return cpfFormatado;
     }
 
     /**
@@ -127,7 +166,8 @@ public class Usuario implements Serializable {
      * @param cpf the cpf to set
      */
     public void setCpf(String cpf) {
-        this.cpf = cpf.replaceAll("\\D", "").trim();
+        this.cpf = NormalizadorDados.somenteDigitos(cpf);
+        this.cpfFormatado = NormalizadorDados.formatarCPF(this.cpf);
     }
 
     /**
@@ -141,29 +181,7 @@ public class Usuario implements Serializable {
      * @param nome the nome to set
      */
     public void setNome(String nome) {
-        try {
-            String[] partes = nome.split(" ");
-            StringBuilder sb = new StringBuilder();
-            String [] codes = {"da", "de", "do", "di", "dos", "das", "e", "d'"};
-            for (int i = 0; i < partes.length; i++) {
-                String parte = partes[i];
-                if( !parte.trim().equals("") ) {
-                    if( i == 0 ) {
-                        parte = parte.substring(0, 1).toUpperCase() + parte.substring(1).toLowerCase();
-                    } else  {
-                        if(Arrays.asList(codes).contains( parte.toLowerCase().trim()) ) {
-                            parte = parte.toLowerCase();
-                        }  else  {
-                            parte = parte.substring(0, 1).toUpperCase() + parte.substring(1).toLowerCase();
-                        }
-                    }
-                    sb.append(" ").append(parte.trim());
-                }
-            }
-            this.nome = sb.toString().trim();
-        } catch(Exception nameError) {
-            this.nome = "" ;
-        }
+        this.nome = NormalizadorDados.capitalizarNome(nome);
     }
 
     /**
@@ -181,27 +199,12 @@ public class Usuario implements Serializable {
     }
 
     public void setWhatsapp(String whatsapp) {
-        String novoValor;
-        try {
-            novoValor = whatsapp.trim();
-            //  Limpa o telefone das formatacoes:
-            novoValor = novoValor.replaceAll("\\D", "");
-            // corrige o problema da formatacao do Bootstrap:
-            if( novoValor.trim().length() == 1 ) {
-                    novoValor = "";
-            }
-        } catch(NullPointerException nulo) {
-            novoValor = "";  
-        }
-        this.whatsapp = novoValor;
+        this.whatsapp = NormalizadorDados.normalizarTelefone(whatsapp);
+        this.whatsappFormatado = NormalizadorDados.formatarTelefone(this.whatsapp);
     }
 
     public String getWhatsapp() {
-        if ( this.whatsapp.length() == 10 ) {
-            return this.whatsapp.replaceFirst("(\\d{2})(\\d{4})(\\d+)", "($1)$2-$3");
-        } else {
-           return this.whatsapp.replaceFirst("(\\d{2})(\\d{1})(\\d{4})(\\d+)", "($1)$2.$3-$4");
-        }
+        return whatsappFormatado;
     }
 
     /**
@@ -215,8 +218,7 @@ public class Usuario implements Serializable {
      * @param dataNascimento the dataNascimento to set
      */
     public void setDataNascimento(String dataNascimento) {
-        dataNascimento = dataNascimento.replaceAll("\\D", "");
-        this.dataNascimento = dataNascimento.replaceAll( "([0-9]{2})([0-9]{2})([0-9]{4})", "$1/$2/$3" ).trim();
+        this.dataNascimento = NormalizadorDados.normalizarData(dataNascimento);
     }
 
     /**
@@ -260,6 +262,20 @@ public class Usuario implements Serializable {
     public void setVersao(Long versao) {
         this.versao = versao;
     }
+
+    /**
+     * @return the dataCadastro
+     */
+    public LocalDate getDataCadastro() {
+        return dataCadastro;
+    }
+
+    /**
+     * @param dataCadastro the dataCadastro to set
+     */
+    public void setDataCadastro(LocalDate dataCadastro) {
+        this.dataCadastro = dataCadastro;
+    }
     
     @Override
     public int hashCode() {
@@ -0,0 +1,226 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.model;
+
+import jakarta.persistence.Basic;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
+import com.aeroceti.fleetcare.utilities.NormalizadorDados;
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ *  Objeto base Veiculo.
+ *
+ * Esta classe representa um Veiculo da frota, disponivel para locacao. A
+ * quilometragem (hodometro) so aumenta e e a base dos planos de manutencao
+ * por km.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Entity
+@Table(name = "Veiculo", uniqueConstraints = {
+       @UniqueConstraint(name = "UK_Veiculo_placa", columnNames = {"placa"})})
+public class Veiculo implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @Basic(optional = false)
+    @Column(name = "veiculoID", nullable = false)
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID veiculoID;
+
+    @Column(name = "placa",  length = 7, nullable = false)
+    private String placa   = "";
+    @Column(name = "marca",  length = 30)
+    private String marca   = "";
+    @Column(name = "modelo", length = 50)
+    private String modelo  = "";
+    @Column(name = "ano")
+    private Integer ano;
+    @Column(name = "cor",    length = 20)
+    private String cor     = "";
+    @Column(name = "quilometragem", nullable = false)
+    private long quilometragem = 0;
+    @Column(name = "ativo")
+    private boolean ativo  = true ;
+
+    @Version
+    @Column(name = "versao")
+    private Long versao;
+
+    public Veiculo() {
+    }
+
+    public Veiculo(UUID veiculoID) {
+        this.veiculoID = veiculoID;
+    }
+
+    /**
+     * @return the serialVersionUID
+     */
+    public static long getSerialVersionUID() {
+        return serialVersionUID;
+    }
+
+    /**
+     * @return the veiculoID
+     */
+    public UUID getVeiculoID() {
+        return veiculoID;
+    }
+
+    /**
+     * @param veiculoID the veiculoID to set
+     */
+    public void setVeiculoID(UUID veiculoID) {
+        this.veiculoID = veiculoID;
+    }
+
+    /**
+     * @return the placa (normalizada: ABC1D23)
+     */
+    public String getPlaca() {
+        return placa;
+    }
+
+    /**
+     * GRAVA a placa normalizada (maiusculas, sem traco ou espacos).
+     * @param placa the placa to set
+     */
+    public void setPlaca(String placa) {
+        this.placa = NormalizadorDados.normalizarPlaca(placa);
+    }
+
+    /**
+     * @return the marca
+     */
+    public String getMarca() {
+        return marca;
+    }
+
+    /**
+     * @param marca the marca to set
+     */
+    public void setMarca(String marca) {
+        this.marca = marca;
+    }
+
+    /**
+     * @return the modelo
+     */
+    public String getModelo() {
+        return modelo;
+    }
+
+    /**
+     * @param modelo the modelo to set
+     */
+    public void setModelo(String modelo) {
+        this.modelo = modelo;
+    }
+
+    /**
+     * @return the ano
+     */
+    public Integer getAno() {
+        return ano;
+    }
+
+    /**
+     * @param ano the ano to set
+     */
+    public void setAno(Integer ano) {
+        this.ano = ano;
+    }
+
+    /**
+     * @return the cor
+     */
+    public String getCor() {
+        return cor;
+    }
+
+    /**
+     * @param cor the cor to set
+     */
+    public void setCor(String cor) {
+        this.cor = cor;
+    }
+
+    /**
+     * @return the quilometragem (hodometro, em km)
+     */
+    public long getQuilometragem() {
+        return quilometragem;
+    }
+
+    /**
+     * @param quilometragem the quilometragem to set
+     */
+    public void setQuilometragem(long quilometragem) {
+        this.quilometragem = quilometragem;
+    }
+
+    /**
+     * Verifica se o VEICULO esta ativo na frota (disponivel para locacao)
+     * @return True ou False
+     */
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    /**
+     * Modifica o status do VEICULO na frota
+     * @param ativo - (True ou False) conforme o caso
+     */
+    public void setAtivo(boolean ativo) {
+        this.ativo = ativo;
+    }
+
+    /**
+     * @return the versao
+     */
+    public Long getVersao() {
+        return versao;
+    }
+
+    /**
+     * @param versao the versao to set
+     */
+    public void setVersao(Long versao) {
+        this.versao = versao;
+    }
+
+    @Override
+    public int hashCode() {
+        return getVeiculoID() != null ? getVeiculoID().hashCode() : 0;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (!(object instanceof Veiculo)) {
+            return false;
+        }
+        Veiculo other = (Veiculo) object;
+        return this.getVeiculoID() == null ? other.getVeiculoID() == null : this.getVeiculoID().equals(other.getVeiculoID());
+    }
+
+    @Override
+    public String toString() {
+        return getModelo() + "[ id=" + getVeiculoID() + " - placa=" + getPlaca() + " ]";
+    }
+
+}
@@ -0,0 +1,60 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.repositories;
+
+import java.util.UUID;
+import com.aeroceti.fleetcare.dataTransfers.PeriodoLocacaoDTO;
+import com.aeroceti.fleetcare.model.Locacao;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ *  Interface para o Repositorio de Locacoes.
+ *
+ * As consultas rodam em transacoes somente leitura (atendidas pelas replicas,
+ * quando configuradas); dentro de uma transacao de gravacao, seguem no primario.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Repository
+@Transactional(readOnly = true)
+public interface LocacaoRepository extends JpaRepository <Locacao, UUID> {
+
+    // obtem uma locacao atraves do ID
+    Locacao findByLocacaoID(UUID chavePesquisa);
+
+    // locacoes de um usuario, da mais recente para a mais antiga
+    List<Locacao> findByUsuarioIDOrderByRetiradaDesc(UUID usuarioID);
+
+    // agenda de um veiculo: locacoes nao canceladas que terminam depois da data informada
+    @Query("SELECT l FROM Locacao l WHERE l.veiculoID = :veiculoID AND l.cancelada = false "
+            + "AND l.devolucao > :desde ORDER BY l.retirada ASC")
+    List<Locacao> findAgenda(@Param("veiculoID") UUID veiculoID, @Param("desde") LocalDate desde);
+
+    // locacoes do veiculo que se sobrepoem ao periodo (resolvida pelo indice veiculoID, retirada)
+    @Query("SELECT COUNT(l) FROM Locacao l WHERE l.veiculoID = :veiculoID AND l.cancelada = false "
+            + "AND l.retirada < :devolucao AND l.devolucao > :retirada")
+    long countConflitos(@Param("veiculoID") UUID veiculoID, @Param("retirada") LocalDate retirada,
+            @Param("devolucao") LocalDate devolucao);
+
+    // percorre os periodos das locacoes em vigor, por veiculo e retirada (deve ser usado dentro de uma transacao)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.aeroceti.fleetcare.dataTransfers.PeriodoLocacaoDTO(l.veiculoID, l.retirada, l.devolucao) "
+            + "FROM Locacao l WHERE l.cancelada = false AND l.devolucao > :desde ORDER BY l.veiculoID, l.retirada")
+    Stream<PeriodoLocacaoDTO> streamPeriodos(@Param("desde") LocalDate desde);
+
+}
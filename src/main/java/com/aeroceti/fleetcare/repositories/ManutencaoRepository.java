@@ -0,0 +1,32 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.repositories;
+
+import java.util.UUID;
+import com.aeroceti.fleetcare.model.Manutencao;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ *  Interface para o Repositorio de Manutencoes (historico dos servicos).
+ *
+ * As consultas rodam em transacoes somente leitura (atendidas pelas replicas,
+ * quando configuradas); dentro de uma transacao de gravacao, seguem no primario.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Repository
+@Transactional(readOnly = true)
+public interface ManutencaoRepository extends JpaRepository <Manutencao, UUID> {
+
+    // historico de manutencoes de um veiculo, da mais recente para a mais antiga
+    List<Manutencao> findByVeiculoIDOrderByDataDesc(UUID veiculoID);
+
+}
@@ -0,0 +1,45 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.repositories;
+
+import java.util.UUID;
+import com.aeroceti.fleetcare.model.PlanoManutencao;
+import jakarta.persistence.QueryHint;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ *  Interface para o Repositorio de Planos de Manutencao.
+ *
+ * As consultas rodam em transacoes somente leitura (atendidas pelas replicas,
+ * quando configuradas); dentro de uma transacao de gravacao, seguem no primario.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Repository
+@Transactional(readOnly = true)
+public interface PlanoManutencaoRepository extends JpaRepository <PlanoManutencao, UUID> {
+
+    // obtem um plano atraves do ID
+    PlanoManutencao findByPlanoID(UUID chavePesquisa);
+
+    // planos de um veiculo, em ordem de descricao
+    List<PlanoManutencao> findByVeiculoIDOrderByDescricaoAsc(UUID veiculoID);
+
+    // percorre os planos ATIVOS por um cursor do banco (deve ser usado dentro de uma transacao)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM PlanoManutencao p WHERE p.ativo = true")
+    Stream<PlanoManutencao> streamByAtivoTrue();
+
+}
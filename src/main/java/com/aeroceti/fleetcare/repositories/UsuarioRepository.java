@@ -8,20 +8,33 @@ package com.aeroceti.fleetcare.repositories;
 
 import java.util.UUID;
 import com.aeroceti.fleetcare.model.Usuario;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  *  Interface para o Repositorio de Usuarios.
  *
  * Esta classe abstrai diversos metodos de persistencia do JPA.
+ * As consultas rodam em transacoes somente leitura (atendidas pelas replicas,
+ * quando configuradas); os metodos de gravacao herdados seguem no primario.
  * 
  * @author Sergio Murilo - smurilo at Gmail.com
  * @version 1.0
  */
 @Repository
-public interface UsuarioRepository extends JpaRepository <Usuario, UUID> {
+@Transactional(readOnly = true)
+public interface UsuarioRepository extends JpaRepository <Usuario, UUID>, UsuarioRepositoryCustom {
     @Override
     //Listagem completa dos usuarios cadastrados
     List<Usuario> findAll();
@@ -29,6 +42,10 @@ public interface UsuarioRepository extends JpaRepository <Usuario, UUID> {
     // obtem um usuario atraves do email
     Usuario findByEmail(String chavePesquisa);
     
+    // obtem somente o ID de um usuario atraves do email (resolvido pelo indice do email)
+    @Query("SELECT u.usuarioID FROM Usuario u WHERE u.email = :email")
+    UUID findUsuarioIDByEmail(@Param("email") String email);
+
     // obtem um usuario atraves do ID
     Usuario findByUsuarioID(UUID chavePesquisa);
         
@@ -38,11 +55,52 @@ public interface UsuarioRepository extends JpaRepository <Usuario, UUID> {
     // obtem uma lista de usuarios ORDENADA por email
     List<Usuario> findByOrderByEmailAsc();
 
+    // obtem a PRIMEIRA pagina de usuarios ORDENADA por nome e ID (paginacao por cursor)
+    List<Usuario> findByOrderByNomeAscUsuarioIDAsc(Pageable pagina);
+
+    // obtem a pagina de usuarios SEGUINTE ao cursor (nome + ID) informado
+    @Query("SELECT u FROM Usuario u WHERE u.nome > :nome OR (u.nome = :nome AND u.usuarioID > :usuarioID) "
+            + "ORDER BY u.nome ASC, u.usuarioID ASC")
+    List<Usuario> findPaginaApos(@Param("nome") String nome, @Param("usuarioID") UUID usuarioID, Pageable pagina);
+
+    // percorre TODOS os usuarios por um cursor do banco (deve ser usado dentro de uma transacao)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT u FROM Usuario u ORDER BY u.nome ASC, u.usuarioID ASC")
+    Stream<Usuario> streamByOrderByNomeAsc();
+
     // obtem o numero de usuarios por email
     int countByEmail(String email);
     
     // obtem o numero de usuarios por ID
     int countByUsuarioID(UUID usuarioID);
+
+    // numero de usuarios por situacao: linhas (ativo, total) - reconciliacao do painel
+    @Query("SELECT u.ativo, COUNT(u) FROM Usuario u GROUP BY u.ativo")
+    List<Object[]> contarPorSituacao();
+
+    // numero de usuarios cadastrados no dia (indice dataCadastro)
+    long countByDataCadastro(LocalDate dataCadastro);
+
+    // total de usuarios e soma das versoes ("total.soma"): muda a cada inclusao, alteracao ou exclusao
+    @Query("SELECT CONCAT(CAST(COUNT(u) AS String), '.', CAST(COALESCE(SUM(u.versao), 0) AS String)) FROM Usuario u")
+    String versaoColecao();
+
+    // atualiza os dados do usuario SOMENTE se a versao for a informada (If-Match); senha nula mantem a atual
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Usuario u SET u.nome = :nome, u.email = :email, u.cpf = :cpf, u.whatsapp = :whatsapp, "
+            + "u.dataNascimento = :dataNascimento, u.sexo = :sexo, u.password = COALESCE(:senha, u.password), "
+            + "u.versao = u.versao + 1 WHERE u.usuarioID = :usuarioID AND u.versao = :versao")
+    int atualizarSeVersao(@Param("usuarioID") UUID usuarioID, @Param("versao") Long versao,
+            @Param("nome") String nome, @Param("email") String email, @Param("cpf") String cpf,
+            @Param("whatsapp") String whatsapp, @Param("dataNascimento") String dataNascimento,
+            @Param("sexo") String sexo, @Param("senha") String senha);
+
+    // troca o hash da senha SOMENTE se ainda for o lido no login (recodificacao); a versao NAO muda
+    @Transactional
+    @Modifying
+    @Query("UPDATE Usuario u SET u.password = :novo WHERE u.usuarioID = :usuarioID AND u.password = :anterior")
+    int recodificarSenha(@Param("usuarioID") UUID usuarioID, @Param("anterior") String anterior, @Param("novo") String novo);
     
 
 }
@@ -0,0 +1,33 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.repositories;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Interface com as consultas de Usuarios montadas manualmente (Criteria API).
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public interface UsuarioRepositoryCustom {
+
+    /**
+     * Lista os usuarios selecionando no banco SOMENTE os campos pedidos.
+     *
+     * @param campos - Campos a selecionar (ver CamposUsuario.PERMITIDOS)
+     * @param ordenar - Ordena por nome (e ID para desempate)
+     * @param nomeApos - Nome do cursor da paginacao (nulo para a primeira pagina)
+     * @param idApos - ID do cursor da paginacao
+     * @param limite - Quantidade maxima de registros (0 para todos)
+     * @return Objetos (Map) somente com os campos pedidos
+     */
+    List<Map<String, Object>> listarCampos(List<String> campos, boolean ordenar, String nomeApos, UUID idApos, int limite);
+
+}
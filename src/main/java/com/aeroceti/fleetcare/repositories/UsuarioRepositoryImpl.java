@@ -0,0 +1,72 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.repositories;
+
+import com.aeroceti.fleetcare.dataTransfers.CamposUsuario;
+import com.aeroceti.fleetcare.model.Usuario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implementacao das consultas de Usuarios montadas manualmente.
+ *
+ * A projecao de campos usa uma consulta de Tuple: o SELECT leva somente as
+ * colunas pedidas e nenhuma entidade e criada no contexto de persistencia.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Transactional(readOnly = true)
+public class UsuarioRepositoryImpl implements UsuarioRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> listarCampos(List<String> campos, boolean ordenar, String nomeApos, UUID idApos, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> consulta = cb.createTupleQuery();
+        Root<Usuario> usuario = consulta.from(Usuario.class);
+
+        List<Selection<?>> colunas = new ArrayList<>(campos.size());
+        for (String campo : campos) {
+            colunas.add(usuario.get(campo).alias(campo));
+        }
+        consulta.multiselect(colunas);
+        if (nomeApos != null) {
+            consulta.where(cb.or(
+                    cb.greaterThan(usuario.get("nome"), nomeApos),
+                    cb.and(cb.equal(usuario.get("nome"), nomeApos), cb.greaterThan(usuario.get("usuarioID"), idApos))));
+        }
+        if (ordenar) {
+            consulta.orderBy(cb.asc(usuario.get("nome")), cb.asc(usuario.get("usuarioID")));
+        }
+
+        TypedQuery<Tuple> query = entityManager.createQuery(consulta);
+        if (limite > 0) {
+            query.setMaxResults(limite);
+        }
+        List<Tuple> linhas = query.getResultList();
+        List<Map<String, Object>> objetos = new ArrayList<>(linhas.size());
+        for (Tuple linha : linhas) {
+            objetos.add(CamposUsuario.projetar(linha, campos));
+        }
+        return objetos;
+    }
+
+}
@@ -0,0 +1,65 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.repositories;
+
+import java.util.UUID;
+import com.aeroceti.fleetcare.model.Veiculo;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ *  Interface para o Repositorio de Veiculos.
+ *
+ * As consultas rodam em transacoes somente leitura (atendidas pelas replicas,
+ * quando configuradas); os metodos de gravacao herdados seguem no primario.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Repository
+@Transactional(readOnly = true)
+public interface VeiculoRepository extends JpaRepository <Veiculo, UUID> {
+
+    // obtem um veiculo atraves do ID
+    Veiculo findByVeiculoID(UUID chavePesquisa);
+
+    // obtem o numero de veiculos com a placa informada (placa normalizada)
+    int countByPlaca(String placa);
+
+    // obtem a frota ORDENADA por placa
+    List<Veiculo> findByOrderByPlacaAsc();
+
+    // obtem o veiculo com a linha TRAVADA ate o fim da transacao (serializa as locacoes do veiculo)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM Veiculo v WHERE v.veiculoID = :veiculoID")
+    Veiculo travarPorID(@Param("veiculoID") UUID veiculoID);
+
+    // percorre TODOS os veiculos por um cursor do banco (deve ser usado dentro de uma transacao)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT v FROM Veiculo v ORDER BY v.placa ASC")
+    Stream<Veiculo> streamByOrderByPlacaAsc();
+
+    // veiculos ativos LIVRES no periodo, direto no banco (usada enquanto o indice na memoria nao esta pronto)
+    @Query("SELECT v FROM Veiculo v WHERE v.ativo = true AND NOT EXISTS (SELECT l.locacaoID FROM Locacao l "
+            + "WHERE l.veiculoID = v.veiculoID AND l.cancelada = false AND l.retirada < :devolucao "
+            + "AND l.devolucao > :retirada) ORDER BY v.placa ASC")
+    List<Veiculo> findDisponiveis(@Param("retirada") LocalDate retirada, @Param("devolucao") LocalDate devolucao,
+            Pageable pagina);
+
+}
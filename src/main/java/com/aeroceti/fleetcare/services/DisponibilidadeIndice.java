@@ -0,0 +1,465 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.dataTransfers.PeriodoLocacaoDTO;
+import com.aeroceti.fleetcare.dataTransfers.VeiculoDisponivelDTO;
+import com.aeroceti.fleetcare.model.Veiculo;
+import com.aeroceti.fleetcare.utilities.Transacoes;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Indice de disponibilidade dos Veiculos, na memoria, por periodo de locacao.
+ *
+ * Cada veiculo tem a sua agenda: os periodos das locacoes em vigor, em dias
+ * (LocalDate.toEpochDay), guardados em dois arrays de int (retiradas e
+ * devolucoes) ordenados pela retirada. As locacoes de um mesmo veiculo nunca
+ * se sobrepoem (o LocacaoService confere no banco, com o veiculo travado),
+ * entao as devolucoes tambem ficam ordenadas e uma busca binaria responde se o
+ * veiculo esta livre num periodo, em O(log n) - o mesmo custo de uma arvore de
+ * intervalos, sem um objeto por locacao.
+ *
+ * A consulta "veiculos livres entre A e B" percorre as agendas em ordem de
+ * placa, com uma busca binaria por veiculo, sem ler as locacoes no banco. O
+ * indice e montado na inicializacao (somente as locacoes que terminam depois
+ * do dia da montagem) e atualizado a cada locacao, cancelamento ou alteracao
+ * de veiculo, depois do COMMIT. Enquanto a montagem nao termina, a consulta
+ * deve ser feita no banco (ver pronto()). As locacoes encerradas (devolucao
+ * ate hoje) saem da agenda na virada do dia e sempre que a agenda do veiculo
+ * e alterada.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Component
+public class DisponibilidadeIndice {
+
+    private static final int[] VAZIO = new int[0];
+
+    @Autowired
+    private MeterRegistry registro;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final Map<UUID, Agenda> agendas = new HashMap<>();
+    private Agenda[] porPlaca = new Agenda[1024];
+    private int totalListados;
+    private long totalLocacoes;
+    private volatile boolean pronto;
+    private Clock relogio = Clock.systemDefaultZone();
+    // ultimo dia em que as locacoes encerradas foram retiradas de todas as agendas
+    private int hoje = dia(LocalDate.now(relogio));
+
+    // durante a montagem: locacoes canceladas que a leitura do banco ainda pode trazer
+    private Set<Retirada> canceladasNaMontagem;
+
+    private final Logger logger = LoggerFactory.getLogger(DisponibilidadeIndice.class);
+
+    @PostConstruct
+    public void inicializar() {
+        Gauge.builder("fleetcare.disponibilidade.veiculos", this, DisponibilidadeIndice::totalVeiculos)
+                .description("Veiculos no indice de disponibilidade").register(registro);
+        Gauge.builder("fleetcare.disponibilidade.locacoes", this, DisponibilidadeIndice::totalLocacoes)
+                .description("Locacoes em vigor no indice de disponibilidade").register(registro);
+    }
+
+    /**
+     * Monta o indice a partir de todos os veiculos e das locacoes em vigor.
+     *
+     * @param veiculos - Percorre os veiculos do banco, entregando cada um ao consumidor
+     * @param periodos - Percorre os periodos das locacoes em vigor, por veiculo e retirada
+     */
+    public void montar(Consumer<Consumer<Veiculo>> veiculos, Consumer<Consumer<PeriodoLocacaoDTO>> periodos) {
+        long inicio = System.nanoTime();
+        trava.writeLock().lock();
+        try {
+            canceladasNaMontagem = new HashSet<>();
+        } finally {
+            trava.writeLock().unlock();
+        }
+        try {
+            veiculos.accept(this::indexarVeiculo);
+            periodos.accept(periodo -> incluir(periodo.veiculoID(), dia(periodo.retirada()), dia(periodo.devolucao()), true));
+            pronto = true;
+        } finally {
+            trava.writeLock().lock();
+            try {
+                canceladasNaMontagem = null;
+            } finally {
+                trava.writeLock().unlock();
+            }
+        }
+        logger.info("Indice de disponibilidade montado com " + totalVeiculos() + " veiculos e " + totalLocacoes()
+                + " locacoes em " + (System.nanoTime() - inicio) / 1_000_000 + " ms.");
+    }
+
+    /**
+     * @return TRUE se a montagem terminou e o indice pode responder as consultas
+     */
+    public boolean pronto() {
+        return pronto;
+    }
+
+    /**
+     * Atualiza (ou inclui) um veiculo no indice, depois do COMMIT da transacao.
+     *
+     * @param veiculo - Veiculo gravado
+     */
+    public void atualizar(Veiculo veiculo) {
+        Transacoes.aposCommit(() -> indexarVeiculo(veiculo));
+    }
+
+    /**
+     * Ocupa o periodo de uma nova locacao na agenda do veiculo, depois do COMMIT.
+     *
+     * @param veiculoID - ID do veiculo locado
+     * @param retirada - Primeiro dia da locacao
+     * @param devolucao - Dia da devolucao (o veiculo fica livre neste dia)
+     */
+    public void reservar(UUID veiculoID, LocalDate retirada, LocalDate devolucao) {
+        Transacoes.aposCommit(() -> incluir(veiculoID, dia(retirada), dia(devolucao), false));
+    }
+
+    /**
+     * Libera o periodo de uma locacao cancelada, depois do COMMIT.
+     *
+     * @param veiculoID - ID do veiculo locado
+     * @param retirada - Primeiro dia da locacao
+     * @param devolucao - Dia da devolucao
+     */
+    public void liberar(UUID veiculoID, LocalDate retirada, LocalDate devolucao) {
+        Transacoes.aposCommit(() -> retirar(veiculoID, dia(retirada), dia(devolucao)));
+    }
+
+    /**
+     * @return Quantidade de veiculos no indice
+     */
+    public int totalVeiculos() {
+        trava.readLock().lock();
+        try {
+            return totalListados;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Quantidade de locacoes em vigor no indice
+     */
+    public long totalLocacoes() {
+        trava.readLock().lock();
+        try {
+            return totalLocacoes;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Verifica se um veiculo esta livre no periodo (sem considerar se esta ativo).
+     *
+     * @param veiculoID - ID do veiculo
+     * @param retirada - Primeiro dia do periodo
+     * @param devolucao - Dia seguinte ao ultimo dia do periodo
+     * @return TRUE se nenhuma locacao em vigor ocupa o periodo
+     */
+    public boolean livre(UUID veiculoID, LocalDate retirada, LocalDate devolucao) {
+        trava.readLock().lock();
+        try {
+            Agenda agenda = agendas.get(veiculoID);
+            return agenda == null || agenda.livre(dia(retirada), dia(devolucao));
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Veiculos ativos livres em TODO o periodo, em ordem de placa.
+     *
+     * @param retirada - Primeiro dia do periodo
+     * @param devolucao - Dia seguinte ao ultimo dia do periodo
+     * @param limite - Quantidade maxima de veiculos
+     * @return Veiculos livres no periodo
+     */
+    public List<VeiculoDisponivelDTO> disponiveis(LocalDate retirada, LocalDate devolucao, int limite) {
+        int inicio = dia(retirada);
+        int fim = dia(devolucao);
+        trava.readLock().lock();
+        try {
+            List<VeiculoDisponivelDTO> lista = new ArrayList<>(Math.min(limite, totalListados));
+            for (int i = 0; i < totalListados && lista.size() < limite; i++) {
+                Agenda agenda = porPlaca[i];
+                if (agenda.ativo && agenda.livre(inicio, fim)) {
+                    lista.add(new VeiculoDisponivelDTO(agenda.veiculoID, agenda.placa, agenda.marca, agenda.modelo));
+                }
+            }
+            return lista;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Processa a virada do dia: retira de todas as agendas as locacoes com
+     * devolucao ate hoje, que nao ocupam mais nenhum periodo consultavel.
+     */
+    @Scheduled(cron = "${fleetcare.disponibilidade.virada:2 0 0 * * *}")
+    public void virarDia() {
+        int agora = dia(LocalDate.now(relogio));
+        trava.writeLock().lock();
+        try {
+            if (agora <= hoje) {
+                return;
+            }
+            hoje = agora;
+            long encerradas = 0;
+            for (Agenda agenda : agendas.values()) {
+                encerradas += agenda.encerrar(agora);
+            }
+            totalLocacoes -= encerradas;
+            logger.info("Virada do dia no indice de disponibilidade: " + encerradas + " locacoes encerradas retiradas.");
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private void indexarVeiculo(Veiculo veiculo) {
+        if (veiculo == null || veiculo.getVeiculoID() == null) {
+            return;
+        }
+        long versao = veiculo.getVersao() == null ? 0 : veiculo.getVersao();
+        trava.writeLock().lock();
+        try {
+            Agenda agenda = agendas.get(veiculo.getVeiculoID());
+            if (agenda == null) {
+                agenda = new Agenda(veiculo.getVeiculoID());
+                agendas.put(agenda.veiculoID, agenda);
+            } else if (agenda.listada) {
+                // a montagem pode trazer uma versao mais antiga que a ja indexada
+                if (agenda.versao > versao) {
+                    return;
+                }
+                deslistar(agenda);
+            }
+            agenda.placa = veiculo.getPlaca();
+            agenda.marca = veiculo.getMarca();
+            agenda.modelo = veiculo.getModelo();
+            agenda.ativo = veiculo.isAtivo();
+            agenda.versao = versao;
+            listar(agenda);
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private void incluir(UUID veiculoID, int retirada, int devolucao, boolean daMontagem) {
+        trava.writeLock().lock();
+        try {
+            // uma locacao nova pode reusar o dia de uma cancelada; so a leitura da montagem e descartada
+            if (daMontagem && canceladasNaMontagem != null && canceladasNaMontagem.contains(new Retirada(veiculoID, retirada))) {
+                return;
+            }
+            // a locacao pode chegar antes do veiculo (montagem): a agenda so e listada com os dados do veiculo
+            Agenda agenda = agendas.computeIfAbsent(veiculoID, Agenda::new);
+            totalLocacoes -= agenda.encerrar(dia(LocalDate.now(relogio)));
+            if (agenda.incluir(retirada, devolucao)) {
+                totalLocacoes++;
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private void retirar(UUID veiculoID, int retirada, int devolucao) {
+        trava.writeLock().lock();
+        try {
+            if (canceladasNaMontagem != null) {
+                canceladasNaMontagem.add(new Retirada(veiculoID, retirada));
+            }
+            Agenda agenda = agendas.get(veiculoID);
+            if (agenda == null) {
+                return;
+            }
+            totalLocacoes -= agenda.encerrar(dia(LocalDate.now(relogio)));
+            if (agenda.retirar(retirada, devolucao)) {
+                totalLocacoes--;
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // insere a agenda na lista ordenada por placa (com a trava de escrita)
+    private void listar(Agenda agenda) {
+        if (totalListados == porPlaca.length) {
+            porPlaca = Arrays.copyOf(porPlaca, totalListados * 2);
+        }
+        int posicao = posicaoDaPlaca(agenda.placa);
+        System.arraycopy(porPlaca, posicao, porPlaca, posicao + 1, totalListados - posicao);
+        porPlaca[posicao] = agenda;
+        totalListados++;
+        agenda.listada = true;
+    }
+
+    // retira a agenda da lista ordenada por placa (com a trava de escrita)
+    private void deslistar(Agenda agenda) {
+        int posicao = posicaoDaPlaca(agenda.placa);
+        while (posicao < totalListados && porPlaca[posicao] != agenda) {
+            posicao++;
+        }
+        if (posicao == totalListados) {
+            return;
+        }
+        System.arraycopy(porPlaca, posicao + 1, porPlaca, posicao, totalListados - posicao - 1);
+        porPlaca[--totalListados] = null;
+        agenda.listada = false;
+    }
+
+    // primeira posicao com placa maior ou igual a informada
+    private int posicaoDaPlaca(String placa) {
+        int baixo = 0;
+        int alto = totalListados;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (porPlaca[meio].placa.compareTo(placa) < 0) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    private static int dia(LocalDate data) {
+        return (int) data.toEpochDay();
+    }
+
+    // chave de uma locacao no indice: as locacoes de um veiculo nunca comecam no mesmo dia
+    private record Retirada(UUID veiculoID, int dia) {
+    }
+
+    // dados de um veiculo e os periodos (semiabertos) das suas locacoes em vigor
+    private static final class Agenda {
+        private final UUID veiculoID;
+        private String placa = "";
+        private String marca;
+        private String modelo;
+        private boolean ativo;
+        private boolean listada;
+        private long versao;
+        private int[] retiradas = VAZIO;
+        private int[] devolucoes = VAZIO;
+        private int tamanho;
+
+        private Agenda(UUID veiculoID) {
+            this.veiculoID = veiculoID;
+        }
+
+        // livre se a primeira locacao que termina depois do inicio so comeca no fim do periodo (ou depois)
+        private boolean livre(int inicio, int fim) {
+            int baixo = 0;
+            int alto = tamanho;
+            while (baixo < alto) {
+                int meio = (baixo + alto) >>> 1;
+                if (devolucoes[meio] > inicio) {
+                    alto = meio;
+                } else {
+                    baixo = meio + 1;
+                }
+            }
+            return baixo == tamanho || retiradas[baixo] >= fim;
+        }
+
+        // primeira posicao com retirada maior ou igual a informada
+        private int posicao(int retirada) {
+            int baixo = 0;
+            int alto = tamanho;
+            while (baixo < alto) {
+                int meio = (baixo + alto) >>> 1;
+                if (retiradas[meio] < retirada) {
+                    baixo = meio + 1;
+                } else {
+                    alto = meio;
+                }
+            }
+            return baixo;
+        }
+
+        private boolean incluir(int retirada, int devolucao) {
+            int posicao = posicao(retirada);
+            if (posicao < tamanho && retiradas[posicao] == retirada) {
+                // mesma locacao lida na montagem e gravada depois do inicio dela
+                return false;
+            }
+            if (tamanho == retiradas.length) {
+                int novo = Math.max(4, tamanho * 2);
+                retiradas = Arrays.copyOf(retiradas, novo);
+                devolucoes = Arrays.copyOf(devolucoes, novo);
+            }
+            System.arraycopy(retiradas, posicao, retiradas, posicao + 1, tamanho - posicao);
+            System.arraycopy(devolucoes, posicao, devolucoes, posicao + 1, tamanho - posicao);
+            retiradas[posicao] = retirada;
+            devolucoes[posicao] = devolucao;
+            tamanho++;
+            return true;
+        }
+
+        // retira as locacoes com devolucao ate o dia (as primeiras: as devolucoes estao ordenadas)
+        private int encerrar(int dia) {
+            int encerradas = 0;
+            while (encerradas < tamanho && devolucoes[encerradas] <= dia) {
+                encerradas++;
+            }
+            if (encerradas == 0) {
+                return 0;
+            }
+            tamanho -= encerradas;
+            if (tamanho == 0) {
+                retiradas = VAZIO;
+                devolucoes = VAZIO;
+            } else if (tamanho < retiradas.length / 4) {
+                // devolve a memoria das agendas que encolheram
+                retiradas = Arrays.copyOfRange(retiradas, encerradas, encerradas + Math.max(4, tamanho * 2));
+                devolucoes = Arrays.copyOfRange(devolucoes, encerradas, encerradas + Math.max(4, tamanho * 2));
+            } else {
+                System.arraycopy(retiradas, encerradas, retiradas, 0, tamanho);
+                System.arraycopy(devolucoes, encerradas, devolucoes, 0, tamanho);
+            }
+            return encerradas;
+        }
+
+        private boolean retirar(int retirada, int devolucao) {
+            int posicao = posicao(retirada);
+            if (posicao == tamanho || retiradas[posicao] != retirada || devolucoes[posicao] != devolucao) {
+                return false;
+            }
+            System.arraycopy(retiradas, posicao + 1, retiradas, posicao, tamanho - posicao - 1);
+            System.arraycopy(devolucoes, posicao + 1, devolucoes, posicao, tamanho - posicao - 1);
+            tamanho--;
+            return true;
+        }
+    }
+
+}
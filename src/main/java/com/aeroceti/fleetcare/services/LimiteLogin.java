@@ -0,0 +1,213 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limite de tentativas de login por conta (email) e por IP de origem.
+ *
+ * Cada chave tem um balde de fichas (token bucket) implementado pelo
+ * algoritmo GCRA: o estado e um unico AtomicLong (instante teorico da proxima
+ * chegada) atualizado por CAS, sem travas. Alem do balde, cada falha de senha
+ * acima das falhas livres bloqueia a chave por um tempo crescente
+ * (base * fator^n, limitado ao maximo), e um login correto zera as falhas da
+ * conta. O IP tem mais falhas livres que a conta, pois varios usuarios podem
+ * sair pelo mesmo IP (NAT).
+ *
+ * A verificacao acontece ANTES da consulta ao banco e do BCrypt. Os baldes
+ * ficam num cache de tamanho limitado e sao descartados apos o periodo de
+ * inatividade.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Component
+public class LimiteLogin {
+
+    @Autowired
+    private MeterRegistry registro;
+
+    @Value("${fleetcare.login.email.capacidade:5}")
+    private int capacidadeEmail;
+    @Value("${fleetcare.login.email.por-minuto:5}")
+    private int porMinutoEmail;
+    @Value("${fleetcare.login.ip.capacidade:20}")
+    private int capacidadeIP;
+    @Value("${fleetcare.login.ip.por-minuto:60}")
+    private int porMinutoIP;
+    @Value("${fleetcare.login.penalidade.falhas-livres:3}")
+    private int falhasLivresEmail;
+    @Value("${fleetcare.login.penalidade.falhas-livres-ip:20}")
+    private int falhasLivresIP;
+    @Value("${fleetcare.login.penalidade.base:1}")
+    private long penalidadeBase;
+    @Value("${fleetcare.login.penalidade.fator:2}")
+    private double penalidadeFator;
+    @Value("${fleetcare.login.penalidade.maxima:300}")
+    private long penalidadeMaxima;
+    @Value("${fleetcare.login.chaves:100000}")
+    private long chaves;
+    @Value("${fleetcare.login.inatividade:900}")
+    private long inatividade;
+
+    private Cache<String, Balde> porEmail;
+    private Cache<String, Balde> porIP;
+    private Counter permitidas;
+    private Counter limitadasEmail;
+    private Counter limitadasIP;
+    // instante atual em nanos (substituido nos testes)
+    private LongSupplier relogio = System::nanoTime;
+
+    private final Logger logger = LoggerFactory.getLogger(LimiteLogin.class);
+
+    @PostConstruct
+    public void inicializar() {
+        porEmail = Caffeine.newBuilder().maximumSize(chaves)
+                .expireAfterAccess(Duration.ofSeconds(inatividade)).build();
+        porIP = Caffeine.newBuilder().maximumSize(chaves)
+                .expireAfterAccess(Duration.ofSeconds(inatividade)).build();
+        permitidas = Counter.builder("fleetcare.login.tentativas").tag("resultado", "permitida")
+                .description("Tentativas de login pelo limite de tentativas").register(registro);
+        limitadasEmail = Counter.builder("fleetcare.login.tentativas").tag("resultado", "limitada-email")
+                .description("Tentativas de login pelo limite de tentativas").register(registro);
+        limitadasIP = Counter.builder("fleetcare.login.tentativas").tag("resultado", "limitada-ip")
+                .description("Tentativas de login pelo limite de tentativas").register(registro);
+        Gauge.builder("fleetcare.login.baldes", porEmail, Cache::estimatedSize).tag("chave", "email")
+                .description("Baldes de tentativas de login na memoria").register(registro);
+        Gauge.builder("fleetcare.login.baldes", porIP, Cache::estimatedSize).tag("chave", "ip")
+                .description("Baldes de tentativas de login na memoria").register(registro);
+        logger.info("Limite de login: " + porMinutoEmail + "/min por email e " + porMinutoIP + "/min por IP...");
+    }
+
+    /**
+     * Consome uma ficha do IP e da conta. Deve ser chamado antes de qualquer
+     * acesso ao banco ou ao BCrypt.
+     *
+     * @param email - Email (login) informado (pode ser nulo)
+     * @param ip - Endereco IP de origem
+     * @return 0 se a tentativa for permitida, ou o tempo de espera em segundos
+     */
+    public long verificar(String email, String ip) {
+        long agora = relogio.getAsLong();
+        Balde baldeIP = porIP.get(ip, chave -> new Balde(capacidadeIP, porMinutoIP, falhasLivresIP, agora));
+        long espera = baldeIP.consumir(agora);
+        if (espera > 0) {
+            limitadasIP.increment();
+            return segundos(espera);
+        }
+        if (email != null) {
+            Balde baldeEmail = porEmail.get(chave(email),
+                    chave -> new Balde(capacidadeEmail, porMinutoEmail, falhasLivresEmail, agora));
+            espera = baldeEmail.consumir(agora);
+            if (espera > 0) {
+                limitadasEmail.increment();
+                return segundos(espera);
+            }
+        }
+        permitidas.increment();
+        return 0;
+    }
+
+    /**
+     * Registra o resultado de uma tentativa permitida: a falha aplica a
+     * penalidade a conta e ao IP; o sucesso zera as falhas da conta.
+     *
+     * @param email - Email (login) informado (pode ser nulo)
+     * @param ip - Endereco IP de origem
+     * @param sucesso - TRUE se a senha conferiu
+     */
+    public void registrar(String email, String ip, boolean sucesso) {
+        Balde baldeEmail = email == null ? null : porEmail.getIfPresent(chave(email));
+        if (sucesso) {
+            if (baldeEmail != null) {
+                baldeEmail.falhas.set(0);
+            }
+            return;
+        }
+        long agora = relogio.getAsLong();
+        if (baldeEmail != null) {
+            baldeEmail.penalizar(agora);
+        }
+        Balde baldeIP = porIP.getIfPresent(ip);
+        if (baldeIP != null) {
+            baldeIP.penalizar(agora);
+        }
+    }
+
+    private static String chave(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long segundos(long nanos) {
+        return Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    // balde de fichas (GCRA) com o bloqueio progressivo por falhas
+    private final class Balde {
+        private final long intervalo;
+        private final long rajada;
+        private final int falhasLivres;
+        private final AtomicLong chegadaTeorica;
+        private final AtomicLong bloqueadoAte;
+        private final AtomicInteger falhas = new AtomicInteger();
+
+        private Balde(int capacidade, int porMinuto, int falhasLivres, long agora) {
+            this.intervalo = TimeUnit.MINUTES.toNanos(1) / Math.max(1, porMinuto);
+            this.rajada = intervalo * Math.max(0, capacidade - 1);
+            this.falhasLivres = falhasLivres;
+            this.chegadaTeorica = new AtomicLong(agora);
+            this.bloqueadoAte = new AtomicLong(agora);
+        }
+
+        // retorna 0 se havia ficha, ou o tempo (nanos) ate a proxima ficha/fim do bloqueio
+        private long consumir(long agora) {
+            long bloqueio = bloqueadoAte.get() - agora;
+            if (bloqueio > 0) {
+                return bloqueio;
+            }
+            while (true) {
+                long atual = chegadaTeorica.get();
+                long proxima = Math.max(atual, agora) + intervalo;
+                long excesso = proxima - agora - rajada - intervalo;
+                if (excesso > 0) {
+                    return excesso;
+                }
+                if (chegadaTeorica.compareAndSet(atual, proxima)) {
+                    return 0;
+                }
+            }
+        }
+
+        private void penalizar(long agora) {
+            int excedentes = falhas.incrementAndGet() - falhasLivres;
+            if (excedentes <= 0) {
+                return;
+            }
+            double segundos = Math.min(penalidadeMaxima, penalidadeBase * Math.pow(penalidadeFator, excedentes - 1));
+            long fim = agora + (long) (segundos * TimeUnit.SECONDS.toNanos(1));
+            bloqueadoAte.accumulateAndGet(fim, (anterior, novo) -> novo - anterior > 0 ? novo : anterior);
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.dataTransfers.CatalogoErros;
+import com.aeroceti.fleetcare.dataTransfers.LocacaoDTO;
+import com.aeroceti.fleetcare.dataTransfers.MensagemDTO;
+import com.aeroceti.fleetcare.model.Locacao;
+import com.aeroceti.fleetcare.model.Usuario;
+import com.aeroceti.fleetcare.model.Veiculo;
+import com.aeroceti.fleetcare.repositories.LocacaoRepository;
+import com.aeroceti.fleetcare.repositories.UsuarioRepository;
+import com.aeroceti.fleetcare.repositories.VeiculoRepository;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Classe de SERVICOS para o objeto Locacao (Logica do negocio).
+ *
+ * A locacao TRAVA a linha do veiculo ate o COMMIT: as locacoes de um mesmo
+ * veiculo sao serializadas e a conferencia de sobreposicao no banco (pelo
+ * indice veiculoID, retirada) nunca deixa dois periodos ocupados ao mesmo
+ * tempo - inclusive entre instancias. O indice de disponibilidade e
+ * atualizado depois do COMMIT.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Service
+public class LocacaoService {
+
+    @Autowired
+    private LocacaoRepository locacaoRepository;
+    @Autowired
+    private VeiculoRepository veiculoRepository;
+    @Autowired
+    private UsuarioRepository userRepository;
+    @Autowired
+    private UsuarioCache userCache;
+    @Autowired
+    private DisponibilidadeIndice indiceDisponibilidade;
+
+    private final Logger logger = LoggerFactory.getLogger(LocacaoService.class);
+
+    /**
+     * Metodo para locar um Veiculo para um Usuario num periodo.
+     *
+     * @param dados - Veiculo, usuario e periodo (retirada e devolucao)
+     * @return ResponseEntity contendo uma mensagem de erro OU a Locacao gravada
+     */
+    @Transactional
+    public ResponseEntity<?> locar(LocacaoDTO dados) {
+        logger.info("Validando os dados para persistir locacao no banco de dados...");
+        if (dados == null || dados.veiculoID() == null || dados.usuarioID() == null
+                || dados.retirada() == null || dados.devolucao() == null) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.LOCACAO_INCOMPLETA.getDetalhe());
+            return CatalogoErros.LOCACAO_INCOMPLETA.resposta();
+        }
+        if (!VeiculoService.periodoValido(dados.retirada(), dados.devolucao())) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.PERIODO_INVALIDO.getDetalhe());
+            return CatalogoErros.PERIODO_INVALIDO.resposta();
+        }
+        Usuario user = userCache.buscar(dados.usuarioID());
+        if (user == null || !user.isAtivo()) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.LOCATARIO_INVALIDO.getDetalhe());
+            return CatalogoErros.LOCATARIO_INVALIDO.resposta();
+        }
+        // trava o veiculo: outra locacao do mesmo veiculo espera o COMMIT desta
+        Veiculo veiculo = veiculoRepository.travarPorID(dados.veiculoID());
+        if (veiculo == null) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.VEICULO_INEXISTENTE.getDetalhe());
+            return CatalogoErros.VEICULO_INEXISTENTE.resposta();
+        }
+        if (!veiculo.isAtivo() || locacaoRepository.countConflitos(veiculo.getVeiculoID(), dados.retirada(), dados.devolucao()) > 0) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.VEICULO_INDISPONIVEL.getDetalhe());
+            return CatalogoErros.VEICULO_INDISPONIVEL.resposta();
+        }
+        Locacao locacao = new Locacao(veiculo, userRepository.getReferenceById(user.getUsuarioID()),
+                dados.retirada(), dados.devolucao());
+        Locacao locacaoNova = locacaoRepository.save(locacao);
+        indiceDisponibilidade.reservar(veiculo.getVeiculoID(), dados.retirada(), dados.devolucao());
+        logger.info("Locacao do veiculo " + veiculo.getPlaca() + " salva no banco de dados!");
+        return new ResponseEntity<>(locacaoNova, HttpStatus.CREATED);
+    }
+
+    /**
+     * Metodo para CANCELAR uma Locacao, liberando o periodo do veiculo.
+     *
+     * @param locacaoID - ID da locacao a ser cancelada
+     * @return ResponseEntity contendo uma mensagem de erro ou sucesso
+     */
+    @Transactional
+    public ResponseEntity<?> cancelar(UUID locacaoID) {
+        logger.info("Obtendo a locacao do banco para CANCELAR...");
+        Locacao locacao = locacaoID == null ? null : locacaoRepository.findByLocacaoID(locacaoID);
+        if (locacao == null) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.LOCACAO_INEXISTENTE.getDetalhe());
+            return CatalogoErros.LOCACAO_INEXISTENTE.resposta();
+        }
+        if (!locacao.isCancelada()) {
+            locacao.setCancelada(true);
+            locacaoRepository.save(locacao);
+            indiceDisponibilidade.liberar(locacao.getVeiculoID(), locacao.getRetirada(), locacao.getDevolucao());
+        }
+        return new ResponseEntity<>(MensagemDTO.LOCACAO_CANCELADA, HttpStatus.OK);
+    }
+
+    /**
+     * Busca uma locacao pelo ID.
+     *
+     * @param locacaoID - ID da locacao desejada
+     * @return ResponseEntity - Mensagem de Erro ou Objeto Locacao
+     */
+    public ResponseEntity<?> selecionar(UUID locacaoID) {
+        logger.info("Procurando a locacao pelo ID: " + locacaoID);
+        Locacao locacao = locacaoRepository.findByLocacaoID(locacaoID);
+        if (locacao == null) {
+            logger.info("Falha na procura: " + CatalogoErros.LOCACAO_INEXISTENTE.getDetalhe());
+            return CatalogoErros.LOCACAO_INEXISTENTE.resposta();
+        }
+        return new ResponseEntity<>(locacao, HttpStatus.OK);
+    }
+
+    /**
+     * Locacoes de um usuario, da mais recente para a mais antiga.
+     *
+     * @param usuarioID - ID do usuario
+     * @return ResponseEntity com um Array de locacoes
+     */
+    public ResponseEntity<?> listarPorUsuario(UUID usuarioID) {
+        logger.info("Obtendo as locacoes do usuario: " + usuarioID);
+        return new ResponseEntity<>(locacaoRepository.findByUsuarioIDOrderByRetiradaDesc(usuarioID), HttpStatus.OK);
+    }
+
+}
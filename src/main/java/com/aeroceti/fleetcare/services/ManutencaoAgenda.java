@@ -0,0 +1,494 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.dataTransfers.PendenciaManutencaoDTO;
+import com.aeroceti.fleetcare.dataTransfers.ResumoManutencaoDTO;
+import com.aeroceti.fleetcare.dataTransfers.SituacaoManutencao;
+import com.aeroceti.fleetcare.model.PlanoManutencao;
+import com.aeroceti.fleetcare.model.Veiculo;
+import com.aeroceti.fleetcare.utilities.Transacoes;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Agenda de manutencao preventiva da frota, na memoria.
+ *
+ * Cada plano ativo tem a sua situacao (EM_DIA, PROXIMA ou VENCIDA) calculada
+ * pela quilometragem do veiculo e pelo dia de hoje, com as margens de km e de
+ * dias antes do vencimento. A contagem por situacao e mantida a cada mudanca e
+ * publicada num resumo imutavel: o Dashboard le o resumo em O(1), sem consultar
+ * o banco.
+ *
+ * A quilometragem so muda com o veiculo (hodometro ou manutencao registrada):
+ * nesse caso somente os planos daquele veiculo sao recalculados. A passagem
+ * dos dias e tratada por uma fila de prioridade com o proximo dia em que cada
+ * plano muda de situacao pela data; na virada do dia, so os planos do topo da
+ * fila sao recalculados. Entradas antigas da fila (plano alterado ou
+ * arquivado) sao descartadas pela geracao do plano.
+ *
+ * A agenda e montada na inicializacao e atualizada depois do COMMIT de cada
+ * alteracao de veiculo ou de plano.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Component
+public class ManutencaoAgenda {
+
+    private static final int SEM_VIRADA = Integer.MAX_VALUE;
+
+    @Autowired
+    private MeterRegistry registro;
+
+    @Value("${fleetcare.manutencao.margem.km:1000}")
+    private long margemKm;
+    @Value("${fleetcare.manutencao.margem.dias:15}")
+    private int margemDias;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final Map<UUID, Frota> veiculos = new HashMap<>();
+    private final Map<UUID, Plano> planos = new HashMap<>();
+    private final Map<SituacaoManutencao, Set<Plano>> pendentes = new EnumMap<>(SituacaoManutencao.class);
+    private final int[] contagem = new int[SituacaoManutencao.values().length];
+    // proximo dia em que cada plano muda de situacao pela data
+    private final PriorityQueue<Virada> fila = new PriorityQueue<>(Comparator.comparingInt(Virada::dia));
+    private Clock relogio = Clock.systemDefaultZone();
+    private volatile int hoje = dia(LocalDate.now(relogio));
+    private volatile boolean pronto;
+    private volatile ResumoManutencaoDTO resumo;
+
+    // durante a montagem: planos arquivados que a leitura do banco ainda pode trazer
+    private Set<UUID> arquivadosNaMontagem;
+
+    private final Logger logger = LoggerFactory.getLogger(ManutencaoAgenda.class);
+
+    public ManutencaoAgenda() {
+        pendentes.put(SituacaoManutencao.PROXIMA, new HashSet<>());
+        pendentes.put(SituacaoManutencao.VENCIDA, new HashSet<>());
+        publicar();
+    }
+
+    @PostConstruct
+    public void inicializar() {
+        Gauge.builder("fleetcare.manutencao.planos", this, agenda -> agenda.resumo.emDia())
+                .tag("situacao", SituacaoManutencao.EM_DIA.name())
+                .description("Planos de manutencao ativos por situacao").register(registro);
+        Gauge.builder("fleetcare.manutencao.planos", this, agenda -> agenda.resumo.proximas())
+                .tag("situacao", SituacaoManutencao.PROXIMA.name())
+                .description("Planos de manutencao ativos por situacao").register(registro);
+        Gauge.builder("fleetcare.manutencao.planos", this, agenda -> agenda.resumo.vencidas())
+                .tag("situacao", SituacaoManutencao.VENCIDA.name())
+                .description("Planos de manutencao ativos por situacao").register(registro);
+    }
+
+    /**
+     * Monta a agenda a partir de todos os veiculos e dos planos ativos.
+     *
+     * @param veiculos - Percorre os veiculos do banco, entregando cada um ao consumidor
+     * @param planos - Percorre os planos ativos do banco, entregando cada um ao consumidor
+     */
+    public void montar(Consumer<Consumer<Veiculo>> veiculos, Consumer<Consumer<PlanoManutencao>> planos) {
+        long inicio = System.nanoTime();
+        trava.writeLock().lock();
+        try {
+            arquivadosNaMontagem = new HashSet<>();
+        } finally {
+            trava.writeLock().unlock();
+        }
+        try {
+            veiculos.accept(this::indexarVeiculo);
+            planos.accept(plano -> indexarPlano(plano, true));
+            pronto = true;
+        } finally {
+            trava.writeLock().lock();
+            try {
+                arquivadosNaMontagem = null;
+                publicar();
+            } finally {
+                trava.writeLock().unlock();
+            }
+        }
+        ResumoManutencaoDTO atual = resumo;
+        logger.info("Agenda de manutencao montada com " + (atual.emDia() + atual.proximas() + atual.vencidas())
+                + " planos (" + atual.proximas() + " proximos e " + atual.vencidas() + " vencidos) em "
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms.");
+    }
+
+    /**
+     * @return TRUE se a montagem terminou e a agenda pode responder as consultas
+     */
+    public boolean pronto() {
+        return pronto;
+    }
+
+    /**
+     * Atualiza a quilometragem e a placa de um veiculo, depois do COMMIT, e
+     * recalcula somente os planos dele.
+     *
+     * @param veiculo - Veiculo gravado
+     */
+    public void atualizarVeiculo(Veiculo veiculo) {
+        Transacoes.aposCommit(() -> indexarVeiculo(veiculo));
+    }
+
+    /**
+     * Inclui, atualiza ou retira (se arquivado) um plano, depois do COMMIT.
+     *
+     * @param plano - Plano gravado
+     */
+    public void atualizarPlano(PlanoManutencao plano) {
+        Transacoes.aposCommit(() -> indexarPlano(plano, false));
+    }
+
+    /**
+     * Contagem dos planos por situacao, sem consulta ao banco: O(1), exceto no
+     * primeiro acesso depois da virada do dia.
+     *
+     * @return Resumo (imutavel) da agenda
+     */
+    public ResumoManutencaoDTO resumo() {
+        virarDia();
+        return resumo;
+    }
+
+    /**
+     * Planos PROXIMOS do vencimento e/ou VENCIDOS, dos vencidos para os
+     * proximos e, em cada situacao, pelo vencimento por data e pela placa.
+     *
+     * @param situacao - PROXIMA ou VENCIDA (nulo para as duas)
+     * @param limite - Quantidade maxima de planos
+     * @return Pendencias de manutencao
+     */
+    public List<PendenciaManutencaoDTO> pendentes(SituacaoManutencao situacao, int limite) {
+        virarDia();
+        trava.readLock().lock();
+        try {
+            List<Plano> lista = new ArrayList<>();
+            for (Map.Entry<SituacaoManutencao, Set<Plano>> entrada : pendentes.entrySet()) {
+                if (situacao == null || situacao == entrada.getKey()) {
+                    lista.addAll(entrada.getValue());
+                }
+            }
+            lista.sort(Comparator.comparing((Plano plano) -> plano.situacao).reversed()
+                    .thenComparingInt(Plano::proximoDia)
+                    .thenComparing(plano -> plano.veiculo.placa));
+            List<PendenciaManutencaoDTO> resultado = new ArrayList<>(Math.min(limite, lista.size()));
+            for (int i = 0; i < lista.size() && i < limite; i++) {
+                resultado.add(pendencia(lista.get(i)));
+            }
+            return resultado;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Situacao de todos os planos ativos de um veiculo.
+     *
+     * @param veiculoID - ID do veiculo
+     * @return Planos do veiculo com a situacao e o proximo vencimento
+     */
+    public List<PendenciaManutencaoDTO> situacaoDoVeiculo(UUID veiculoID) {
+        virarDia();
+        trava.readLock().lock();
+        try {
+            Frota frota = veiculos.get(veiculoID);
+            List<PendenciaManutencaoDTO> resultado = new ArrayList<>(frota == null ? 0 : frota.planos.size());
+            if (frota != null) {
+                for (Plano plano : frota.planos) {
+                    resultado.add(pendencia(plano));
+                }
+            }
+            return resultado;
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Processa a virada do dia: recalcula os planos que mudam de situacao pela
+     * data ate hoje. Agendada para logo depois da meia-noite e chamada tambem
+     * pelas consultas (o que chegar primeiro).
+     */
+    @Scheduled(cron = "${fleetcare.manutencao.virada:1 0 0 * * *}")
+    public void virarDia() {
+        int agora = dia(LocalDate.now(relogio));
+        if (agora <= hoje) {
+            return;
+        }
+        trava.writeLock().lock();
+        try {
+            avancar(agora);
+            publicar();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private void indexarVeiculo(Veiculo veiculo) {
+        if (veiculo == null || veiculo.getVeiculoID() == null) {
+            return;
+        }
+        long versao = veiculo.getVersao() == null ? 0 : veiculo.getVersao();
+        trava.writeLock().lock();
+        try {
+            avancar(dia(LocalDate.now(relogio)));
+            Frota frota = veiculos.computeIfAbsent(veiculo.getVeiculoID(), Frota::new);
+            // a montagem pode trazer uma versao mais antiga que a ja indexada
+            if (frota.versao > versao) {
+                return;
+            }
+            frota.versao = versao;
+            frota.placa = veiculo.getPlaca();
+            if (frota.quilometragem != veiculo.getQuilometragem()) {
+                frota.quilometragem = veiculo.getQuilometragem();
+                for (Plano plano : frota.planos) {
+                    recalcular(plano);
+                }
+            }
+            publicar();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private void indexarPlano(PlanoManutencao dados, boolean daMontagem) {
+        if (dados == null || dados.getPlanoID() == null) {
+            return;
+        }
+        long versao = dados.getVersao() == null ? 0 : dados.getVersao();
+        trava.writeLock().lock();
+        try {
+            if (daMontagem && arquivadosNaMontagem != null && arquivadosNaMontagem.contains(dados.getPlanoID())) {
+                return;
+            }
+            avancar(dia(LocalDate.now(relogio)));
+            Plano plano = planos.get(dados.getPlanoID());
+            if (plano != null && plano.versao > versao) {
+                return;
+            }
+            if (!dados.isAtivo()) {
+                if (arquivadosNaMontagem != null) {
+                    arquivadosNaMontagem.add(dados.getPlanoID());
+                }
+                if (plano != null) {
+                    remover(plano);
+                    publicar();
+                }
+                return;
+            }
+            if (plano == null) {
+                // o plano pode chegar antes do veiculo (montagem): a quilometragem vem com o veiculo
+                Frota frota = veiculos.computeIfAbsent(dados.getVeiculoID(), Frota::new);
+                plano = new Plano(dados.getPlanoID(), frota);
+                frota.planos.add(plano);
+                planos.put(plano.planoID, plano);
+            }
+            plano.versao = versao;
+            plano.descricao = dados.getDescricao();
+            plano.intervaloKm = dados.getIntervaloKm() == null ? 0 : dados.getIntervaloKm();
+            plano.intervaloDias = dados.getIntervaloDias() == null ? 0 : dados.getIntervaloDias();
+            plano.ultimaQuilometragem = dados.getUltimaQuilometragem();
+            plano.ultimoDia = dia(dados.getUltimaData());
+            recalcular(plano);
+            publicar();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // retira o plano da contagem e invalida as entradas dele na fila (com a trava de escrita)
+    private void remover(Plano plano) {
+        contagem[plano.situacao.ordinal()]--;
+        Set<Plano> conjunto = pendentes.get(plano.situacao);
+        if (conjunto != null) {
+            conjunto.remove(plano);
+        }
+        plano.veiculo.planos.remove(plano);
+        planos.remove(plano.planoID);
+        plano.virada = SEM_VIRADA;
+        plano.geracao++;
+    }
+
+    // recalcula a situacao do plano e agenda a proxima virada por data (com a trava de escrita)
+    private void recalcular(Plano plano) {
+        SituacaoManutencao nova = situacao(plano);
+        if (nova != plano.situacao) {
+            if (plano.situacao != null) {
+                contagem[plano.situacao.ordinal()]--;
+                Set<Plano> anterior = pendentes.get(plano.situacao);
+                if (anterior != null) {
+                    anterior.remove(plano);
+                }
+            }
+            contagem[nova.ordinal()]++;
+            Set<Plano> atual = pendentes.get(nova);
+            if (atual != null) {
+                atual.add(plano);
+            }
+            plano.situacao = nova;
+        }
+        // a virada por data nao depende da quilometragem: o hodometro nao faz a fila crescer
+        int virada = proximaVirada(plano);
+        if (virada != plano.virada) {
+            plano.virada = virada;
+            plano.geracao++;
+            if (virada != SEM_VIRADA) {
+                fila.add(new Virada(virada, plano, plano.geracao));
+                if (fila.size() > 2 * planos.size() + 1024) {
+                    compactar();
+                }
+            }
+        }
+    }
+
+    // recalcula os planos do topo da fila que mudam de situacao ate o dia informado (com a trava de escrita)
+    private void avancar(int dia) {
+        if (dia <= hoje) {
+            return;
+        }
+        hoje = dia;
+        while (!fila.isEmpty() && fila.peek().dia() <= dia) {
+            Virada virada = fila.poll();
+            Plano plano = virada.plano();
+            if (virada.geracao() == plano.geracao) {
+                plano.virada = SEM_VIRADA;
+                recalcular(plano);
+            }
+        }
+    }
+
+    // descarta da fila as entradas antigas (planos alterados ou arquivados)
+    private void compactar() {
+        List<Virada> validas = new ArrayList<>(planos.size());
+        for (Virada virada : fila) {
+            if (virada.geracao() == virada.plano().geracao) {
+                validas.add(virada);
+            }
+        }
+        fila.clear();
+        fila.addAll(validas);
+    }
+
+    private SituacaoManutencao situacao(Plano plano) {
+        SituacaoManutencao situacao = SituacaoManutencao.EM_DIA;
+        if (plano.intervaloKm > 0) {
+            long proxima = plano.ultimaQuilometragem + plano.intervaloKm;
+            if (plano.veiculo.quilometragem >= proxima) {
+                return SituacaoManutencao.VENCIDA;
+            }
+            if (plano.veiculo.quilometragem >= proxima - margemKm) {
+                situacao = SituacaoManutencao.PROXIMA;
+            }
+        }
+        if (plano.intervaloDias > 0) {
+            int proximo = plano.proximoDia();
+            if (hoje >= proximo) {
+                return SituacaoManutencao.VENCIDA;
+            }
+            if (hoje >= proximo - margemDias) {
+                situacao = SituacaoManutencao.PROXIMA;
+            }
+        }
+        return situacao;
+    }
+
+    // proximo dia (depois de hoje) em que a situacao do plano muda pela data
+    private int proximaVirada(Plano plano) {
+        if (plano.intervaloDias <= 0) {
+            return SEM_VIRADA;
+        }
+        int proximo = plano.proximoDia();
+        if (hoje < proximo - margemDias) {
+            return proximo - margemDias;
+        }
+        return hoje < proximo ? proximo : SEM_VIRADA;
+    }
+
+    // publica a contagem atual num resumo imutavel (com a trava de escrita)
+    private void publicar() {
+        resumo = new ResumoManutencaoDTO(contagem[SituacaoManutencao.EM_DIA.ordinal()],
+                contagem[SituacaoManutencao.PROXIMA.ordinal()], contagem[SituacaoManutencao.VENCIDA.ordinal()],
+                LocalDate.ofEpochDay(hoje), pronto);
+    }
+
+    private static PendenciaManutencaoDTO pendencia(Plano plano) {
+        return new PendenciaManutencaoDTO(plano.planoID, plano.veiculo.veiculoID, plano.veiculo.placa, plano.descricao,
+                plano.situacao, plano.veiculo.quilometragem,
+                plano.intervaloKm > 0 ? plano.ultimaQuilometragem + plano.intervaloKm : null,
+                plano.intervaloDias > 0 ? LocalDate.ofEpochDay(plano.proximoDia()) : null);
+    }
+
+    private static int dia(LocalDate data) {
+        return (int) data.toEpochDay();
+    }
+
+    // entrada da fila: o plano muda de situacao no dia (vale se a geracao ainda for a do plano)
+    private record Virada(int dia, Plano plano, long geracao) {
+    }
+
+    // dados de um veiculo usados pela agenda e os seus planos ativos
+    private static final class Frota {
+        private final UUID veiculoID;
+        private final List<Plano> planos = new ArrayList<>(4);
+        private String placa = "";
+        private long quilometragem;
+        private long versao;
+
+        private Frota(UUID veiculoID) {
+            this.veiculoID = veiculoID;
+        }
+    }
+
+    // plano ativo: ultima execucao, intervalos e situacao calculada
+    private static final class Plano {
+        private final UUID planoID;
+        private final Frota veiculo;
+        private String descricao;
+        private int intervaloKm;
+        private int intervaloDias;
+        private long ultimaQuilometragem;
+        private int ultimoDia;
+        private long versao;
+        private SituacaoManutencao situacao;
+        private int virada = SEM_VIRADA;
+        private long geracao;
+
+        private Plano(UUID planoID, Frota veiculo) {
+            this.planoID = planoID;
+            this.veiculo = veiculo;
+        }
+
+        // dia do vencimento por data (SEM_VIRADA se o plano nao vence por data)
+        private int proximoDia() {
+            return intervaloDias > 0 ? ultimoDia + intervaloDias : SEM_VIRADA;
+        }
+    }
+
+}
@@ -0,0 +1,282 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.dataTransfers.CatalogoErros;
+import com.aeroceti.fleetcare.dataTransfers.ManutencaoDTO;
+import com.aeroceti.fleetcare.dataTransfers.MensagemDTO;
+import com.aeroceti.fleetcare.dataTransfers.PlanoManutencaoDTO;
+import com.aeroceti.fleetcare.dataTransfers.SituacaoManutencao;
+import com.aeroceti.fleetcare.model.Manutencao;
+import com.aeroceti.fleetcare.model.PlanoManutencao;
+import com.aeroceti.fleetcare.model.Veiculo;
+import com.aeroceti.fleetcare.repositories.ManutencaoRepository;
+import com.aeroceti.fleetcare.repositories.PlanoManutencaoRepository;
+import com.aeroceti.fleetcare.repositories.VeiculoRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Classe de SERVICOS para os Planos de Manutencao e as Manutencoes (Logica do
+ * negocio).
+ *
+ * A situacao dos planos (em dia, proximos do vencimento e vencidos) e
+ * respondida pela agenda na memoria (ManutencaoAgenda). O registro de uma
+ * manutencao TRAVA a linha do veiculo ate o COMMIT, como a atualizacao do
+ * hodometro, e a agenda recalcula somente os planos daquele veiculo.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Service
+public class ManutencaoService {
+
+    @Autowired
+    private PlanoManutencaoRepository planoRepository;
+    @Autowired
+    private ManutencaoRepository manutencaoRepository;
+    @Autowired
+    private VeiculoRepository veiculoRepository;
+    @Autowired
+    private VeiculoService veiculoService;
+    @Autowired
+    private ManutencaoAgenda agendaManutencao;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${fleetcare.manutencao.pendentes.limite:100}")
+    private int limitePendentes;
+    @Value("${fleetcare.manutencao.pendentes.maximo:1000}")
+    private int limiteMaximoPendentes;
+    @Value("${fleetcare.manutencao.retry-after:1}")
+    private long retryAfter;
+
+    private final Logger logger = LoggerFactory.getLogger(ManutencaoService.class);
+
+    /**
+     * Metodo para cadastrar um Plano de Manutencao de um Veiculo.
+     *
+     * @param dados - Veiculo, descricao, intervalos e (opcional) ultima execucao
+     * @return ResponseEntity contendo uma mensagem de erro OU o Plano gravado
+     */
+    @Transactional
+    public ResponseEntity<?> cadastrarPlano(PlanoManutencaoDTO dados) {
+        logger.info("Validando os dados para persistir plano de manutencao no banco de dados...");
+        if (dados == null || dados.veiculoID() == null || dados.descricao() == null || dados.descricao().isBlank()
+                || !intervaloValido(dados.intervaloKm(), dados.intervaloDias())) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.PLANO_INCOMPLETO.getDetalhe());
+            return CatalogoErros.PLANO_INCOMPLETO.resposta();
+        }
+        Veiculo veiculo = veiculoRepository.findByVeiculoID(dados.veiculoID());
+        if (veiculo == null) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.VEICULO_INEXISTENTE.getDetalhe());
+            return CatalogoErros.VEICULO_INEXISTENTE.resposta();
+        }
+        LocalDate hoje = LocalDate.now();
+        long ultimaQuilometragem = dados.ultimaQuilometragem() == null ? veiculo.getQuilometragem() : dados.ultimaQuilometragem();
+        LocalDate ultimaData = dados.ultimaData() == null ? hoje : dados.ultimaData();
+        if (ultimaQuilometragem < 0 || ultimaQuilometragem > veiculo.getQuilometragem() || ultimaData.isAfter(hoje)) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.MANUTENCAO_INVALIDA.getDetalhe());
+            return CatalogoErros.MANUTENCAO_INVALIDA.resposta();
+        }
+        PlanoManutencao plano = new PlanoManutencao(veiculo, dados.descricao().trim(), dados.intervaloKm(), dados.intervaloDias());
+        plano.setUltimaQuilometragem(ultimaQuilometragem);
+        plano.setUltimaData(ultimaData);
+        PlanoManutencao planoNovo = planoRepository.save(plano);
+        agendaManutencao.atualizarPlano(planoNovo);
+        logger.info("Plano " + planoNovo.getDescricao() + " do veiculo " + veiculo.getPlaca() + " salvo no banco de dados!");
+        return new ResponseEntity<>(planoNovo, HttpStatus.CREATED);
+    }
+
+    /**
+     * Metodo para ARQUIVAR ou ATIVAR um Plano de Manutencao. Planos arquivados
+     * saem da agenda de manutencao.
+     *
+     * @param planoID - ID do plano a ser processado
+     * @param ativo - False para arquivar e True para ativar
+     * @return ResponseEntity contendo uma mensagem de erro ou sucesso
+     */
+    @Transactional
+    public ResponseEntity<?> arquivarPlano(UUID planoID, boolean ativo) {
+        logger.info("Obtendo o plano de manutencao do banco para ARQUIVAR...");
+        PlanoManutencao plano = planoID == null ? null : planoRepository.findByPlanoID(planoID);
+        if (plano == null) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.PLANO_INEXISTENTE.getDetalhe());
+            return CatalogoErros.PLANO_INEXISTENTE.resposta();
+        }
+        plano.setAtivo(ativo);
+        agendaManutencao.atualizarPlano(planoRepository.saveAndFlush(plano));
+        return new ResponseEntity<>(ativo ? MensagemDTO.PLANO_ATIVADO : MensagemDTO.PLANO_ARQUIVADO, HttpStatus.OK);
+    }
+
+    /**
+     * Metodo para registrar a execucao de um Plano de Manutencao: grava a
+     * manutencao no historico, atualiza a ultima execucao do plano e, se for o
+     * caso, a quilometragem do veiculo.
+     *
+     * @param dados - Plano, dia e quilometragem da execucao
+     * @return ResponseEntity contendo uma mensagem de erro OU a Manutencao gravada
+     */
+    @Transactional
+    public ResponseEntity<?> registrar(ManutencaoDTO dados) {
+        logger.info("Validando os dados para persistir manutencao no banco de dados...");
+        if (dados == null || dados.planoID() == null || dados.data() == null || dados.quilometragem() == null) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.MANUTENCAO_INVALIDA.getDetalhe());
+            return CatalogoErros.MANUTENCAO_INVALIDA.resposta();
+        }
+        PlanoManutencao plano = planoRepository.findByPlanoID(dados.planoID());
+        if (plano == null) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.PLANO_INEXISTENTE.getDetalhe());
+            return CatalogoErros.PLANO_INEXISTENTE.resposta();
+        }
+        // trava o veiculo: o hodometro e as manutencoes do mesmo veiculo esperam o COMMIT desta
+        Veiculo veiculo = veiculoRepository.travarPorID(plano.getVeiculoID());
+        entityManager.refresh(plano);
+        if (dados.data().isAfter(LocalDate.now()) || dados.data().isBefore(plano.getUltimaData())
+                || dados.quilometragem() < plano.getUltimaQuilometragem()) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.MANUTENCAO_INVALIDA.getDetalhe());
+            return CatalogoErros.MANUTENCAO_INVALIDA.resposta();
+        }
+        Manutencao manutencao = manutencaoRepository.save(new Manutencao(plano, veiculo, dados.data(),
+                dados.quilometragem(), dados.observacao()));
+        if (dados.quilometragem() > veiculo.getQuilometragem()) {
+            veiculo.setQuilometragem(dados.quilometragem());
+            agendaManutencao.atualizarVeiculo(veiculoRepository.saveAndFlush(veiculo));
+        }
+        plano.setUltimaData(dados.data());
+        plano.setUltimaQuilometragem(dados.quilometragem());
+        agendaManutencao.atualizarPlano(planoRepository.saveAndFlush(plano));
+        logger.info("Manutencao " + plano.getDescricao() + " do veiculo " + veiculo.getPlaca() + " salva no banco de dados!");
+        return new ResponseEntity<>(manutencao, HttpStatus.CREATED);
+    }
+
+    /**
+     * Planos de manutencao (ativos e arquivados) de um veiculo.
+     *
+     * @param veiculoID - ID do veiculo
+     * @return ResponseEntity com um Array de planos
+     */
+    public ResponseEntity<?> listarPlanos(UUID veiculoID) {
+        logger.info("Obtendo os planos de manutencao do veiculo: " + veiculoID);
+        return new ResponseEntity<>(planoRepository.findByVeiculoIDOrderByDescricaoAsc(veiculoID), HttpStatus.OK);
+    }
+
+    /**
+     * Historico de manutencoes de um veiculo, da mais recente para a mais antiga.
+     *
+     * @param veiculoID - ID do veiculo
+     * @return ResponseEntity com um Array de manutencoes
+     */
+    public ResponseEntity<?> historico(UUID veiculoID) {
+        logger.info("Obtendo o historico de manutencoes do veiculo: " + veiculoID);
+        return new ResponseEntity<>(manutencaoRepository.findByVeiculoIDOrderByDataDesc(veiculoID), HttpStatus.OK);
+    }
+
+    /**
+     * Situacao dos planos ativos de um veiculo, pela agenda na memoria.
+     *
+     * @param veiculoID - ID do veiculo
+     * @return ResponseEntity - Mensagem de Erro ou Array de planos com a situacao
+     */
+    public ResponseEntity<?> situacao(UUID veiculoID) {
+        logger.info("Obtendo a situacao da manutencao do veiculo: " + veiculoID);
+        if (!agendaManutencao.pronto()) {
+            logger.info("Falha na procura: " + CatalogoErros.AGENDA_MONTANDO.getDetalhe());
+            return CatalogoErros.AGENDA_MONTANDO.resposta(retryAfter);
+        }
+        return new ResponseEntity<>(agendaManutencao.situacaoDoVeiculo(veiculoID), HttpStatus.OK);
+    }
+
+    /**
+     * Planos PROXIMOS do vencimento e/ou VENCIDOS de toda a frota, pela agenda
+     * na memoria.
+     *
+     * @param situacao - PROXIMA ou VENCIDA (nulo para as duas)
+     * @param limite - Quantidade maxima de planos (nulo para o padrao)
+     * @return ResponseEntity - Mensagem de Erro ou Array de pendencias
+     */
+    public ResponseEntity<?> pendentes(String situacao, Integer limite) {
+        logger.info("Procurando planos de manutencao pendentes: " + (situacao == null ? "todos" : situacao));
+        SituacaoManutencao filtro = null;
+        if (situacao != null && !situacao.isBlank()) {
+            try {
+                filtro = SituacaoManutencao.valueOf(situacao.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException erro) {
+                filtro = SituacaoManutencao.EM_DIA;
+            }
+            if (filtro == SituacaoManutencao.EM_DIA) {
+                logger.info("Falha na procura: " + CatalogoErros.SITUACAO_INVALIDA.getDetalhe());
+                return CatalogoErros.SITUACAO_INVALIDA.resposta();
+            }
+        }
+        if (!agendaManutencao.pronto()) {
+            logger.info("Falha na procura: " + CatalogoErros.AGENDA_MONTANDO.getDetalhe());
+            return CatalogoErros.AGENDA_MONTANDO.resposta(retryAfter);
+        }
+        int quantidade = (limite == null || limite < 1) ? limitePendentes : Math.min(limite, limiteMaximoPendentes);
+        return new ResponseEntity<>(agendaManutencao.pendentes(filtro, quantidade), HttpStatus.OK);
+    }
+
+    /**
+     * Contagem dos planos ativos por situacao (O(1), sem consulta ao banco).
+     *
+     * @return ResponseEntity com o resumo da agenda de manutencao
+     */
+    public ResponseEntity<?> resumo() {
+        return new ResponseEntity<>(agendaManutencao.resumo(), HttpStatus.OK);
+    }
+
+    /**
+     * Monta a agenda de manutencao quando a aplicacao fica pronta.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void montarAgendaManutencao() {
+        logger.info("Montando a agenda de manutencao da frota...");
+        agendaManutencao.montar(veiculoService::percorrerVeiculos, this::percorrerPlanos);
+    }
+
+    // ao menos um intervalo positivo, e nenhum negativo ou zero
+    private static boolean intervaloValido(Integer intervaloKm, Integer intervaloDias) {
+        if (intervaloKm == null && intervaloDias == null) {
+            return false;
+        }
+        return (intervaloKm == null || intervaloKm > 0) && (intervaloDias == null || intervaloDias > 0);
+    }
+
+    private void percorrerPlanos(Consumer<PlanoManutencao> consumidor) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        transacao.setReadOnly(true);
+        transacao.executeWithoutResult(status -> {
+            try (Stream<PlanoManutencao> planos = planoRepository.streamByAtivoTrue()) {
+                planos.forEach(plano -> {
+                    consumidor.accept(plano);
+                    entityManager.detach(plano);
+                });
+            }
+        });
+    }
+
+}
@@ -0,0 +1,377 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.dataTransfers.EventoPainelDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Alteracoes de usuarios e da frota enviadas aos paineis (dashboard)
+ * conectados, por Server-Sent Events.
+ *
+ * Os eventos (apos o COMMIT) entram numa fila limitada, sem bloquear a
+ * requisicao que os gerou. Uma unica thread produtora retira os eventos,
+ * serializa cada um uma vez so e entrega os mesmos bytes a todos os paineis.
+ * Cada painel tem um buffer limitado e e escrito com E/S nao bloqueante
+ * (WriteListener): a thread produtora nunca espera por um painel lento, e um
+ * painel cujo buffer enche e desconectado (o EventSource do navegador
+ * reconecta sozinho). Os paineis conectados sem eventos nao ocupam threads;
+ * um comentario (heartbeat) e enviado quando nao ha eventos, para detectar
+ * as conexoes perdidas.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Component
+public class PainelEventos implements SmartLifecycle {
+
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+    // eventos retirados da fila de uma vez: viram uma unica escrita por painel
+    private static final int EVENTOS_POR_ENVIO = 64;
+
+    @Autowired
+    private PainelIndicadores painelIndicadores;
+    @Autowired
+    private ObjectMapper jsonMapper;
+    @Autowired
+    private MeterRegistry registro;
+
+    @Value("${fleetcare.painel.eventos.maximo:1000}")
+    private int maximoPaineis;
+    @Value("${fleetcare.painel.eventos.buffer:64}")
+    private int bufferPainel;
+    @Value("${fleetcare.painel.eventos.fila:1024}")
+    private int capacidadeFila;
+    @Value("${fleetcare.painel.eventos.heartbeat:15000}")
+    private long intervaloHeartbeat;
+    @Value("${fleetcare.painel.eventos.reconexao:5000}")
+    private long reconexao;
+
+    private ArrayBlockingQueue<EventoPainelDTO> fila;
+    private final List<Painel> paineis = new CopyOnWriteArrayList<>();
+    private final AtomicInteger conectados = new AtomicInteger();
+    private long sequencia;
+    private volatile boolean executando;
+    private Thread produtor;
+
+    private Counter descartados;
+    private Counter lentos;
+
+    private final Logger logger = LoggerFactory.getLogger(PainelEventos.class);
+
+    @PostConstruct
+    public void inicializar() {
+        fila = new ArrayBlockingQueue<>(capacidadeFila);
+        Gauge.builder("fleetcare.painel.eventos.paineis", conectados, AtomicInteger::get)
+                .description("Paineis conectados ao fluxo de eventos").register(registro);
+        descartados = Counter.builder("fleetcare.painel.eventos.descartados")
+                .description("Eventos descartados com a fila do painel cheia").register(registro);
+        lentos = Counter.builder("fleetcare.painel.eventos.lentos")
+                .description("Paineis desconectados por nao acompanharem os eventos").register(registro);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void usuarioAlterado(UsuarioEvento evento) {
+        publicar("usuario", evento.tipo(), evento.usuarioID());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void veiculoAlterado(VeiculoEvento evento) {
+        publicar("veiculo", evento.tipo(), evento.veiculoID());
+    }
+
+    /**
+     * Conecta um painel ao fluxo de eventos (inicia o processamento assincrono
+     * da requisicao). O painel recebe primeiro os indicadores atuais.
+     *
+     * @param request - Requisicao do painel
+     * @param response - Resposta (text/event-stream)
+     * @return FALSE se o limite de paineis conectados foi atingido
+     * @throws IOException - Falha ao obter a saida da resposta
+     */
+    public boolean conectar(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!executando) {
+            return false;
+        }
+        if (conectados.incrementAndGet() > maximoPaineis) {
+            conectados.decrementAndGet();
+            return false;
+        }
+        Painel painel = null;
+        try {
+            response.setContentType("text/event-stream");
+            response.setCharacterEncoding("UTF-8");
+            response.setHeader("Cache-Control", "no-cache");
+            response.setHeader("X-Accel-Buffering", "no");
+            AsyncContext contexto = request.startAsync();
+            // sem limite de tempo: as conexoes perdidas sao detectadas pelo heartbeat
+            contexto.setTimeout(0);
+            painel = new Painel(contexto, contexto.getResponse().getOutputStream(), bufferPainel);
+            painel.enfileirar(("retry: " + reconexao + "\n\n").getBytes(StandardCharsets.UTF_8));
+            painel.enfileirar(quadro(null, "indicadores", painelIndicadores.indicadores()));
+            // na lista antes dos callbacks: um cliente que desconecta ja na conexao sai dela em descartar()
+            paineis.add(painel);
+            contexto.addListener(painel);
+            painel.iniciar();
+            return true;
+        } catch (IOException | RuntimeException falha) {
+            if (painel == null) {
+                conectados.decrementAndGet();
+            } else {
+                painel.fechar();
+            }
+            throw falha;
+        }
+    }
+
+    @Override
+    public void start() {
+        executando = true;
+        produtor = new Thread(this::executar, "painel-eventos");
+        produtor.setDaemon(true);
+        produtor.start();
+        logger.info("Fluxo de eventos do painel iniciado: ate " + maximoPaineis + " paineis.");
+    }
+
+    @Override
+    public void stop() {
+        executando = false;
+        produtor.interrupt();
+        for (Painel painel : paineis) {
+            painel.fechar();
+        }
+        logger.info("Fluxo de eventos do painel parado.");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executando;
+    }
+
+    // fecha os paineis antes do servidor web (fases maiores param primeiro): conexoes abertas seguram o shutdown
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+
+    // chamado pelas threads das requisicoes: nunca bloqueia
+    private void publicar(String entidade, String tipo, UUID id) {
+        if (!fila.offer(new EventoPainelDTO(entidade, tipo, id, Instant.now()))) {
+            descartados.increment();
+        }
+    }
+
+    private void executar() {
+        List<EventoPainelDTO> eventos = new ArrayList<>(EVENTOS_POR_ENVIO);
+        ByteArrayOutputStream envio = new ByteArrayOutputStream();
+        while (executando) {
+            byte[] quadros;
+            try {
+                EventoPainelDTO evento = fila.poll(intervaloHeartbeat, TimeUnit.MILLISECONDS);
+                if (evento == null) {
+                    quadros = HEARTBEAT;
+                } else {
+                    eventos.add(evento);
+                    fila.drainTo(eventos, EVENTOS_POR_ENVIO - 1);
+                    envio.reset();
+                    for (EventoPainelDTO item : eventos) {
+                        envio.writeBytes(quadro(++sequencia, item.entidade(), item));
+                    }
+                    eventos.clear();
+                    quadros = envio.toByteArray();
+                }
+            } catch (InterruptedException interrompido) {
+                continue;
+            } catch (RuntimeException falha) {
+                logger.info("Falha ao preparar os eventos do painel: " + falha.getMessage());
+                eventos.clear();
+                continue;
+            }
+            for (Painel painel : paineis) {
+                if (painel.enfileirar(quadros)) {
+                    painel.escrever();
+                } else if (!painel.fechado) {
+                    lentos.increment();
+                    painel.fechar();
+                }
+            }
+        }
+    }
+
+    // um evento no formato text/event-stream (o JSON nao tem quebras de linha)
+    private byte[] quadro(Long id, String nome, Object dados) {
+        try {
+            String texto = (id == null ? "" : "id: " + id + "\n") + "event: " + nome + "\n"
+                    + "data: " + jsonMapper.writeValueAsString(dados) + "\n\n";
+            return texto.getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException falha) {
+            throw new IllegalStateException(falha);
+        }
+    }
+
+    // um painel conectado: buffer limitado de quadros e escrita nao bloqueante
+    private final class Painel implements WriteListener, AsyncListener {
+        private final AsyncContext contexto;
+        private final ServletOutputStream saida;
+        private final int capacidade;
+        private final ArrayDeque<byte[]> quadros;
+        // a thread produtora e as do servidor (onWritePossible) nunca escrevem ao mesmo tempo
+        private final ReentrantLock trava = new ReentrantLock();
+        private boolean enviar;
+        // a saida so aceita isReady() depois do setWriteListener
+        private boolean iniciado;
+        private volatile boolean fechado;
+
+        private Painel(AsyncContext contexto, ServletOutputStream saida, int capacidade) {
+            this.contexto = contexto;
+            this.saida = saida;
+            this.capacidade = capacidade;
+            this.quadros = new ArrayDeque<>(capacidade);
+        }
+
+        // FALSE se o buffer estiver cheio (painel lento) ou o painel fechado
+        private boolean enfileirar(byte[] quadro) {
+            trava.lock();
+            try {
+                if (fechado || quadros.size() >= capacidade) {
+                    return false;
+                }
+                quadros.add(quadro);
+                return true;
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        // a primeira escrita acontece em onWritePossible, numa thread do servidor
+        private void iniciar() {
+            trava.lock();
+            try {
+                // com a trava a thread produtora so testa a saida depois do registro
+                iniciado = true;
+                saida.setWriteListener(this);
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        // escreve enquanto a saida aceitar sem bloquear; o resto sai no proximo onWritePossible
+        private void escrever() {
+            trava.lock();
+            try {
+                while (iniciado && !fechado && saida.isReady()) {
+                    byte[] quadro = quadros.poll();
+                    if (quadro != null) {
+                        saida.write(quadro);
+                        enviar = true;
+                    } else if (enviar) {
+                        enviar = false;
+                        saida.flush();
+                    } else {
+                        return;
+                    }
+                }
+            } catch (IOException | IllegalStateException falha) {
+                fechar();
+            } finally {
+                trava.unlock();
+            }
+        }
+
+        private void fechar() {
+            descartar();
+            encerrar();
+        }
+
+        // tira o painel da lista e da contagem (uma vez so, mesmo que ainda nao esteja na lista)
+        private void descartar() {
+            trava.lock();
+            try {
+                if (fechado) {
+                    return;
+                }
+                fechado = true;
+                quadros.clear();
+            } finally {
+                trava.unlock();
+            }
+            paineis.remove(this);
+            conectados.decrementAndGet();
+        }
+
+        // encerra a requisicao; nos erros do servidor deve ser chamado no proprio callback (sem o despacho para /error)
+        private void encerrar() {
+            try {
+                contexto.complete();
+            } catch (IllegalStateException jaEncerrado) {
+                // a requisicao ja foi encerrada
+            }
+        }
+
+        @Override
+        public void onWritePossible() {
+            escrever();
+        }
+
+        @Override
+        public void onError(Throwable falha) {
+            fechar();
+        }
+
+        @Override
+        public void onComplete(AsyncEvent evento) {
+            descartar();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent evento) {
+            fechar();
+        }
+
+        @Override
+        public void onError(AsyncEvent evento) {
+            fechar();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent evento) {
+        }
+    }
+
+}
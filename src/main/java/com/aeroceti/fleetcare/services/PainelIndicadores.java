@@ -0,0 +1,236 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.configurations.RoteamentoDataSource;
+import com.aeroceti.fleetcare.dataTransfers.IndicadoresDTO;
+import com.aeroceti.fleetcare.repositories.UsuarioRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Indicadores do painel (dashboard) mantidos na memoria: usuarios ativos,
+ * arquivados e cadastrados hoje - sem um COUNT(*) a cada carga da pagina.
+ *
+ * Os contadores (LongAdder) sao atualizados pelos eventos de usuario
+ * (UsuarioEvento) apos o COMMIT, e conferidos periodicamente com o banco
+ * PRIMARIO (fleetcare.painel.conferencia), o que corrige alteracoes feitas
+ * fora da aplicacao. Os eventos aplicados enquanto a contagem do banco esta em
+ * andamento sao somados a ela, para nao se perderem na troca dos valores; uma
+ * alteracao gravada pouco antes da contagem pode ser somada duas vezes, e a
+ * diferenca e corrigida na conferencia seguinte.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Component
+public class PainelIndicadores {
+
+    @Autowired
+    private UsuarioRepository userRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry registro;
+
+    // eventos aplicam com a trava de LEITURA (varios ao mesmo tempo); a conferencia e a virada do dia, com a de ESCRITA
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final Contadores contadores = new Contadores();
+    // eventos aplicados durante a contagem do banco (nulo fora de uma conferencia)
+    private Contadores durante;
+    private Clock relogio = Clock.systemDefaultZone();
+    private volatile LocalDate dia = LocalDate.now(relogio);
+    private volatile Instant conferido;
+    private volatile boolean pronto;
+    private Counter divergencias;
+
+    private final Logger logger = LoggerFactory.getLogger(PainelIndicadores.class);
+
+    @PostConstruct
+    public void inicializar() {
+        Gauge.builder("fleetcare.painel.usuarios", contadores, valores -> valores.ativos.sum()).tag("situacao", "ativo")
+                .description("Usuarios por situacao (painel)").register(registro);
+        Gauge.builder("fleetcare.painel.usuarios", contadores, valores -> valores.arquivados.sum()).tag("situacao", "arquivado")
+                .description("Usuarios por situacao (painel)").register(registro);
+        divergencias = Counter.builder("fleetcare.painel.divergencias")
+                .description("Conferencias do painel que encontraram diferenca com o banco").register(registro);
+    }
+
+    /**
+     * Aplica um evento de usuario aos contadores, apos o COMMIT (ou
+     * imediatamente, se publicado fora de uma transacao).
+     *
+     * @param evento - Situacao do usuario antes e depois da alteracao
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void aplicar(UsuarioEvento evento) {
+        virarDia();
+        trava.readLock().lock();
+        try {
+            contadores.aplicar(evento, dia);
+            if (durante != null) {
+                durante.aplicar(evento, dia);
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Indicadores atuais, sem consulta ao banco
+     */
+    public IndicadoresDTO indicadores() {
+        virarDia();
+        return new IndicadoresDTO(contadores.ativos.sum(), contadores.arquivados.sum(), contadores.hoje.sum(),
+                dia, conferido, pronto);
+    }
+
+    /**
+     * Confere os contadores com o banco PRIMARIO: na inicializacao e a cada
+     * fleetcare.painel.conferencia milissegundos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${fleetcare.painel.conferencia:300000}",
+            initialDelayString = "${fleetcare.painel.conferencia:300000}")
+    public synchronized void conferir() {
+        virarDia();
+        LocalDate diaContagem;
+        trava.writeLock().lock();
+        try {
+            durante = new Contadores();
+            diaContagem = dia;
+        } finally {
+            trava.writeLock().unlock();
+        }
+        long[] banco;
+        try {
+            TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+            transacao.setReadOnly(true);
+            banco = RoteamentoDataSource.noPrimario(() -> transacao.execute(status -> contar(diaContagem)));
+        } catch (DataAccessException | TransactionException falha) {
+            trava.writeLock().lock();
+            try {
+                durante = null;
+            } finally {
+                trava.writeLock().unlock();
+            }
+            logger.info("Falha na conferencia do painel de indicadores: " + falha.getMessage());
+            return;
+        }
+        trava.writeLock().lock();
+        try {
+            long ativos = banco[0] + durante.ativos.sum();
+            long arquivados = banco[1] + durante.arquivados.sum();
+            // o dia virou durante a contagem: a contagem de hoje ja foi zerada pela virada
+            long hoje = dia.equals(diaContagem) ? banco[2] + durante.hoje.sum() : contadores.hoje.sum();
+            if (pronto && (ativos != contadores.ativos.sum() || arquivados != contadores.arquivados.sum()
+                    || hoje != contadores.hoje.sum())) {
+                divergencias.increment();
+                logger.info("Painel de indicadores corrigido pelo banco: " + contadores + " -> ativos=" + ativos
+                        + ", arquivados=" + arquivados + ", hoje=" + hoje);
+            }
+            contadores.definir(ativos, arquivados, hoje);
+            durante = null;
+        } finally {
+            trava.writeLock().unlock();
+        }
+        conferido = Instant.now();
+        if (!pronto) {
+            pronto = true;
+            logger.info("Painel de indicadores carregado: " + contadores);
+        }
+    }
+
+    // usuarios ativos, arquivados e cadastrados no dia
+    private long[] contar(LocalDate diaContagem) {
+        long ativos = 0;
+        long arquivados = 0;
+        for (Object[] linha : userRepository.contarPorSituacao()) {
+            long total = ((Number) linha[1]).longValue();
+            if (Boolean.TRUE.equals(linha[0])) {
+                ativos += total;
+            } else {
+                arquivados += total;
+            }
+        }
+        return new long[]{ativos, arquivados, userRepository.countByDataCadastro(diaContagem)};
+    }
+
+    // zera os cadastrados hoje na virada do dia
+    private void virarDia() {
+        LocalDate agora = LocalDate.now(relogio);
+        if (agora.equals(dia)) {
+            return;
+        }
+        trava.writeLock().lock();
+        try {
+            if (!agora.equals(dia)) {
+                contadores.hoje.reset();
+                if (durante != null) {
+                    durante.hoje.reset();
+                }
+                dia = agora;
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private static final class Contadores {
+        private final LongAdder ativos = new LongAdder();
+        private final LongAdder arquivados = new LongAdder();
+        private final LongAdder hoje = new LongAdder();
+
+        // soma a diferenca entre a situacao anterior e a nova do usuario
+        private void aplicar(UsuarioEvento evento, LocalDate dia) {
+            if (evento.ativoAnterior() != null) {
+                (evento.ativoAnterior() ? ativos : arquivados).decrement();
+            }
+            if (evento.ativo() != null) {
+                (evento.ativo() ? ativos : arquivados).increment();
+            }
+            int existe = (evento.ativo() != null ? 1 : 0) - (evento.ativoAnterior() != null ? 1 : 0);
+            if (existe != 0 && dia.equals(evento.dataCadastro())) {
+                hoje.add(existe);
+            }
+        }
+
+        private void definir(long totalAtivos, long totalArquivados, long totalHoje) {
+            ativos.reset();
+            ativos.add(totalAtivos);
+            arquivados.reset();
+            arquivados.add(totalArquivados);
+            hoje.reset();
+            hoje.add(totalHoje);
+        }
+
+        @Override
+        public String toString() {
+            return "ativos=" + ativos.sum() + ", arquivados=" + arquivados.sum() + ", hoje=" + hoje.sum();
+        }
+    }
+
+}
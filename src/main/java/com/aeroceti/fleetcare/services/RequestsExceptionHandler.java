@@ -6,47 +6,75 @@
  */
 package com.aeroceti.fleetcare.services;
 
-import com.aeroceti.fleetcare.dataTransfers.ExceptionsDTO;
+import com.aeroceti.fleetcare.dataTransfers.CatalogoErros;
+import com.aeroceti.fleetcare.dataTransfers.ProblemaDTO;
 import java.sql.SQLIntegrityConstraintViolationException;
 import org.hibernate.StaleObjectStateException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
 
 /**
  * Manipulador de Exceptions.
  * 
  * Esta classe cria um LOG no Log4J para as excessoes ocultando o StackTrace do Java.
+ * As respostas de erro vem do CatalogoErros; o formato e negociado pelo
+ * Accept e, em JSON, o tipo da resposta e application/problem+json.
  *
  * @author Sergio Murilo - smurilo at Gmail.com
  * @version 1.0
  */
 @RestControllerAdvice
-public class RequestsExceptionHandler {
+public class RequestsExceptionHandler implements ResponseBodyAdvice<Object> {
 
     Logger logger = LoggerFactory.getLogger(RequestsExceptionHandler.class);
 
     @ExceptionHandler(StaleObjectStateException.class)
-    public ResponseEntity updateFail() {
-        var mensagem = new ExceptionsDTO("Alteracao nao realizada: ESTADO incorreto do Objeto!", "StaleObjectStateException");
-        logger.info("Alteracao nao realizada: ESTADO incorreto do Objeto!");
-        return ResponseEntity.badRequest().body(mensagem);
+    public ResponseEntity<ProblemaDTO> updateFail() {
+        logger.info(CatalogoErros.ESTADO_INCORRETO.getDetalhe());
+        return CatalogoErros.ESTADO_INCORRETO.resposta();
     }
 
     @ExceptionHandler(IllegalStateException.class)
-    public ResponseEntity mysqlReloadFail() {
-        var mensagem = new ExceptionsDTO("Falha na reinicializacao do Banco de Dados... Forcando RELOAD!", "IllegalStateException");
-        logger.info("Falha na reinicializacao do Banco de Dados... Forcando RELOAD!");
-        return ResponseEntity.badRequest().body(mensagem);
+    public ResponseEntity<ProblemaDTO> mysqlReloadFail() {
+        logger.info(CatalogoErros.BANCO_REINICIANDO.getDetalhe());
+        return CatalogoErros.BANCO_REINICIANDO.resposta();
     }
 
     @ExceptionHandler(SQLIntegrityConstraintViolationException.class)
-    public ResponseEntity mysqlIntegrityFail() {
-        var mensagem = new ExceptionsDTO("Violacao de Integridade, PARAMETRO EXISTENTE no banco de dados!", "SQLIntegrityConstraintViolationException");
-        logger.info("Violacao de Integridade, PARAMETRO EXISTENTE no banco de dados!!");
-        return ResponseEntity.badRequest().body(mensagem);
+    public ResponseEntity<ProblemaDTO> mysqlIntegrityFail() {
+        logger.info(CatalogoErros.INTEGRIDADE.getDetalhe());
+        return CatalogoErros.INTEGRIDADE.resposta();
+    }
+
+    @ExceptionHandler(SobrecargaException.class)
+    public ResponseEntity<ProblemaDTO> servicoSobrecarregado(SobrecargaException erro) {
+        logger.info("Servico SOBRECARREGADO: " + erro.getMessage());
+        return CatalogoErros.SOBRECARGA.resposta(erro.getRetryAfter());
+    }
+
+    @Override
+    public boolean supports(MethodParameter retorno, Class<? extends HttpMessageConverter<?>> conversor) {
+        return MappingJackson2HttpMessageConverter.class.isAssignableFrom(conversor);
+    }
+
+    // um ProblemaDTO escrito em JSON sai como application/problem+json (RFC 7807)
+    @Override
+    public Object beforeBodyWrite(Object corpo, MethodParameter retorno, MediaType tipo,
+            Class<? extends HttpMessageConverter<?>> conversor, ServerHttpRequest requisicao, ServerHttpResponse resposta) {
+        if (corpo instanceof ProblemaDTO && MediaType.APPLICATION_JSON.equalsTypeAndSubtype(tipo)) {
+            resposta.getHeaders().setContentType(MediaType.APPLICATION_PROBLEM_JSON);
+        }
+        return corpo;
     }
 
 }
@@ -0,0 +1,239 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Classe de SERVICOS para codificacao e validacao de senhas.
+ *
+ * O BCrypt e propositalmente lento, por isso o trabalho e executado em um pool
+ * de threads proprio, com fila limitada, e nao nas threads do Tomcat. Quando o
+ * pool esta saturado a requisicao falha imediatamente com SobrecargaException
+ * (HTTP 429), em vez de prender as threads que atendem os demais endpoints.
+ *
+ * A importacao em massa usa codificarAguardando: com o pool saturado ela espera
+ * por uma vaga na fila (a importacao fica mais lenta, mas nao descarta linhas
+ * validas), enquanto as requisicoes interativas continuam recebendo 429.
+ *
+ * Hashes gravados com outro algoritmo ou com custo menor que o atual sao
+ * recodificados apos um login correto, em segundo plano no mesmo pool e
+ * somente se houver folga na fila: o login nao espera pela recodificacao.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Service
+public class SenhaService {
+
+    // pausa maxima (ms) entre as tentativas de enfileirar em codificarAguardando
+    private static final long PAUSA_MAXIMA = 50;
+
+    @Autowired
+    private PasswordEncoder codePass;
+    @Autowired
+    private MeterRegistry registro;
+
+    @Value("${fleetcare.senha.threads:0}")
+    private int threads;
+    @Value("${fleetcare.senha.fila:32}")
+    private int capacidadeFila;
+    @Value("${fleetcare.senha.espera:5000}")
+    private long esperaMaxima;
+    @Value("${fleetcare.senha.retry-after:2}")
+    private long retryAfter;
+
+    private ThreadPoolExecutor executor;
+    private Timer tempoCodificacao;
+    private Timer tempoValidacao;
+    private Timer tempoEspera;
+    private Counter recusadas;
+    private Counter recodificadas;
+    private Counter adiadas;
+    private Counter concorrentes;
+
+    private final Logger logger = LoggerFactory.getLogger(SenhaService.class);
+
+    @PostConstruct
+    public void inicializar() {
+        int tamanho = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(tamanho, tamanho, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadeFila), new CustomizableThreadFactory("senha-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        tempoCodificacao = Timer.builder("fleetcare.senha.hash").tag("operacao", "codificar")
+                .description("Tempo de execucao do BCrypt").publishPercentileHistogram().register(registro);
+        tempoValidacao = Timer.builder("fleetcare.senha.hash").tag("operacao", "validar")
+                .description("Tempo de execucao do BCrypt").publishPercentileHistogram().register(registro);
+        tempoEspera = Timer.builder("fleetcare.senha.espera")
+                .description("Tempo total da requisicao no pool de senhas (fila + BCrypt)")
+                .publishPercentileHistogram().register(registro);
+        recusadas = Counter.builder("fleetcare.senha.recusadas")
+                .description("Requisicoes recusadas por saturacao do pool de senhas").register(registro);
+        recodificadas = Counter.builder("fleetcare.senha.recodificacoes").tag("resultado", "gravada")
+                .description("Recodificacoes de senhas com custo ou algoritmo antigos").register(registro);
+        adiadas = Counter.builder("fleetcare.senha.recodificacoes").tag("resultado", "adiada")
+                .description("Recodificacoes de senhas com custo ou algoritmo antigos").register(registro);
+        concorrentes = Counter.builder("fleetcare.senha.recodificacoes").tag("resultado", "concorrente")
+                .description("Recodificacoes de senhas com custo ou algoritmo antigos").register(registro);
+        Gauge.builder("fleetcare.senha.fila", executor, pool -> pool.getQueue().size())
+                .description("Tarefas aguardando no pool de senhas").register(registro);
+        Gauge.builder("fleetcare.senha.ativas", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Threads do pool de senhas em execucao").register(registro);
+        logger.info("Pool de senhas iniciado com " + tamanho + " threads e fila de " + capacidadeFila + " tarefas.");
+    }
+
+    @PreDestroy
+    public void finalizar() {
+        executor.shutdown();
+    }
+
+    /**
+     * Codifica uma senha no pool de senhas.
+     *
+     * @param senha - Senha em texto puro
+     * @return Senha codificada (hash)
+     */
+    public String codificar(String senha) {
+        return executar(() -> tempoCodificacao.recordCallable(() -> codePass.encode(senha)), false);
+    }
+
+    /**
+     * Codifica uma senha no pool de senhas, aguardando por uma vaga na fila
+     * (e pelo resultado, sem limite de tempo) quando o pool estiver saturado.
+     *
+     * @param senha - Senha em texto puro
+     * @return Senha codificada (hash)
+     */
+    public String codificarAguardando(String senha) {
+        return executar(() -> tempoCodificacao.recordCallable(() -> codePass.encode(senha)), true);
+    }
+
+    /**
+     * Confere uma senha com o hash gravado, no pool de senhas.
+     *
+     * @param senha - Senha em texto puro
+     * @param hash - Senha codificada gravada no banco de dados
+     * @return True se a senha confere, senao False
+     */
+    public boolean conferir(String senha, String hash) {
+        return executar(() -> tempoValidacao.recordCallable(() -> codePass.matches(senha, hash)), false);
+    }
+
+    /**
+     * Recodifica, em segundo plano, uma senha ja conferida cujo hash gravado
+     * usa outro algoritmo ou um custo diferente do atual. Se a fila do pool
+     * estiver com mais da metade ocupada a recodificacao fica para um proximo
+     * login, para nao competir com as requisicoes.
+     *
+     * @param senha - Senha em texto puro (ja conferida com o hash)
+     * @param hash - Senha codificada gravada no banco de dados
+     * @param gravar - Grava o novo hash se o gravado ainda for o informado;
+     * retorna False se outra alteracao chegou antes
+     */
+    public void recodificarSeNecessario(String senha, String hash, Predicate<String> gravar) {
+        if (!codePass.upgradeEncoding(hash)) {
+            return;
+        }
+        if (executor.getQueue().size() > capacidadeFila / 2) {
+            adiadas.increment();
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                String novo = tempoCodificacao.record(() -> codePass.encode(senha));
+                if (gravar.test(novo)) {
+                    recodificadas.increment();
+                } else {
+                    concorrentes.increment();
+                }
+            });
+        } catch (RejectedExecutionException cheio) {
+            adiadas.increment();
+        }
+    }
+
+    private <T> T executar(Callable<T> tarefa, boolean aguardarVaga) {
+        long inicio = System.nanoTime();
+        try {
+            return aguardar(tarefa, aguardarVaga);
+        } finally {
+            tempoEspera.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> T aguardar(Callable<T> tarefa, boolean aguardarVaga) {
+        Future<T> resultado;
+        try {
+            resultado = enfileirar(tarefa, aguardarVaga);
+        } catch (RejectedExecutionException cheio) {
+            recusadas.increment();
+            logger.info("Pool de senhas SATURADO: requisicao recusada!");
+            throw new SobrecargaException("Pool de senhas saturado", retryAfter);
+        } catch (InterruptedException interrompida) {
+            Thread.currentThread().interrupt();
+            throw new SobrecargaException("Espera pelo pool de senhas interrompida", retryAfter);
+        }
+        try {
+            return aguardarVaga ? resultado.get() : resultado.get(esperaMaxima, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException atraso) {
+            resultado.cancel(true);
+            recusadas.increment();
+            logger.info("Pool de senhas SATURADO: tempo de espera esgotado!");
+            throw new SobrecargaException("Tempo de espera do pool de senhas esgotado", retryAfter);
+        } catch (InterruptedException interrompida) {
+            resultado.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new SobrecargaException("Espera pelo pool de senhas interrompida", retryAfter);
+        } catch (ExecutionException falha) {
+            if (falha.getCause() instanceof RuntimeException erro) {
+                throw erro;
+            }
+            throw new IllegalArgumentException(falha.getCause());
+        }
+    }
+
+    /**
+     * Enfileira a tarefa no pool; com aguardarVaga, tenta de novo (com pausas
+     * crescentes) enquanto a fila estiver cheia, ate o pool ser encerrado.
+     */
+    private <T> Future<T> enfileirar(Callable<T> tarefa, boolean aguardarVaga) throws InterruptedException {
+        long pausa = 1;
+        while (true) {
+            try {
+                return executor.submit(tarefa);
+            } catch (RejectedExecutionException cheio) {
+                if (!aguardarVaga || executor.isShutdown()) {
+                    throw cheio;
+                }
+                Thread.sleep(pausa);
+                pausa = Math.min(pausa * 2, PAUSA_MAXIMA);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,36 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+/**
+ * Excecao para servicos SOBRECARREGADOS.
+ *
+ * Indica que a requisicao foi recusada sem ser processada e que o cliente
+ * deve tentar novamente depois do tempo informado (Retry-After).
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public class SobrecargaException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfter;
+
+    public SobrecargaException(String message, long retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return o tempo, em segundos, para o cliente tentar novamente
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+}
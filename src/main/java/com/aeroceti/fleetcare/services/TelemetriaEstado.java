@@ -0,0 +1,282 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.dataTransfers.PosicaoVeiculoDTO;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.locks.StampedLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Ultimo estado (telemetria) de cada Veiculo, na memoria: instante, hodometro,
+ * combustivel e posicao da leitura mais recente.
+ *
+ * Cada veiculo recebe uma posicao fixa (slot) e os valores ficam em arrays de
+ * tipos primitivos, em blocos de 1024 posicoes - sem um objeto por veiculo nem
+ * por leitura. O ID do veiculo e localizado numa tabela de enderecamento
+ * aberto com as duas metades do UUID (long). As leituras usam a leitura
+ * otimista do StampedLock (sem travar); as escritas travam somente a faixa do
+ * slot, entao leituras de veiculos diferentes nao disputam a mesma trava.
+ *
+ * Uma leitura so substitui o estado se for mais recente que a atual: lotes
+ * reenviados ou fora de ordem nao fazem o estado voltar no tempo.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Component
+public class TelemetriaEstado {
+
+    private static final int BITS_BLOCO = 10;
+    private static final int TAMANHO_BLOCO = 1 << BITS_BLOCO;
+    private static final int FAIXAS = 64;
+    private static final long SEM_LEITURA = Long.MIN_VALUE;
+
+    @Autowired
+    private MeterRegistry registro;
+
+    // tabela UUID -> slot: metades do UUID e slot + 1 (zero = posicao vazia)
+    private final StampedLock travaTabela = new StampedLock();
+    private long[] altas = new long[2048];
+    private long[] baixas = new long[2048];
+    private int[] slots = new int[2048];
+    private volatile Bloco[] blocos = new Bloco[0];
+    private volatile int totalVeiculos;
+
+    private final StampedLock[] faixas = new StampedLock[FAIXAS];
+
+    public TelemetriaEstado() {
+        for (int i = 0; i < FAIXAS; i++) {
+            faixas[i] = new StampedLock();
+        }
+    }
+
+    @PostConstruct
+    public void inicializar() {
+        Gauge.builder("fleetcare.telemetria.veiculos", this, TelemetriaEstado::totalVeiculos)
+                .description("Veiculos no estado de telemetria").register(registro);
+    }
+
+    /**
+     * Inclui um veiculo (se ainda nao estiver no estado).
+     *
+     * @param veiculoID - ID do veiculo
+     * @return Slot do veiculo
+     */
+    public int registrar(UUID veiculoID) {
+        long alta = veiculoID.getMostSignificantBits();
+        long baixa = veiculoID.getLeastSignificantBits();
+        long carimbo = travaTabela.writeLock();
+        try {
+            int slot = procurar(altas, baixas, slots, alta, baixa);
+            if (slot >= 0) {
+                return slot;
+            }
+            slot = totalVeiculos;
+            if ((slot + 1) * 2 > slots.length) {
+                redimensionar(slots.length * 2);
+            }
+            inserir(altas, baixas, slots, alta, baixa, slot);
+            if ((slot >>> BITS_BLOCO) == blocos.length) {
+                Bloco[] novos = Arrays.copyOf(blocos, blocos.length + 1);
+                novos[blocos.length] = new Bloco();
+                blocos = novos;
+            }
+            Bloco bloco = blocos[slot >>> BITS_BLOCO];
+            int posicao = slot & (TAMANHO_BLOCO - 1);
+            bloco.altas[posicao] = alta;
+            bloco.baixas[posicao] = baixa;
+            totalVeiculos = slot + 1;
+            return slot;
+        } finally {
+            travaTabela.unlockWrite(carimbo);
+        }
+    }
+
+    /**
+     * @param veiculoID - ID do veiculo
+     * @return Slot do veiculo, ou -1 se o veiculo nao estiver no estado
+     */
+    public int slot(UUID veiculoID) {
+        long alta = veiculoID.getMostSignificantBits();
+        long baixa = veiculoID.getLeastSignificantBits();
+        long carimbo = travaTabela.tryOptimisticRead();
+        int slot = procurar(altas, baixas, slots, alta, baixa);
+        if (!travaTabela.validate(carimbo)) {
+            carimbo = travaTabela.readLock();
+            try {
+                slot = procurar(altas, baixas, slots, alta, baixa);
+            } finally {
+                travaTabela.unlockRead(carimbo);
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * Grava uma leitura no estado do veiculo, se for mais recente que a atual.
+     *
+     * @param slot - Slot do veiculo
+     * @param instante - Instante da leitura (epoch, em milissegundos)
+     * @param quilometragem - Hodometro, em km
+     * @param combustivel - Nivel de combustivel, em % do tanque
+     * @param latitude - Latitude, em graus
+     * @param longitude - Longitude, em graus
+     * @return TRUE se o estado foi atualizado
+     */
+    public boolean atualizar(int slot, long instante, long quilometragem, float combustivel, double latitude, double longitude) {
+        Bloco bloco = blocos[slot >>> BITS_BLOCO];
+        int posicao = slot & (TAMANHO_BLOCO - 1);
+        StampedLock faixa = faixas[slot & (FAIXAS - 1)];
+        long carimbo = faixa.writeLock();
+        try {
+            if (bloco.instantes[posicao] >= instante) {
+                return false;
+            }
+            bloco.instantes[posicao] = instante;
+            bloco.quilometragens[posicao] = quilometragem;
+            bloco.combustiveis[posicao] = combustivel;
+            bloco.latitudes[posicao] = latitude;
+            bloco.longitudes[posicao] = longitude;
+            return true;
+        } finally {
+            faixa.unlockWrite(carimbo);
+        }
+    }
+
+    /**
+     * Ultima leitura de um veiculo, sem consulta ao banco.
+     *
+     * @param veiculoID - ID do veiculo
+     * @return Posicao e hodometro da leitura mais recente, ou nulo se nao houver leitura
+     */
+    public PosicaoVeiculoDTO consultar(UUID veiculoID) {
+        int slot = slot(veiculoID);
+        if (slot < 0) {
+            return null;
+        }
+        Bloco bloco = blocos[slot >>> BITS_BLOCO];
+        int posicao = slot & (TAMANHO_BLOCO - 1);
+        StampedLock faixa = faixas[slot & (FAIXAS - 1)];
+        long carimbo = faixa.tryOptimisticRead();
+        long instante = bloco.instantes[posicao];
+        long quilometragem = bloco.quilometragens[posicao];
+        float combustivel = bloco.combustiveis[posicao];
+        double latitude = bloco.latitudes[posicao];
+        double longitude = bloco.longitudes[posicao];
+        if (!faixa.validate(carimbo)) {
+            carimbo = faixa.readLock();
+            try {
+                instante = bloco.instantes[posicao];
+                quilometragem = bloco.quilometragens[posicao];
+                combustivel = bloco.combustiveis[posicao];
+                latitude = bloco.latitudes[posicao];
+                longitude = bloco.longitudes[posicao];
+            } finally {
+                faixa.unlockRead(carimbo);
+            }
+        }
+        if (instante == SEM_LEITURA) {
+            return null;
+        }
+        return new PosicaoVeiculoDTO(veiculoID, Instant.ofEpochMilli(instante), quilometragem, combustivel, latitude, longitude);
+    }
+
+    /**
+     * @param slot - Slot do veiculo
+     * @return Metade alta (mais significativa) do ID do veiculo
+     */
+    public long idAlto(int slot) {
+        return blocos[slot >>> BITS_BLOCO].altas[slot & (TAMANHO_BLOCO - 1)];
+    }
+
+    /**
+     * @param slot - Slot do veiculo
+     * @return Metade baixa (menos significativa) do ID do veiculo
+     */
+    public long idBaixo(int slot) {
+        return blocos[slot >>> BITS_BLOCO].baixas[slot & (TAMANHO_BLOCO - 1)];
+    }
+
+    /**
+     * @return Quantidade de veiculos no estado
+     */
+    public int totalVeiculos() {
+        return totalVeiculos;
+    }
+
+    // dobra a tabela (com a trava de escrita); quem le os arrays antigos e invalidado pelo StampedLock
+    private void redimensionar(int capacidade) {
+        long[] novasAltas = new long[capacidade];
+        long[] novasBaixas = new long[capacidade];
+        int[] novosSlots = new int[capacidade];
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != 0) {
+                inserir(novasAltas, novasBaixas, novosSlots, altas[i], baixas[i], slots[i] - 1);
+            }
+        }
+        altas = novasAltas;
+        baixas = novasBaixas;
+        slots = novosSlots;
+    }
+
+    // a tabela nunca passa da metade, entao a sondagem sempre encontra uma posicao vazia
+    private static int procurar(long[] altas, long[] baixas, int[] slots, long alta, long baixa) {
+        if (altas.length != slots.length || baixas.length != slots.length) {
+            // leitura otimista no meio de um redimensionamento: invalidada pelo StampedLock
+            return -1;
+        }
+        int mascara = slots.length - 1;
+        for (int i = espalhar(alta, baixa) & mascara; ; i = (i + 1) & mascara) {
+            int slot = slots[i];
+            if (slot == 0) {
+                return -1;
+            }
+            if (altas[i] == alta && baixas[i] == baixa) {
+                return slot - 1;
+            }
+        }
+    }
+
+    private static void inserir(long[] altas, long[] baixas, int[] slots, long alta, long baixa, int slot) {
+        int mascara = slots.length - 1;
+        int i = espalhar(alta, baixa) & mascara;
+        while (slots[i] != 0) {
+            i = (i + 1) & mascara;
+        }
+        altas[i] = alta;
+        baixas[i] = baixa;
+        slots[i] = slot + 1;
+    }
+
+    private static int espalhar(long alta, long baixa) {
+        long h = (alta ^ baixa) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // valores de 1024 veiculos, por campo
+    private static final class Bloco {
+        private final long[] altas = new long[TAMANHO_BLOCO];
+        private final long[] baixas = new long[TAMANHO_BLOCO];
+        private final long[] instantes = new long[TAMANHO_BLOCO];
+        private final long[] quilometragens = new long[TAMANHO_BLOCO];
+        private final float[] combustiveis = new float[TAMANHO_BLOCO];
+        private final double[] latitudes = new double[TAMANHO_BLOCO];
+        private final double[] longitudes = new double[TAMANHO_BLOCO];
+
+        private Bloco() {
+            Arrays.fill(instantes, SEM_LEITURA);
+        }
+    }
+
+}
@@ -0,0 +1,305 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.dataTransfers.LeituraTelemetriaDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Gravador das leituras de telemetria: um anel (buffer circular) de
+ * capacidade fixa entre as requisicoes e uma thread propria que grava no banco.
+ *
+ * As leituras ficam no anel em arrays de tipos primitivos (o veiculo pelo slot
+ * do TelemetriaEstado). Um lote so e aceito se couber inteiro: com o anel
+ * cheio, publicar() recusa o lote e a requisicao responde 429, para o veiculo
+ * reenviar depois - a memoria nao cresce com a fila. A thread de gravacao
+ * retira ate fleetcare.telemetria.lote leituras por vez, quando o lote
+ * completa ou a cada fleetcare.telemetria.intervalo ms (o que vier primeiro),
+ * e grava com um unico JDBC batch numa transacao (no MySQL, com
+ * rewriteBatchedStatements, um INSERT de varias linhas).
+ *
+ * A thread e iniciada antes do servidor web e parada depois dele (fase do
+ * SmartLifecycle), gravando o que restou no anel antes de o pool de conexoes
+ * ser fechado.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Component
+public class TelemetriaGravador implements SmartLifecycle {
+
+    private static final String INSERIR = "INSERT INTO Telemetria (veiculoID, instante, quilometragem, combustivel, "
+            + "latitude, longitude) VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private TelemetriaEstado estado;
+    @Autowired
+    private MeterRegistry registro;
+
+    @Value("${fleetcare.telemetria.fila:65536}")
+    private int capacidade;
+    @Value("${fleetcare.telemetria.lote:1000}")
+    private int tamanhoLote;
+    @Value("${fleetcare.telemetria.intervalo:200}")
+    private long intervalo;
+    @Value("${fleetcare.telemetria.tentativas:3}")
+    private int tentativas;
+    @Value("${fleetcare.telemetria.espera-parada:10000}")
+    private long esperaParada;
+
+    // anel: posicoes [inicio, inicio + ocupadas) modulo a capacidade
+    private final ReentrantLock trava = new ReentrantLock();
+    private final Condition loteCompleto = trava.newCondition();
+    private int[] slots;
+    private long[] instantes;
+    private long[] quilometragens;
+    private float[] combustiveis;
+    private double[] latitudes;
+    private double[] longitudes;
+    private int inicio;
+    private volatile int ocupadas;
+    private volatile boolean executando;
+    private Thread gravador;
+
+    private Timer tempoGravacao;
+    private Counter gravadas;
+    private Counter descartadas;
+
+    private final Logger logger = LoggerFactory.getLogger(TelemetriaGravador.class);
+
+    @PostConstruct
+    public void inicializar() {
+        slots = new int[capacidade];
+        instantes = new long[capacidade];
+        quilometragens = new long[capacidade];
+        combustiveis = new float[capacidade];
+        latitudes = new double[capacidade];
+        longitudes = new double[capacidade];
+        tempoGravacao = Timer.builder("fleetcare.telemetria.gravacao")
+                .description("Tempo de gravacao de um lote de telemetria").publishPercentileHistogram().register(registro);
+        gravadas = Counter.builder("fleetcare.telemetria.leituras").tag("resultado", "gravada")
+                .description("Leituras de telemetria por resultado").register(registro);
+        descartadas = Counter.builder("fleetcare.telemetria.leituras").tag("resultado", "descartada")
+                .description("Leituras de telemetria por resultado").register(registro);
+        Gauge.builder("fleetcare.telemetria.fila", this, anel -> anel.ocupadas)
+                .description("Leituras de telemetria aguardando gravacao").register(registro);
+    }
+
+    /**
+     * Coloca um lote de leituras no anel, se couber inteiro.
+     *
+     * @param leituras - Leituras validadas
+     * @param slotsLeituras - Slot do veiculo de cada leitura (TelemetriaEstado)
+     * @return FALSE se o anel estiver cheio (ou o gravador parado): nada foi aceito
+     */
+    public boolean publicar(List<LeituraTelemetriaDTO> leituras, int[] slotsLeituras) {
+        int total = leituras.size();
+        trava.lock();
+        try {
+            if (!executando || capacidade - ocupadas < total) {
+                return false;
+            }
+            int posicao = inicio + ocupadas;
+            for (int i = 0; i < total; i++, posicao++) {
+                if (posicao >= capacidade) {
+                    posicao -= capacidade;
+                }
+                LeituraTelemetriaDTO leitura = leituras.get(i);
+                slots[posicao] = slotsLeituras[i];
+                instantes[posicao] = leitura.instante().toEpochMilli();
+                quilometragens[posicao] = leitura.quilometragem();
+                combustiveis[posicao] = leitura.combustivel();
+                latitudes[posicao] = leitura.latitude();
+                longitudes[posicao] = leitura.longitude();
+            }
+            ocupadas += total;
+            if (ocupadas >= tamanhoLote) {
+                loteCompleto.signal();
+            }
+            return true;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        executando = true;
+        gravador = new Thread(this::executar, "telemetria-gravador");
+        gravador.start();
+        logger.info("Gravador de telemetria iniciado: anel de " + capacidade + " leituras e lotes de " + tamanhoLote + ".");
+    }
+
+    @Override
+    public void stop() {
+        trava.lock();
+        try {
+            executando = false;
+            loteCompleto.signal();
+        } finally {
+            trava.unlock();
+        }
+        try {
+            gravador.join(esperaParada);
+        } catch (InterruptedException interrompido) {
+            Thread.currentThread().interrupt();
+        }
+        if (gravador.isAlive()) {
+            logger.info("Gravador de telemetria nao terminou em " + esperaParada + " ms: " + ocupadas + " leituras perdidas.");
+        } else {
+            logger.info("Gravador de telemetria parado.");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executando;
+    }
+
+    // para depois do servidor web (fases maiores param primeiro): as ultimas requisicoes ainda publicam no anel
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void executar() {
+        Lote lote = new Lote(tamanhoLote);
+        while (true) {
+            trava.lock();
+            try {
+                if (ocupadas < tamanhoLote && executando) {
+                    loteCompleto.await(intervalo, TimeUnit.MILLISECONDS);
+                }
+                if (ocupadas == 0 && !executando) {
+                    return;
+                }
+                drenar(lote);
+            } catch (InterruptedException interrompido) {
+                executando = false;
+                continue;
+            } finally {
+                trava.unlock();
+            }
+            if (lote.tamanho > 0) {
+                gravar(lote);
+            }
+        }
+    }
+
+    // copia ate um lote do inicio do anel (com a trava)
+    private void drenar(Lote lote) {
+        int total = Math.min(ocupadas, tamanhoLote);
+        int posicao = inicio;
+        for (int i = 0; i < total; i++, posicao++) {
+            if (posicao >= capacidade) {
+                posicao -= capacidade;
+            }
+            lote.slots[i] = slots[posicao];
+            lote.instantes[i] = instantes[posicao];
+            lote.quilometragens[i] = quilometragens[posicao];
+            lote.combustiveis[i] = combustiveis[posicao];
+            lote.latitudes[i] = latitudes[posicao];
+            lote.longitudes[i] = longitudes[posicao];
+        }
+        inicio = (inicio + total) % capacidade;
+        ocupadas -= total;
+        lote.tamanho = total;
+    }
+
+    // grava o lote num JDBC batch; falhas transitorias (banco fora do ar) sao repetidas
+    private void gravar(Lote lote) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        for (int tentativa = 1; ; tentativa++) {
+            try {
+                tempoGravacao.record(() -> transacao.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERIR, lote)));
+                gravadas.increment(lote.tamanho);
+                return;
+            } catch (DataAccessException | TransactionException falha) {
+                if (falha instanceof NonTransientDataAccessException || tentativa >= tentativas) {
+                    logger.info("Lote de " + lote.tamanho + " leituras de telemetria DESCARTADO: " + falha.getMessage());
+                    descartadas.increment(lote.tamanho);
+                    return;
+                }
+                logger.info("Falha ao gravar lote de telemetria (tentativa " + tentativa + "): " + falha.getMessage());
+                try {
+                    Thread.sleep(100L << tentativa);
+                } catch (InterruptedException interrompido) {
+                    executando = false;
+                }
+            }
+        }
+    }
+
+    // leituras retiradas do anel para um JDBC batch
+    private final class Lote implements BatchPreparedStatementSetter {
+        private final int[] slots;
+        private final long[] instantes;
+        private final long[] quilometragens;
+        private final float[] combustiveis;
+        private final double[] latitudes;
+        private final double[] longitudes;
+        private final ByteBuffer id = ByteBuffer.allocate(16);
+        private int tamanho;
+
+        private Lote(int capacidade) {
+            slots = new int[capacidade];
+            instantes = new long[capacidade];
+            quilometragens = new long[capacidade];
+            combustiveis = new float[capacidade];
+            latitudes = new double[capacidade];
+            longitudes = new double[capacidade];
+        }
+
+        @Override
+        public void setValues(PreparedStatement comando, int i) throws SQLException {
+            // UUID em 16 bytes: BINARY(16) no MySQL, convertido para UUID no H2
+            id.clear();
+            id.putLong(estado.idAlto(slots[i])).putLong(estado.idBaixo(slots[i]));
+            comando.setBytes(1, id.array().clone());
+            comando.setTimestamp(2, new Timestamp(instantes[i]));
+            comando.setLong(3, quilometragens[i]);
+            comando.setFloat(4, combustiveis[i]);
+            comando.setDouble(5, latitudes[i]);
+            comando.setDouble(6, longitudes[i]);
+        }
+
+        @Override
+        public int getBatchSize() {
+            return tamanho;
+        }
+    }
+
+}
@@ -0,0 +1,186 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.dataTransfers.CatalogoErros;
+import com.aeroceti.fleetcare.dataTransfers.LeituraTelemetriaDTO;
+import com.aeroceti.fleetcare.dataTransfers.PosicaoVeiculoDTO;
+import com.aeroceti.fleetcare.dataTransfers.RecepcaoTelemetriaDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Classe de SERVICOS para a telemetria dos Veiculos (hodometro, combustivel e
+ * posicao).
+ *
+ * As leituras chegam em lotes, sao validadas e entregues ao TelemetriaGravador,
+ * que as grava no banco em lotes JDBC numa thread propria: a requisicao nao
+ * espera pelo banco. Com o anel do gravador cheio, o lote inteiro e recusado
+ * com HTTP 429 (Retry-After) e o veiculo reenvia depois. A posicao atual de
+ * cada veiculo e respondida pelo TelemetriaEstado, na memoria, sem consulta ao
+ * banco; o estado e carregado na inicializacao com a ultima leitura gravada.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Service
+public class TelemetriaService {
+
+    // ultima leitura gravada de cada veiculo (indice veiculoID, instante)
+    private static final String ULTIMAS_LEITURAS = "SELECT t.veiculoID, t.instante, t.quilometragem, t.combustivel, "
+            + "t.latitude, t.longitude FROM Telemetria t JOIN (SELECT veiculoID, MAX(instante) AS instante FROM Telemetria "
+            + "GROUP BY veiculoID) u ON u.veiculoID = t.veiculoID AND u.instante = t.instante";
+
+    @Autowired
+    private TelemetriaEstado estado;
+    @Autowired
+    private TelemetriaGravador gravador;
+    @Autowired
+    private VeiculoService veiculoService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private MeterRegistry registro;
+
+    @Value("${fleetcare.telemetria.maximo-lote:1000}")
+    private int maximoLote;
+    @Value("${fleetcare.telemetria.tolerancia:300}")
+    private long tolerancia;
+    @Value("${fleetcare.telemetria.retry-after:1}")
+    private long retryAfter;
+
+    private volatile boolean pronto;
+    private Counter aceitas;
+    private Counter rejeitadas;
+    private Counter recusadas;
+
+    private final Logger logger = LoggerFactory.getLogger(TelemetriaService.class);
+
+    @PostConstruct
+    public void inicializar() {
+        aceitas = Counter.builder("fleetcare.telemetria.leituras").tag("resultado", "aceita")
+                .description("Leituras de telemetria por resultado").register(registro);
+        rejeitadas = Counter.builder("fleetcare.telemetria.leituras").tag("resultado", "rejeitada")
+                .description("Leituras de telemetria por resultado").register(registro);
+        recusadas = Counter.builder("fleetcare.telemetria.leituras").tag("resultado", "recusada")
+                .description("Leituras de telemetria por resultado").register(registro);
+    }
+
+    /**
+     * Recebe um lote de leituras de telemetria. Leituras invalidas (ou de
+     * veiculo inexistente) sao rejeitadas uma a uma; as demais sao aceitas
+     * todas juntas ou, com a fila de gravacao cheia, nenhuma.
+     *
+     * @param leituras - Lote de leituras
+     * @return ResponseEntity - Mensagem de Erro ou o resultado do recebimento (202)
+     */
+    public ResponseEntity<?> receber(List<LeituraTelemetriaDTO> leituras) {
+        if (leituras == null || leituras.isEmpty() || leituras.size() > maximoLote) {
+            logger.info("Lote de telemetria recusado: " + CatalogoErros.LOTE_TELEMETRIA_INVALIDO.getDetalhe());
+            return CatalogoErros.LOTE_TELEMETRIA_INVALIDO.resposta();
+        }
+        if (!pronto) {
+            logger.info("Lote de telemetria recusado: " + CatalogoErros.TELEMETRIA_CARREGANDO.getDetalhe());
+            return CatalogoErros.TELEMETRIA_CARREGANDO.resposta(retryAfter);
+        }
+        long limite = Instant.now().plusSeconds(tolerancia).toEpochMilli();
+        List<LeituraTelemetriaDTO> validas = new ArrayList<>(leituras.size());
+        List<Integer> invalidas = new ArrayList<>();
+        int[] slots = new int[leituras.size()];
+        for (int i = 0; i < leituras.size(); i++) {
+            LeituraTelemetriaDTO leitura = leituras.get(i);
+            int slot = leituraValida(leitura, limite) ? estado.slot(leitura.veiculoID()) : -1;
+            if (slot < 0) {
+                invalidas.add(i);
+            } else {
+                slots[validas.size()] = slot;
+                validas.add(leitura);
+            }
+        }
+        if (!validas.isEmpty() && !gravador.publicar(validas, slots)) {
+            recusadas.increment(validas.size());
+            logger.info("Lote de telemetria recusado: " + CatalogoErros.TELEMETRIA_SOBRECARGA.getDetalhe());
+            return CatalogoErros.TELEMETRIA_SOBRECARGA.resposta(retryAfter);
+        }
+        for (int i = 0; i < validas.size(); i++) {
+            LeituraTelemetriaDTO leitura = validas.get(i);
+            estado.atualizar(slots[i], leitura.instante().toEpochMilli(), leitura.quilometragem(), leitura.combustivel(),
+                    leitura.latitude(), leitura.longitude());
+        }
+        aceitas.increment(validas.size());
+        rejeitadas.increment(invalidas.size());
+        return new ResponseEntity<>(new RecepcaoTelemetriaDTO(validas.size(), invalidas), HttpStatus.ACCEPTED);
+    }
+
+    /**
+     * Leitura de telemetria mais recente de um veiculo, sem consulta ao banco.
+     *
+     * @param veiculoID - ID do veiculo
+     * @return ResponseEntity - Mensagem de Erro ou a posicao atual do veiculo
+     */
+    public ResponseEntity<?> posicao(UUID veiculoID) {
+        PosicaoVeiculoDTO posicao = estado.consultar(veiculoID);
+        if (posicao == null) {
+            logger.info("Falha na procura: " + CatalogoErros.SEM_TELEMETRIA.getDetalhe());
+            return CatalogoErros.SEM_TELEMETRIA.resposta();
+        }
+        return new ResponseEntity<>(posicao, HttpStatus.OK);
+    }
+
+    /**
+     * Carrega os veiculos e a ultima leitura gravada de cada um quando a
+     * aplicacao fica pronta. Ate o fim da carga os lotes recebidos sao
+     * recusados (503), para o veiculo reenviar depois.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregarEstado() {
+        logger.info("Carregando o estado de telemetria da frota...");
+        long inicio = System.nanoTime();
+        veiculoService.percorrerVeiculos(veiculo -> estado.registrar(veiculo.getVeiculoID()));
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        transacao.setReadOnly(true);
+        transacao.executeWithoutResult(status -> jdbcTemplate.query(ULTIMAS_LEITURAS, linha -> {
+            ByteBuffer id = ByteBuffer.wrap(linha.getBytes(1));
+            int slot = estado.registrar(new UUID(id.getLong(), id.getLong()));
+            estado.atualizar(slot, linha.getTimestamp(2).getTime(), linha.getLong(3), linha.getFloat(4),
+                    linha.getDouble(5), linha.getDouble(6));
+        }));
+        pronto = true;
+        logger.info("Estado de telemetria carregado com " + estado.totalVeiculos() + " veiculos em "
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms.");
+    }
+
+    private static boolean leituraValida(LeituraTelemetriaDTO leitura, long limite) {
+        return leitura != null && leitura.veiculoID() != null && leitura.instante() != null
+                && leitura.instante().toEpochMilli() <= limite
+                && leitura.quilometragem() != null && leitura.quilometragem() >= 0
+                && leitura.combustivel() != null && leitura.combustivel() >= 0 && leitura.combustivel() <= 100
+                && leitura.latitude() != null && Math.abs(leitura.latitude()) <= 90
+                && leitura.longitude() != null && Math.abs(leitura.longitude()) <= 180;
+    }
+
+}
@@ -0,0 +1,216 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.dataTransfers.SessaoDTO;
+import com.aeroceti.fleetcare.model.Usuario;
+import com.aeroceti.fleetcare.utilities.Transacoes;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.UUID;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Emissao e validacao dos tokens de sessao (acesso e renovacao).
+ *
+ * O token e base64url(conteudo) + "." + base64url(HMAC-SHA256(conteudo)), com
+ * o conteudo binario: tipo (1 byte), usuarioID (16), versao do usuario (8) e
+ * expiracao em segundos (8). A validacao de um token de acesso e somente a
+ * conferencia do HMAC, da expiracao e da tabela de revogacoes na memoria: sem
+ * banco de dados e sem BCrypt por requisicao.
+ *
+ * Revogacao: toda alteracao de um usuario (atualizar, arquivar, ativar,
+ * deletar) registra, apos o COMMIT, a versao minima aceita para os seus tokens
+ * (o maximo, para usuarios inativos ou excluidos). As revogacoes ficam na
+ * memoria pelo tempo de vida do token de renovacao. Em varias instancias, a
+ * revogacao feita em outra instancia vale na renovacao (que confere o usuario
+ * no banco) e, portanto, no maximo ao fim da validade do token de acesso.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Service
+public class TokenService {
+
+    private static final byte ACESSO = 'A';
+    private static final byte RENOVACAO = 'R';
+    private static final int TAMANHO_CONTEUDO = 1 + 16 + 8 + 8;
+    private static final String ALGORITMO = "HmacSHA256";
+
+    @Autowired
+    private MeterRegistry registro;
+
+    @Value("${fleetcare.token.segredo:}")
+    private String segredo;
+    @Value("${fleetcare.token.acesso:900}")
+    private long validadeAcesso;
+    @Value("${fleetcare.token.renovacao:604800}")
+    private long validadeRenovacao;
+
+    private Mac prototipo;
+    private Cache<UUID, Long> revogacoes;
+
+    private final Logger logger = LoggerFactory.getLogger(TokenService.class);
+
+    @PostConstruct
+    public void inicializar() throws GeneralSecurityException {
+        byte[] chave;
+        if (segredo == null || segredo.isBlank()) {
+            chave = new byte[32];
+            new SecureRandom().nextBytes(chave);
+            logger.info("Segredo dos tokens GERADO na inicializacao: defina fleetcare.token.segredo "
+                    + "para manter as sessoes apos reiniciar e entre instancias...");
+        } else {
+            chave = segredo.getBytes(StandardCharsets.UTF_8);
+        }
+        prototipo = Mac.getInstance(ALGORITMO);
+        prototipo.init(new SecretKeySpec(chave, ALGORITMO));
+        revogacoes = Caffeine.newBuilder().expireAfterWrite(Duration.ofSeconds(validadeRenovacao)).build();
+        Gauge.builder("fleetcare.token.revogacoes", revogacoes, Cache::estimatedSize)
+                .description("Usuarios com tokens revogados na memoria").register(registro);
+    }
+
+    /**
+     * Emite os tokens de uma sessao para o usuario autenticado.
+     *
+     * @param user - Usuario autenticado (senha conferida)
+     * @param usuario - Representacao do usuario na resposta
+     * @return SessaoDTO com os tokens de acesso e renovacao
+     */
+    public SessaoDTO emitir(Usuario user, Object usuario) {
+        long agora = System.currentTimeMillis() / 1000;
+        long versao = user.getVersao() == null ? 0 : user.getVersao();
+        return new SessaoDTO(
+                assinar(ACESSO, user.getUsuarioID(), versao, agora + validadeAcesso),
+                assinar(RENOVACAO, user.getUsuarioID(), versao, agora + validadeRenovacao),
+                "Bearer", validadeAcesso, usuario);
+    }
+
+    /**
+     * Valida um token de acesso (HMAC, expiracao e revogacoes na memoria).
+     *
+     * @param token - Token recebido no cabecalho Authorization
+     * @return ID do usuario, ou NULL se o token for invalido, expirado ou revogado
+     */
+    public UUID validarAcesso(String token) {
+        Conteudo conteudo = ler(token, ACESSO);
+        return conteudo == null ? null : conteudo.usuarioID();
+    }
+
+    /**
+     * Valida um token de renovacao (HMAC, expiracao e revogacoes na memoria).
+     * A situacao e a versao do usuario ainda devem ser conferidas com o banco.
+     *
+     * @param token - Token de renovacao
+     * @return Conteudo do token, ou NULL se for invalido, expirado ou revogado
+     */
+    public Conteudo validarRenovacao(String token) {
+        return ler(token, RENOVACAO);
+    }
+
+    /**
+     * Revoga, apos o COMMIT, os tokens emitidos antes da alteracao do usuario.
+     * Se o usuario estiver inativo, todos os seus tokens sao revogados.
+     *
+     * @param user - Usuario alterado (a versao e lida depois do COMMIT)
+     */
+    public void revogar(Usuario user) {
+        Transacoes.aposCommit(() -> revogacoes.put(user.getUsuarioID(),
+                user.isAtivo() && user.getVersao() != null ? user.getVersao() : Long.MAX_VALUE));
+    }
+
+    /**
+     * Revoga, apos o COMMIT, os tokens com versao anterior a informada (nunca
+     * reduz uma revogacao ja registrada).
+     *
+     * @param usuarioID - ID do usuario
+     * @param versaoMinima - Menor versao aceita (Long.MAX_VALUE revoga todos)
+     */
+    public void revogar(UUID usuarioID, long versaoMinima) {
+        Transacoes.aposCommit(() -> revogacoes.asMap().merge(usuarioID, versaoMinima, Math::max));
+    }
+
+    private String assinar(byte tipo, UUID usuarioID, long versao, long expiracao) {
+        ByteBuffer conteudo = ByteBuffer.allocate(TAMANHO_CONTEUDO).put(tipo)
+                .putLong(usuarioID.getMostSignificantBits()).putLong(usuarioID.getLeastSignificantBits())
+                .putLong(versao).putLong(expiracao);
+        Base64.Encoder base64 = Base64.getUrlEncoder().withoutPadding();
+        return base64.encodeToString(conteudo.array()) + "." + base64.encodeToString(hmac(conteudo.array()));
+    }
+
+    private Conteudo ler(String token, byte tipo) {
+        if (token == null) {
+            return null;
+        }
+        int ponto = token.indexOf('.');
+        if (ponto < 0) {
+            return null;
+        }
+        byte[] conteudo;
+        byte[] assinatura;
+        try {
+            conteudo = Base64.getUrlDecoder().decode(token.substring(0, ponto));
+            assinatura = Base64.getUrlDecoder().decode(token.substring(ponto + 1));
+        } catch (IllegalArgumentException invalido) {
+            return null;
+        }
+        if (conteudo.length != TAMANHO_CONTEUDO || !MessageDigest.isEqual(hmac(conteudo), assinatura)) {
+            return null;
+        }
+        ByteBuffer dados = ByteBuffer.wrap(conteudo);
+        if (dados.get() != tipo) {
+            return null;
+        }
+        Conteudo lido = new Conteudo(new UUID(dados.getLong(), dados.getLong()), dados.getLong(), dados.getLong());
+        if (lido.expiracao() < System.currentTimeMillis() / 1000) {
+            return null;
+        }
+        Long versaoMinima = revogacoes.getIfPresent(lido.usuarioID());
+        if (versaoMinima != null && lido.versao() < versaoMinima) {
+            return null;
+        }
+        return lido;
+    }
+
+    // o Mac nao e thread-safe: cada assinatura usa uma copia do prototipo ja inicializado
+    private byte[] hmac(byte[] conteudo) {
+        try {
+            Mac mac = (Mac) prototipo.clone();
+            return mac.doFinal(conteudo);
+        } catch (CloneNotSupportedException erro) {
+            throw new IllegalStateException(erro);
+        }
+    }
+
+    /**
+     * Conteudo de um token valido.
+     *
+     * @param usuarioID - ID do usuario
+     * @param versao - Versao do usuario na emissao
+     * @param expiracao - Expiracao (segundos desde 1970)
+     */
+    public record Conteudo(UUID usuarioID, long versao, long expiracao) {
+
+    }
+
+}
@@ -0,0 +1,188 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.configurations.RoteamentoDataSource;
+import com.aeroceti.fleetcare.model.Usuario;
+import com.aeroceti.fleetcare.repositories.UsuarioRepository;
+import com.aeroceti.fleetcare.utilities.Transacoes;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache local (na memoria) dos Usuarios, por ID e por email.
+ *
+ * As consultas passam por aqui antes de chegar ao banco de dados. O cache e
+ * limitado por quantidade e por tempo de vida, e pode ser desligado por perfil
+ * com a propriedade fleetcare.cache.usuario.habilitado.
+ *
+ * Os objetos devolvidos sao compartilhados entre as requisicoes e NAO devem ser
+ * alterados; para alterar um usuario, carregue-o do repositorio.
+ *
+ * A consulta ao banco numa falta do cache roda FORA do bloqueio interno do
+ * Caffeine: o cache recebe apenas uma promessa (CompletableFuture) que a thread
+ * que fez a consulta completa, e as demais threads aguardam essa promessa. Assim
+ * uma thread virtual nao fica presa (pinning) a thread portadora durante o JDBC.
+ *
+ * Com replicas de leitura, os usuarios alterados ha pouco (dentro do atraso
+ * maximo da replicacao) sao consultados no banco PRIMARIO, para que a replica
+ * atrasada nao devolva - nem coloque no cache - a versao anterior do registro.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Component
+public class UsuarioCache {
+
+    @Autowired
+    private UsuarioRepository userRepository;
+    @Autowired
+    private MeterRegistry registro;
+
+    @Value("${fleetcare.cache.usuario.habilitado:true}")
+    private boolean habilitado;
+    @Value("${fleetcare.cache.usuario.tamanho:10000}")
+    private long tamanho;
+    @Value("${fleetcare.cache.usuario.expiracao:600}")
+    private long expiracao;
+    @Value("${fleetcare.replica.atraso-maximo:5}")
+    private long atrasoReplica;
+
+    private AsyncCache<UUID, Usuario> porID;
+    private AsyncCache<String, UUID> porEmail;
+    private Cache<Object, Boolean> escritasRecentes;
+
+    private final Logger logger = LoggerFactory.getLogger(UsuarioCache.class);
+
+    @PostConstruct
+    public void inicializar() {
+        porID = Caffeine.newBuilder().maximumSize(tamanho)
+                .expireAfterWrite(Duration.ofSeconds(expiracao)).recordStats().buildAsync();
+        porEmail = Caffeine.newBuilder().maximumSize(tamanho)
+                .expireAfterWrite(Duration.ofSeconds(expiracao)).recordStats().buildAsync();
+        escritasRecentes = Caffeine.newBuilder().maximumSize(tamanho)
+                .expireAfterWrite(Duration.ofSeconds(atrasoReplica)).build();
+        CaffeineCacheMetrics.monitor(registro, porID.synchronous(), "usuarioPorID");
+        CaffeineCacheMetrics.monitor(registro, porEmail.synchronous(), "usuarioPorEmail");
+        logger.info("Cache de usuarios " + (habilitado ? "HABILITADO" : "DESABILITADO") + "...");
+    }
+
+    /**
+     * Obtem um usuario pelo ID, consultando o banco somente se nao estiver no cache.
+     *
+     * @param usuarioID - ID do usuario
+     * @return Usuario ou NULL se nao existir
+     */
+    public Usuario buscar(UUID usuarioID) {
+        if (!habilitado) {
+            return consultar(usuarioID, userRepository::findByUsuarioID);
+        }
+        return carregar(porID, usuarioID, userRepository::findByUsuarioID);
+    }
+
+    /**
+     * Obtem um usuario pelo email, consultando o banco somente se nao estiver no cache.
+     *
+     * @param email - Email do usuario
+     * @return Usuario ou NULL se nao existir
+     */
+    public Usuario buscar(String email) {
+        if (!habilitado) {
+            return consultar(email, userRepository::findByEmail);
+        }
+        // o email aponta apenas para o ID; o registro vem sempre do cache por ID
+        UUID usuarioID = carregar(porEmail, email, userRepository::findUsuarioIDByEmail);
+        if (usuarioID == null) {
+            return null;
+        }
+        Usuario user = buscar(usuarioID);
+        return (user != null && email.equals(user.getEmail())) ? user : null;
+    }
+
+    // obtem o valor do cache; numa falta, instala uma promessa e consulta o banco sem bloqueio
+    private <K, V> V carregar(AsyncCache<K, V> cache, K chave, Function<K, V> consulta) {
+        CompletableFuture<V> carga = new CompletableFuture<>();
+        CompletableFuture<V> atual = cache.get(chave, (k, executor) -> carga);
+        if (atual != carga) {
+            return aguardar(atual);
+        }
+        try {
+            V valor = consultar(chave, consulta);
+            carga.complete(valor);
+            return valor;
+        } catch (RuntimeException erro) {
+            carga.completeExceptionally(erro);
+            throw erro;
+        }
+    }
+
+    // consulta o banco; um usuario alterado ha pouco e lido no primario, e nao na replica
+    private <K, V> V consultar(K chave, Function<K, V> consulta) {
+        if (escritasRecentes.getIfPresent(chave) != null) {
+            return RoteamentoDataSource.noPrimario(() -> consulta.apply(chave));
+        }
+        return consulta.apply(chave);
+    }
+
+    private <V> V aguardar(CompletableFuture<V> carga) {
+        try {
+            return carga.join();
+        } catch (CompletionException erro) {
+            if (erro.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw erro;
+        }
+    }
+
+    /**
+     * Remove um usuario do cache (pelo ID e pelos emails informados).
+     *
+     * Se houver uma transacao em andamento, a remocao so acontece depois do
+     * COMMIT, para que uma consulta concorrente nao recoloque no cache a versao
+     * anterior do registro. O usuario tambem passa a ser lido no primario
+     * durante o atraso maximo da replicacao.
+     *
+     * @param usuarioID - ID do usuario (pode ser nulo)
+     * @param emails - Emails (antigo e novo) do usuario
+     */
+    public void remover(UUID usuarioID, String... emails) {
+        Transacoes.aposCommit(() -> invalidar(usuarioID, emails));
+    }
+
+    private void invalidar(UUID usuarioID, String... emails) {
+        for (String email : emails) {
+            if (email != null) {
+                escritasRecentes.put(email, Boolean.TRUE);
+                if (habilitado) {
+                    porEmail.synchronous().invalidate(email);
+                }
+            }
+        }
+        if (usuarioID != null) {
+            escritasRecentes.put(usuarioID, Boolean.TRUE);
+            if (habilitado) {
+                porID.synchronous().invalidate(usuarioID);
+            }
+        }
+    }
+
+}
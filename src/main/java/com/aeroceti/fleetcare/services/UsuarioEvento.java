@@ -0,0 +1,58 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.model.Usuario;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Evento de cadastro, atualizacao, arquivamento, ativacao ou exclusao de um
+ * Usuario, publicado pelos servicos e tratado apos o COMMIT.
+ *
+ * Leva a situacao do usuario antes e depois da alteracao (nulo = nao existe),
+ * para quem mantem contagens somar somente a diferenca: arquivar um usuario ja
+ * arquivado nao muda nada.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record UsuarioEvento(UUID usuarioID, Boolean ativoAnterior, Boolean ativo, LocalDate dataCadastro) {
+
+    /**
+     * @return CADASTRADO, ATUALIZADO, ARQUIVADO, ATIVADO ou DELETADO
+     */
+    public String tipo() {
+        if (ativoAnterior == null) {
+            return "CADASTRADO";
+        }
+        if (ativo == null) {
+            return "DELETADO";
+        }
+        if (ativoAnterior.equals(ativo)) {
+            return "ATUALIZADO";
+        }
+        return ativo ? "ATIVADO" : "ARQUIVADO";
+    }
+
+    public static UsuarioEvento cadastrado(Usuario user) {
+        return new UsuarioEvento(user.getUsuarioID(), null, user.isAtivo(), user.getDataCadastro());
+    }
+
+    public static UsuarioEvento atualizado(Usuario user) {
+        return new UsuarioEvento(user.getUsuarioID(), user.isAtivo(), user.isAtivo(), user.getDataCadastro());
+    }
+
+    public static UsuarioEvento alterado(Usuario user, boolean ativoAnterior) {
+        return new UsuarioEvento(user.getUsuarioID(), ativoAnterior, user.isAtivo(), user.getDataCadastro());
+    }
+
+    public static UsuarioEvento deletado(Usuario user) {
+        return new UsuarioEvento(user.getUsuarioID(), user.isAtivo(), null, user.getDataCadastro());
+    }
+
+}
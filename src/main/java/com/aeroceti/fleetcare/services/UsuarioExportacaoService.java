@@ -0,0 +1,161 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.model.Usuario;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Classe de SERVICOS para a exportacao de usuarios (relatorios).
+ *
+ * Os registros sao lidos por um cursor do banco e escritos direto na resposta
+ * (CSV ou NDJSON), opcionalmente compactados com GZIP. O uso de memoria nao
+ * depende da quantidade de usuarios. A senha (hash) nunca e exportada.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Service
+public class UsuarioExportacaoService {
+
+    private static final String[] COLUNAS = {"usuarioID", "nome", "email", "cpf", "whatsapp",
+        "dataNascimento", "sexo", "ativo", "versao"};
+
+    @Autowired
+    private UsuarioService userService;
+    @Autowired
+    private ObjectMapper jsonMapper;
+
+    private final Logger logger = LoggerFactory.getLogger(UsuarioExportacaoService.class);
+
+    /**
+     * Exporta TODOS os usuarios no formato solicitado.
+     *
+     * @param formato - csv ou ndjson
+     * @param gzip - True para compactar a resposta com GZIP
+     * @return ResponseEntity com o corpo da resposta em fluxo
+     */
+    public ResponseEntity<StreamingResponseBody> exportar(String formato, boolean gzip) {
+        boolean csv = !"ndjson".equalsIgnoreCase(formato);
+        logger.info("Exportando usuarios no formato " + (csv ? "CSV" : "NDJSON") + (gzip ? " (gzip)" : "") + "...");
+        StreamingResponseBody corpo = saida -> {
+            OutputStream destino = gzip ? new GZIPOutputStream(saida, 8192) : saida;
+            try (Writer escritor = new BufferedWriter(new OutputStreamWriter(destino, StandardCharsets.UTF_8), 16384)) {
+                if (csv) {
+                    escreverCsv(escritor);
+                } else {
+                    escreverNdjson(escritor);
+                }
+            }
+        };
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=usuarios." + (csv ? "csv" : "ndjson"))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return resposta.body(corpo);
+    }
+
+    private void escreverCsv(Writer escritor) throws IOException {
+        escritor.write(String.join(",", COLUNAS));
+        escritor.write('\n');
+        userService.percorrerTodos(user -> {
+            try {
+                escritor.write(user.getUsuarioID().toString());
+                campoCsv(escritor, user.getNome());
+                campoCsv(escritor, user.getEmail());
+                campoCsv(escritor, user.getCpf());
+                campoCsv(escritor, user.getWhatsapp());
+                campoCsv(escritor, user.getDataNascimento());
+                campoCsv(escritor, user.getSexo());
+                campoCsv(escritor, String.valueOf(user.isAtivo()));
+                campoCsv(escritor, String.valueOf(user.getVersao()));
+                escritor.write('\n');
+            } catch (IOException falha) {
+                throw new UncheckedIOException(falha);
+            }
+        });
+    }
+
+    private void escreverNdjson(Writer escritor) throws IOException {
+        try (JsonGenerator gerador = jsonMapper.getFactory().createGenerator(escritor)) {
+            gerador.setRootValueSeparator(null);
+            userService.percorrerTodos(user -> {
+                try {
+                    escreverJson(gerador, user);
+                    gerador.writeRaw('\n');
+                } catch (IOException falha) {
+                    throw new UncheckedIOException(falha);
+                }
+            });
+        }
+    }
+
+    private static void escreverJson(JsonGenerator gerador, Usuario user) throws IOException {
+        gerador.writeStartObject();
+        gerador.writeStringField(COLUNAS[0], user.getUsuarioID().toString());
+        gerador.writeStringField(COLUNAS[1], user.getNome());
+        gerador.writeStringField(COLUNAS[2], user.getEmail());
+        gerador.writeStringField(COLUNAS[3], user.getCpf());
+        gerador.writeStringField(COLUNAS[4], user.getWhatsapp());
+        gerador.writeStringField(COLUNAS[5], user.getDataNascimento());
+        gerador.writeStringField(COLUNAS[6], user.getSexo());
+        gerador.writeBooleanField(COLUNAS[7], user.isAtivo());
+        if (user.getVersao() != null) {
+            gerador.writeNumberField(COLUNAS[8], user.getVersao());
+        }
+        gerador.writeEndObject();
+    }
+
+    /**
+     * Escreve um campo CSV precedido da virgula, entre aspas quando necessario.
+     */
+    private static void campoCsv(Writer escritor, String valor) throws IOException {
+        escritor.write(',');
+        if (valor == null) {
+            return;
+        }
+        boolean aspas = false;
+        for (int i = 0; i < valor.length() && !aspas; i++) {
+            char c = valor.charAt(i);
+            aspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!aspas) {
+            escritor.write(valor);
+            return;
+        }
+        escritor.write('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                escritor.write('"');
+            }
+            escritor.write(c);
+        }
+        escritor.write('"');
+    }
+
+}
@@ -0,0 +1,266 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.dataTransfers.CatalogoErros;
+import com.aeroceti.fleetcare.dataTransfers.ErroImportacaoDTO;
+import com.aeroceti.fleetcare.dataTransfers.ImportacaoDTO;
+import com.aeroceti.fleetcare.model.Usuario;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Classe de SERVICOS para a importacao de usuarios em massa.
+ *
+ * O arquivo (CSV ou NDJSON) e lido linha a linha, direto da requisicao; cada
+ * linha e validada com as mesmas regras do cadastro e os registros validos sao
+ * gravados em lotes (JDBC batch). Somente um lote fica na memoria por vez.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Service
+public class UsuarioImportacaoService {
+
+    @Autowired
+    private UsuarioService userService;
+    @Autowired
+    private SenhaService senhaService;
+    @Autowired
+    private UsuarioCache userCache;
+    @Autowired
+    private UsuarioIndice indicePesquisa;
+    @Autowired
+    private ObjectMapper jsonMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ApplicationEventPublisher publicador;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${fleetcare.importacao.lote:500}")
+    private int tamanhoLote;
+    @Value("${fleetcare.importacao.erros:1000}")
+    private int maximoErros;
+
+    private final Logger logger = LoggerFactory.getLogger(UsuarioImportacaoService.class);
+
+    /**
+     * Importa os usuarios de um arquivo CSV (com cabecalho) ou NDJSON.
+     *
+     * No CSV as colunas reconhecidas sao: nome, email, cpf, whatsapp,
+     * dataNascimento, sexo e password; o separador pode ser virgula ou ponto e
+     * virgula. No NDJSON cada linha e um objeto Usuario em JSON.
+     *
+     * @param corpo - Conteudo do arquivo
+     * @param tipo - Content-Type da requisicao (text/csv ou application/x-ndjson)
+     * @return ResponseEntity com o relatorio da importacao
+     */
+    public ResponseEntity<?> importar(InputStream corpo, String tipo) {
+        boolean csv = !MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(tipo));
+        logger.info("Importando usuarios no formato " + (csv ? "CSV" : "NDJSON") + "...");
+        Relatorio relatorio = new Relatorio();
+        List<Linha> lote = new ArrayList<>(tamanhoLote);
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(corpo, StandardCharsets.UTF_8))) {
+            String[] colunas = null;
+            char separador = ',';
+            String texto;
+            int numero = 0;
+            while ((texto = leitor.readLine()) != null) {
+                numero++;
+                if (texto.isBlank()) {
+                    continue;
+                }
+                if (csv && colunas == null) {
+                    separador = (texto.indexOf(';') >= 0 && texto.indexOf(',') < 0) ? ';' : ',';
+                    colunas = lerCampos(texto, separador);
+                    continue;
+                }
+                relatorio.processadas++;
+                Usuario user;
+                try {
+                    user = csv ? lerUsuario(colunas, lerCampos(texto, separador)) : jsonMapper.readValue(texto, Usuario.class);
+                } catch (IOException | RuntimeException formato) {
+                    relatorio.erro(numero, CatalogoErros.LINHA_INVALIDA);
+                    continue;
+                }
+                CatalogoErros erro = userService.validarCadastro(user);
+                if (erro == null && (user.getPassword() == null || user.getPassword().isBlank())) {
+                    erro = CatalogoErros.SENHA_OBRIGATORIA;
+                }
+                if (erro != null) {
+                    relatorio.erro(numero, erro);
+                    continue;
+                }
+                user.setUsuarioID(null);
+                try {
+                    // com o pool de senhas saturado a importacao espera por vaga (nao recusa a linha)
+                    user.setPassword(senhaService.codificarAguardando(user.getPassword()));
+                } catch (SobrecargaException saturado) {
+                    relatorio.erro(numero, CatalogoErros.SOBRECARGA);
+                    continue;
+                }
+                lote.add(new Linha(numero, user));
+                if (lote.size() >= tamanhoLote) {
+                    gravar(lote, relatorio);
+                    lote.clear();
+                }
+            }
+        } catch (IOException falha) {
+            logger.info("Leitura do arquivo interrompida: " + falha.getMessage());
+        } finally {
+            if (!lote.isEmpty()) {
+                gravar(lote, relatorio);
+            }
+        }
+        logger.info("Importacao concluida: " + relatorio.importadas + " de " + relatorio.processadas + " usuarios gravados.");
+        return new ResponseEntity<>(relatorio.resultado(), HttpStatus.OK);
+    }
+
+    /**
+     * Grava um lote em uma unica transacao (JDBC batch). Se o lote falhar, os
+     * registros sao gravados um a um para identificar as linhas recusadas.
+     */
+    private void gravar(List<Linha> lote, Relatorio relatorio) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        try {
+            transacao.executeWithoutResult(status -> {
+                entityManager.unwrap(Session.class).setJdbcBatchSize(tamanhoLote);
+                for (Linha linha : lote) {
+                    entityManager.persist(linha.usuario());
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            for (Linha linha : lote) {
+                relatorio.importadas++;
+                userCache.remover(linha.usuario().getUsuarioID(), linha.usuario().getEmail());
+                indicePesquisa.atualizar(linha.usuario());
+                publicador.publishEvent(UsuarioEvento.cadastrado(linha.usuario()));
+            }
+        } catch (PersistenceException | DataAccessException | TransactionException falhaLote) {
+            logger.info("Lote recusado, gravando os registros individualmente...");
+            for (Linha linha : lote) {
+                Usuario user = linha.usuario();
+                user.setUsuarioID(null);
+                user.setVersao(null);
+                try {
+                    transacao.executeWithoutResult(status -> {
+                        entityManager.persist(user);
+                        entityManager.flush();
+                    });
+                    relatorio.importadas++;
+                    userCache.remover(user.getUsuarioID(), user.getEmail());
+                    indicePesquisa.atualizar(user);
+                    publicador.publishEvent(UsuarioEvento.cadastrado(user));
+                } catch (PersistenceException | DataAccessException | TransactionException falha) {
+                    relatorio.erro(linha.numero(), CatalogoErros.INTEGRIDADE);
+                }
+            }
+        }
+    }
+
+    private Usuario lerUsuario(String[] colunas, String[] campos) {
+        Usuario user = new Usuario();
+        for (int i = 0; i < colunas.length && i < campos.length; i++) {
+            String valor = campos[i];
+            switch (colunas[i].trim().toLowerCase(Locale.ROOT)) {
+                case "nome" -> user.setNome(valor);
+                case "email" -> user.setEmail(valor.trim());
+                case "cpf" -> user.setCpf(valor);
+                case "whatsapp" -> user.setWhatsapp(valor);
+                case "datanascimento" -> user.setDataNascimento(valor);
+                case "sexo" -> user.setSexo(valor.trim());
+                case "password" -> user.setPassword(valor);
+                default -> {
+                    // coluna desconhecida: ignorada
+                }
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Separa os campos de uma linha CSV (aceita campos entre aspas).
+     */
+    private static String[] lerCampos(String linha, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean aspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (aspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else if (c == '"') {
+                    aspas = false;
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                aspas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString());
+        return campos.toArray(String[]::new);
+    }
+
+    private record Linha(int numero, Usuario usuario) {
+
+    }
+
+    private class Relatorio {
+
+        private int processadas;
+        private int importadas;
+        private int rejeitadas;
+        private final List<ErroImportacaoDTO> erros = new ArrayList<>();
+
+        private void erro(int linha, CatalogoErros erro) {
+            rejeitadas++;
+            if (erros.size() < maximoErros) {
+                erros.add(new ErroImportacaoDTO(linha, erro.getCodigo(), erro.getDetalhe()));
+            }
+        }
+
+        private ImportacaoDTO resultado() {
+            return new ImportacaoDTO(processadas, importadas, rejeitadas, erros);
+        }
+    }
+
+}
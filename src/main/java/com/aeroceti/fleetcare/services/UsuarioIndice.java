@@ -0,0 +1,432 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.dataTransfers.PesquisaUsuarioDTO;
+import com.aeroceti.fleetcare.model.Usuario;
+import com.aeroceti.fleetcare.utilities.NormalizadorDados;
+import com.aeroceti.fleetcare.utilities.Transacoes;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Indice de pesquisa dos Usuarios, na memoria, por nome, email e CPF.
+ *
+ * Cada palavra do texto normalizado (sem acentos e em minusculas) gera os seus
+ * trigramas, alem de gramas de prefixo (inicio da palavra com 1 e 2 letras).
+ * Cada grama aponta para a lista dos usuarios (posicoes no indice) que o
+ * contem. A pesquisa soma, por usuario, os gramas da consulta encontrados; os
+ * que alcancam o minimo sao ordenados pela pontuacao, com bonus para quem
+ * contem todas as palavras pesquisadas, e depois pelo nome. Assim a pesquisa
+ * aceita trechos, inicio de palavras e pequenos erros de digitacao. O vetor
+ * de pontos de uma pesquisa e reaproveitado pelas seguintes (so as posicoes
+ * tocadas sao zeradas), em vez de alocado com o tamanho do indice a cada vez.
+ *
+ * O indice e montado na inicializacao e atualizado a cada gravacao ou exclusao
+ * de usuario, depois do COMMIT.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Component
+public class UsuarioIndice {
+
+    private static final char INICIO = '\u0001';
+    private static final double SEMELHANCA_MINIMA = 0.4;
+    // maior pontuacao primeiro; no empate, ordem alfabetica do nome
+    private static final Comparator<Escolhida> ORDEM = Comparator.comparingInt((Escolhida e) -> -e.pontuacao())
+            .thenComparing(e -> e.entrada().nome, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    @Autowired
+    private MeterRegistry registro;
+
+    private final ReentrantReadWriteLock trava = new ReentrantReadWriteLock();
+    private final Map<Long, Postagens> postagens = new HashMap<>();
+    private final Map<UUID, Integer> posicoes = new HashMap<>();
+    // vetores de pontos das pesquisas, reaproveitados para nao alocar um do tamanho do indice a cada consulta
+    private final BlockingQueue<Rascunho> rascunhos = new ArrayBlockingQueue<>(
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+    private Entrada[] entradas = new Entrada[1024];
+    private long[][] gramasPorPosicao = new long[1024][];
+    private int[] livres = new int[64];
+    private int totalLivres;
+    private int proximaPosicao;
+
+    // durante a montagem: usuarios excluidos que a leitura do banco ainda pode trazer
+    private Set<UUID> removidosNaMontagem;
+
+    private final Logger logger = LoggerFactory.getLogger(UsuarioIndice.class);
+
+    @PostConstruct
+    public void inicializar() {
+        Gauge.builder("fleetcare.pesquisa.usuarios", posicoes, Map::size)
+                .description("Usuarios no indice de pesquisa").register(registro);
+    }
+
+    /**
+     * Monta o indice a partir de todos os usuarios cadastrados.
+     *
+     * @param fonte - Percorre os usuarios do banco, entregando cada um ao consumidor
+     */
+    public void montar(Consumer<Consumer<Usuario>> fonte) {
+        long inicio = System.nanoTime();
+        trava.writeLock().lock();
+        try {
+            removidosNaMontagem = new HashSet<>();
+        } finally {
+            trava.writeLock().unlock();
+        }
+        try {
+            fonte.accept(user -> indexar(user, false));
+        } finally {
+            trava.writeLock().lock();
+            try {
+                removidosNaMontagem = null;
+            } finally {
+                trava.writeLock().unlock();
+            }
+        }
+        logger.info("Indice de pesquisa montado com " + total() + " usuarios em "
+                + (System.nanoTime() - inicio) / 1_000_000 + " ms.");
+    }
+
+    /**
+     * Atualiza (ou inclui) um usuario no indice, depois do COMMIT da transacao.
+     *
+     * @param user - Usuario gravado
+     */
+    public void atualizar(Usuario user) {
+        Transacoes.aposCommit(() -> indexar(user, false));
+    }
+
+    /**
+     * Atualiza no indice os dados cadastrais de um usuario alterado sem carga
+     * da entidade (atualizacao condicional): a situacao (ativo) ja indexada e
+     * mantida.
+     *
+     * @param user - Usuario com os dados alterados e a nova versao
+     */
+    public void atualizarDados(Usuario user) {
+        Transacoes.aposCommit(() -> indexar(user, true));
+    }
+
+    /**
+     * Retira um usuario do indice, depois do COMMIT da transacao.
+     *
+     * @param usuarioID - ID do usuario excluido
+     */
+    public void remover(UUID usuarioID) {
+        Transacoes.aposCommit(() -> excluir(usuarioID));
+    }
+
+    /**
+     * @return Quantidade de usuarios no indice
+     */
+    public int total() {
+        trava.readLock().lock();
+        try {
+            return posicoes.size();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    /**
+     * Pesquisa os usuarios por trecho do nome, do email ou do CPF.
+     *
+     * @param texto - Texto pesquisado (uma ou mais palavras)
+     * @param limite - Quantidade maxima de resultados
+     * @return Usuarios encontrados, do mais para o menos semelhante
+     */
+    public List<PesquisaUsuarioDTO> pesquisar(String texto, int limite) {
+        String normalizado = NormalizadorDados.normalizarPesquisa(texto);
+        if (normalizado.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        String[] palavras = normalizado.split(" ");
+        long[] gramas = gramasDaConsulta(palavras);
+        int minimo = Math.max(1, (int) Math.ceil(gramas.length * SEMELHANCA_MINIMA));
+
+        Rascunho rascunho = rascunhos.poll();
+        if (rascunho == null) {
+            rascunho = new Rascunho();
+        }
+        trava.readLock().lock();
+        try {
+            // soma, por posicao, os gramas da consulta encontrados
+            int[] pontos = rascunho.pontos(proximaPosicao);
+            for (long grama : gramas) {
+                Postagens lista = postagens.get(grama);
+                if (lista == null) {
+                    continue;
+                }
+                int[] lidas = lista.posicoes;
+                for (int i = 0; i < lista.tamanho; i++) {
+                    int posicao = lidas[i];
+                    if (pontos[posicao]++ == 0) {
+                        rascunho.tocar(posicao);
+                    }
+                }
+            }
+
+            // conta quantos usuarios ha em cada pontuacao e acha o corte dos "limite" melhores
+            int[] porPontuacao = new int[gramas.length + 1];
+            int[] tocados = rascunho.tocados;
+            for (int i = 0; i < rascunho.totalTocados; i++) {
+                porPontuacao[pontos[tocados[i]]]++;
+            }
+            int corte = gramas.length;
+            int acumulado = porPontuacao[corte];
+            while (corte > minimo && acumulado < limite) {
+                acumulado += porPontuacao[--corte];
+            }
+            int acimaDoCorte = acumulado - porPontuacao[corte];
+            int vagasNoCorte = Math.min(porPontuacao[corte], limite - acimaDoCorte);
+
+            List<Escolhida> escolhidas = new ArrayList<>(Math.min(limite, acumulado));
+            for (int i = 0; i < rascunho.totalTocados; i++) {
+                int posicao = tocados[i];
+                int pontuacao = pontos[posicao];
+                if (pontuacao > corte || (pontuacao == corte && vagasNoCorte-- > 0)) {
+                    escolhidas.add(new Escolhida(entradas[posicao], pontuacao));
+                }
+            }
+            escolhidas.sort(ORDEM);
+            List<PesquisaUsuarioDTO> lista = new ArrayList<>(escolhidas.size());
+            for (Escolhida escolhida : escolhidas) {
+                Entrada entrada = escolhida.entrada();
+                lista.add(new PesquisaUsuarioDTO(entrada.usuarioID, entrada.nome, entrada.email, entrada.cpf, entrada.ativo));
+            }
+            return lista;
+        } finally {
+            trava.readLock().unlock();
+            rascunho.limpar();
+            rascunhos.offer(rascunho);
+        }
+    }
+
+    private void indexar(Usuario user, boolean manterSituacao) {
+        if (user == null || user.getUsuarioID() == null) {
+            return;
+        }
+        long[] gramas = gramasDoTexto(NormalizadorDados.normalizarPesquisa(user.getNome() + " " + user.getEmail()
+                + " " + (user.getCleanCPF() == null ? "" : user.getCleanCPF())));
+        trava.writeLock().lock();
+        try {
+            if (removidosNaMontagem != null && removidosNaMontagem.contains(user.getUsuarioID())) {
+                return;
+            }
+            Integer atual = posicoes.get(user.getUsuarioID());
+            boolean ativo = (manterSituacao && atual != null) ? entradas[atual].ativo : user.isAtivo();
+            Entrada entrada = new Entrada(user, ativo);
+            if (atual != null) {
+                // a montagem pode trazer uma versao mais antiga que a ja indexada
+                if (entradas[atual].versao > entrada.versao) {
+                    return;
+                }
+                desindexar(atual);
+            }
+            int posicao = novaPosicao();
+            entradas[posicao] = entrada;
+            gramasPorPosicao[posicao] = gramas;
+            posicoes.put(entrada.usuarioID, posicao);
+            for (long grama : gramas) {
+                postagens.computeIfAbsent(grama, g -> new Postagens()).incluir(posicao);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    private void excluir(UUID usuarioID) {
+        trava.writeLock().lock();
+        try {
+            if (removidosNaMontagem != null) {
+                removidosNaMontagem.add(usuarioID);
+            }
+            Integer atual = posicoes.get(usuarioID);
+            if (atual != null) {
+                desindexar(atual);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    // retira a posicao das listas dos seus gramas e a devolve para reuso (com a trava de escrita)
+    private void desindexar(int posicao) {
+        for (long grama : gramasPorPosicao[posicao]) {
+            Postagens lista = postagens.get(grama);
+            if (lista != null && lista.retirar(posicao) && lista.tamanho == 0) {
+                postagens.remove(grama);
+            }
+        }
+        posicoes.remove(entradas[posicao].usuarioID);
+        entradas[posicao] = null;
+        gramasPorPosicao[posicao] = null;
+        if (totalLivres == livres.length) {
+            livres = Arrays.copyOf(livres, totalLivres * 2);
+        }
+        livres[totalLivres++] = posicao;
+    }
+
+    private int novaPosicao() {
+        if (totalLivres > 0) {
+            return livres[--totalLivres];
+        }
+        if (proximaPosicao == entradas.length) {
+            entradas = Arrays.copyOf(entradas, proximaPosicao * 2);
+            gramasPorPosicao = Arrays.copyOf(gramasPorPosicao, proximaPosicao * 2);
+        }
+        return proximaPosicao++;
+    }
+
+    // gramas de um usuario: prefixos de 1 e 2 letras e trigramas de cada palavra
+    private static long[] gramasDoTexto(String texto) {
+        long[] gramas = new long[texto.length() * 2 + 2];
+        int total = 0;
+        for (String palavra : texto.split(" ")) {
+            if (palavra.isEmpty()) {
+                continue;
+            }
+            gramas[total++] = grama(INICIO, palavra.charAt(0), '\0');
+            String marcada = INICIO + palavra;
+            for (int i = 0; i + 3 <= marcada.length(); i++) {
+                gramas[total++] = grama(marcada.charAt(i), marcada.charAt(i + 1), marcada.charAt(i + 2));
+            }
+        }
+        return distintos(gramas, total);
+    }
+
+    // gramas da consulta: palavras curtas valem como prefixo; as demais, por trecho
+    private static long[] gramasDaConsulta(String[] palavras) {
+        long[] gramas = new long[palavras.length * 64];
+        int total = 0;
+        for (String palavra : palavras) {
+            if (palavra.length() == 1) {
+                gramas[total++] = grama(INICIO, palavra.charAt(0), '\0');
+                continue;
+            }
+            if (total + palavra.length() > gramas.length) {
+                gramas = Arrays.copyOf(gramas, (total + palavra.length()) * 2);
+            }
+            gramas[total++] = grama(INICIO, palavra.charAt(0), palavra.charAt(1));
+            for (int i = 0; i + 3 <= palavra.length(); i++) {
+                gramas[total++] = grama(palavra.charAt(i), palavra.charAt(i + 1), palavra.charAt(i + 2));
+            }
+        }
+        return distintos(gramas, total);
+    }
+
+    private static long[] distintos(long[] gramas, int total) {
+        Arrays.sort(gramas, 0, total);
+        int unicos = 0;
+        for (int i = 0; i < total; i++) {
+            if (unicos == 0 || gramas[unicos - 1] != gramas[i]) {
+                gramas[unicos++] = gramas[i];
+            }
+        }
+        return Arrays.copyOf(gramas, unicos);
+    }
+
+    private static long grama(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    // dados de um usuario no indice (imutaveis)
+    private static final class Entrada {
+        private final UUID usuarioID;
+        private final String nome;
+        private final String email;
+        private final String cpf;
+        private final boolean ativo;
+        private final long versao;
+
+        private Entrada(Usuario user, boolean ativo) {
+            this.usuarioID = user.getUsuarioID();
+            this.nome = user.getNome();
+            this.email = user.getEmail();
+            this.cpf = user.getCpf();
+            this.ativo = ativo;
+            this.versao = user.getVersao() == null ? 0 : user.getVersao();
+        }
+    }
+
+    // usuario escolhido numa pesquisa, com a sua pontuacao
+    private record Escolhida(Entrada entrada, int pontuacao) {
+    }
+
+    // pontos por posicao de uma pesquisa e as posicoes tocadas, zeradas ao final para a proxima
+    private static final class Rascunho {
+        private int[] pontos = new int[0];
+        private int[] tocados = new int[1024];
+        private int totalTocados;
+
+        private int[] pontos(int tamanho) {
+            if (pontos.length < tamanho) {
+                pontos = new int[tamanho + tamanho / 4];
+            }
+            return pontos;
+        }
+
+        private void tocar(int posicao) {
+            if (totalTocados == tocados.length) {
+                tocados = Arrays.copyOf(tocados, totalTocados * 2);
+            }
+            tocados[totalTocados++] = posicao;
+        }
+
+        private void limpar() {
+            for (int i = 0; i < totalTocados; i++) {
+                pontos[tocados[i]] = 0;
+            }
+            totalTocados = 0;
+        }
+    }
+
+    // lista (sem ordem) das posicoes dos usuarios que contem um grama
+    private static final class Postagens {
+        private int[] posicoes = new int[4];
+        private int tamanho;
+
+        private void incluir(int posicao) {
+            if (tamanho == posicoes.length) {
+                posicoes = Arrays.copyOf(posicoes, tamanho * 2);
+            }
+            posicoes[tamanho++] = posicao;
+        }
+
+        private boolean retirar(int posicao) {
+            for (int i = 0; i < tamanho; i++) {
+                if (posicoes[i] == posicao) {
+                    posicoes[i] = posicoes[--tamanho];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+}
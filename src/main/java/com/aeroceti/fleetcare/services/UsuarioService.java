@@ -7,19 +7,52 @@
 package com.aeroceti.fleetcare.services;
 
 import com.aeroceti.fleetcare.controllers.UsuarioController;
+import com.aeroceti.fleetcare.dataTransfers.CamposUsuario;
+import com.aeroceti.fleetcare.dataTransfers.CatalogoErros;
 import com.aeroceti.fleetcare.dataTransfers.MensagemDTO;
+import com.aeroceti.fleetcare.dataTransfers.PaginaDTO;
 import com.aeroceti.fleetcare.model.Usuario;
 import com.aeroceti.fleetcare.repositories.UsuarioRepository;
+import com.aeroceti.fleetcare.utilities.Etags;
+import com.aeroceti.fleetcare.utilities.NormalizadorDados;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Classe de SERVICOS para o objeto Usuario (Logica do negocio).
@@ -31,11 +64,38 @@ import org.springframework.stereotype.Service;
 public class UsuarioService {
 
     @Autowired
-    private MensagemDTO mensagem;
+    private SenhaService senhaService;
     @Autowired
-    private PasswordEncoder codePass;
+    private LimiteLogin limiteLogin;
+    @Autowired
+    private TokenService tokenService;
     @Autowired
     private UsuarioRepository userRepository;
+    @Autowired
+    private UsuarioCache userCache;
+    @Autowired
+    private UsuarioIndice indicePesquisa;
+    @Autowired
+    private MappingJackson2HttpMessageConverter conversorJson;
+    @Autowired
+    private MappingJackson2CborHttpMessageConverter conversorCbor;
+    @Autowired
+    private MappingJackson2SmileHttpMessageConverter conversorSmile;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ApplicationEventPublisher publicador;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${fleetcare.usuario.pagina.tamanho:50}")
+    private int tamanhoPagina;
+    @Value("${fleetcare.usuario.pagina.maximo:500}")
+    private int tamanhoMaximoPagina;
+    @Value("${fleetcare.pesquisa.limite:10}")
+    private int limitePesquisa;
+    @Value("${fleetcare.pesquisa.maximo:100}")
+    private int limiteMaximoPesquisa;
 
     private final Logger logger = LoggerFactory.getLogger(UsuarioController.class);
 
@@ -48,26 +108,39 @@ public class UsuarioService {
      */
     public ResponseEntity<?> cadastrar(Usuario user) {
         logger.info("Validando os dados para persistir usuario no banco de dados...");
-        if (user.getNome().equals("")) {
-            mensagem.setMensagem("NOME precisa ser preenchido!");
-            logger.info("Dados nao cadastrados: " + mensagem.getMensagem());
-            return new ResponseEntity<>(mensagem, HttpStatus.BAD_REQUEST);
-        } else if (user.getEmail() != null && user.getEmail().length() > 0) {
-            String expression = "^[\\w\\.-]+@([\\w\\-]+\\.)+[A-Z]{2,4}$";
-            Pattern pattern = Pattern.compile(expression, Pattern.CASE_INSENSITIVE);
-            Matcher matcher = pattern.matcher(user.getEmail());
-            if (!matcher.matches()) {
-                mensagem.setMensagem("E-MAIL precisa ser VALIDO!");
-                logger.info("Dados nao cadastrados: " + mensagem.getMensagem());
-                return new ResponseEntity<>(mensagem, HttpStatus.BAD_REQUEST);
-            }
+        CatalogoErros erro = validarCadastro(user);
+        if (erro != null) {
+            logger.info("Dados nao cadastrados: " + erro.getDetalhe());
+            return erro.resposta();
         }
         logger.info("Usuario validado, preparando ID e codificando a senha...");
         user.setUsuarioID(null);
+        user.setDataCadastro(null);
         // Codifica a senha do usuario no banco de dados:
-        user.setPassword(codePass.encode(user.getPassword()));
+        user.setPassword(senhaService.codificar(user.getPassword()));
+        Usuario userNovo = userRepository.save(user);
+        userCache.remover(userNovo.getUsuarioID(), userNovo.getEmail());
+        indicePesquisa.atualizar(userNovo);
+        publicador.publishEvent(UsuarioEvento.cadastrado(userNovo));
         logger.info("Usuario " + user.getNome() + " salvo no banco de dados!");
-        return new ResponseEntity<>(userRepository.save(user), HttpStatus.CREATED);
+        return new ResponseEntity<>(userNovo, HttpStatus.CREATED);
+    }
+
+    /**
+     * Valida os dados de um Usuario a ser cadastrado.
+     *
+     * @param user - Objeto Usuario com os dados a serem gravados
+     * @return Erro com o motivo da recusa ou NULL se os dados forem validos
+     */
+    public CatalogoErros validarCadastro(Usuario user) {
+        if (user.getNome().equals("")) {
+            return CatalogoErros.NOME_OBRIGATORIO;
+        } else if (user.getEmail() != null && user.getEmail().length() > 0) {
+            if (!NormalizadorDados.emailValido(user.getEmail())) {
+                return CatalogoErros.EMAIL_INVALIDO;
+            }
+        }
+        return null;
     }
 
     /**
@@ -77,88 +150,143 @@ public class UsuarioService {
      * @return ResponseEntity contendo uma mensagem de erro OU um objeto Usuario
      * cadastrado
      */
-    public ResponseEntity<?> atualizar(Usuario user) {
-        Usuario userAtual;
-        logger.info("Obtendo o usuario do banco para atualizar...");
-        // Valida se existe usuario com ID fornecido
-        if (userRepository.countByUsuarioID(user.getUsuarioID()) == 0
-                || userRepository.countByUsuarioID(user.getUsuarioID()) > 1) {
-            mensagem.setMensagem("Nao existe usuario com o ID informado!");
-            logger.info("Dados nao cadastrados: " + mensagem.getMensagem());
-            return new ResponseEntity<>(mensagem, HttpStatus.BAD_REQUEST);
-        } else {
-            // obtem o objeto PERSISTIDO
-            userAtual = userRepository.findByUsuarioID(user.getUsuarioID());
-        }
+    public ResponseEntity<?> atualizar(Usuario user, String seCoincidir) {
+        logger.info("Validando os dados para atualizar o usuario...");
         // Valida campo nome (deve estar preenchido) 
         if (user.getNome().equals("")) {
-            mensagem.setMensagem("NOME precisa ser PREENCHIDO!");
-            logger.info("Dados nao cadastrados: " + mensagem.getMensagem());
-            return new ResponseEntity<>(mensagem, HttpStatus.BAD_REQUEST);
+            logger.info("Dados nao cadastrados: " + CatalogoErros.NOME_OBRIGATORIO.getDetalhe());
+            return CatalogoErros.NOME_OBRIGATORIO.resposta();
         }
         //Valida o email informado
         if (user.getEmail() != null && user.getEmail().length() > 0) {
-            String expression = "^[\\w\\.-]+@([\\w\\-]+\\.)+[A-Z]{2,4}$";
-            Pattern pattern = Pattern.compile(expression, Pattern.CASE_INSENSITIVE);
-            Matcher matcher = pattern.matcher(user.getEmail());
-            if (!matcher.matches()) {
-                mensagem.setMensagem("E-MAIL precisa ser VALIDO!");
-                logger.info("Dados nao cadastrados: " + mensagem.getMensagem());
-                return new ResponseEntity<>(mensagem, HttpStatus.BAD_REQUEST);
+            if (!NormalizadorDados.emailValido(user.getEmail())) {
+                logger.info("Dados nao cadastrados: " + CatalogoErros.EMAIL_INVALIDO.getDetalhe());
+                return CatalogoErros.EMAIL_INVALIDO.resposta();
             }
         } else {
-            mensagem.setMensagem("E-MAIL precisa ser INFORMADO!");
-            logger.info("Dados nao cadastrados: " + mensagem.getMensagem());
-            return new ResponseEntity<>(mensagem, HttpStatus.BAD_REQUEST);
+            logger.info("Dados nao cadastrados: " + CatalogoErros.EMAIL_OBRIGATORIO.getDetalhe());
+            return CatalogoErros.EMAIL_OBRIGATORIO.resposta();
+        }
+        if (user.getUsuarioID() == null) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.USUARIO_INEXISTENTE.getDetalhe());
+            return CatalogoErros.USUARIO_INEXISTENTE.resposta();
+        }
+        Long versao = null;
+        if (seCoincidir != null && !seCoincidir.trim().equals("*")) {
+            versao = Etags.versaoEsperada(seCoincidir);
+            if (versao == null) {
+                logger.info("Dados nao cadastrados: " + CatalogoErros.VERSAO_DIVERGENTE.getDetalhe());
+                return CatalogoErros.VERSAO_DIVERGENTE.resposta();
+            }
         }
         logger.info("Usuario validado, codificando a senha SE necessario ...");
-        // Codifica a senha do usuario no banco de dados:
-        if (!user.getPassword().equals("")) {
-            userAtual.setPassword(codePass.encode(user.getPassword()));
-        }
-        // ATUALIZA o objeto do banco de dados
-        userAtual.setCpf(user.getCpf());
-        userAtual.setDataNascimento(user.getDataNascimento());
-        userAtual.setEmail(user.getEmail());
-        userAtual.setNome(user.getNome());
-        userAtual.setWhatsapp(user.getWhatsapp());
-        userAtual.setSexo(user.getSexo());
-        logger.info("Usuario " + user.getNome() + " salvo no banco de dados!");
-        return new ResponseEntity<>(userRepository.save(userAtual), HttpStatus.OK);
+        // Codifica a senha FORA da transacao, para nao prender a conexao durante o BCrypt:
+        String novaSenha = user.getPassword().equals("") ? null : senhaService.codificar(user.getPassword());
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        if (versao != null) {
+            return atualizarSeVersao(transacao, user, versao, novaSenha);
+        }
+        // Uma unica consulta e uma atualizacao dentro da mesma transacao:
+        return transacao.execute(status -> {
+            // obtem o objeto PERSISTIDO
+            Usuario userAtual = userRepository.findByUsuarioID(user.getUsuarioID());
+            if (userAtual == null) {
+                logger.info("Dados nao cadastrados: " + CatalogoErros.USUARIO_INEXISTENTE.getDetalhe());
+                return CatalogoErros.USUARIO_INEXISTENTE.resposta();
+            }
+            // o cache e limpo apos o COMMIT (email antigo e novo)
+            userCache.remover(userAtual.getUsuarioID(), userAtual.getEmail(), user.getEmail());
+            if (novaSenha != null) {
+                userAtual.setPassword(novaSenha);
+            }
+            // ATUALIZA o objeto do banco de dados
+            userAtual.setCpf(user.getCpf());
+            userAtual.setDataNascimento(user.getDataNascimento());
+            userAtual.setEmail(user.getEmail());
+            userAtual.setNome(user.getNome());
+            userAtual.setWhatsapp(user.getWhatsapp());
+            userAtual.setSexo(user.getSexo());
+            logger.info("Usuario " + user.getNome() + " salvo no banco de dados!");
+            // flush imediato: a nova versao segue na ETag da resposta
+            Usuario userSalvo = userRepository.saveAndFlush(userAtual);
+            indicePesquisa.atualizar(userSalvo);
+            tokenService.revogar(userSalvo);
+            publicador.publishEvent(UsuarioEvento.atualizado(userSalvo));
+            return ResponseEntity.ok().eTag(Etags.deVersao(userSalvo.getVersao())).body(userSalvo);
+        });
+    }
+
+    // If-Match: um unico UPDATE condicionado a versao, sem carregar a entidade
+    private ResponseEntity<?> atualizarSeVersao(TransactionTemplate transacao, Usuario user, Long versao, String novaSenha) {
+        return transacao.execute(status -> {
+            int alterados = userRepository.atualizarSeVersao(user.getUsuarioID(), versao, user.getNome(), user.getEmail(),
+                    user.getCleanCPF(), NormalizadorDados.normalizarTelefone(user.getWhatsapp()),
+                    user.getDataNascimento(), user.getSexo(), novaSenha);
+            if (alterados == 0) {
+                // o registro nao existe ou foi alterado por outra requisicao
+                CatalogoErros erro = userRepository.countByUsuarioID(user.getUsuarioID()) == 0
+                        ? CatalogoErros.USUARIO_INEXISTENTE : CatalogoErros.VERSAO_DIVERGENTE;
+                logger.info("Dados nao cadastrados: " + erro.getDetalhe());
+                return erro.resposta();
+            }
+            // o email antigo nao e lido: o cache por email confere o email do registro obtido
+            userCache.remover(user.getUsuarioID(), user.getEmail());
+            user.setVersao(versao + 1);
+            indicePesquisa.atualizarDados(user);
+            tokenService.revogar(user.getUsuarioID(), user.getVersao());
+            publicador.publishEvent(UsuarioEvento.atualizado(user));
+            logger.info("Usuario " + user.getNome() + " salvo no banco de dados!");
+            return ResponseEntity.noContent().eTag(Etags.deVersao(user.getVersao())).build();
+        });
     }
 
+    /**
+     * Metodo para ARQUIVAR, ATIVAR ou DELETAR um Usuario da base de dados.
+     *
+     * @param usuarioID - ID do usuario a ser processado
+     * @param status - 0 para arquivar, 1 para ativar e 2 para deletar
+     * @return ResponseEntity contendo uma mensagem de erro ou sucesso
+     */
+    @Transactional
     public ResponseEntity<?> arquivar(UUID usuarioID, int status) {
-        Usuario userAtual;
         logger.info("Obtendo o usuario do banco para ARQUIVAR...");
-        // Valida se existe usuario com ID fornecido
-        if (userRepository.countByUsuarioID(usuarioID) == 0) {
-            mensagem.setMensagem("Nao existe usuario com o ID informado!");
-            logger.info("Dados nao cadastrados: " + mensagem.getMensagem());
-            return new ResponseEntity<>(mensagem, HttpStatus.BAD_REQUEST);
-        } else {
-            // obtem o objeto PERSISTIDO
-            userAtual = userRepository.findByUsuarioID(usuarioID);
+        // obtem o objeto PERSISTIDO (uma unica consulta)
+        Usuario userAtual = usuarioID == null ? null : userRepository.findByUsuarioID(usuarioID);
+        if (userAtual == null) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.USUARIO_INEXISTENTE.getDetalhe());
+            return CatalogoErros.USUARIO_INEXISTENTE.resposta();
         }
+        // o cache e limpo apos o COMMIT
+        userCache.remover(userAtual.getUsuarioID(), userAtual.getEmail());
+        boolean ativoAnterior = userAtual.isAtivo();
+        MensagemDTO resultado = null;
         switch (status) {
             case 0 -> {
                 // ARQUIVA o usuario
                 userAtual.setAtivo(false);
-                userRepository.save(userAtual);
-                mensagem.setMensagem("Usuario ARQUIVADO no Sistema!");
+                indicePesquisa.atualizar(userRepository.save(userAtual));
+                tokenService.revogar(userAtual);
+                publicador.publishEvent(UsuarioEvento.alterado(userAtual, ativoAnterior));
+                resultado = MensagemDTO.USUARIO_ARQUIVADO;
             }
             case 1 -> {
                 // ATIVA o usuario
                 userAtual.setAtivo(true);
-                userRepository.save(userAtual);
-                mensagem.setMensagem("Usuario ATIVADO no Sistema!");
+                indicePesquisa.atualizar(userRepository.save(userAtual));
+                tokenService.revogar(userAtual);
+                publicador.publishEvent(UsuarioEvento.alterado(userAtual, ativoAnterior));
+                resultado = MensagemDTO.USUARIO_ATIVADO;
             }
             case 2 -> {
                 // DELETA O USUARIO
                 userRepository.delete(userAtual);
-                mensagem.setMensagem("Usuario DELETADO do Sistema!");
+                indicePesquisa.remover(userAtual.getUsuarioID());
+                tokenService.revogar(userAtual.getUsuarioID(), Long.MAX_VALUE);
+                publicador.publishEvent(UsuarioEvento.deletado(userAtual));
+                resultado = MensagemDTO.USUARIO_DELETADO;
             }
         }
-        return new ResponseEntity<>(mensagem, HttpStatus.OK);
+        return new ResponseEntity<>(resultado, HttpStatus.OK);
     }
 
     /**
@@ -167,84 +295,370 @@ public class UsuarioService {
      *
      * @param ordenarByNome - Boolean para indicar se ordena por nome o
      * resultado da pesquisa
-     * @return ArrayList em JSON com varios objetos USUARIO
+     * @param fields - Campos desejados, separados por virgula (nulo para todos)
+     * @param seNenhum - Cabecalho If-None-Match (ETag da listagem ja obtida)
+     * @return ArrayList em JSON com varios objetos USUARIO (ou 304 se nao mudou)
      */
-    public ResponseEntity<?> listar(boolean ordenarByNome) {
+    public ResponseEntity<?> listar(boolean ordenarByNome, String fields, String seNenhum) {
         logger.info("Obtendo uma listagem de todos os usuarios...");
+        List<String> campos = CamposUsuario.ler(fields);
+        if (campos == null) {
+            logger.info("Falha na listagem: " + CatalogoErros.CAMPO_INVALIDO.getDetalhe());
+            return CatalogoErros.CAMPO_INVALIDO.resposta();
+        }
+        // uma consulta de agregacao evita ler e serializar a listagem que o cliente ja possui
+        String etag = Etags.deColecao(userRepository.versaoColecao());
+        if (Etags.coincide(seNenhum, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        if (!campos.isEmpty()) {
+            // somente as colunas pedidas sao lidas do banco
+            return ResponseEntity.ok().eTag(etag).body(userRepository.listarCampos(campos, ordenarByNome, null, null, 0));
+        }
         if (ordenarByNome) {
-            return new ResponseEntity<>(userRepository.findByOrderByNomeAsc(), HttpStatus.OK);
+            return ResponseEntity.ok().eTag(etag).body(userRepository.findByOrderByNomeAsc());
         }
-        return new ResponseEntity<>(userRepository.findAll(), HttpStatus.OK);
+        return ResponseEntity.ok().eTag(etag).body(userRepository.findAll());
+    }
+
+    /**
+     * Listagem PAGINADA dos usuarios, ordenada por nome (e ID para desempate).
+     *
+     * A paginacao e feita por cursor (keyset): cada pagina parte do ultimo
+     * registro da pagina anterior, sem OFFSET, de modo que o custo de cada
+     * pagina nao cresce com o tamanho da tabela.
+     *
+     * @param cursor - Cursor devolvido na pagina anterior (nulo para a primeira)
+     * @param tamanho - Quantidade de registros da pagina (nulo para o padrao)
+     * @param fields - Campos desejados, separados por virgula (nulo para todos)
+     * @param seNenhum - Cabecalho If-None-Match (ETag da pagina ja obtida)
+     * @return ResponseEntity - Mensagem de Erro ou PaginaDTO com os usuarios
+     * (ou 304 se nao mudou)
+     */
+    @Transactional(readOnly = true)
+    public ResponseEntity<?> listarPagina(String cursor, Integer tamanho, String fields, String seNenhum) {
+        logger.info("Obtendo uma pagina da listagem de usuarios...");
+        List<String> campos = CamposUsuario.ler(fields);
+        if (campos == null) {
+            logger.info("Falha na listagem: " + CatalogoErros.CAMPO_INVALIDO.getDetalhe());
+            return CatalogoErros.CAMPO_INVALIDO.resposta();
+        }
+        int limite = (tamanho == null || tamanho < 1) ? tamanhoPagina : Math.min(tamanho, tamanhoMaximoPagina);
+        String nomeApos = null;
+        UUID idApos = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String chave = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                idApos = UUID.fromString(chave.substring(0, 36));
+                nomeApos = chave.substring(36);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException erro) {
+                logger.info("Falha na listagem: " + CatalogoErros.CURSOR_INVALIDO.getDetalhe());
+                return CatalogoErros.CURSOR_INVALIDO.resposta();
+            }
+        }
+        String etag = Etags.deColecao(userRepository.versaoColecao());
+        if (Etags.coincide(seNenhum, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        if (!campos.isEmpty()) {
+            return listarPaginaCampos(campos, nomeApos, idApos, limite, etag);
+        }
+        PageRequest pagina = PageRequest.of(0, limite);
+        List<Usuario> usuarios = nomeApos == null
+                ? userRepository.findByOrderByNomeAscUsuarioIDAsc(pagina)
+                : userRepository.findPaginaApos(nomeApos, idApos, pagina);
+        String proximo = null;
+        if (usuarios.size() == limite) {
+            Usuario ultimo = usuarios.get(usuarios.size() - 1);
+            proximo = cursor(ultimo.getUsuarioID(), ultimo.getNome());
+        }
+        return ResponseEntity.ok().eTag(etag).body(new PaginaDTO(usuarios, proximo));
+    }
+
+    // pagina com projecao: nome e ID sao sempre lidos (cursor), mas so vao na resposta se pedidos
+    private ResponseEntity<?> listarPaginaCampos(List<String> campos, String nomeApos, UUID idApos, int limite, String etag) {
+        List<String> consulta = new ArrayList<>(campos);
+        boolean semNome = !consulta.contains("nome");
+        boolean semID = !consulta.contains("usuarioID");
+        if (semNome) {
+            consulta.add("nome");
+        }
+        if (semID) {
+            consulta.add("usuarioID");
+        }
+        List<Map<String, Object>> usuarios = userRepository.listarCampos(consulta, true, nomeApos, idApos, limite);
+        String proximo = null;
+        if (usuarios.size() == limite) {
+            Map<String, Object> ultimo = usuarios.get(usuarios.size() - 1);
+            proximo = cursor((UUID) ultimo.get("usuarioID"), (String) ultimo.get("nome"));
+        }
+        if (semNome || semID) {
+            for (Map<String, Object> usuario : usuarios) {
+                if (semNome) {
+                    usuario.remove("nome");
+                }
+                if (semID) {
+                    usuario.remove("usuarioID");
+                }
+            }
+        }
+        return ResponseEntity.ok().eTag(etag).body(new PaginaDTO(usuarios, proximo));
+    }
+
+    private String cursor(UUID usuarioID, String nome) {
+        String chave = usuarioID.toString() + nome;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(chave.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Pesquisa de usuarios por trecho do nome, do email ou do CPF, no indice
+     * de pesquisa na memoria (sem consulta ao banco de dados).
+     *
+     * @param texto - Texto a pesquisar (uma ou mais palavras)
+     * @param limite - Quantidade maxima de resultados (nulo para o padrao)
+     * @return ResponseEntity - Mensagem de Erro ou lista dos usuarios encontrados
+     */
+    public ResponseEntity<?> pesquisar(String texto, Integer limite) {
+        logger.info("Pesquisando usuarios por: " + texto);
+        if (texto == null || texto.isBlank()) {
+            logger.info("Falha na pesquisa: " + CatalogoErros.PESQUISA_VAZIA.getDetalhe());
+            return CatalogoErros.PESQUISA_VAZIA.resposta();
+        }
+        int quantidade = (limite == null || limite < 1) ? limitePesquisa : Math.min(limite, limiteMaximoPesquisa);
+        return new ResponseEntity<>(indicePesquisa.pesquisar(texto, quantidade), HttpStatus.OK);
+    }
+
+    /**
+     * Monta o indice de pesquisa de usuarios quando a aplicacao fica pronta.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void montarIndicePesquisa() {
+        logger.info("Montando o indice de pesquisa de usuarios...");
+        indicePesquisa.montar(this::percorrerTodos);
+    }
+
+    /**
+     * Listagem de TODOS os usuarios escrita em FLUXO diretamente na resposta.
+     *
+     * Os registros sao lidos por um cursor do banco e serializados um a um no
+     * Array, sem montar a lista completa na memoria. O Array e escrito em JSON,
+     * CBOR ou Smile conforme o cabecalho Accept.
+     *
+     * @param aceita - Cabecalho Accept da requisicao
+     * @return ResponseEntity com o corpo da resposta em fluxo (Array)
+     */
+    public ResponseEntity<StreamingResponseBody> listarFluxo(String aceita) {
+        logger.info("Obtendo uma listagem em fluxo de todos os usuarios...");
+        AbstractJackson2HttpMessageConverter conversor = conversorPara(aceita);
+        ObjectMapper mapper = conversor.getObjectMapper();
+        ObjectWriter escritor = mapper.writerFor(Usuario.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody corpo = saida -> {
+            try (JsonGenerator gerador = mapper.getFactory().createGenerator(saida)) {
+                gerador.writeStartArray();
+                percorrerTodos(usuario -> {
+                    try {
+                        escritor.writeValue(gerador, usuario);
+                    } catch (IOException falha) {
+                        throw new UncheckedIOException(falha);
+                    }
+                });
+                gerador.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(conversor.getSupportedMediaTypes().get(0)).body(corpo);
+    }
+
+    // escolhe o formato do fluxo pelo Accept (JSON, CBOR ou Smile); JSON se nenhum for aceito
+    private AbstractJackson2HttpMessageConverter conversorPara(String aceita) {
+        if (aceita == null || aceita.isBlank()) {
+            return conversorJson;
+        }
+        List<MediaType> tipos;
+        try {
+            tipos = MediaType.parseMediaTypes(aceita);
+        } catch (InvalidMediaTypeException invalido) {
+            return conversorJson;
+        }
+        for (MediaType tipo : tipos) {
+            if (tipo.getQualityValue() == 0) {
+                continue;
+            }
+            for (AbstractJackson2HttpMessageConverter conversor : List.of(conversorJson, conversorCbor, conversorSmile)) {
+                if (conversor.getSupportedMediaTypes().stream().anyMatch(tipo::isCompatibleWith)) {
+                    return conversor;
+                }
+            }
+        }
+        return conversorJson;
+    }
+
+    /**
+     * Percorre TODOS os usuarios cadastrados por um cursor do banco de dados.
+     *
+     * Cada usuario e desanexado do contexto de persistencia logo apos ser
+     * processado, mantendo o uso de memoria constante.
+     *
+     * @param consumidor - Acao executada para cada usuario, em ordem de nome
+     */
+    public void percorrerTodos(Consumer<Usuario> consumidor) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        transacao.setReadOnly(true);
+        transacao.executeWithoutResult(status -> {
+            try (Stream<Usuario> usuarios = userRepository.streamByOrderByNomeAsc()) {
+                usuarios.forEach(usuario -> {
+                    consumidor.accept(usuario);
+                    entityManager.detach(usuario);
+                });
+            }
+        });
     }
 
     /**
      * Busca um usuario pelo email fornecido.
      *
      * @param email - E-Mail do usuario desejado
-     * @return ResponseEntity - Mensagem de Erro ou Objeto Usuario
+     * @param fields - Campos desejados, separados por virgula (nulo para todos)
+     * @param seNenhum - Cabecalho If-None-Match (ETag do usuario ja obtido)
+     * @return ResponseEntity - Mensagem de Erro ou Objeto Usuario (ou 304 se
+     * nao mudou)
      */
-    public ResponseEntity<?> selecionar(String email) {
+    public ResponseEntity<?> selecionar(String email, String fields, String seNenhum) {
         logger.info("Obtendo um usuario com o email " + email);
-        if (userRepository.countByEmail(email) == 0) {
-            mensagem.setMensagem("Nenhum registro encontrado com o email informado!");
-            logger.info("Falha na procura: " + mensagem.getMensagem());
-            return new ResponseEntity<>(mensagem, HttpStatus.BAD_REQUEST);
+        Usuario user;
+        try {
+            user = userCache.buscar(email);
+        } catch (IncorrectResultSizeDataAccessException duplicado) {
+            logger.info("Falha na procura: " + CatalogoErros.EMAIL_DUPLICADO.getDetalhe());
+            return CatalogoErros.EMAIL_DUPLICADO.resposta();
         }
-        if (userRepository.countByEmail(email) > 1) {
-            mensagem.setMensagem("Foram encontrados mais de um Usuario com o email informado!");
-            logger.info("Falha na procura: " + mensagem.getMensagem());
-            return new ResponseEntity<>(mensagem, HttpStatus.BAD_REQUEST);
+        if (user == null) {
+            logger.info("Falha na procura: " + CatalogoErros.EMAIL_NAO_ENCONTRADO.getDetalhe());
+            return CatalogoErros.EMAIL_NAO_ENCONTRADO.resposta();
         }
-        return new ResponseEntity<>(userRepository.findByEmail(email), HttpStatus.OK);
+        return responder(user, fields, seNenhum);
     }
 
     /**
      * Busca um usuario pelo ID fornecido.
      *
      * @param userID - UsuarioID do usuario desejado
-     * @return ResponseEntity - Mensagem de Erro ou Objeto Usuario
+     * @param fields - Campos desejados, separados por virgula (nulo para todos)
+     * @param seNenhum - Cabecalho If-None-Match (ETag do usuario ja obtido)
+     * @return ResponseEntity - Mensagem de Erro ou Objeto Usuario (ou 304 se
+     * nao mudou)
      */
-    public ResponseEntity<?> selecionar(UUID userID) {
+    public ResponseEntity<?> selecionar(UUID userID, String fields, String seNenhum) {
         logger.info("Obtendo um usuario com o ID " + userID.toString());
-        if (userRepository.countByUsuarioID(userID) == 0) {
-            mensagem.setMensagem("Nenhum registro encontrado com o ID informado!");
-            logger.info("Falha na procura: " + mensagem.getMensagem());
-            return new ResponseEntity<>(mensagem, HttpStatus.BAD_REQUEST);
+        // usuarioID e a chave primaria: nao ha como existir mais de um registro
+        Usuario user = userCache.buscar(userID);
+        if (user == null) {
+            logger.info("Falha na procura: " + CatalogoErros.ID_NAO_ENCONTRADO.getDetalhe());
+            return CatalogoErros.ID_NAO_ENCONTRADO.resposta();
         }
-        if (userRepository.countByUsuarioID(userID) > 1) {
-            mensagem.setMensagem("Foram encontrados mais de um Usuario com o ID informado!");
-            logger.info("Falha na procura: " + mensagem.getMensagem());
-            return new ResponseEntity<>(mensagem, HttpStatus.BAD_REQUEST);
-        }
-        return new ResponseEntity<>(userRepository.findByUsuarioID(userID), HttpStatus.OK);
+        return responder(user, fields, seNenhum);
     }
 
     /**
      * Validacao da senha do usuario para acesso ao sistema
      *
+     * Com a senha correta e emitida uma sessao: token de acesso (curto) e
+     * token de renovacao, assinados (HMAC) e sem estado no servidor.
+     *
      * @param senha - Senha do usuario
      * @param login - Email (login) do usuario
-     * @return ResponseEntity - Mensagem de Erro ou Objeto Usuario (usuario
-     * logado)
+     * @param fields - Campos desejados, separados por virgula (nulo para todos)
+     * @param ip - Endereco IP de origem da requisicao
+     * @return ResponseEntity - Mensagem de Erro ou SessaoDTO com os tokens e o
+     * usuario logado
      */
-    public ResponseEntity<?> validarSenha(String senha, String login) {
+    public ResponseEntity<?> validarSenha(String senha, String login, String fields, String ip) {
         logger.info("Validando a senha do usuario ... ");
-        Usuario user = userRepository.findByEmail(login);
-        try {
-            boolean situacao = codePass.matches(senha, user.getPassword());
+        List<String> campos = CamposUsuario.ler(fields);
+        if (campos == null) {
+            logger.info("Falha no Login: " + CatalogoErros.CAMPO_INVALIDO.getDetalhe());
+            return CatalogoErros.CAMPO_INVALIDO.resposta();
+        }
+        // o limite de tentativas vem ANTES do banco e do BCrypt
+        long espera = limiteLogin.verificar(login, ip);
+        if (espera > 0) {
+            logger.info("Falha no Login: " + CatalogoErros.LOGIN_LIMITADO.getDetalhe());
+            return CatalogoErros.LOGIN_LIMITADO.resposta(espera);
+        }
+        Usuario user = login == null ? null : userCache.buscar(login);
+        if (user == null || senha == null) {
+            limiteLogin.registrar(login, ip, false);
+            logger.info("Falha no Login: " + CatalogoErros.LOGIN_EMAIL.getDetalhe());
+            return CatalogoErros.LOGIN_EMAIL.resposta();
+        }
+        // a conferencia e feita no pool de senhas (SobrecargaException se saturado)
+        if (!senhaService.conferir(senha, user.getPassword())) {
+            limiteLogin.registrar(login, ip, false);
+            logger.info("Falha no Login: " + CatalogoErros.LOGIN_SENHA.getDetalhe());
+            return CatalogoErros.LOGIN_SENHA.resposta();
+        }
+        limiteLogin.registrar(login, ip, true);
+        if (!user.isAtivo()) {
+            logger.info("Falha no Login: " + CatalogoErros.LOGIN_INATIVO.getDetalhe());
+            return CatalogoErros.LOGIN_INATIVO.resposta();
+        }
+        // somente usuarios ativos: um usuario arquivado nao gera gravacoes no login
+        senhaService.recodificarSeNecessario(senha, user.getPassword(), novo -> recodificarSenha(user, novo));
+        Object usuario = campos.isEmpty() ? user : CamposUsuario.projetar(user, campos);
+        return new ResponseEntity<>(tokenService.emitir(user, usuario), HttpStatus.OK);
+    }
 
-            if (!situacao) {
-                mensagem.setMensagem("Validacao incorreta: Senha nao confere!");
-                logger.info("Falha no Login: " + mensagem.getMensagem());
-                return new ResponseEntity<>(mensagem, HttpStatus.BAD_REQUEST);
-            }
-        } catch (Exception ex) {
-            mensagem.setMensagem("Validacao incorreta: Confirme o email informado!");
-            logger.info("Falha no Login: " + mensagem.getMensagem());
-            return new ResponseEntity<>(mensagem, HttpStatus.BAD_REQUEST);
+    // grava o hash recodificado (custo atual) sem alterar a versao: sessoes e ETags continuam validas
+    private boolean recodificarSenha(Usuario user, String novo) {
+        if (userRepository.recodificarSenha(user.getUsuarioID(), user.getPassword(), novo) == 0) {
+            return false;
         }
+        userCache.remover(user.getUsuarioID(), user.getEmail());
+        logger.info("Senha do usuario " + user.getUsuarioID() + " recodificada com o custo atual do BCrypt.");
+        return true;
+    }
 
-        return new ResponseEntity<>(user, HttpStatus.OK);
+    /**
+     * Renova a sessao a partir do token de renovacao, sem a senha.
+     *
+     * O usuario e conferido (cache ou banco): a sessao so e renovada se ele
+     * continuar ativo e na mesma versao da emissao do token.
+     *
+     * @param tokenRenovacao - Token de renovacao recebido no login
+     * @param fields - Campos desejados, separados por virgula (nulo para todos)
+     * @return ResponseEntity - Mensagem de Erro ou SessaoDTO com os novos tokens
+     */
+    public ResponseEntity<?> renovarSessao(String tokenRenovacao, String fields) {
+        logger.info("Renovando a sessao do usuario ... ");
+        List<String> campos = CamposUsuario.ler(fields);
+        if (campos == null) {
+            logger.info("Falha na renovacao: " + CatalogoErros.CAMPO_INVALIDO.getDetalhe());
+            return CatalogoErros.CAMPO_INVALIDO.resposta();
+        }
+        TokenService.Conteudo conteudo = tokenService.validarRenovacao(tokenRenovacao);
+        Usuario user = conteudo == null ? null : userCache.buscar(conteudo.usuarioID());
+        if (user == null || !user.isAtivo() || user.getVersao() == null || user.getVersao() != conteudo.versao()) {
+            logger.info("Falha na renovacao: " + CatalogoErros.RENOVACAO_INVALIDA.getDetalhe());
+            return CatalogoErros.RENOVACAO_INVALIDA.resposta();
+        }
+        Object usuario = campos.isEmpty() ? user : CamposUsuario.projetar(user, campos);
+        return new ResponseEntity<>(tokenService.emitir(user, usuario), HttpStatus.OK);
+    }
+
+    // usuario ja carregado (cache): devolve a entidade ou somente os campos pedidos, com a ETag da versao
+    private ResponseEntity<?> responder(Usuario user, String fields, String seNenhum) {
+        List<String> campos = CamposUsuario.ler(fields);
+        if (campos == null) {
+            logger.info("Falha na procura: " + CatalogoErros.CAMPO_INVALIDO.getDetalhe());
+            return CatalogoErros.CAMPO_INVALIDO.resposta();
+        }
+        String etag = Etags.deVersao(user.getVersao());
+        if (Etags.coincide(seNenhum, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        if (campos.isEmpty()) {
+            return ResponseEntity.ok().eTag(etag).body(user);
+        }
+        return ResponseEntity.ok().eTag(etag).body(CamposUsuario.projetar(user, campos));
     }
 
 }
@@ -0,0 +1,42 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.model.Veiculo;
+import java.util.UUID;
+
+/**
+ * Evento de cadastro, atualizacao, arquivamento ou ativacao de um Veiculo da
+ * frota, publicado pelo VeiculoService e tratado apos o COMMIT.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public record VeiculoEvento(UUID veiculoID, Boolean ativoAnterior, boolean ativo) {
+
+    public static VeiculoEvento cadastrado(Veiculo veiculo) {
+        return new VeiculoEvento(veiculo.getVeiculoID(), null, veiculo.isAtivo());
+    }
+
+    public static VeiculoEvento alterado(Veiculo veiculo, boolean ativoAnterior) {
+        return new VeiculoEvento(veiculo.getVeiculoID(), ativoAnterior, veiculo.isAtivo());
+    }
+
+    /**
+     * @return CADASTRADO, ATUALIZADO, ARQUIVADO ou ATIVADO
+     */
+    public String tipo() {
+        if (ativoAnterior == null) {
+            return "CADASTRADO";
+        }
+        if (ativoAnterior == ativo) {
+            return "ATUALIZADO";
+        }
+        return ativo ? "ATIVADO" : "ARQUIVADO";
+    }
+
+}
@@ -0,0 +1,331 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import com.aeroceti.fleetcare.dataTransfers.CatalogoErros;
+import com.aeroceti.fleetcare.dataTransfers.MensagemDTO;
+import com.aeroceti.fleetcare.dataTransfers.PeriodoLocacaoDTO;
+import com.aeroceti.fleetcare.dataTransfers.VeiculoDisponivelDTO;
+import com.aeroceti.fleetcare.model.Veiculo;
+import com.aeroceti.fleetcare.repositories.LocacaoRepository;
+import com.aeroceti.fleetcare.repositories.VeiculoRepository;
+import com.aeroceti.fleetcare.utilities.NormalizadorDados;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Classe de SERVICOS para o objeto Veiculo (Logica do negocio).
+ *
+ * A consulta de veiculos livres num periodo e respondida pelo indice de
+ * disponibilidade na memoria (DisponibilidadeIndice); enquanto ele e montado,
+ * a consulta vai ao banco.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@Service
+public class VeiculoService {
+
+    @Autowired
+    private VeiculoRepository veiculoRepository;
+    @Autowired
+    private LocacaoRepository locacaoRepository;
+    @Autowired
+    private DisponibilidadeIndice indiceDisponibilidade;
+    @Autowired
+    private ManutencaoAgenda agendaManutencao;
+    @Autowired
+    private TelemetriaEstado estadoTelemetria;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ApplicationEventPublisher publicador;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${fleetcare.veiculo.disponiveis.limite:100}")
+    private int limiteDisponiveis;
+    @Value("${fleetcare.veiculo.disponiveis.maximo:1000}")
+    private int limiteMaximoDisponiveis;
+
+    private final Logger logger = LoggerFactory.getLogger(VeiculoService.class);
+
+    /**
+     * Metodo para cadastrar um Veiculo na frota.
+     *
+     * @param veiculo - Objeto Veiculo com os dados a serem gravados
+     * @return ResponseEntity contendo uma mensagem de erro OU o Veiculo cadastrado
+     */
+    public ResponseEntity<?> cadastrar(Veiculo veiculo) {
+        logger.info("Validando os dados para persistir veiculo no banco de dados...");
+        CatalogoErros erro = validar(veiculo);
+        if (erro == null && veiculo.getQuilometragem() < 0) {
+            erro = CatalogoErros.QUILOMETRAGEM_INVALIDA;
+        }
+        if (erro == null && veiculoRepository.countByPlaca(veiculo.getPlaca()) > 0) {
+            erro = CatalogoErros.PLACA_DUPLICADA;
+        }
+        if (erro != null) {
+            logger.info("Dados nao cadastrados: " + erro.getDetalhe());
+            return erro.resposta();
+        }
+        veiculo.setVeiculoID(null);
+        veiculo.setVersao(null);
+        Veiculo veiculoNovo = veiculoRepository.save(veiculo);
+        indiceDisponibilidade.atualizar(veiculoNovo);
+        agendaManutencao.atualizarVeiculo(veiculoNovo);
+        estadoTelemetria.registrar(veiculoNovo.getVeiculoID());
+        publicador.publishEvent(VeiculoEvento.cadastrado(veiculoNovo));
+        logger.info("Veiculo " + veiculoNovo.getPlaca() + " salvo no banco de dados!");
+        return new ResponseEntity<>(veiculoNovo, HttpStatus.CREATED);
+    }
+
+    /**
+     * Metodo para atualizar os dados de um Veiculo da frota. A quilometragem
+     * nao e alterada aqui (ver registrarQuilometragem).
+     *
+     * @param veiculo - Objeto Veiculo com o ID e os novos dados
+     * @return ResponseEntity contendo uma mensagem de erro OU o Veiculo atualizado
+     */
+    @Transactional
+    public ResponseEntity<?> atualizar(Veiculo veiculo) {
+        logger.info("Validando os dados para atualizar o veiculo...");
+        CatalogoErros erro = validar(veiculo);
+        if (erro != null) {
+            logger.info("Dados nao cadastrados: " + erro.getDetalhe());
+            return erro.resposta();
+        }
+        Veiculo veiculoAtual = veiculo.getVeiculoID() == null ? null : veiculoRepository.travarPorID(veiculo.getVeiculoID());
+        if (veiculoAtual == null) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.VEICULO_INEXISTENTE.getDetalhe());
+            return CatalogoErros.VEICULO_INEXISTENTE.resposta();
+        }
+        if (!veiculoAtual.getPlaca().equals(veiculo.getPlaca()) && veiculoRepository.countByPlaca(veiculo.getPlaca()) > 0) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.PLACA_DUPLICADA.getDetalhe());
+            return CatalogoErros.PLACA_DUPLICADA.resposta();
+        }
+        veiculoAtual.setPlaca(veiculo.getPlaca());
+        veiculoAtual.setMarca(veiculo.getMarca());
+        veiculoAtual.setModelo(veiculo.getModelo());
+        veiculoAtual.setAno(veiculo.getAno());
+        veiculoAtual.setCor(veiculo.getCor());
+        Veiculo veiculoSalvo = veiculoRepository.saveAndFlush(veiculoAtual);
+        indiceDisponibilidade.atualizar(veiculoSalvo);
+        agendaManutencao.atualizarVeiculo(veiculoSalvo);
+        publicador.publishEvent(VeiculoEvento.alterado(veiculoSalvo, veiculoSalvo.isAtivo()));
+        logger.info("Veiculo " + veiculoSalvo.getPlaca() + " salvo no banco de dados!");
+        return new ResponseEntity<>(veiculoSalvo, HttpStatus.OK);
+    }
+
+    /**
+     * Metodo para ARQUIVAR ou ATIVAR um Veiculo da frota. Veiculos arquivados
+     * nao aparecem na consulta de disponibilidade nem podem ser locados.
+     *
+     * @param veiculoID - ID do veiculo a ser processado
+     * @param ativo - False para arquivar e True para ativar
+     * @return ResponseEntity contendo uma mensagem de erro ou sucesso
+     */
+    @Transactional
+    public ResponseEntity<?> arquivar(UUID veiculoID, boolean ativo) {
+        logger.info("Obtendo o veiculo do banco para ARQUIVAR...");
+        Veiculo veiculoAtual = veiculoID == null ? null : veiculoRepository.travarPorID(veiculoID);
+        if (veiculoAtual == null) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.VEICULO_INEXISTENTE.getDetalhe());
+            return CatalogoErros.VEICULO_INEXISTENTE.resposta();
+        }
+        boolean ativoAnterior = veiculoAtual.isAtivo();
+        veiculoAtual.setAtivo(ativo);
+        Veiculo veiculoSalvo = veiculoRepository.saveAndFlush(veiculoAtual);
+        indiceDisponibilidade.atualizar(veiculoSalvo);
+        agendaManutencao.atualizarVeiculo(veiculoSalvo);
+        publicador.publishEvent(VeiculoEvento.alterado(veiculoSalvo, ativoAnterior));
+        return new ResponseEntity<>(ativo ? MensagemDTO.VEICULO_ATIVADO : MensagemDTO.VEICULO_ARQUIVADO, HttpStatus.OK);
+    }
+
+    /**
+     * Metodo para registrar a leitura do hodometro de um Veiculo. A
+     * quilometragem nunca diminui; a agenda de manutencao recalcula somente os
+     * planos deste veiculo, depois do COMMIT.
+     *
+     * @param veiculoID - ID do veiculo
+     * @param quilometragem - Leitura atual do hodometro, em km
+     * @return ResponseEntity contendo uma mensagem de erro OU o Veiculo atualizado
+     */
+    @Transactional
+    public ResponseEntity<?> registrarQuilometragem(UUID veiculoID, Long quilometragem) {
+        logger.info("Registrando a quilometragem do veiculo: " + veiculoID);
+        Veiculo veiculoAtual = veiculoID == null ? null : veiculoRepository.travarPorID(veiculoID);
+        if (veiculoAtual == null) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.VEICULO_INEXISTENTE.getDetalhe());
+            return CatalogoErros.VEICULO_INEXISTENTE.resposta();
+        }
+        if (quilometragem == null || quilometragem < veiculoAtual.getQuilometragem()) {
+            logger.info("Dados nao cadastrados: " + CatalogoErros.QUILOMETRAGEM_INVALIDA.getDetalhe());
+            return CatalogoErros.QUILOMETRAGEM_INVALIDA.resposta();
+        }
+        if (quilometragem == veiculoAtual.getQuilometragem()) {
+            return new ResponseEntity<>(veiculoAtual, HttpStatus.OK);
+        }
+        veiculoAtual.setQuilometragem(quilometragem);
+        Veiculo veiculoSalvo = veiculoRepository.saveAndFlush(veiculoAtual);
+        agendaManutencao.atualizarVeiculo(veiculoSalvo);
+        return new ResponseEntity<>(veiculoSalvo, HttpStatus.OK);
+    }
+
+    /**
+     * Listagem de TODA a frota, em ordem de placa.
+     *
+     * @return ResponseEntity com um Array de veiculos
+     */
+    public ResponseEntity<?> listar() {
+        logger.info("Obtendo uma listagem de todos os veiculos...");
+        return new ResponseEntity<>(veiculoRepository.findByOrderByPlacaAsc(), HttpStatus.OK);
+    }
+
+    /**
+     * Busca um veiculo pelo ID.
+     *
+     * @param veiculoID - ID do veiculo desejado
+     * @return ResponseEntity - Mensagem de Erro ou Objeto Veiculo
+     */
+    public ResponseEntity<?> selecionar(UUID veiculoID) {
+        logger.info("Procurando o veiculo pelo ID: " + veiculoID);
+        Veiculo veiculo = veiculoRepository.findByVeiculoID(veiculoID);
+        if (veiculo == null) {
+            logger.info("Falha na procura: " + CatalogoErros.VEICULO_INEXISTENTE.getDetalhe());
+            return CatalogoErros.VEICULO_INEXISTENTE.resposta();
+        }
+        return new ResponseEntity<>(veiculo, HttpStatus.OK);
+    }
+
+    /**
+     * Agenda de um veiculo: locacoes em vigor (que terminam depois de hoje).
+     *
+     * @param veiculoID - ID do veiculo desejado
+     * @return ResponseEntity - Mensagem de Erro ou Array de locacoes
+     */
+    public ResponseEntity<?> agenda(UUID veiculoID) {
+        logger.info("Obtendo a agenda do veiculo: " + veiculoID);
+        if (veiculoRepository.findByVeiculoID(veiculoID) == null) {
+            logger.info("Falha na procura: " + CatalogoErros.VEICULO_INEXISTENTE.getDetalhe());
+            return CatalogoErros.VEICULO_INEXISTENTE.resposta();
+        }
+        return new ResponseEntity<>(locacaoRepository.findAgenda(veiculoID, LocalDate.now()), HttpStatus.OK);
+    }
+
+    /**
+     * Veiculos ativos LIVRES em todo o periodo informado, em ordem de placa.
+     *
+     * @param retirada - Primeiro dia do periodo (hoje ou depois)
+     * @param devolucao - Dia da devolucao (posterior a retirada)
+     * @param limite - Quantidade maxima de veiculos (nulo para o padrao)
+     * @return ResponseEntity - Mensagem de Erro ou Array de veiculos livres
+     */
+    public ResponseEntity<?> disponiveis(LocalDate retirada, LocalDate devolucao, Integer limite) {
+        logger.info("Procurando veiculos livres de " + retirada + " a " + devolucao);
+        if (retirada == null || devolucao == null) {
+            logger.info("Falha na procura: " + CatalogoErros.LOCACAO_INCOMPLETA.getDetalhe());
+            return CatalogoErros.LOCACAO_INCOMPLETA.resposta();
+        }
+        if (!periodoValido(retirada, devolucao)) {
+            logger.info("Falha na procura: " + CatalogoErros.PERIODO_INVALIDO.getDetalhe());
+            return CatalogoErros.PERIODO_INVALIDO.resposta();
+        }
+        int quantidade = (limite == null || limite < 1) ? limiteDisponiveis : Math.min(limite, limiteMaximoDisponiveis);
+        if (indiceDisponibilidade.pronto()) {
+            return new ResponseEntity<>(indiceDisponibilidade.disponiveis(retirada, devolucao, quantidade), HttpStatus.OK);
+        }
+        // indice ainda em montagem: a mesma consulta no banco
+        List<Veiculo> veiculos = veiculoRepository.findDisponiveis(retirada, devolucao, PageRequest.of(0, quantidade));
+        List<VeiculoDisponivelDTO> lista = new ArrayList<>(veiculos.size());
+        for (Veiculo veiculo : veiculos) {
+            lista.add(new VeiculoDisponivelDTO(veiculo.getVeiculoID(), veiculo.getPlaca(), veiculo.getMarca(), veiculo.getModelo()));
+        }
+        return new ResponseEntity<>(lista, HttpStatus.OK);
+    }
+
+    /**
+     * Valida um periodo de locacao: semiaberto, comecando hoje ou depois.
+     *
+     * @param retirada - Primeiro dia do periodo
+     * @param devolucao - Dia da devolucao
+     * @return True se o periodo for valido
+     */
+    public static boolean periodoValido(LocalDate retirada, LocalDate devolucao) {
+        return devolucao.isAfter(retirada) && !retirada.isBefore(LocalDate.now());
+    }
+
+    /**
+     * Monta o indice de disponibilidade quando a aplicacao fica pronta.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void montarIndiceDisponibilidade() {
+        logger.info("Montando o indice de disponibilidade de veiculos...");
+        LocalDate hoje = LocalDate.now();
+        indiceDisponibilidade.montar(this::percorrerVeiculos, consumidor -> percorrerPeriodos(hoje, consumidor));
+    }
+
+    private CatalogoErros validar(Veiculo veiculo) {
+        if (!NormalizadorDados.placaValida(veiculo.getPlaca())) {
+            return CatalogoErros.PLACA_INVALIDA;
+        }
+        if (veiculo.getModelo() == null || veiculo.getModelo().isBlank()) {
+            return CatalogoErros.MODELO_OBRIGATORIO;
+        }
+        return null;
+    }
+
+    /**
+     * Percorre TODA a frota, em ordem de placa, por um cursor do banco numa
+     * transacao somente leitura (usado na montagem dos indices na memoria).
+     *
+     * @param consumidor - Recebe cada veiculo (desanexado depois do retorno)
+     */
+    public void percorrerVeiculos(Consumer<Veiculo> consumidor) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        transacao.setReadOnly(true);
+        transacao.executeWithoutResult(status -> {
+            try (Stream<Veiculo> veiculos = veiculoRepository.streamByOrderByPlacaAsc()) {
+                veiculos.forEach(veiculo -> {
+                    consumidor.accept(veiculo);
+                    entityManager.detach(veiculo);
+                });
+            }
+        });
+    }
+
+    private void percorrerPeriodos(LocalDate desde, Consumer<PeriodoLocacaoDTO> consumidor) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        transacao.setReadOnly(true);
+        transacao.executeWithoutResult(status -> {
+            try (Stream<PeriodoLocacaoDTO> periodos = locacaoRepository.streamPeriodos(desde)) {
+                periodos.forEach(consumidor);
+            }
+        });
+    }
+
+}
@@ -0,0 +1,85 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.utilities;
+
+/**
+ * Utilitarios para ETags e requisicoes condicionais (If-None-Match e If-Match).
+ *
+ * A ETag de um usuario e a sua versao (coluna versao, incrementada a cada
+ * alteracao); a ETag de uma listagem combina o total de usuarios com a soma
+ * das versoes, obtidos numa unica consulta de agregacao.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public final class Etags {
+
+    private Etags() {
+    }
+
+    /**
+     * @param versao - Versao do registro (nula para registros sem versao)
+     * @return ETag forte do registro
+     */
+    public static String deVersao(Long versao) {
+        return "\"" + (versao == null ? 0 : versao) + "\"";
+    }
+
+    /**
+     * @param agregado - Total e soma das versoes ("total.soma")
+     * @return ETag forte da colecao
+     */
+    public static String deColecao(String agregado) {
+        return "\"c" + agregado + "\"";
+    }
+
+    /**
+     * Compara o cabecalho If-None-Match com a ETag atual (comparacao fraca).
+     *
+     * @param cabecalho - Valor do If-None-Match (pode ser nulo)
+     * @param etag - ETag atual do recurso
+     * @return TRUE se o cliente ja possui a representacao atual
+     */
+    public static boolean coincide(String cabecalho, String etag) {
+        if (cabecalho == null || cabecalho.isBlank()) {
+            return false;
+        }
+        for (String valor : cabecalho.split(",")) {
+            String candidata = valor.trim();
+            if (candidata.equals("*")) {
+                return true;
+            }
+            if (candidata.startsWith("W/")) {
+                candidata = candidata.substring(2);
+            }
+            if (candidata.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Obtem a versao esperada de um cabecalho If-Match (comparacao forte: uma
+     * unica ETag, sem o prefixo W/).
+     *
+     * @param cabecalho - Valor do If-Match
+     * @return Versao esperada ou NULL se o cabecalho nao for uma ETag de versao
+     */
+    public static Long versaoEsperada(String cabecalho) {
+        String valor = cabecalho.trim();
+        if (valor.length() < 3 || valor.charAt(0) != '"' || valor.charAt(valor.length() - 1) != '"') {
+            return null;
+        }
+        try {
+            return Long.valueOf(valor.substring(1, valor.length() - 1));
+        } catch (NumberFormatException erro) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,312 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.utilities;
+
+import java.util.regex.Pattern;
+
+/**
+ * Normalizacao e formatacao dos dados cadastrais (CPF, telefone, data, nome e
+ * placa).
+ *
+ * Os metodos percorrem o texto uma unica vez, sem expressoes regulares, e
+ * devolvem a propria String quando nao ha nada a alterar. As expressoes
+ * pre-compiladas so sao usadas como alternativa para valores fora do padrao
+ * gravados no banco, mantendo o resultado identico ao das versoes anteriores.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public final class NormalizadorDados {
+
+    private static final Pattern EMAIL = Pattern.compile("^[\\w\\.-]+@([\\w\\-]+\\.)+[A-Z]{2,4}$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CPF = Pattern.compile("([0-9]{3})([0-9]{3})([0-9]{3})([0-9]{2})");
+    private static final Pattern TELEFONE_FIXO = Pattern.compile("(\\d{2})(\\d{4})(\\d+)");
+    private static final Pattern TELEFONE_CELULAR = Pattern.compile("(\\d{2})(\\d{1})(\\d{4})(\\d+)");
+    private static final String[] PARTICULAS = {"da", "de", "do", "di", "dos", "das", "e", "d'"};
+    private static final String ACENTUADOS = "àáâãäåçèéêëìíîïñòóôõöùúûüýÿ";
+    private static final String SEM_ACENTO = "aaaaaaceeeeiiiinooooouuuuyy";
+
+    private NormalizadorDados() {
+    }
+
+    /**
+     * Valida o formato de um endereco de email.
+     *
+     * @param email - Email a ser validado
+     * @return True se o formato for valido
+     */
+    public static boolean emailValido(String email) {
+        return email != null && EMAIL.matcher(email).matches();
+    }
+
+    /**
+     * Remove todos os caracteres que nao sejam digitos (0-9).
+     *
+     * @param valor - Texto a ser limpo
+     * @return Somente os digitos do texto
+     */
+    public static String somenteDigitos(String valor) {
+        int n = valor.length();
+        int i = 0;
+        while (i < n && isDigito(valor.charAt(i))) {
+            i++;
+        }
+        if (i == n) {
+            return valor;
+        }
+        StringBuilder sb = new StringBuilder(n);
+        sb.append(valor, 0, i);
+        for (; i < n; i++) {
+            char c = valor.charAt(i);
+            if (isDigito(c)) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Formata um CPF gravado somente com numeros (000.000.000-00).
+     *
+     * @param cpf - CPF sem formatacao
+     * @return CPF formatado
+     */
+    public static String formatarCPF(String cpf) {
+        if (!isSomenteDigitos(cpf)) {
+            return CPF.matcher(cpf).replaceAll("$1.$2.$3-$4").trim();
+        }
+        int n = cpf.length();
+        if (n < 11) {
+            return cpf;
+        }
+        StringBuilder sb = new StringBuilder(n + 3 * (n / 11));
+        int i = 0;
+        for (; i + 11 <= n; i += 11) {
+            sb.append(cpf, i, i + 3).append('.').append(cpf, i + 3, i + 6).append('.')
+                    .append(cpf, i + 6, i + 9).append('-').append(cpf, i + 9, i + 11);
+        }
+        return sb.append(cpf, i, n).toString();
+    }
+
+    /**
+     * Limpa um telefone, mantendo somente os numeros.
+     *
+     * Um unico digito e descartado (resto da mascara do Bootstrap).
+     *
+     * @param telefone - Telefone digitado
+     * @return Telefone somente com numeros ou vazio
+     */
+    public static String normalizarTelefone(String telefone) {
+        if (telefone == null) {
+            return "";
+        }
+        String digitos = somenteDigitos(telefone);
+        return digitos.length() == 1 ? "" : digitos;
+    }
+
+    /**
+     * Formata um telefone gravado somente com numeros: (00)0000-0000 para fixos
+     * e (00)0.0000-0000 para celulares.
+     *
+     * @param telefone - Telefone sem formatacao
+     * @return Telefone formatado
+     */
+    public static String formatarTelefone(String telefone) {
+        int n = telefone.length();
+        if (!isSomenteDigitos(telefone)) {
+            return (n == 10 ? TELEFONE_FIXO.matcher(telefone).replaceFirst("($1)$2-$3")
+                    : TELEFONE_CELULAR.matcher(telefone).replaceFirst("($1)$2.$3-$4"));
+        }
+        if (n == 10) {
+            return new StringBuilder(13).append('(').append(telefone, 0, 2).append(')')
+                    .append(telefone, 2, 6).append('-').append(telefone, 6, n).toString();
+        }
+        if (n < 8) {
+            return telefone;
+        }
+        return new StringBuilder(n + 4).append('(').append(telefone, 0, 2).append(')')
+                .append(telefone.charAt(2)).append('.').append(telefone, 3, 7).append('-')
+                .append(telefone, 7, n).toString();
+    }
+
+    /**
+     * Normaliza uma data digitada com ou sem mascara para o formato 00/00/0000.
+     *
+     * @param data - Data digitada
+     * @return Data formatada
+     */
+    public static String normalizarData(String data) {
+        if (data == null) {
+            return "";
+        }
+        String digitos = somenteDigitos(data);
+        int n = digitos.length();
+        if (n < 8) {
+            return digitos;
+        }
+        StringBuilder sb = new StringBuilder(n + 2 * (n / 8));
+        int i = 0;
+        for (; i + 8 <= n; i += 8) {
+            sb.append(digitos, i, i + 2).append('/').append(digitos, i + 2, i + 4).append('/')
+                    .append(digitos, i + 4, i + 8);
+        }
+        return sb.append(digitos, i, n).toString();
+    }
+
+    /**
+     * Capitaliza um nome proprio: primeira letra de cada parte em maiuscula e
+     * as particulas (da, de, do, dos, das, e, d') em minusculas, exceto no
+     * inicio do nome. Espacos repetidos sao removidos.
+     *
+     * @param nome - Nome digitado
+     * @return Nome capitalizado (vazio se nulo)
+     */
+    public static String capitalizarNome(String nome) {
+        if (nome == null) {
+            return "";
+        }
+        int n = nome.length();
+        StringBuilder sb = new StringBuilder(n);
+        int inicio = 0;
+        int indice = 0;
+        while (inicio <= n) {
+            int fim = nome.indexOf(' ', inicio);
+            if (fim < 0) {
+                fim = n;
+            }
+            int a = inicio;
+            int b = fim;
+            while (a < b && nome.charAt(a) <= ' ') {
+                a++;
+            }
+            while (b > a && nome.charAt(b - 1) <= ' ') {
+                b--;
+            }
+            if (a < b) {
+                boolean particula = indice > 0 && isParticula(nome, a, b);
+                if (sb.length() > 0) {
+                    sb.append(' ');
+                }
+                for (int k = a; k < b; k++) {
+                    char c = nome.charAt(k);
+                    sb.append(!particula && k == inicio ? Character.toUpperCase(c) : Character.toLowerCase(c));
+                }
+            }
+            indice++;
+            inicio = fim + 1;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Prepara um texto para a pesquisa: letras minusculas e sem acentos, digitos,
+     * e um espaco no lugar de qualquer outro simbolo. Pontos e tracos entre
+     * digitos sao removidos, de modo que um CPF formatado vira somente numeros.
+     *
+     * @param texto - Texto digitado ou gravado
+     * @return Palavras separadas por um espaco (vazio se nulo)
+     */
+    public static String normalizarPesquisa(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        int n = texto.length();
+        StringBuilder sb = new StringBuilder(n);
+        boolean separar = false;
+        for (int i = 0; i < n; i++) {
+            char c = texto.charAt(i);
+            if ((c == '.' || c == '-') && i > 0 && i + 1 < n
+                    && isDigito(texto.charAt(i - 1)) && isDigito(texto.charAt(i + 1))) {
+                continue;
+            }
+            c = Character.toLowerCase(c);
+            if (c >= '\u00e0') {
+                int acento = ACENTUADOS.indexOf(c);
+                if (acento >= 0) {
+                    c = SEM_ACENTO.charAt(acento);
+                }
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (separar && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                separar = false;
+                sb.append(c);
+            } else {
+                separar = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Normaliza uma placa de veiculo: letras maiusculas e digitos, sem
+     * tracos ou espacos (ABC1D23).
+     *
+     * @param placa - Placa digitada (pode ser nula)
+     * @return Placa normalizada (vazia se nula)
+     */
+    public static String normalizarPlaca(String placa) {
+        if (placa == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(7);
+        for (int i = 0; i < placa.length(); i++) {
+            char c = placa.charAt(i);
+            if (isDigito(c) || (c >= 'A' && c <= 'Z')) {
+                sb.append(c);
+            } else if (c >= 'a' && c <= 'z') {
+                sb.append((char) (c - 32));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Valida uma placa normalizada no padrao antigo (ABC1234) ou Mercosul (ABC1D23).
+     *
+     * @param placa - Placa normalizada
+     * @return True se o formato for valido
+     */
+    public static boolean placaValida(String placa) {
+        if (placa == null || placa.length() != 7) {
+            return false;
+        }
+        for (int i = 0; i < 3; i++) {
+            if (placa.charAt(i) < 'A' || placa.charAt(i) > 'Z') {
+                return false;
+            }
+        }
+        char quinto = placa.charAt(4);
+        return isDigito(placa.charAt(3)) && (isDigito(quinto) || (quinto >= 'A' && quinto <= 'Z'))
+                && isDigito(placa.charAt(5)) && isDigito(placa.charAt(6));
+    }
+
+    private static boolean isParticula(String nome, int inicio, int fim) {
+        int tamanho = fim - inicio;
+        for (String particula : PARTICULAS) {
+            if (particula.length() == tamanho && nome.regionMatches(true, inicio, particula, 0, tamanho)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSomenteDigitos(String valor) {
+        for (int i = 0; i < valor.length(); i++) {
+            if (!isDigito(valor.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigito(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+}
@@ -0,0 +1,7 @@
+-- Replica local (perfil local): tabelas do banco primario, somente leitura.
+CREATE LINKED TABLE IF NOT EXISTS Usuario('org.h2.Driver', 'jdbc:h2:mem:primario;MODE=MySQL', 'sa', '', 'USUARIO') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS Veiculo('org.h2.Driver', 'jdbc:h2:mem:primario;MODE=MySQL', 'sa', '', 'VEICULO') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS Locacao('org.h2.Driver', 'jdbc:h2:mem:primario;MODE=MySQL', 'sa', '', 'LOCACAO') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS PlanoManutencao('org.h2.Driver', 'jdbc:h2:mem:primario;MODE=MySQL', 'sa', '', 'PLANOMANUTENCAO') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS Manutencao('org.h2.Driver', 'jdbc:h2:mem:primario;MODE=MySQL', 'sa', '', 'MANUTENCAO') READONLY;
+CREATE LINKED TABLE IF NOT EXISTS Telemetria('org.h2.Driver', 'jdbc:h2:mem:primario;MODE=MySQL', 'sa', '', 'TELEMETRIA') READONLY;
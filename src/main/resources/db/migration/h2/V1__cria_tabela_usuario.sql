@@ -0,0 +1,15 @@
+-- Fleet Care Amazon - estrutura inicial (H2, perfil local).
+CREATE TABLE IF NOT EXISTS Usuario (
+    usuarioID       UUID         NOT NULL,
+    CPF             VARCHAR(11),
+    nome            VARCHAR(50),
+    email           VARCHAR(45),
+    whatsapp        VARCHAR(20),
+    dataNascimento  VARCHAR(10),
+    sexo            VARCHAR(1),
+    ativo           BOOLEAN      NOT NULL,
+    password        VARCHAR(128),
+    versao          BIGINT,
+    PRIMARY KEY (usuarioID),
+    CONSTRAINT UK_Usuario_CPF UNIQUE (CPF)
+);
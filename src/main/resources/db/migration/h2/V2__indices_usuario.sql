@@ -0,0 +1,7 @@
+-- Indices das consultas de Usuario:
+--   email          -> login (findByEmail / findUsuarioIDByEmail) e unicidade do email
+--   ativo, nome    -> listagens de usuarios ativos por nome
+--   nome, usuarioID -> listagem ordenada e paginacao por cursor (nome + ID)
+CREATE UNIQUE INDEX UK_Usuario_email ON Usuario (email);
+CREATE INDEX IDX_Usuario_ativo_nome ON Usuario (ativo, nome);
+CREATE INDEX IDX_Usuario_nome_ID ON Usuario (nome, usuarioID);
@@ -0,0 +1,30 @@
+-- Veiculos e Locacoes (H2, perfil local).
+CREATE TABLE IF NOT EXISTS Veiculo (
+    veiculoID       UUID         NOT NULL,
+    placa           VARCHAR(7)   NOT NULL,
+    marca           VARCHAR(30),
+    modelo          VARCHAR(50),
+    ano             INT,
+    cor             VARCHAR(20),
+    ativo           BOOLEAN      NOT NULL,
+    versao          BIGINT,
+    PRIMARY KEY (veiculoID),
+    CONSTRAINT UK_Veiculo_placa UNIQUE (placa)
+);
+CREATE TABLE IF NOT EXISTS Locacao (
+    locacaoID       UUID         NOT NULL,
+    veiculoID       UUID         NOT NULL,
+    usuarioID       UUID         NOT NULL,
+    retirada        DATE         NOT NULL,
+    devolucao       DATE         NOT NULL,
+    cancelada       BOOLEAN      NOT NULL,
+    versao          BIGINT,
+    PRIMARY KEY (locacaoID),
+    CONSTRAINT FK_Locacao_Veiculo FOREIGN KEY (veiculoID) REFERENCES Veiculo (veiculoID),
+    CONSTRAINT FK_Locacao_Usuario FOREIGN KEY (usuarioID) REFERENCES Usuario (usuarioID)
+);
+-- Indices das consultas de Locacao:
+--   veiculoID, retirada, devolucao -> conferencia de sobreposicao e agenda do veiculo
+--   usuarioID, retirada            -> locacoes do usuario
+CREATE INDEX IDX_Locacao_veiculo_periodo ON Locacao (veiculoID, retirada, devolucao);
+CREATE INDEX IDX_Locacao_usuario ON Locacao (usuarioID, retirada);
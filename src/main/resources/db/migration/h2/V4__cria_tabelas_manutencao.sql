@@ -0,0 +1,31 @@
+-- Quilometragem dos Veiculos, Planos de Manutencao e Manutencoes (H2, perfil local).
+ALTER TABLE Veiculo ADD COLUMN IF NOT EXISTS quilometragem BIGINT DEFAULT 0 NOT NULL;
+CREATE TABLE IF NOT EXISTS PlanoManutencao (
+    planoID             UUID         NOT NULL,
+    veiculoID           UUID         NOT NULL,
+    descricao           VARCHAR(60)  NOT NULL,
+    intervaloKm         INT,
+    intervaloDias       INT,
+    ultimaQuilometragem BIGINT       NOT NULL,
+    ultimaData          DATE         NOT NULL,
+    ativo               BOOLEAN      NOT NULL,
+    versao              BIGINT,
+    PRIMARY KEY (planoID),
+    CONSTRAINT FK_PlanoManutencao_Veiculo FOREIGN KEY (veiculoID) REFERENCES Veiculo (veiculoID)
+);
+CREATE TABLE IF NOT EXISTS Manutencao (
+    manutencaoID        UUID         NOT NULL,
+    planoID             UUID         NOT NULL,
+    veiculoID           UUID         NOT NULL,
+    data                DATE         NOT NULL,
+    quilometragem       BIGINT       NOT NULL,
+    observacao          VARCHAR(200),
+    PRIMARY KEY (manutencaoID),
+    CONSTRAINT FK_Manutencao_Plano FOREIGN KEY (planoID) REFERENCES PlanoManutencao (planoID),
+    CONSTRAINT FK_Manutencao_Veiculo FOREIGN KEY (veiculoID) REFERENCES Veiculo (veiculoID)
+);
+-- Indices das consultas de manutencao:
+--   veiculoID       -> planos do veiculo
+--   veiculoID, data -> historico de manutencoes do veiculo
+CREATE INDEX IDX_PlanoManutencao_veiculo ON PlanoManutencao (veiculoID);
+CREATE INDEX IDX_Manutencao_veiculo ON Manutencao (veiculoID, data);
@@ -0,0 +1,15 @@
+-- Leituras de telemetria dos Veiculos (H2, perfil local).
+CREATE TABLE IF NOT EXISTS Telemetria (
+    telemetriaID        BIGINT       AUTO_INCREMENT NOT NULL,
+    veiculoID           UUID         NOT NULL,
+    instante            TIMESTAMP(3) NOT NULL,
+    quilometragem       BIGINT       NOT NULL,
+    combustivel         REAL         NOT NULL,
+    latitude            DOUBLE       NOT NULL,
+    longitude           DOUBLE       NOT NULL,
+    PRIMARY KEY (telemetriaID),
+    CONSTRAINT FK_Telemetria_Veiculo FOREIGN KEY (veiculoID) REFERENCES Veiculo (veiculoID)
+);
+-- Indice da carga do estado (ultima leitura de cada veiculo):
+--   veiculoID, instante
+CREATE INDEX IDX_Telemetria_veiculo ON Telemetria (veiculoID, instante);
@@ -0,0 +1,5 @@
+-- Dia do cadastro de cada Usuario (H2, perfil local). Usuarios anteriores ficam sem data.
+ALTER TABLE Usuario ADD COLUMN IF NOT EXISTS dataCadastro DATE;
+-- Indice da contagem de usuarios cadastrados no dia:
+--   dataCadastro
+CREATE INDEX IDX_Usuario_dataCadastro ON Usuario (dataCadastro);
@@ -0,0 +1,16 @@
+-- Fleet Care Amazon - estrutura inicial (equivalente ao esquema gerado pelo Hibernate).
+-- Bancos ja existentes sao marcados nesta versao (baseline) e seguem a partir da V2.
+CREATE TABLE IF NOT EXISTS Usuario (
+    usuarioID       BINARY(16)   NOT NULL,
+    CPF             VARCHAR(11),
+    nome            VARCHAR(50),
+    email           VARCHAR(45),
+    whatsapp        VARCHAR(20),
+    dataNascimento  VARCHAR(10),
+    sexo            VARCHAR(1),
+    ativo           BIT          NOT NULL,
+    password        VARCHAR(128),
+    versao          BIGINT,
+    PRIMARY KEY (usuarioID),
+    CONSTRAINT UK_Usuario_CPF UNIQUE (CPF)
+) ENGINE = InnoDB;
@@ -0,0 +1,9 @@
+-- Indices das consultas de Usuario:
+--   email          -> login (findByEmail / findUsuarioIDByEmail) e unicidade do email
+--   ativo, nome    -> listagens de usuarios ativos por nome
+--   nome, usuarioID -> listagem ordenada e paginacao por cursor (nome + ID)
+-- ATENCAO: emails duplicados ja gravados impedem a criacao do indice unico;
+-- corrija-os antes de aplicar esta versao.
+CREATE UNIQUE INDEX UK_Usuario_email ON Usuario (email);
+CREATE INDEX IDX_Usuario_ativo_nome ON Usuario (ativo, nome);
+CREATE INDEX IDX_Usuario_nome_ID ON Usuario (nome, usuarioID);
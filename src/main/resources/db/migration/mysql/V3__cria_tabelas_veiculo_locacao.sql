@@ -0,0 +1,30 @@
+-- Veiculos e Locacoes.
+CREATE TABLE IF NOT EXISTS Veiculo (
+    veiculoID       BINARY(16)   NOT NULL,
+    placa           VARCHAR(7)   NOT NULL,
+    marca           VARCHAR(30),
+    modelo          VARCHAR(50),
+    ano             INT,
+    cor             VARCHAR(20),
+    ativo           BIT          NOT NULL,
+    versao          BIGINT,
+    PRIMARY KEY (veiculoID),
+    CONSTRAINT UK_Veiculo_placa UNIQUE (placa)
+) ENGINE = InnoDB;
+CREATE TABLE IF NOT EXISTS Locacao (
+    locacaoID       BINARY(16)   NOT NULL,
+    veiculoID       BINARY(16)   NOT NULL,
+    usuarioID       BINARY(16)   NOT NULL,
+    retirada        DATE         NOT NULL,
+    devolucao       DATE         NOT NULL,
+    cancelada       BIT          NOT NULL,
+    versao          BIGINT,
+    PRIMARY KEY (locacaoID),
+    CONSTRAINT FK_Locacao_Veiculo FOREIGN KEY (veiculoID) REFERENCES Veiculo (veiculoID),
+    CONSTRAINT FK_Locacao_Usuario FOREIGN KEY (usuarioID) REFERENCES Usuario (usuarioID)
+) ENGINE = InnoDB;
+-- Indices das consultas de Locacao:
+--   veiculoID, retirada, devolucao -> conferencia de sobreposicao e agenda do veiculo
+--   usuarioID, retirada            -> locacoes do usuario
+CREATE INDEX IDX_Locacao_veiculo_periodo ON Locacao (veiculoID, retirada, devolucao);
+CREATE INDEX IDX_Locacao_usuario ON Locacao (usuarioID, retirada);
@@ -0,0 +1,15 @@
+-- Leituras de telemetria dos Veiculos.
+CREATE TABLE IF NOT EXISTS Telemetria (
+    telemetriaID        BIGINT       NOT NULL AUTO_INCREMENT,
+    veiculoID           BINARY(16)   NOT NULL,
+    instante            DATETIME(3)  NOT NULL,
+    quilometragem       BIGINT       NOT NULL,
+    combustivel         FLOAT        NOT NULL,
+    latitude            DOUBLE       NOT NULL,
+    longitude           DOUBLE       NOT NULL,
+    PRIMARY KEY (telemetriaID),
+    CONSTRAINT FK_Telemetria_Veiculo FOREIGN KEY (veiculoID) REFERENCES Veiculo (veiculoID)
+) ENGINE = InnoDB;
+-- Indice da carga do estado (ultima leitura de cada veiculo):
+--   veiculoID, instante
+CREATE INDEX IDX_Telemetria_veiculo ON Telemetria (veiculoID, instante);
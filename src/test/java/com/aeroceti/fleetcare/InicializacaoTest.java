@@ -0,0 +1,93 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep;
+
+/**
+ * Tempo de inicializacao da aplicacao (perfil local): o esquema e mantido pelo
+ * Flyway e o Hibernate nao inspeciona o banco (ddl-auto=none). A aplicacao e
+ * iniciada numa JVM que pode estar fria, e o tempo total e o das migracoes
+ * mais a criacao do EntityManagerFactory precisam ficar dentro dos limites.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public class InicializacaoTest {
+
+    // limites folgados: com um processador e a JVM fria, ~24 s no total e ~7 s no Flyway + Hibernate
+    private static final Duration LIMITE = Duration.ofSeconds(60);
+    private static final Duration LIMITE_JPA = Duration.ofSeconds(15);
+
+    private final Logger logger = LoggerFactory.getLogger(InicializacaoTest.class);
+
+    @Test
+    public void aplicacaoSobeDentroDoLimiteSemInspecionarOEsquema() {
+        AtomicReference<Duration> tempo = new AtomicReference<>();
+        BufferingApplicationStartup etapas = new BufferingApplicationStartup(2048);
+        try (ConfigurableApplicationContext contexto = new SpringApplicationBuilder(FleetCareAmazonApplication.class)
+                .profiles("local", "teste")
+                .applicationStartup(etapas)
+                .listeners((ApplicationListener<ApplicationReadyEvent>) pronta -> tempo.set(pronta.getTimeTaken()))
+                .run("--server.port=0")) {
+            Duration jpa = duracao(etapas.getBufferedTimeline(), "flyway", "flywayInitializer", "&entityManagerFactory");
+            logger.info("Aplicacao pronta em " + tempo.get().toMillis() + " ms (Flyway e EntityManagerFactory em "
+                    + jpa.toMillis() + " ms).");
+            assertThat(tempo.get()).isLessThan(LIMITE);
+            assertThat(jpa).isLessThan(LIMITE_JPA);
+            // ddl-auto=none: o Hibernate nao recebe a propriedade hbm2ddl e nao examina o esquema
+            assertThat(contexto.getBean(EntityManagerFactory.class).getProperties())
+                    .doesNotContainKey("hibernate.hbm2ddl.auto");
+            assertThat(contexto.getBean(Flyway.class).info().pending()).isEmpty();
+        }
+    }
+
+    // intervalo entre o inicio da criacao do primeiro bean e o fim do ultimo
+    private static Duration duracao(StartupTimeline linhaDoTempo, String... beans) {
+        Instant inicio = null;
+        Instant fim = null;
+        for (StartupTimeline.TimelineEvent evento : linhaDoTempo.getEvents()) {
+            if (!evento.getStartupStep().getName().equals("spring.beans.instantiate")) {
+                continue;
+            }
+            for (String bean : beans) {
+                if (temMarcador(evento.getStartupStep(), "beanName", bean)) {
+                    inicio = inicio == null || evento.getStartTime().isBefore(inicio) ? evento.getStartTime() : inicio;
+                    fim = fim == null || evento.getEndTime().isAfter(fim) ? evento.getEndTime() : fim;
+                }
+            }
+        }
+        assertThat(inicio).as("criacao dos beans %s", String.join(", ", beans)).isNotNull();
+        return Duration.between(inicio, fim);
+    }
+
+    private static boolean temMarcador(StartupStep etapa, String chave, String valor) {
+        for (StartupStep.Tag marcador : etapa.getTags()) {
+            if (marcador.getKey().equals(chave) && marcador.getValue().equals(valor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
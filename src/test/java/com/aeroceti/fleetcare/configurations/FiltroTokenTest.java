@@ -0,0 +1,83 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.configurations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Token de acesso invalido: recusado nas rotas da API, mas ignorado no login e
+ * na renovacao da sessao (onde o cliente ainda pode enviar o token expirado).
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"local", "teste"})
+public class FiltroTokenTest {
+
+    private static final String TOKEN_INVALIDO = "Bearer token.invalido";
+
+    @LocalServerPort
+    private int porta;
+
+    private TestRestTemplate rest;
+
+    @BeforeEach
+    public void preparar() {
+        SimpleClientHttpRequestFactory conexoes = new SimpleClientHttpRequestFactory();
+        // corpo sem streaming: o HttpURLConnection consegue ler a resposta 401 de um POST
+        conexoes.setOutputStreaming(false);
+        rest = new TestRestTemplate(new RestTemplateBuilder().rootUri("http://localhost:" + porta)
+                .requestFactory(() -> conexoes));
+    }
+
+    @Test
+    public void loginIgnoraOTokenDeAcesso() {
+        ResponseEntity<Map<String, Object>> resposta = enviar(HttpMethod.POST, "/api/v1/usuario/senha",
+                Map.of("email", "ninguem@fleetcare.com.br", "password", "senha"));
+        assertThat(resposta.getBody()).containsEntry("codigo", "AUT-001");
+    }
+
+    @Test
+    public void renovacaoIgnoraOTokenDeAcesso() {
+        ResponseEntity<Map<String, Object>> resposta = enviar(HttpMethod.POST, "/api/v1/usuario/renovar",
+                Map.of("tokenRenovacao", "renovacao.invalida"));
+        assertThat(resposta.getBody()).containsEntry("codigo", "AUT-007");
+    }
+
+    @Test
+    public void demaisRotasRecusamOTokenInvalido() {
+        ResponseEntity<Map<String, Object>> resposta = enviar(HttpMethod.GET,
+                "/api/v1/usuario/buscar/ninguem@fleetcare.com.br", null);
+        assertThat(resposta.getStatusCode().value()).isEqualTo(401);
+        assertThat(resposta.getBody()).containsEntry("codigo", "AUT-005");
+    }
+
+    private ResponseEntity<Map<String, Object>> enviar(HttpMethod metodo, String rota, Map<String, Object> corpo) {
+        HttpHeaders cabecalhos = new HttpHeaders();
+        cabecalhos.set(HttpHeaders.AUTHORIZATION, TOKEN_INVALIDO);
+        return rest.exchange(rota, metodo, new HttpEntity<>(corpo, cabecalhos),
+                new ParameterizedTypeReference<Map<String, Object>>() {
+                });
+    }
+
+}
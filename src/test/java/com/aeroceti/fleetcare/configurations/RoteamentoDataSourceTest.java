@@ -0,0 +1,66 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.configurations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Roteamento entre o banco PRIMARIO e a REPLICA de leitura, com os dois bancos
+ * H2 em memoria do perfil local (primario e replica).
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@SpringBootTest
+@ActiveProfiles("local")
+public class RoteamentoDataSourceTest {
+
+    private static final String BANCO_ATUAL = "SELECT DATABASE()";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void transacaoSomenteLeituraVaiParaReplica() {
+        assertThat(banco(true)).isEqualToIgnoringCase("replica");
+    }
+
+    @Test
+    public void transacaoDeEscritaVaiParaPrimario() {
+        assertThat(banco(false)).isEqualToIgnoringCase("primario");
+    }
+
+    @Test
+    public void noPrimarioIgnoraASomenteLeitura() {
+        assertThat(RoteamentoDataSource.noPrimario(() -> banco(true))).isEqualToIgnoringCase("primario");
+        // fora do noPrimario a transacao somente leitura volta para a replica
+        assertThat(banco(true)).isEqualToIgnoringCase("replica");
+    }
+
+    @Test
+    public void semTransacaoVaiParaPrimario() {
+        assertThat(jdbcTemplate.queryForObject(BANCO_ATUAL, String.class)).isEqualToIgnoringCase("primario");
+    }
+
+    // nome do banco que atendeu a consulta numa transacao
+    private String banco(boolean somenteLeitura) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        transacao.setReadOnly(somenteLeitura);
+        return transacao.execute(status -> jdbcTemplate.queryForObject(BANCO_ATUAL, String.class));
+    }
+
+}
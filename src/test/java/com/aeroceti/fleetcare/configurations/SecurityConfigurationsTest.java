@@ -0,0 +1,59 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.configurations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Cabecalho Cache-Control: consultas com ETag ficam no cache do cliente (e sao
+ * revalidadas); as demais rotas mantem o no-store do Spring Security.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"local", "teste"})
+public class SecurityConfigurationsTest {
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Test
+    public void listagemComETagPodeFicarNoCache() {
+        ResponseEntity<String> resposta = rest.getForEntity("/api/v1/usuario/listar/true", String.class);
+        assertThat(resposta.getHeaders().getETag()).isNotNull();
+        assertThat(resposta.getHeaders().getCacheControl()).isEqualTo("no-cache, private");
+    }
+
+    @Test
+    public void revalidacaoMantemOCabecalho() {
+        String etag = rest.getForEntity("/api/v1/usuario/listar/pagina", String.class).getHeaders().getETag();
+        HttpHeaders cabecalhos = new HttpHeaders();
+        cabecalhos.setIfNoneMatch(etag);
+        ResponseEntity<String> resposta = rest.exchange("/api/v1/usuario/listar/pagina", HttpMethod.GET,
+                new HttpEntity<>(cabecalhos), String.class);
+        assertThat(resposta.getStatusCode().value()).isEqualTo(304);
+        assertThat(resposta.getHeaders().getCacheControl()).isEqualTo("no-cache, private");
+    }
+
+    @Test
+    public void demaisRotasNaoFicamNoCache() {
+        ResponseEntity<String> resposta = rest.getForEntity("/api/v1/usuario/listar/fluxo", String.class);
+        assertThat(resposta.getHeaders().getCacheControl()).contains("no-store");
+    }
+
+}
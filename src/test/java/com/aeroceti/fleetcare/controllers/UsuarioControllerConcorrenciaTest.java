@@ -0,0 +1,207 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.aeroceti.fleetcare.services.PainelIndicadores;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Teste de carga concorrente do UsuarioController: cadastros e atualizacoes
+ * disparados em paralelo por HTTP, sem respostas 5xx e com os totais do banco
+ * e do painel de indicadores coerentes com as respostas recebidas.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"local", "teste"})
+public class UsuarioControllerConcorrenciaTest {
+
+    private static final int THREADS = 16;
+    private static final int CADASTROS = 120;
+    private static final int DUPLICADOS = 16;
+    private static final int ATUALIZADOS = 30;
+    private static final int ATUALIZACOES = 4;
+
+    @Autowired
+    private TestRestTemplate rest;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PainelIndicadores painelIndicadores;
+
+    private ExecutorService executor;
+    // prefixo unico por execucao: o banco em memoria e compartilhado pelos testes
+    private String prefixo;
+
+    @BeforeEach
+    public void preparar() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        prefixo = "carga" + Long.toString(System.nanoTime(), 36);
+    }
+
+    @AfterEach
+    public void finalizar() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void cadastrosParalelos() throws Exception {
+        long ativosAntes = painelIndicadores.indicadores().usuariosAtivos();
+        List<Callable<ResponseEntity<Map<String, Object>>>> tarefas = new ArrayList<>();
+        for (int i = 0; i < CADASTROS; i++) {
+            String email = prefixo + "." + i + "@fleetcare.com.br";
+            int numero = i;
+            tarefas.add(() -> cadastrar(email, numero));
+        }
+        // o mesmo email em varios cadastros simultaneos: so um pode gravar
+        String duplicado = prefixo + ".duplicado@fleetcare.com.br";
+        for (int i = 0; i < DUPLICADOS; i++) {
+            int numero = CADASTROS + i;
+            tarefas.add(() -> cadastrar(duplicado, numero));
+        }
+
+        List<ResponseEntity<Map<String, Object>>> respostas = executar(tarefas);
+
+        assertThat(respostas).allSatisfy(resposta -> assertThat(resposta.getStatusCode().is5xxServerError())
+                .as("status %s: %s", resposta.getStatusCode(), resposta.getBody()).isFalse());
+        long criados = respostas.stream().filter(resposta -> resposta.getStatusCode().value() == 201).count();
+        assertThat(criados).isEqualTo(CADASTROS + 1);
+        assertThat(contarUsuarios()).isEqualTo(CADASTROS + 1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Usuario WHERE email = ?", Long.class, duplicado))
+                .isEqualTo(1);
+        assertThat(painelIndicadores.indicadores().usuariosAtivos() - ativosAntes).isEqualTo(CADASTROS + 1);
+    }
+
+    @Test
+    public void atualizacoesParalelas() throws Exception {
+        List<UUID> usuarios = new ArrayList<>();
+        for (int i = 0; i < ATUALIZADOS; i++) {
+            ResponseEntity<Map<String, Object>> resposta = cadastrar(prefixo + "." + i + "@fleetcare.com.br", i);
+            assertThat(resposta.getStatusCode().value()).isEqualTo(201);
+            usuarios.add(UUID.fromString((String) resposta.getBody().get("usuarioID")));
+        }
+
+        // para cada usuario: atualizacoes sem e com If-Match (versao inicial) ao mesmo tempo
+        List<Callable<ResponseEntity<Map<String, Object>>>> tarefas = new ArrayList<>();
+        List<UUID> alvos = new ArrayList<>();
+        for (int i = 0; i < ATUALIZADOS; i++) {
+            UUID usuarioID = usuarios.get(i);
+            String email = prefixo + "." + i + "@fleetcare.com.br";
+            String cpf = cpf(i);
+            for (int j = 0; j < ATUALIZACOES; j++) {
+                String nome = "Carga " + i + " livre " + j;
+                tarefas.add(() -> atualizar(usuarioID, nome, email, cpf, null));
+                alvos.add(usuarioID);
+                String nomeCondicional = "Carga " + i + " condicional " + j;
+                tarefas.add(() -> atualizar(usuarioID, nomeCondicional, email, cpf, "\"0\""));
+                alvos.add(usuarioID);
+            }
+        }
+
+        List<ResponseEntity<Map<String, Object>>> respostas = executar(tarefas);
+
+        Map<UUID, Integer> gravadas = new HashMap<>();
+        Map<UUID, Integer> condicionais = new HashMap<>();
+        for (int i = 0; i < respostas.size(); i++) {
+            ResponseEntity<Map<String, Object>> resposta = respostas.get(i);
+            assertThat(resposta.getStatusCode().is5xxServerError())
+                    .as("status %s: %s", resposta.getStatusCode(), resposta.getBody()).isFalse();
+            if (resposta.getStatusCode().is2xxSuccessful()) {
+                gravadas.merge(alvos.get(i), 1, Integer::sum);
+                if (i % 2 == 1) {
+                    condicionais.merge(alvos.get(i), 1, Integer::sum);
+                }
+            }
+        }
+        for (UUID usuarioID : usuarios) {
+            // cada atualizacao aceita incrementa a versao uma vez; a versao "0" so pode ser aceita uma vez
+            Long versao = jdbcTemplate.queryForObject("SELECT versao FROM Usuario WHERE usuarioID = ?", Long.class,
+                    usuarioID);
+            assertThat(versao).isEqualTo(gravadas.getOrDefault(usuarioID, 0).longValue());
+            assertThat(condicionais.getOrDefault(usuarioID, 0)).isLessThanOrEqualTo(1);
+        }
+        assertThat(gravadas.values().stream().mapToInt(Integer::intValue).sum()).isPositive();
+        assertThat(contarUsuarios()).isEqualTo(ATUALIZADOS);
+    }
+
+    private List<ResponseEntity<Map<String, Object>>> executar(
+            List<Callable<ResponseEntity<Map<String, Object>>>> tarefas) throws Exception {
+        List<ResponseEntity<Map<String, Object>>> respostas = new ArrayList<>(tarefas.size());
+        for (Future<ResponseEntity<Map<String, Object>>> futuro : executor.invokeAll(tarefas, 2, TimeUnit.MINUTES)) {
+            respostas.add(futuro.get());
+        }
+        return respostas;
+    }
+
+    private ResponseEntity<Map<String, Object>> cadastrar(String email, int numero) {
+        Map<String, Object> usuario = new HashMap<>();
+        usuario.put("nome", "Carga " + numero);
+        usuario.put("email", email);
+        usuario.put("cpf", cpf(numero));
+        usuario.put("password", "senha-" + numero);
+        return enviar("/api/v1/usuario/cadastrar", usuario, null);
+    }
+
+    private ResponseEntity<Map<String, Object>> atualizar(UUID usuarioID, String nome, String email, String cpf,
+            String seCoincidir) {
+        Map<String, Object> usuario = new HashMap<>();
+        usuario.put("usuarioID", usuarioID.toString());
+        usuario.put("nome", nome);
+        usuario.put("email", email);
+        usuario.put("cpf", cpf);
+        usuario.put("password", "");
+        return enviar("/api/v1/usuario/atualizar", usuario, seCoincidir);
+    }
+
+    private ResponseEntity<Map<String, Object>> enviar(String rota, Map<String, Object> usuario, String seCoincidir) {
+        HttpHeaders cabecalhos = new HttpHeaders();
+        if (seCoincidir != null) {
+            cabecalhos.setIfMatch(seCoincidir);
+        }
+        return rest.exchange(rota, HttpMethod.PUT, new HttpEntity<>(usuario, cabecalhos),
+                new ParameterizedTypeReference<Map<String, Object>>() {
+                });
+    }
+
+    // CPF (11 digitos) unico por execucao e por cadastro
+    private String cpf(int numero) {
+        long base = Math.floorMod(prefixo.hashCode(), 100_000L) * 1_000_000L;
+        return String.format("%011d", base + numero);
+    }
+
+    private long contarUsuarios() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM Usuario WHERE email LIKE ?", Long.class,
+                prefixo + ".%");
+    }
+
+}
@@ -0,0 +1,177 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Quantidade de comandos SQL de cada rota do UsuarioController, contada pelas
+ * estatisticas do Hibernate (hibernate.generate_statistics no perfil teste).
+ * Um comando a mais numa rota (N+1, consulta repetida, cache ignorado) falha
+ * o teste.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"local", "teste"})
+public class UsuarioControllerConsultasTest {
+
+    private static final String ROTA = "/api/v1/usuario";
+
+    @Autowired
+    private TestRestTemplate rest;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics estatisticas;
+    private String email;
+    private String cpf;
+    private UUID usuarioID;
+
+    @BeforeEach
+    public void preparar() {
+        estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long numero = System.nanoTime();
+        email = "consulta" + Long.toString(numero, 36) + "@fleetcare.com.br";
+        cpf = String.format("%011d", Math.floorMod(numero, 100_000_000_000L));
+        ResponseEntity<Map<String, Object>> resposta = enviar(HttpMethod.PUT, ROTA + "/cadastrar", usuario(null), null);
+        assertThat(resposta.getStatusCode().value()).isEqualTo(201);
+        usuarioID = UUID.fromString((String) resposta.getBody().get("usuarioID"));
+    }
+
+    @Test
+    public void listagem() {
+        // ETag da colecao (agregacao) + listagem ordenada
+        ResponseEntity<String> resposta = contar(2, () -> rest.getForEntity(ROTA + "/listar/true", String.class));
+        // revalidacao: somente a agregacao
+        contar(1, () -> rest.exchange(ROTA + "/listar/true", HttpMethod.GET,
+                new HttpEntity<>(seNenhum(resposta.getHeaders().getETag())), String.class));
+    }
+
+    @Test
+    public void listagemPaginada() {
+        ResponseEntity<Map<String, Object>> primeira = contar(2, () -> obter(ROTA + "/listar/pagina?tamanho=1"));
+        String cursor = (String) primeira.getBody().get("proximoCursor");
+        assertThat(cursor).isNotNull();
+        contar(2, () -> obter(ROTA + "/listar/pagina?tamanho=1&cursor=" + cursor));
+    }
+
+    @Test
+    public void buscaPeloID() {
+        contar(1, () -> obter(ROTA + "/buscarID/" + usuarioID));
+        // segunda busca: cache
+        contar(0, () -> obter(ROTA + "/buscarID/" + usuarioID));
+    }
+
+    @Test
+    public void buscaPeloEmail() {
+        // ID pelo email + registro pelo ID
+        contar(2, () -> obter(ROTA + "/buscar/" + email));
+        contar(0, () -> obter(ROTA + "/buscar/" + email));
+    }
+
+    @Test
+    public void cadastro() {
+        email = "cadastro." + email;
+        cpf = String.format("%011d", Math.floorMod(Long.parseLong(cpf) + 1, 100_000_000_000L));
+        ResponseEntity<Map<String, Object>> resposta = contar(1,
+                () -> enviar(HttpMethod.PUT, ROTA + "/cadastrar", usuario(null), null));
+        assertThat(resposta.getStatusCode().value()).isEqualTo(201);
+    }
+
+    @Test
+    public void atualizacao() {
+        // sem If-Match: leitura do registro + UPDATE
+        Map<String, Object> alterado = usuario(usuarioID);
+        alterado.put("nome", "Alterado " + cpf);
+        ResponseEntity<Map<String, Object>> resposta = contar(2,
+                () -> enviar(HttpMethod.PUT, ROTA + "/atualizar", alterado, null));
+        assertThat(resposta.getStatusCode().value()).isEqualTo(200);
+        // com If-Match: um unico UPDATE condicionado a versao
+        String versao = resposta.getHeaders().getETag();
+        resposta = contar(1, () -> enviar(HttpMethod.PUT, ROTA + "/atualizar", usuario(usuarioID), versao));
+        assertThat(resposta.getStatusCode().value()).isEqualTo(204);
+    }
+
+    @Test
+    public void arquivamento() {
+        ResponseEntity<Map<String, Object>> resposta = contar(2,
+                () -> enviar(HttpMethod.DELETE, ROTA + "/arquivar/" + usuarioID, null, null));
+        assertThat(resposta.getStatusCode().is2xxSuccessful()).isTrue();
+    }
+
+    @Test
+    public void login() {
+        Map<String, Object> login = Map.of("email", email, "password", "senha-consulta");
+        ResponseEntity<Map<String, Object>> resposta = contar(2,
+                () -> enviar(HttpMethod.POST, ROTA + "/senha", login, null));
+        assertThat(resposta.getStatusCode().value()).isEqualTo(200);
+        contar(0, () -> enviar(HttpMethod.POST, ROTA + "/senha", login, null));
+    }
+
+    // executa a requisicao e confere os comandos SQL preparados pelo Hibernate
+    private <T> T contar(long esperados, Supplier<T> requisicao) {
+        estatisticas.clear();
+        T resposta = requisicao.get();
+        assertThat(estatisticas.getPrepareStatementCount()).as("comandos SQL").isEqualTo(esperados);
+        return resposta;
+    }
+
+    private Map<String, Object> usuario(UUID id) {
+        Map<String, Object> usuario = new HashMap<>();
+        if (id != null) {
+            usuario.put("usuarioID", id.toString());
+        }
+        usuario.put("nome", "Consulta " + cpf);
+        usuario.put("email", email);
+        usuario.put("cpf", cpf);
+        usuario.put("password", id == null ? "senha-consulta" : "");
+        return usuario;
+    }
+
+    private HttpHeaders seNenhum(String etag) {
+        HttpHeaders cabecalhos = new HttpHeaders();
+        cabecalhos.setIfNoneMatch(etag);
+        return cabecalhos;
+    }
+
+    private ResponseEntity<Map<String, Object>> obter(String rota) {
+        return enviar(HttpMethod.GET, rota, null, null);
+    }
+
+    private ResponseEntity<Map<String, Object>> enviar(HttpMethod metodo, String rota, Map<String, Object> corpo,
+            String seCoincidir) {
+        HttpHeaders cabecalhos = new HttpHeaders();
+        if (seCoincidir != null) {
+            cabecalhos.setIfMatch(seCoincidir);
+        }
+        return rest.exchange(rota, metodo, new HttpEntity<>(corpo, cabecalhos),
+                new ParameterizedTypeReference<Map<String, Object>>() {
+                });
+    }
+
+}
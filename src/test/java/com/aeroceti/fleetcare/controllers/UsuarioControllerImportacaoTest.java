@@ -0,0 +1,137 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Importacao (CSV e NDJSON) e exportacao de usuarios pela API: linhas sem
+ * senha sao recusadas, um email repetido derruba o lote e as demais linhas
+ * sao gravadas uma a uma, e a exportacao traz os importados sem a senha.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"local", "teste"})
+public class UsuarioControllerImportacaoTest {
+
+    private static final String ROTA = "/api/v1/usuario";
+
+    @Autowired
+    private TestRestTemplate rest;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // prefixo unico por execucao: o banco em memoria e compartilhado pelos testes
+    private String prefixo;
+    private long cpfBase;
+
+    @BeforeEach
+    public void preparar() {
+        long numero = System.nanoTime();
+        prefixo = "importa" + Long.toString(numero, 36);
+        cpfBase = Math.floorMod(numero, 100_000L) * 1_000_000L;
+    }
+
+    @Test
+    public void importaCsvEExportaSemASenha() {
+        String csv = "nome;email;cpf;password\n"
+                + "Ana Importada;" + email(1) + ";" + cpf(1) + ";senha-1\n"
+                + "Bruno Importado;" + email(2) + ";" + cpf(2) + ";senha-2\n"
+                // mesmo email da linha 2: o lote e recusado e regravado linha a linha
+                + "Carla Repetida;" + email(1) + ";" + cpf(3) + ";senha-3\n"
+                + "Daniel Importado;" + email(4) + ";" + cpf(4) + ";senha-4\n";
+
+        Map<String, Object> relatorio = importar(csv, new MediaType("text", "csv"));
+
+        assertThat(relatorio).containsEntry("processadas", 4).containsEntry("importadas", 3)
+                .containsEntry("rejeitadas", 1);
+        assertThat(erros(relatorio)).singleElement().satisfies(erro -> assertThat(erro)
+                .containsEntry("linha", 4).containsEntry("codigo", "BD-003"));
+        assertThat(jdbcTemplate.queryForList("SELECT nome FROM Usuario WHERE email LIKE ? ORDER BY nome",
+                String.class, prefixo + ".%")).containsExactly("Ana Importada", "Bruno Importado", "Daniel Importado");
+        assertThat(jdbcTemplate.queryForObject("SELECT password FROM Usuario WHERE email = ?", String.class, email(1)))
+                .startsWith("{bcrypt}");
+
+        ResponseEntity<String> exportacao = rest.getForEntity(ROTA + "/exportar/csv", String.class);
+        assertThat(exportacao.getStatusCode().value()).isEqualTo(200);
+        List<String> linhas = exportacao.getBody().lines().toList();
+        assertThat(linhas.get(0)).isEqualTo("usuarioID,nome,email,cpf,whatsapp,dataNascimento,sexo,ativo,versao");
+        assertThat(linhas).filteredOn(linha -> linha.contains(prefixo)).hasSize(3)
+                .anySatisfy(linha -> assertThat(linha).contains(",Ana Importada," + email(1) + ","));
+        assertThat(exportacao.getBody()).doesNotContain("{bcrypt}").doesNotContain("senha-1");
+    }
+
+    @Test
+    public void linhasSemSenhaSaoRecusadas() {
+        String csv = "nome,email,cpf,password\n"
+                + "Sem Senha," + email(1) + "," + cpf(1) + ",\n"
+                + "Senha Em Branco," + email(2) + "," + cpf(2) + ",   \n"
+                + "Com Senha," + email(3) + "," + cpf(3) + ",senha-3\n";
+        Map<String, Object> relatorio = importar(csv, new MediaType("text", "csv"));
+        assertThat(relatorio).containsEntry("importadas", 1).containsEntry("rejeitadas", 2);
+        assertThat(erros(relatorio)).extracting(erro -> erro.get("linha"), erro -> erro.get("codigo"))
+                .containsExactly(tuple(2, "USR-004"), tuple(3, "USR-004"));
+
+        // arquivo sem a coluna password
+        Map<String, Object> semColuna = importar("nome,email,cpf\nSem Coluna," + email(4) + "," + cpf(4) + "\n",
+                new MediaType("text", "csv"));
+        assertThat(semColuna).containsEntry("importadas", 0);
+        assertThat(erros(semColuna)).singleElement().satisfies(erro -> assertThat(erro).containsEntry("codigo", "USR-004"));
+
+        // NDJSON sem o campo password
+        Map<String, Object> ndjson = importar("{\"nome\":\"Sem Campo\",\"email\":\"" + email(5) + "\",\"cpf\":\""
+                + cpf(5) + "\"}\n", MediaType.APPLICATION_NDJSON);
+        assertThat(ndjson).containsEntry("importadas", 0);
+        assertThat(erros(ndjson)).singleElement().satisfies(erro -> assertThat(erro).containsEntry("codigo", "USR-004"));
+
+        assertThat(jdbcTemplate.queryForList("SELECT nome FROM Usuario WHERE email LIKE ?", String.class,
+                prefixo + ".%")).containsExactly("Com Senha");
+    }
+
+    private Map<String, Object> importar(String conteudo, MediaType tipo) {
+        HttpHeaders cabecalhos = new HttpHeaders();
+        cabecalhos.setContentType(tipo);
+        ResponseEntity<Map<String, Object>> resposta = rest.exchange(ROTA + "/importar", HttpMethod.POST,
+                new HttpEntity<>(conteudo, cabecalhos), new ParameterizedTypeReference<Map<String, Object>>() {
+                });
+        assertThat(resposta.getStatusCode().value()).isEqualTo(200);
+        return resposta.getBody();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> erros(Map<String, Object> relatorio) {
+        return (List<Map<String, Object>>) relatorio.get("erros");
+    }
+
+    private String email(int numero) {
+        return prefixo + "." + numero + "@fleetcare.com.br";
+    }
+
+    private String cpf(int numero) {
+        return String.format("%011d", cpfBase + numero);
+    }
+
+}
@@ -0,0 +1,44 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Serializacao do Usuario: a senha e lida nas requisicoes, mas o hash nunca
+ * sai nas respostas (nem muda o corpo quando e recodificado no login).
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public class UsuarioTest {
+
+    private final ObjectMapper jsonMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    public void hashDaSenhaNaoESerializado() throws Exception {
+        Usuario user = new Usuario(UUID.randomUUID());
+        user.setNome("Maria Souza");
+        user.setPassword("{bcrypt}$2a$10$hashAnterior");
+        String anterior = jsonMapper.writeValueAsString(user);
+        user.setPassword("{bcrypt}$2a$12$hashRecodificado");
+
+        assertThat(anterior).doesNotContain("password").doesNotContain("hashAnterior");
+        assertThat(jsonMapper.writeValueAsString(user)).isEqualTo(anterior);
+    }
+
+    @Test
+    public void senhaELidaDaRequisicao() throws Exception {
+        Usuario user = jsonMapper.readValue("{\"nome\":\"Maria Souza\",\"password\":\"segredo\"}", Usuario.class);
+        assertThat(user.getPassword()).isEqualTo("segredo");
+    }
+
+}
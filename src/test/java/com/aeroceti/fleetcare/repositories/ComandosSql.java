@@ -0,0 +1,53 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * StatementInspector do perfil teste: guarda os comandos SQL preparados pelo
+ * Hibernate na thread do teste, para que os planos de execucao sejam obtidos
+ * do SQL realmente gerado pelos metodos do repositorio.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public class ComandosSql implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<List<String>> COMANDOS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        COMANDOS.get().add(sql);
+        return sql;
+    }
+
+    /**
+     * Executa a chamada ao repositorio e devolve o UNICO comando SQL gerado.
+     *
+     * @param chamada - Chamada ao repositorio
+     * @return Comando SQL gerado pelo Hibernate (com os parametros "?")
+     */
+    public static String capturar(Runnable chamada) {
+        List<String> comandos = COMANDOS.get();
+        comandos.clear();
+        try {
+            chamada.run();
+            if (comandos.size() != 1) {
+                throw new AssertionError("Esperado um comando SQL, gerados: " + comandos);
+            }
+            return comandos.get(0);
+        } finally {
+            comandos.clear();
+        }
+    }
+
+}
@@ -0,0 +1,104 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.repositories;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Planos de execucao (EXPLAIN) das consultas mais frequentes do
+ * UsuarioRepository, no banco H2 criado pelo Flyway (db/migration/h2): cada
+ * consulta deve usar o indice criado para ela, e nao percorrer a tabela.
+ *
+ * Os comandos sao capturados (ComandosSql) ao chamar os metodos do repositorio:
+ * uma coluna renomeada ou uma consulta derivada alterada muda o plano testado.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"local", "teste"})
+public class UsuarioRepositoryIndicesTest {
+
+    private static final String EMAIL = "maria@fleetcare.com.br";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UsuarioRepository userRepository;
+
+    @Test
+    public void migracoesCriamOsIndices() {
+        assertThat(jdbcTemplate.queryForList("SELECT INDEX_NAME FROM INFORMATION_SCHEMA.INDEXES "
+                + "WHERE TABLE_NAME = 'USUARIO'", String.class))
+                .contains("UK_USUARIO_EMAIL", "IDX_USUARIO_ATIVO_NOME", "IDX_USUARIO_NOME_ID");
+    }
+
+    @Test
+    public void findByEmailUsaOIndiceDoEmail() {
+        String plano = explicar(ComandosSql.capturar(() -> userRepository.findByEmail(EMAIL)), EMAIL);
+        assertThat(plano).contains("UK_USUARIO_EMAIL").doesNotContain("tableScan");
+    }
+
+    @Test
+    public void findUsuarioIDByEmailUsaOIndiceDoEmail() {
+        String plano = explicar(ComandosSql.capturar(() -> userRepository.findUsuarioIDByEmail(EMAIL)), EMAIL);
+        assertThat(plano).contains("UK_USUARIO_EMAIL").doesNotContain("tableScan");
+    }
+
+    @Test
+    public void countByEmailUsaOIndiceDoEmail() {
+        String plano = explicar(ComandosSql.capturar(() -> userRepository.countByEmail(EMAIL)), EMAIL);
+        assertThat(plano).contains("UK_USUARIO_EMAIL").doesNotContain("tableScan");
+    }
+
+    @Test
+    public void findByOrderByEmailAscLeOIndiceOrdenado() {
+        String plano = explicar(ComandosSql.capturar(() -> userRepository.findByOrderByEmailAsc()));
+        assertThat(plano).contains("UK_USUARIO_EMAIL").contains("index sorted");
+    }
+
+    @Test
+    public void findByOrderByNomeAscLeOIndiceOrdenado() {
+        String plano = explicar(ComandosSql.capturar(() -> userRepository.findByOrderByNomeAsc()));
+        assertThat(plano).contains("IDX_USUARIO_NOME_ID").contains("index sorted");
+    }
+
+    @Test
+    public void primeiraPaginaLeOIndiceOrdenado() {
+        String plano = explicar(ComandosSql.capturar(
+                () -> userRepository.findByOrderByNomeAscUsuarioIDAsc(PageRequest.ofSize(50))), 50);
+        assertThat(plano).contains("IDX_USUARIO_NOME_ID").contains("index sorted");
+    }
+
+    @Test
+    public void paginaPorCursorLeOIndiceOrdenado() {
+        UUID usuarioID = new UUID(0, 0);
+        String plano = explicar(ComandosSql.capturar(
+                () -> userRepository.findPaginaApos("Maria", usuarioID, PageRequest.ofSize(50))),
+                "Maria", "Maria", usuarioID, 50);
+        assertThat(plano).contains("IDX_USUARIO_NOME_ID").contains("index sorted");
+    }
+
+    @Test
+    public void contagemPorSituacaoUsaOIndiceDaSituacao() {
+        String plano = explicar(ComandosSql.capturar(() -> userRepository.contarPorSituacao()));
+        assertThat(plano).contains("IDX_USUARIO_ATIVO_NOME");
+    }
+
+    private String explicar(String consulta, Object... parametros) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + consulta, String.class, parametros);
+    }
+
+}
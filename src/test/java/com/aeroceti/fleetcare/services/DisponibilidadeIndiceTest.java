@@ -0,0 +1,172 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.aeroceti.fleetcare.dataTransfers.PeriodoLocacaoDTO;
+import com.aeroceti.fleetcare.dataTransfers.VeiculoDisponivelDTO;
+import com.aeroceti.fleetcare.model.Veiculo;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Indice de disponibilidade: as respostas conferem com a lista de locacoes
+ * (sem sobreposicao por veiculo), as locacoes encerradas saem na virada do
+ * dia ou quando a agenda e alterada, e os cancelamentos feitos durante a
+ * montagem nao voltam pela leitura do banco.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public class DisponibilidadeIndiceTest {
+
+    private final LocalDate hoje = LocalDate.now();
+    private DisponibilidadeIndice indice;
+
+    @BeforeEach
+    public void preparar() {
+        indice = new DisponibilidadeIndice();
+        relogio(hoje);
+    }
+
+    @Test
+    public void respostasConferemComAsLocacoesDeCadaVeiculo() {
+        Random sorteio = new Random(42);
+        List<Veiculo> frota = List.of(veiculo("QZB3C21", true), veiculo("ABC1D23", true), veiculo("MNO5E67", false));
+        List<Locacao> locacoes = new ArrayList<>();
+        for (Veiculo veiculo : frota) {
+            indice.atualizar(veiculo);
+            // periodos seguidos e sem sobreposicao, com intervalos livres de 0 a 3 dias
+            LocalDate retirada = hoje.plusDays(sorteio.nextInt(3));
+            for (int i = 0; i < 40; i++) {
+                LocalDate devolucao = retirada.plusDays(1 + sorteio.nextInt(5));
+                indice.reservar(veiculo.getVeiculoID(), retirada, devolucao);
+                locacoes.add(new Locacao(veiculo.getVeiculoID(), retirada, devolucao));
+                retirada = devolucao.plusDays(sorteio.nextInt(4));
+            }
+        }
+        // um terco das locacoes e cancelado
+        for (Locacao locacao : new ArrayList<>(locacoes)) {
+            if (sorteio.nextInt(3) == 0) {
+                indice.liberar(locacao.veiculoID(), locacao.retirada(), locacao.devolucao());
+                locacoes.remove(locacao);
+            }
+        }
+        assertThat(indice.totalLocacoes()).isEqualTo(locacoes.size());
+
+        for (int i = 0; i < 500; i++) {
+            LocalDate inicio = hoje.plusDays(sorteio.nextInt(200));
+            LocalDate fim = inicio.plusDays(1 + sorteio.nextInt(10));
+            List<String> esperados = new ArrayList<>();
+            for (Veiculo veiculo : frota) {
+                boolean livre = locacoes.stream().noneMatch(locacao -> locacao.veiculoID().equals(veiculo.getVeiculoID())
+                        && locacao.retirada().isBefore(fim) && inicio.isBefore(locacao.devolucao()));
+                assertThat(indice.livre(veiculo.getVeiculoID(), inicio, fim))
+                        .as("%s de %s a %s", veiculo.getPlaca(), inicio, fim).isEqualTo(livre);
+                if (livre && veiculo.isAtivo()) {
+                    esperados.add(veiculo.getPlaca());
+                }
+            }
+            esperados.sort(null);
+            assertThat(indice.disponiveis(inicio, fim, 10)).extracting(VeiculoDisponivelDTO::placa)
+                    .containsExactlyElementsOf(esperados);
+        }
+    }
+
+    @Test
+    public void locacoesEncerradasSaemNaViradaDoDiaENaAlteracaoDaAgenda() {
+        Veiculo veiculo = veiculo("JKL7F89", true);
+        UUID veiculoID = veiculo.getVeiculoID();
+        indice.atualizar(veiculo);
+        indice.reservar(veiculoID, hoje, hoje.plusDays(2));
+        indice.reservar(veiculoID, hoje.plusDays(2), hoje.plusDays(5));
+        indice.reservar(veiculoID, hoje.plusDays(6), hoje.plusDays(8));
+        indice.virarDia();
+        assertThat(indice.totalLocacoes()).isEqualTo(3);
+
+        // a devolucao do dia libera o veiculo: a locacao sai do indice
+        relogio(hoje.plusDays(2));
+        indice.virarDia();
+        assertThat(indice.totalLocacoes()).isEqualTo(2);
+        assertThat(indice.livre(veiculoID, hoje.plusDays(4), hoje.plusDays(5))).isFalse();
+        assertThat(indice.livre(veiculoID, hoje.plusDays(5), hoje.plusDays(6))).isTrue();
+
+        relogio(hoje.plusDays(5));
+        indice.virarDia();
+        assertThat(indice.totalLocacoes()).isEqualTo(1);
+
+        // sem a virada agendada: a proxima alteracao da agenda retira as encerradas
+        relogio(hoje.plusDays(8));
+        indice.reservar(veiculoID, hoje.plusDays(9), hoje.plusDays(10));
+        assertThat(indice.totalLocacoes()).isEqualTo(1);
+        assertThat(indice.livre(veiculoID, hoje.plusDays(8), hoje.plusDays(9))).isTrue();
+        assertThat(indice.livre(veiculoID, hoje.plusDays(8), hoje.plusDays(10))).isFalse();
+
+        // cancelar uma locacao ja encerrada nao altera a contagem
+        indice.liberar(veiculoID, hoje, hoje.plusDays(2));
+        assertThat(indice.totalLocacoes()).isEqualTo(1);
+        indice.liberar(veiculoID, hoje.plusDays(9), hoje.plusDays(10));
+        assertThat(indice.totalLocacoes()).isZero();
+    }
+
+    @Test
+    public void cancelamentosDuranteAMontagemNaoVoltamPelaLeituraDoBanco() {
+        Veiculo veiculo = veiculo("DEF2G34", true);
+        UUID veiculoID = veiculo.getVeiculoID();
+        PeriodoLocacaoDTO mantida = new PeriodoLocacaoDTO(veiculoID, hoje.plusDays(1), hoje.plusDays(3));
+        PeriodoLocacaoDTO cancelada = new PeriodoLocacaoDTO(veiculoID, hoje.plusDays(3), hoje.plusDays(6));
+        PeriodoLocacaoDTO posterior = new PeriodoLocacaoDTO(veiculoID, hoje.plusDays(10), hoje.plusDays(12));
+
+        indice.montar(consumidor -> consumidor.accept(veiculo), consumidor -> {
+            consumidor.accept(mantida);
+            // cancelada (apos o COMMIT) antes de a leitura do banco chegar nela
+            indice.liberar(veiculoID, cancelada.retirada(), cancelada.devolucao());
+            consumidor.accept(cancelada);
+            consumidor.accept(posterior);
+        });
+
+        assertThat(indice.pronto()).isTrue();
+        assertThat(indice.totalLocacoes()).isEqualTo(2);
+        assertThat(indice.livre(veiculoID, hoje.plusDays(3), hoje.plusDays(6))).isTrue();
+        assertThat(indice.livre(veiculoID, hoje.plusDays(2), hoje.plusDays(4))).isFalse();
+        assertThat(indice.disponiveis(hoje.plusDays(4), hoje.plusDays(10), 10)).extracting(VeiculoDisponivelDTO::placa)
+                .containsExactly("DEF2G34");
+
+        // depois da montagem o mesmo periodo pode ser locado de novo
+        indice.reservar(veiculoID, cancelada.retirada(), cancelada.devolucao());
+        assertThat(indice.totalLocacoes()).isEqualTo(3);
+        assertThat(indice.livre(veiculoID, hoje.plusDays(3), hoje.plusDays(6))).isFalse();
+    }
+
+    private void relogio(LocalDate dia) {
+        ReflectionTestUtils.setField(indice, "relogio",
+                Clock.fixed(dia.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+    }
+
+    private static Veiculo veiculo(String placa, boolean ativo) {
+        Veiculo veiculo = new Veiculo(UUID.randomUUID());
+        veiculo.setPlaca(placa);
+        veiculo.setMarca("Fiat");
+        veiculo.setModelo("Argo");
+        veiculo.setAtivo(ativo);
+        veiculo.setVersao(0L);
+        return veiculo;
+    }
+
+    private record Locacao(UUID veiculoID, LocalDate retirada, LocalDate devolucao) {
+    }
+
+}
@@ -0,0 +1,210 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.aeroceti.fleetcare.dataTransfers.ProblemaDTO;
+import com.aeroceti.fleetcare.model.Usuario;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Limite de tentativas de login com um relogio controlado pelo teste: rajada
+ * e reposicao das fichas, bloqueio crescente pelas falhas, sucesso que zera as
+ * falhas, ordem das verificacoes (IP antes da conta) e a resposta 429 do
+ * login, sem consulta ao banco nem BCrypt.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public class LimiteLoginTest {
+
+    private static final String EMAIL = "limite@fleetcare.com.br";
+    private static final String IP = "10.0.0.1";
+
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+    // instante atual (nanos), avancado pelo teste
+    private final AtomicLong agora = new AtomicLong(TimeUnit.DAYS.toNanos(1));
+    private LimiteLogin limiteLogin;
+
+    @BeforeEach
+    public void preparar() {
+        limiteLogin = new LimiteLogin();
+        ReflectionTestUtils.setField(limiteLogin, "registro", registro);
+        ReflectionTestUtils.setField(limiteLogin, "relogio", (LongSupplier) agora::get);
+        // os valores padrao do application.properties
+        ReflectionTestUtils.setField(limiteLogin, "capacidadeEmail", 5);
+        ReflectionTestUtils.setField(limiteLogin, "porMinutoEmail", 5);
+        ReflectionTestUtils.setField(limiteLogin, "capacidadeIP", 20);
+        ReflectionTestUtils.setField(limiteLogin, "porMinutoIP", 60);
+        ReflectionTestUtils.setField(limiteLogin, "falhasLivresEmail", 3);
+        ReflectionTestUtils.setField(limiteLogin, "falhasLivresIP", 20);
+        ReflectionTestUtils.setField(limiteLogin, "penalidadeBase", 1L);
+        ReflectionTestUtils.setField(limiteLogin, "penalidadeFator", 2.0);
+        ReflectionTestUtils.setField(limiteLogin, "penalidadeMaxima", 300L);
+        ReflectionTestUtils.setField(limiteLogin, "chaves", 1000L);
+        ReflectionTestUtils.setField(limiteLogin, "inatividade", 900L);
+        limiteLogin.inicializar();
+    }
+
+    @Test
+    public void rajadaEDepoisUmaFichaACadaIntervalo() {
+        // 5 tentativas de uma vez; depois uma a cada 12 s (5 por minuto)
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiteLogin.verificar(EMAIL, IP)).isZero();
+        }
+        assertThat(limiteLogin.verificar(EMAIL, IP)).isEqualTo(12);
+        avancar(11);
+        assertThat(limiteLogin.verificar(EMAIL, IP)).isEqualTo(1);
+        avancar(1);
+        assertThat(limiteLogin.verificar(EMAIL, IP)).isZero();
+        assertThat(limiteLogin.verificar(EMAIL, IP)).isEqualTo(12);
+        // o email e o mesmo sem diferenciar maiusculas e espacos
+        assertThat(limiteLogin.verificar("  LIMITE@FleetCare.com.br ", IP)).isEqualTo(12);
+
+        // parado, o balde volta a encher ate a capacidade (e nao alem dela)
+        avancar(600);
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiteLogin.verificar(EMAIL, IP)).isZero();
+        }
+        assertThat(limiteLogin.verificar(EMAIL, IP)).isEqualTo(12);
+        assertThat(tentativas("limitada-email")).isEqualTo(5);
+    }
+
+    @Test
+    public void falhasAcimaDasLivresBloqueiamPorTempoCrescente() {
+        // fichas de sobra: so o bloqueio por falhas limita as tentativas
+        ReflectionTestUtils.setField(limiteLogin, "capacidadeEmail", 100);
+        ReflectionTestUtils.setField(limiteLogin, "penalidadeMaxima", 3L);
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiteLogin.verificar(EMAIL, IP)).isZero();
+            limiteLogin.registrar(EMAIL, IP, false);
+        }
+        assertThat(limiteLogin.verificar(EMAIL, IP)).isZero();
+
+        // base * fator^n: 1 s, 2 s e depois o maximo de 3 s
+        long[] bloqueios = {1, 2, 3, 3};
+        for (long bloqueio : bloqueios) {
+            limiteLogin.registrar(EMAIL, IP, false);
+            assertThat(limiteLogin.verificar(EMAIL, IP)).isEqualTo(bloqueio);
+            avancar(bloqueio - 1);
+            assertThat(limiteLogin.verificar(EMAIL, IP)).isEqualTo(1);
+            avancar(1);
+            assertThat(limiteLogin.verificar(EMAIL, IP)).isZero();
+        }
+        // o bloqueio e da conta: outro email no mesmo IP continua entrando
+        limiteLogin.registrar(EMAIL, IP, false);
+        assertThat(limiteLogin.verificar("outro@fleetcare.com.br", IP)).isZero();
+    }
+
+    @Test
+    public void loginCorretoZeraAsFalhasDaConta() {
+        ReflectionTestUtils.setField(limiteLogin, "capacidadeEmail", 100);
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiteLogin.verificar(EMAIL, IP)).isZero();
+            limiteLogin.registrar(EMAIL, IP, false);
+        }
+        assertThat(limiteLogin.verificar(EMAIL, IP)).isZero();
+        limiteLogin.registrar(EMAIL, IP, true);
+
+        // de novo 3 falhas livres antes do bloqueio
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiteLogin.verificar(EMAIL, IP)).isZero();
+            limiteLogin.registrar(EMAIL, IP, false);
+        }
+        assertThat(limiteLogin.verificar(EMAIL, IP)).isZero();
+        limiteLogin.registrar(EMAIL, IP, false);
+        assertThat(limiteLogin.verificar(EMAIL, IP)).isEqualTo(1);
+    }
+
+    @Test
+    public void ipLimitadoNaoConsomeAsFichasDaConta() {
+        ReflectionTestUtils.setField(limiteLogin, "capacidadeIP", 2);
+        ReflectionTestUtils.setField(limiteLogin, "porMinutoIP", 1);
+        assertThat(limiteLogin.verificar("primeiro@fleetcare.com.br", IP)).isZero();
+        assertThat(limiteLogin.verificar("segundo@fleetcare.com.br", IP)).isZero();
+        // o IP e conferido primeiro: a tentativa recusada nao chega ao balde do email
+        for (int i = 0; i < 3; i++) {
+            assertThat(limiteLogin.verificar(EMAIL, IP)).isEqualTo(60);
+        }
+        assertThat(tentativas("limitada-ip")).isEqualTo(3);
+
+        // as 5 fichas do email continuam disponiveis (de outros IPs)
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiteLogin.verificar(EMAIL, "10.0.1." + i)).isZero();
+        }
+        assertThat(limiteLogin.verificar(EMAIL, "10.0.1.9")).isEqualTo(12);
+        assertThat(tentativas("limitada-email")).isEqualTo(1);
+        assertThat(tentativas("permitida")).isEqualTo(7);
+    }
+
+    @Test
+    public void loginLimitadoRespondeComStatus429SemConsultarOBancoNemOBCrypt() {
+        Usuario user = new Usuario(UUID.randomUUID());
+        user.setEmail(EMAIL);
+        user.setPassword("{bcrypt}hash");
+        user.setAtivo(true);
+        UsuarioCache userCache = mock(UsuarioCache.class);
+        SenhaService senhaService = mock(SenhaService.class);
+        when(userCache.buscar(EMAIL)).thenReturn(user);
+        when(senhaService.conferir(anyString(), eq("{bcrypt}hash")))
+                .thenAnswer(chamada -> "correta".equals(chamada.getArgument(0)));
+        UsuarioService userService = new UsuarioService();
+        ReflectionTestUtils.setField(userService, "limiteLogin", limiteLogin);
+        ReflectionTestUtils.setField(userService, "userCache", userCache);
+        ReflectionTestUtils.setField(userService, "senhaService", senhaService);
+        ReflectionTestUtils.setField(userService, "tokenService", mock(TokenService.class));
+
+        // 3 falhas livres e a quarta bloqueia a conta por 1 s
+        for (int i = 0; i < 4; i++) {
+            ResponseEntity<?> resposta = userService.validarSenha("errada", EMAIL, null, IP);
+            assertThat(resposta.getStatusCode().value()).isEqualTo(400);
+            assertThat(((ProblemaDTO) resposta.getBody()).codigo()).isEqualTo("AUT-002");
+        }
+        ResponseEntity<?> limitada = userService.validarSenha("correta", EMAIL, null, IP);
+        assertThat(limitada.getStatusCode().value()).isEqualTo(429);
+        assertThat(limitada.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(((ProblemaDTO) limitada.getBody()).codigo()).isEqualTo("AUT-003");
+        verify(userCache, times(4)).buscar(EMAIL);
+        verify(senhaService, times(4)).conferir(anyString(), anyString());
+
+        // passado o bloqueio a senha correta entra e zera as falhas
+        avancar(1);
+        assertThat(userService.validarSenha("correta", EMAIL, null, IP).getStatusCode().value()).isEqualTo(200);
+        verify(senhaService).recodificarSeNecessario(eq("correta"), eq("{bcrypt}hash"), any());
+        avancar(60);
+        for (int i = 0; i < 3; i++) {
+            userService.validarSenha("errada", EMAIL, null, IP);
+        }
+        assertThat(userService.validarSenha("correta", EMAIL, null, IP).getStatusCode().value()).isEqualTo(200);
+    }
+
+    private void avancar(long segundos) {
+        agora.addAndGet(TimeUnit.SECONDS.toNanos(segundos));
+    }
+
+    private double tentativas(String resultado) {
+        return registro.get("fleetcare.login.tentativas").tag("resultado", resultado).counter().count();
+    }
+
+}
@@ -0,0 +1,205 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+
+import com.aeroceti.fleetcare.dataTransfers.PendenciaManutencaoDTO;
+import com.aeroceti.fleetcare.dataTransfers.ResumoManutencaoDTO;
+import com.aeroceti.fleetcare.dataTransfers.SituacaoManutencao;
+import com.aeroceti.fleetcare.model.PlanoManutencao;
+import com.aeroceti.fleetcare.model.Veiculo;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Agenda de manutencao com o relogio controlado pelo teste: passagem dos dias
+ * (inclusive saltando viradas), quilometragem recalculando so os planos do
+ * veiculo, entradas antigas da fila descartadas pela geracao e a compactacao
+ * da fila.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public class ManutencaoAgendaTest {
+
+    private final LocalDate hoje = LocalDate.now();
+    private ManutencaoAgenda agenda;
+
+    @BeforeEach
+    public void preparar() {
+        agenda = new ManutencaoAgenda();
+        ReflectionTestUtils.setField(agenda, "margemKm", 1000L);
+        ReflectionTestUtils.setField(agenda, "margemDias", 15);
+        relogio(hoje);
+    }
+
+    @Test
+    public void diasEQuilometragemMudamASituacaoDosPlanos() {
+        Veiculo carro = veiculo("CAR1A11", 9000);
+        Veiculo caminhao = veiculo("CAM2B22", 20000);
+        // troca de oleo a cada 10000 km (proxima aos 10000: ja dentro da margem de 1000 km)
+        PlanoManutencao oleo = plano(carro, "Troca de oleo", 10000, null, 0, hoje);
+        // revisao a cada 30 dias, feita ha 10 dias: vence em 20 dias, proxima em 5
+        PlanoManutencao revisao = plano(carro, "Revisao", null, 30, 0, hoje.minusDays(10));
+        // pneus a cada 5000 km, trocados aos 18000
+        PlanoManutencao pneus = plano(caminhao, "Pneus", 5000, null, 18000, hoje);
+        // freios a cada 60 dias, feitos hoje: proxima em 45 dias, vence em 60
+        PlanoManutencao freios = plano(caminhao, "Freios", null, 60, 0, hoje);
+        agenda.montar(consumidor -> List.of(carro, caminhao).forEach(consumidor),
+                consumidor -> List.of(oleo, revisao, pneus, freios).forEach(consumidor));
+
+        assertThat(agenda.resumo()).isEqualTo(new ResumoManutencaoDTO(3, 1, 0, hoje, true));
+
+        relogio(hoje.plusDays(4));
+        assertThat(agenda.resumo()).isEqualTo(new ResumoManutencaoDTO(3, 1, 0, hoje.plusDays(4), true));
+        relogio(hoje.plusDays(5));
+        assertThat(agenda.resumo()).isEqualTo(new ResumoManutencaoDTO(2, 2, 0, hoje.plusDays(5), true));
+        relogio(hoje.plusDays(20));
+        assertThat(agenda.resumo()).isEqualTo(new ResumoManutencaoDTO(2, 1, 1, hoje.plusDays(20), true));
+        assertThat(agenda.pendentes(null, 10)).extracting(PendenciaManutencaoDTO::descricao,
+                PendenciaManutencaoDTO::situacao, PendenciaManutencaoDTO::proximaData).containsExactly(
+                tuple("Revisao", SituacaoManutencao.VENCIDA, hoje.plusDays(20)),
+                tuple("Troca de oleo", SituacaoManutencao.PROXIMA, null));
+
+        // salto de varios dias (sem consultas): os freios passam direto de EM_DIA para VENCIDA
+        relogio(hoje.plusDays(61));
+        assertThat(agenda.resumo()).isEqualTo(new ResumoManutencaoDTO(1, 1, 2, hoje.plusDays(61), true));
+        assertThat(agenda.pendentes(SituacaoManutencao.VENCIDA, 10)).extracting(PendenciaManutencaoDTO::descricao)
+                .containsExactly("Revisao", "Freios");
+
+        // hodometro: somente os planos do veiculo sao recalculados
+        carro.setQuilometragem(10000);
+        carro.setVersao(1L);
+        agenda.atualizarVeiculo(carro);
+        assertThat(agenda.resumo()).isEqualTo(new ResumoManutencaoDTO(1, 0, 3, hoje.plusDays(61), true));
+        caminhao.setQuilometragem(22500);
+        caminhao.setVersao(1L);
+        agenda.atualizarVeiculo(caminhao);
+        assertThat(agenda.resumo()).isEqualTo(new ResumoManutencaoDTO(0, 1, 3, hoje.plusDays(61), true));
+        assertThat(agenda.situacaoDoVeiculo(caminhao.getVeiculoID())).extracting(PendenciaManutencaoDTO::descricao,
+                PendenciaManutencaoDTO::situacao, PendenciaManutencaoDTO::proximaQuilometragem).containsExactlyInAnyOrder(
+                tuple("Pneus", SituacaoManutencao.PROXIMA, 23000L),
+                tuple("Freios", SituacaoManutencao.VENCIDA, null));
+
+        // manutencao registrada: a revisao volta a EM_DIA e o plano arquivado sai da contagem
+        revisao.setUltimaData(hoje.plusDays(61));
+        revisao.setVersao(1L);
+        agenda.atualizarPlano(revisao);
+        freios.setAtivo(false);
+        freios.setVersao(1L);
+        agenda.atualizarPlano(freios);
+        assertThat(agenda.resumo()).isEqualTo(new ResumoManutencaoDTO(1, 1, 1, hoje.plusDays(61), true));
+        relogio(hoje.plusDays(200));
+        assertThat(agenda.resumo()).isEqualTo(new ResumoManutencaoDTO(0, 1, 2, hoje.plusDays(200), true));
+    }
+
+    @Test
+    public void entradasAntigasDaFilaSaoDescartadasPelaGeracao() {
+        Veiculo carro = veiculo("GER3C33", 0);
+        PlanoManutencao revisao = plano(carro, "Revisao", null, 30, 0, hoje);
+        agenda.montar(consumidor -> consumidor.accept(carro), consumidor -> consumidor.accept(revisao));
+
+        // antes da virada (dia 15), a revisao e feita de novo no dia 10: a nova virada e no dia 25
+        relogio(hoje.plusDays(10));
+        revisao.setUltimaData(hoje.plusDays(10));
+        revisao.setVersao(1L);
+        agenda.atualizarPlano(revisao);
+        assertThat(fila()).isEqualTo(2);
+
+        // a entrada do dia 15 ficou na fila, mas e de uma geracao anterior do plano
+        relogio(hoje.plusDays(16));
+        assertThat(agenda.resumo().emDia()).isEqualTo(1);
+        assertThat(fila()).isEqualTo(1);
+        relogio(hoje.plusDays(25));
+        assertThat(agenda.resumo().proximas()).isEqualTo(1);
+        relogio(hoje.plusDays(40));
+        assertThat(agenda.resumo().vencidas()).isEqualTo(1);
+        assertThat(fila()).isZero();
+
+        // arquivado: a entrada que restar na fila nao o traz de volta
+        Veiculo outro = veiculo("GER4D44", 0);
+        PlanoManutencao arquivado = plano(outro, "Alinhamento", null, 20, 0, hoje.plusDays(40));
+        agenda.atualizarVeiculo(outro);
+        agenda.atualizarPlano(arquivado);
+        arquivado.setAtivo(false);
+        arquivado.setVersao(1L);
+        agenda.atualizarPlano(arquivado);
+        relogio(hoje.plusDays(70));
+        assertThat(agenda.resumo()).isEqualTo(new ResumoManutencaoDTO(0, 0, 1, hoje.plusDays(70), true));
+        assertThat(agenda.situacaoDoVeiculo(outro.getVeiculoID())).isEmpty();
+    }
+
+    @Test
+    public void filaECompactadaQuandoAsEntradasAntigasAcumulam() {
+        Veiculo carro = veiculo("CMP5E55", 0);
+        PlanoManutencao revisao = plano(carro, "Revisao", null, 30, 0, hoje);
+        PlanoManutencao lavagem = plano(carro, "Lavagem", null, 20, 0, hoje);
+        agenda.montar(consumidor -> consumidor.accept(carro), consumidor -> List.of(revisao, lavagem).forEach(consumidor));
+
+        // cada alteracao da data muda a virada e deixa a entrada anterior na fila
+        int maiorFila = 0;
+        for (int i = 1; i <= 3000; i++) {
+            revisao.setUltimaData(hoje.minusDays(i % 2));
+            revisao.setVersao((long) i);
+            agenda.atualizarPlano(revisao);
+            maiorFila = Math.max(maiorFila, fila());
+        }
+        // limite da fila: 2 x planos + 1024 entradas
+        assertThat(maiorFila).isGreaterThan(1000).isLessThanOrEqualTo(2 * 2 + 1024);
+        assertThat(agenda.resumo()).isEqualTo(new ResumoManutencaoDTO(2, 0, 0, hoje, true));
+
+        // a compactacao manteve as entradas validas dos dois planos
+        relogio(hoje.plusDays(5));
+        assertThat(agenda.resumo()).isEqualTo(new ResumoManutencaoDTO(1, 1, 0, hoje.plusDays(5), true));
+        relogio(hoje.plusDays(15));
+        assertThat(agenda.resumo()).isEqualTo(new ResumoManutencaoDTO(0, 2, 0, hoje.plusDays(15), true));
+        relogio(hoje.plusDays(20));
+        assertThat(agenda.resumo()).isEqualTo(new ResumoManutencaoDTO(0, 1, 1, hoje.plusDays(20), true));
+        relogio(hoje.plusDays(30));
+        assertThat(agenda.resumo()).isEqualTo(new ResumoManutencaoDTO(0, 0, 2, hoje.plusDays(30), true));
+        assertThat(fila()).isZero();
+    }
+
+    private void relogio(LocalDate dia) {
+        ReflectionTestUtils.setField(agenda, "relogio",
+                Clock.fixed(dia.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+    }
+
+    private int fila() {
+        return ((Collection<?>) ReflectionTestUtils.getField(agenda, "fila")).size();
+    }
+
+    private static Veiculo veiculo(String placa, long quilometragem) {
+        Veiculo veiculo = new Veiculo(UUID.randomUUID());
+        veiculo.setPlaca(placa);
+        veiculo.setQuilometragem(quilometragem);
+        veiculo.setAtivo(true);
+        veiculo.setVersao(0L);
+        return veiculo;
+    }
+
+    private static PlanoManutencao plano(Veiculo veiculo, String descricao, Integer intervaloKm, Integer intervaloDias,
+            long ultimaQuilometragem, LocalDate ultimaData) {
+        PlanoManutencao plano = new PlanoManutencao(veiculo, descricao, intervaloKm, intervaloDias);
+        plano.setPlanoID(UUID.randomUUID());
+        plano.setUltimaQuilometragem(ultimaQuilometragem);
+        plano.setUltimaData(ultimaData);
+        plano.setAtivo(true);
+        plano.setVersao(0L);
+        return plano;
+    }
+
+}
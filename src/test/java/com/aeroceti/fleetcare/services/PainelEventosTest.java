@@ -0,0 +1,215 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.aeroceti.fleetcare.dataTransfers.IndicadoresDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Fluxo de eventos do painel: conexao, entrega dos mesmos eventos a todos os
+ * paineis, desconexao do painel lento e cliente que desconecta durante a
+ * propria conexao (nao pode ficar na lista nem na contagem).
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public class PainelEventosTest {
+
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+    private PainelEventos painelEventos;
+
+    @BeforeEach
+    public void preparar() {
+        PainelIndicadores indicadores = mock(PainelIndicadores.class);
+        when(indicadores.indicadores()).thenReturn(new IndicadoresDTO(3, 1, 0, LocalDate.now(), Instant.now(), true));
+        painelEventos = new PainelEventos();
+        ReflectionTestUtils.setField(painelEventos, "painelIndicadores", indicadores);
+        ReflectionTestUtils.setField(painelEventos, "jsonMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(painelEventos, "registro", registro);
+        // dois paineis no maximo, buffer de 4 quadros e sem heartbeat durante o teste
+        ReflectionTestUtils.setField(painelEventos, "maximoPaineis", 2);
+        ReflectionTestUtils.setField(painelEventos, "bufferPainel", 4);
+        ReflectionTestUtils.setField(painelEventos, "capacidadeFila", 64);
+        ReflectionTestUtils.setField(painelEventos, "intervaloHeartbeat", 60_000L);
+        ReflectionTestUtils.setField(painelEventos, "reconexao", 5000L);
+        painelEventos.inicializar();
+        painelEventos.start();
+    }
+
+    @AfterEach
+    public void finalizar() {
+        painelEventos.stop();
+    }
+
+    @Test
+    public void conectaEEntregaOsEventosATodosOsPaineis() throws Exception {
+        Saida primeira = new Saida();
+        Saida segunda = new Saida();
+        assertThat(painelEventos.conectar(requisicao(primeira, mock(AsyncContext.class)), mock(HttpServletResponse.class))).isTrue();
+        assertThat(painelEventos.conectar(requisicao(segunda, mock(AsyncContext.class)), mock(HttpServletResponse.class))).isTrue();
+        assertThat(paineis()).isEqualTo(2);
+        // limite atingido
+        assertThat(painelEventos.conectar(requisicao(new Saida(), mock(AsyncContext.class)), mock(HttpServletResponse.class))).isFalse();
+
+        // o servidor chama onWritePossible: o painel recebe a reconexao e os indicadores atuais
+        primeira.liberar();
+        segunda.liberar();
+        assertThat(primeira.texto()).startsWith("retry: 5000\n\n").contains("event: indicadores\n", "\"usuariosAtivos\":3");
+
+        UUID usuarioID = UUID.randomUUID();
+        painelEventos.usuarioAlterado(new UsuarioEvento(usuarioID, null, true, LocalDate.now()));
+        aguardar(() -> primeira.texto().contains(usuarioID.toString()) && segunda.texto().contains(usuarioID.toString()));
+        assertThat(primeira.texto()).contains("id: 1\nevent: usuario\n", "\"tipo\":\"CADASTRADO\"");
+        assertThat(segunda.texto()).contains("id: 1\nevent: usuario\n");
+    }
+
+    @Test
+    public void painelLentoEDesconectado() throws Exception {
+        Saida rapida = new Saida();
+        Saida lenta = new Saida();
+        AsyncContext contextoLento = mock(AsyncContext.class);
+        painelEventos.conectar(requisicao(rapida, mock(AsyncContext.class)), mock(HttpServletResponse.class));
+        painelEventos.conectar(requisicao(lenta, contextoLento), mock(HttpServletResponse.class));
+        rapida.liberar();
+
+        // a saida lenta nunca fica pronta: reconexao e indicadores + 2 eventos enchem o buffer de 4
+        for (int i = 0; i < 3; i++) {
+            UUID usuarioID = UUID.randomUUID();
+            painelEventos.usuarioAlterado(new UsuarioEvento(usuarioID, true, true, LocalDate.now()));
+            aguardar(() -> rapida.texto().contains(usuarioID.toString()));
+        }
+
+        aguardar(() -> paineis() == 1);
+        assertThat(registro.get("fleetcare.painel.eventos.lentos").counter().count()).isEqualTo(1);
+        verify(contextoLento).complete();
+        assertThat(lenta.texto()).isEmpty();
+
+        // a vaga liberada aceita um novo painel
+        assertThat(painelEventos.conectar(requisicao(new Saida(), mock(AsyncContext.class)), mock(HttpServletResponse.class))).isTrue();
+        assertThat(paineis()).isEqualTo(2);
+    }
+
+    @Test
+    public void clienteQueDesconectaNaConexaoNaoOcupaVaga() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Saida desconectada = new Saida();
+            // a conexao cai quando o servidor registra o WriteListener
+            desconectada.falhar = true;
+            AsyncContext contexto = mock(AsyncContext.class);
+            assertThat(painelEventos.conectar(requisicao(desconectada, contexto), mock(HttpServletResponse.class))).isTrue();
+            verify(contexto).complete();
+        }
+        assertThat(paineis()).isZero();
+
+        Saida ativa = new Saida();
+        AsyncContext contexto = mock(AsyncContext.class);
+        assertThat(painelEventos.conectar(requisicao(ativa, contexto), mock(HttpServletResponse.class))).isTrue();
+        assertThat(painelEventos.conectar(requisicao(new Saida(), mock(AsyncContext.class)), mock(HttpServletResponse.class))).isTrue();
+        assertThat(paineis()).isEqualTo(2);
+        ativa.liberar();
+
+        UUID usuarioID = UUID.randomUUID();
+        painelEventos.usuarioAlterado(new UsuarioEvento(usuarioID, true, false, LocalDate.now()));
+        aguardar(() -> ativa.texto().contains(usuarioID.toString()));
+        verify(contexto, never()).complete();
+    }
+
+    private HttpServletRequest requisicao(Saida saida, AsyncContext contexto) throws IOException {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(request.startAsync()).thenReturn(contexto);
+        when(contexto.getResponse()).thenReturn(response);
+        when(response.getOutputStream()).thenReturn(saida);
+        return request;
+    }
+
+    private double paineis() {
+        return registro.get("fleetcare.painel.eventos.paineis").gauge().value();
+    }
+
+    private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < limite) {
+            if (condicao.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("condicao nao atingida em 5 s");
+    }
+
+    // saida nao bloqueante do servidor: so fica pronta depois do primeiro onWritePossible
+    private static class Saida extends ServletOutputStream {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private volatile boolean pronta;
+        private volatile boolean falhar;
+        private WriteListener listener;
+
+        private void liberar() throws IOException {
+            pronta = true;
+            listener.onWritePossible();
+        }
+
+        private String texto() {
+            synchronized (bytes) {
+                return bytes.toString(StandardCharsets.UTF_8);
+            }
+        }
+
+        @Override
+        public boolean isReady() {
+            return pronta;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener listener) {
+            this.listener = listener;
+            if (falhar) {
+                listener.onError(new IOException("cliente desconectado"));
+            }
+        }
+
+        @Override
+        public void write(int valor) {
+            synchronized (bytes) {
+                bytes.write(valor);
+            }
+        }
+
+        @Override
+        public void write(byte[] dados, int inicio, int tamanho) {
+            synchronized (bytes) {
+                bytes.write(dados, inicio, tamanho);
+            }
+        }
+    }
+
+}
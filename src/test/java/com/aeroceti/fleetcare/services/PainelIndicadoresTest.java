@@ -0,0 +1,131 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.aeroceti.fleetcare.dataTransfers.IndicadoresDTO;
+import com.aeroceti.fleetcare.repositories.UsuarioRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Painel de indicadores com o relogio controlado pelo teste: eventos aplicados
+ * durante a contagem do banco sao somados a ela, a virada do dia zera os
+ * cadastrados hoje (inclusive no meio de uma conferencia) e a conferencia
+ * corrige os contadores quando o banco foi alterado por fora.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public class PainelIndicadoresTest {
+
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+    private final LocalDate hoje = LocalDate.now();
+    private final UsuarioRepository userRepository = mock(UsuarioRepository.class);
+    private PainelIndicadores painel;
+
+    @BeforeEach
+    public void preparar() {
+        painel = new PainelIndicadores();
+        ReflectionTestUtils.setField(painel, "userRepository", userRepository);
+        ReflectionTestUtils.setField(painel, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(painel, "registro", registro);
+        relogio(hoje);
+        painel.inicializar();
+    }
+
+    @Test
+    public void eventosDuranteAConferenciaSaoSomadosAContagemDoBanco() {
+        banco(10, 2, hoje, 1);
+        painel.conferir();
+        assertThat(painel.indicadores()).extracting(IndicadoresDTO::usuariosAtivos, IndicadoresDTO::usuariosArquivados,
+                IndicadoresDTO::usuariosCadastradosHoje, IndicadoresDTO::pronto).containsExactly(10L, 2L, 1L, true);
+
+        // a contagem ja foi lida quando chegam um cadastro de hoje e um arquivamento
+        when(userRepository.contarPorSituacao()).thenAnswer(chamada -> {
+            painel.aplicar(new UsuarioEvento(UUID.randomUUID(), null, true, hoje));
+            painel.aplicar(new UsuarioEvento(UUID.randomUUID(), true, false, hoje.minusDays(30)));
+            return situacoes(10, 2);
+        });
+        painel.conferir();
+        assertThat(painel.indicadores()).extracting(IndicadoresDTO::usuariosAtivos, IndicadoresDTO::usuariosArquivados,
+                IndicadoresDTO::usuariosCadastradosHoje).containsExactly(10L, 3L, 2L);
+        assertThat(divergencias()).isZero();
+
+        // alteracao feita fora da aplicacao: a conferencia seguinte corrige
+        banco(12, 3, hoje, 2);
+        painel.conferir();
+        assertThat(painel.indicadores()).extracting(IndicadoresDTO::usuariosAtivos, IndicadoresDTO::usuariosArquivados,
+                IndicadoresDTO::usuariosCadastradosHoje).containsExactly(12L, 3L, 2L);
+        assertThat(divergencias()).isEqualTo(1);
+    }
+
+    @Test
+    public void viradaDoDiaZeraOsCadastradosHoje() {
+        banco(5, 0, hoje, 3);
+        painel.conferir();
+        painel.aplicar(new UsuarioEvento(UUID.randomUUID(), null, true, hoje));
+        assertThat(painel.indicadores().usuariosCadastradosHoje()).isEqualTo(4);
+
+        relogio(hoje.plusDays(1));
+        assertThat(painel.indicadores()).extracting(IndicadoresDTO::usuariosAtivos,
+                IndicadoresDTO::usuariosCadastradosHoje, IndicadoresDTO::dia).containsExactly(6L, 0L, hoje.plusDays(1));
+
+        // o dia vira no meio da contagem: a contagem de ontem nao substitui a de hoje
+        when(userRepository.contarPorSituacao()).thenAnswer(chamada -> {
+            relogio(hoje.plusDays(2));
+            painel.aplicar(new UsuarioEvento(UUID.randomUUID(), null, true, hoje.plusDays(2)));
+            return situacoes(6, 0);
+        });
+        when(userRepository.countByDataCadastro(hoje.plusDays(1))).thenReturn(0L);
+        painel.conferir();
+        verify(userRepository).countByDataCadastro(hoje.plusDays(1));
+        assertThat(painel.indicadores()).extracting(IndicadoresDTO::usuariosAtivos,
+                IndicadoresDTO::usuariosCadastradosHoje, IndicadoresDTO::dia).containsExactly(7L, 1L, hoje.plusDays(2));
+        assertThat(divergencias()).isZero();
+
+        // no dia seguinte a conferencia ja conta o novo dia
+        banco(7, 0, hoje.plusDays(2), 1);
+        painel.conferir();
+        assertThat(painel.indicadores()).extracting(IndicadoresDTO::usuariosAtivos,
+                IndicadoresDTO::usuariosCadastradosHoje).containsExactly(7L, 1L);
+        assertThat(divergencias()).isZero();
+    }
+
+    private void banco(long ativos, long arquivados, LocalDate dia, long cadastrados) {
+        // doReturn: when(...) chamaria a resposta anterior, que aplica eventos
+        doReturn(situacoes(ativos, arquivados)).when(userRepository).contarPorSituacao();
+        when(userRepository.countByDataCadastro(dia)).thenReturn(cadastrados);
+    }
+
+    private static List<Object[]> situacoes(long ativos, long arquivados) {
+        return List.of(new Object[]{Boolean.TRUE, ativos}, new Object[]{Boolean.FALSE, arquivados});
+    }
+
+    private void relogio(LocalDate dia) {
+        ReflectionTestUtils.setField(painel, "relogio",
+                Clock.fixed(dia.atStartOfDay(ZoneId.systemDefault()).toInstant(), ZoneId.systemDefault()));
+    }
+
+    private double divergencias() {
+        return registro.get("fleetcare.painel.divergencias").counter().count();
+    }
+
+}
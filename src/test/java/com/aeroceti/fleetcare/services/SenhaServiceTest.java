@@ -0,0 +1,113 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Pool de senhas saturado: a requisicao interativa (codificar) e recusada com
+ * SobrecargaException (429), enquanto a importacao (codificarAguardando)
+ * espera por uma vaga e recebe o hash.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public class SenhaServiceTest {
+
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private final CountDownLatch ocupado = new CountDownLatch(1);
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+    private final ExecutorService clientes = Executors.newCachedThreadPool();
+    private SenhaService senhaService;
+
+    @BeforeEach
+    public void preparar() {
+        senhaService = new SenhaService();
+        // uma thread e uma vaga na fila; a senha "lenta" prende a thread ate o teste liberar
+        ReflectionTestUtils.setField(senhaService, "codePass", new Codificador());
+        ReflectionTestUtils.setField(senhaService, "registro", registro);
+        ReflectionTestUtils.setField(senhaService, "threads", 1);
+        ReflectionTestUtils.setField(senhaService, "capacidadeFila", 1);
+        ReflectionTestUtils.setField(senhaService, "esperaMaxima", 5000L);
+        ReflectionTestUtils.setField(senhaService, "retryAfter", 2L);
+        senhaService.inicializar();
+    }
+
+    @AfterEach
+    public void finalizar() {
+        liberar.countDown();
+        clientes.shutdownNow();
+        senhaService.finalizar();
+    }
+
+    @Test
+    public void importacaoAguardaPelaVagaEInterativaRecebe429() throws Exception {
+        CompletableFuture<String> lenta = CompletableFuture.supplyAsync(() -> senhaService.codificar("lenta"), clientes);
+        assertThat(ocupado.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> enfileirada = CompletableFuture.supplyAsync(() -> senhaService.codificar("fila"), clientes);
+        aguardarFila();
+
+        // thread ocupada e fila cheia
+        assertThatThrownBy(() -> senhaService.codificar("interativa")).isInstanceOf(SobrecargaException.class);
+        CompletableFuture<String> importada = CompletableFuture.supplyAsync(
+                () -> senhaService.codificarAguardando("importada"), clientes);
+        Thread.sleep(100);
+        assertThat(importada).isNotDone();
+
+        liberar.countDown();
+        assertThat(importada.get(5, TimeUnit.SECONDS)).isEqualTo("hash:importada");
+        assertThat(lenta.get(5, TimeUnit.SECONDS)).isEqualTo("hash:lenta");
+        assertThat(enfileirada.get(5, TimeUnit.SECONDS)).isEqualTo("hash:fila");
+    }
+
+    private void aguardarFila() throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < limite) {
+            if (registro.get("fleetcare.senha.fila").gauge().value() >= 1) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("fila do pool de senhas vazia");
+    }
+
+    // hash falso: a senha "lenta" prende a thread do pool ate o teste liberar
+    private class Codificador implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence senha) {
+            if ("lenta".contentEquals(senha)) {
+                ocupado.countDown();
+                try {
+                    liberar.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException interrompida) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return "hash:" + senha;
+        }
+
+        @Override
+        public boolean matches(CharSequence senha, String hash) {
+            return hash.equals(encode(senha));
+        }
+    }
+
+}
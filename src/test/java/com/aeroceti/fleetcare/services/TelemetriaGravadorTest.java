@@ -0,0 +1,208 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at GMail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.aeroceti.fleetcare.dataTransfers.LeituraTelemetriaDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Anel do gravador de telemetria: as leituras saem na ordem em que entraram
+ * mesmo depois de dar a volta no anel, um lote que nao cabe inteiro e
+ * recusado sem aceitar nenhuma leitura (429 na API) e a parada grava tudo o
+ * que foi publicado.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public class TelemetriaGravadorTest {
+
+    private final SimpleMeterRegistry registro = new SimpleMeterRegistry();
+    private final TelemetriaEstado estado = new TelemetriaEstado();
+    private final UUID veiculoID = UUID.randomUUID();
+    // quilometragem de cada leitura gravada, na ordem dos lotes
+    private final List<Long> gravadas = Collections.synchronizedList(new ArrayList<>());
+    private final List<Integer> lotes = Collections.synchronizedList(new ArrayList<>());
+    // o primeiro lote fica preso na gravacao ate o teste liberar
+    private final CountDownLatch gravando = new CountDownLatch(1);
+    private final CountDownLatch liberar = new CountDownLatch(1);
+    private TelemetriaGravador gravador;
+    private int slot;
+    private long proxima;
+
+    @BeforeEach
+    public void preparar() throws Exception {
+        slot = estado.registrar(veiculoID);
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), any(BatchPreparedStatementSetter.class))).thenAnswer(chamada -> {
+            if (lotes.isEmpty()) {
+                gravando.countDown();
+                liberar.await(10, TimeUnit.SECONDS);
+            }
+            BatchPreparedStatementSetter lote = chamada.getArgument(1);
+            PreparedStatement comando = mock(PreparedStatement.class);
+            doAnswer(valor -> gravadas.add(valor.getArgument(1))).when(comando).setLong(anyInt(), anyLong());
+            for (int i = 0; i < lote.getBatchSize(); i++) {
+                lote.setValues(comando, i);
+            }
+            lotes.add(lote.getBatchSize());
+            return new int[lote.getBatchSize()];
+        });
+        gravador = new TelemetriaGravador();
+        ReflectionTestUtils.setField(gravador, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(gravador, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(gravador, "estado", estado);
+        ReflectionTestUtils.setField(gravador, "registro", registro);
+        // anel de 8 leituras, lotes de 3 e sem gravacao pelo intervalo durante o teste
+        ReflectionTestUtils.setField(gravador, "capacidade", 8);
+        ReflectionTestUtils.setField(gravador, "tamanhoLote", 3);
+        ReflectionTestUtils.setField(gravador, "intervalo", 60_000L);
+        ReflectionTestUtils.setField(gravador, "tentativas", 3);
+        ReflectionTestUtils.setField(gravador, "esperaParada", 10_000L);
+        gravador.inicializar();
+        gravador.start();
+    }
+
+    @AfterEach
+    public void finalizar() {
+        liberar.countDown();
+        if (gravador.isRunning()) {
+            gravador.stop();
+        }
+    }
+
+    @Test
+    public void leiturasSaemNaOrdemDepoisDeDarAVoltaNoAnel() throws Exception {
+        // o lote completo acorda a gravacao, que fica presa com as leituras 1 a 3
+        assertThat(gravador.publicar(leituras(3), slots(3))).isTrue();
+        assertThat(gravando.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(fila()).isZero();
+
+        // o anel (a partir da posicao 3) da a volta: 6 ocupadas, 2 livres
+        assertThat(gravador.publicar(leituras(6), slots(6))).isTrue();
+        // tudo ou nada: o lote de 3 nao cabe e nenhuma leitura e aceita
+        assertThat(gravador.publicar(leituras(3), slots(3))).isFalse();
+        assertThat(fila()).isEqualTo(6);
+        proxima -= 3;
+        assertThat(gravador.publicar(leituras(2), slots(2))).isTrue();
+        assertThat(fila()).isEqualTo(8);
+        assertThat(gravador.publicar(leituras(1), slots(1))).isFalse();
+        proxima -= 1;
+
+        // liberada, a gravacao segue em lotes completos; as 2 leituras que sobram esperam o intervalo
+        liberar.countDown();
+        aguardar(() -> gravadas.size() == 9);
+        assertThat(fila()).isEqualTo(2);
+        gravador.stop();
+        assertThat(gravadas).containsExactlyElementsOf(LongStream.rangeClosed(1, 11).boxed().toList());
+        assertThat(lotes).containsExactly(3, 3, 3, 2);
+        assertThat(registro.get("fleetcare.telemetria.leituras").tag("resultado", "gravada").counter().count())
+                .isEqualTo(11);
+    }
+
+    @Test
+    public void anelCheioRecusaOLoteNaApiComStatus429() throws Exception {
+        TelemetriaService telemetriaService = new TelemetriaService();
+        ReflectionTestUtils.setField(telemetriaService, "estado", estado);
+        ReflectionTestUtils.setField(telemetriaService, "gravador", gravador);
+        ReflectionTestUtils.setField(telemetriaService, "registro", registro);
+        ReflectionTestUtils.setField(telemetriaService, "maximoLote", 1000);
+        ReflectionTestUtils.setField(telemetriaService, "tolerancia", 300L);
+        ReflectionTestUtils.setField(telemetriaService, "retryAfter", 1L);
+        ReflectionTestUtils.setField(telemetriaService, "pronto", true);
+        telemetriaService.inicializar();
+
+        assertThat(telemetriaService.receber(leituras(3)).getStatusCode().value()).isEqualTo(202);
+        assertThat(gravando.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(telemetriaService.receber(leituras(7)).getStatusCode().value()).isEqualTo(202);
+
+        ResponseEntity<?> recusada = telemetriaService.receber(leituras(2));
+        assertThat(recusada.getStatusCode().value()).isEqualTo(429);
+        assertThat(recusada.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(fila()).isEqualTo(7);
+        // a posicao atual do veiculo e a da ultima leitura aceita (10), nao a do lote recusado
+        assertThat(estado.consultar(veiculoID).quilometragem()).isEqualTo(10);
+        assertThat(registro.get("fleetcare.telemetria.leituras").tag("resultado", "recusada").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void paradaGravaTudoOQueFoiPublicado() throws Exception {
+        liberar.countDown();
+        // abaixo do lote: sem a parada, so seriam gravadas depois do intervalo
+        assertThat(gravador.publicar(leituras(2), slots(2))).isTrue();
+        assertThat(fila()).isEqualTo(2);
+        assertThat(gravador.publicar(leituras(5), slots(5))).isTrue();
+
+        gravador.stop();
+        assertThat(gravadas).containsExactlyElementsOf(LongStream.rangeClosed(1, 7).boxed().toList());
+        assertThat(fila()).isZero();
+        // parado, o gravador nao aceita mais leituras
+        assertThat(gravador.publicar(leituras(1), slots(1))).isFalse();
+    }
+
+    // leituras do veiculo com a quilometragem sequencial (1, 2, 3...)
+    private List<LeituraTelemetriaDTO> leituras(int total) {
+        List<LeituraTelemetriaDTO> lista = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            proxima++;
+            lista.add(new LeituraTelemetriaDTO(veiculoID, Instant.now().minusSeconds(60).plusMillis(proxima), proxima,
+                    50f, -3.1, -60.0));
+        }
+        return lista;
+    }
+
+    private int[] slots(int total) {
+        int[] lista = new int[total];
+        Arrays.fill(lista, slot);
+        return lista;
+    }
+
+    private double fila() {
+        return registro.get("fleetcare.telemetria.fila").gauge().value();
+    }
+
+    private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < limite) {
+            if (condicao.getAsBoolean()) {
+                return;
+            }
+            Thread.sleep(5);
+        }
+        throw new AssertionError("condicao nao atingida em 5 s");
+    }
+
+}
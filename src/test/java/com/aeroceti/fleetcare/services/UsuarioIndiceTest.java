@@ -0,0 +1,154 @@
+/**
+ * Projeto:  Fleet Care Amazon  -  Sistema de Controle de Locacao e Manutencao de Veiculos.
+ * Gerente:  Sergio Murilo  -  smurilo at Gmail
+ * Data:     Manaus/AM  -  2023
+ * Equipe:   Murilo, Victor
+ */
+package com.aeroceti.fleetcare.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.aeroceti.fleetcare.dataTransfers.PesquisaUsuarioDTO;
+import com.aeroceti.fleetcare.model.Usuario;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Indice de pesquisa de usuarios (n-gramas na memoria): inicio de palavras,
+ * erros de digitacao, ordem dos resultados, limite e alteracoes recebidas
+ * durante a montagem.
+ *
+ * @author Sergio Murilo - smurilo at Gmail.com
+ * @version 1.0
+ */
+public class UsuarioIndiceTest {
+
+    private UsuarioIndice indice;
+
+    @BeforeEach
+    public void preparar() {
+        indice = new UsuarioIndice();
+    }
+
+    @Test
+    public void encontraPeloInicioDasPalavras() {
+        indice.atualizar(usuario("Maria Souza", "maria.souza@fleetcare.com.br", "12345678901"));
+        indice.atualizar(usuario("Joao Pereira", "joao@fleetcare.com.br", "98765432100"));
+
+        assertThat(nomes(indice.pesquisar("mar", 10))).containsExactly("Maria Souza");
+        assertThat(nomes(indice.pesquisar("M", 10))).containsExactly("Maria Souza");
+        assertThat(nomes(indice.pesquisar("pere", 10))).containsExactly("Joao Pereira");
+        // CPF com ou sem pontuacao e trecho do email
+        assertThat(nomes(indice.pesquisar("987.654", 10))).containsExactly("Joao Pereira");
+        assertThat(nomes(indice.pesquisar("souza@fleet", 10))).first().isEqualTo("Maria Souza");
+    }
+
+    @Test
+    public void toleraErrosDeDigitacaoEAcentos() {
+        indice.atualizar(usuario("Sebastião Conceição", "sebastiao@fleetcare.com.br", "11122233344"));
+        indice.atualizar(usuario("Bruno Lima", "bruno@fleetcare.com.br", "55566677788"));
+
+        assertThat(nomes(indice.pesquisar("sebastiao", 10))).containsExactly("Sebastião Conceição");
+        // letra trocada e letra faltando
+        assertThat(nomes(indice.pesquisar("sebastiao conseicao", 10))).first().isEqualTo("Sebastião Conceição");
+        assertThat(nomes(indice.pesquisar("concicao", 10))).containsExactly("Sebastião Conceição");
+        assertThat(indice.pesquisar("xyzw", 10)).isEmpty();
+    }
+
+    @Test
+    public void ordenaPelaSemelhancaEDepoisPeloNome() {
+        indice.atualizar(usuario("Mariana Lima", "mariana@fleetcare.com.br", "10000000001"));
+        indice.atualizar(usuario("Maria Souza", "souza@fleetcare.com.br", "10000000002"));
+        indice.atualizar(usuario("Ana Maria Souza", "ana@fleetcare.com.br", "10000000003"));
+        indice.atualizar(usuario("Marcos Souza", "marcos@fleetcare.com.br", "10000000004"));
+
+        List<String> encontrados = nomes(indice.pesquisar("maria souza", 10));
+        // as duas com "maria" e "souza" empatam e vem em ordem alfabetica, antes das parciais
+        assertThat(encontrados).startsWith("Ana Maria Souza", "Maria Souza");
+        assertThat(encontrados.indexOf("Marcos Souza")).isGreaterThan(1);
+        assertThat(encontrados.indexOf("Mariana Lima")).isGreaterThan(1);
+    }
+
+    @Test
+    public void respeitaOLimiteDeResultados() {
+        for (int i = 0; i < 30; i++) {
+            indice.atualizar(usuario("Carlos " + (char) ('A' + i % 26) + i, "carlos" + i + "@fleetcare.com.br",
+                    String.format("%011d", 20_000_000_000L + i)));
+        }
+        indice.atualizar(usuario("Carlos Andrade", "andrade@fleetcare.com.br", "30000000000"));
+
+        assertThat(indice.pesquisar("carlos", 5)).hasSize(5);
+        assertThat(indice.pesquisar("carlos", 100)).hasSize(31);
+        assertThat(indice.pesquisar("carlos andrade", 1)).extracting(PesquisaUsuarioDTO::nome)
+                .containsExactly("Carlos Andrade");
+        assertThat(indice.pesquisar("carlos", 0)).isEmpty();
+    }
+
+    @Test
+    public void alteracaoEExclusaoSubstituemOsDadosIndexados() {
+        Usuario user = usuario("Paulo Mendes", "paulo@fleetcare.com.br", "40000000000");
+        indice.atualizar(user);
+        Usuario alterado = copia(user, "Paulo Rocha", 1);
+        indice.atualizar(alterado);
+
+        assertThat(indice.pesquisar("mendes", 10)).isEmpty();
+        assertThat(nomes(indice.pesquisar("rocha", 10))).containsExactly("Paulo Rocha");
+        assertThat(indice.total()).isEqualTo(1);
+
+        indice.remover(user.getUsuarioID());
+        assertThat(indice.pesquisar("paulo", 10)).isEmpty();
+        assertThat(indice.total()).isZero();
+    }
+
+    @Test
+    public void alteracoesDuranteAMontagemPrevalecemSobreALeituraDoBanco() {
+        Usuario excluido = usuario("Renata Alves", "renata@fleetcare.com.br", "50000000001");
+        Usuario alterado = usuario("Rafael Costa", "rafael@fleetcare.com.br", "50000000002");
+        Usuario mantido = usuario("Ricardo Dias", "ricardo@fleetcare.com.br", "50000000003");
+
+        indice.montar(consumidor -> {
+            consumidor.accept(mantido);
+            // enquanto o banco e lido, um usuario e excluido e outro alterado (apos o COMMIT)
+            indice.remover(excluido.getUsuarioID());
+            indice.atualizar(copia(alterado, "Rafael Nogueira", 1));
+            // a leitura do banco ainda traz os dados anteriores dos dois
+            consumidor.accept(excluido);
+            consumidor.accept(alterado);
+        });
+
+        assertThat(indice.total()).isEqualTo(2);
+        assertThat(indice.pesquisar("renata", 10)).isEmpty();
+        assertThat(indice.pesquisar("costa", 10)).isEmpty();
+        assertThat(nomes(indice.pesquisar("nogueira", 10))).containsExactly("Rafael Nogueira");
+        assertThat(nomes(indice.pesquisar("ricardo", 10))).containsExactly("Ricardo Dias");
+
+        // depois da montagem o usuario excluido pode ser cadastrado de novo
+        indice.atualizar(copia(excluido, "Renata Alves", 2));
+        assertThat(nomes(indice.pesquisar("renata", 10))).containsExactly("Renata Alves");
+    }
+
+    private static Usuario usuario(String nome, String email, String cpf) {
+        Usuario user = new Usuario(UUID.randomUUID());
+        user.setNome(nome);
+        user.setEmail(email);
+        user.setCpf(cpf);
+        user.setVersao(0L);
+        return user;
+    }
+
+    private static Usuario copia(Usuario original, String nome, long versao) {
+        Usuario user = new Usuario(original.getUsuarioID());
+        user.setNome(nome);
+        user.setEmail(original.getEmail());
+        user.setCpf(original.getCpf());
+        user.setVersao(versao);
+        return user;
+    }
+
+    private static List<String> nomes(List<PesquisaUsuarioDTO> encontrados) {
+        return encontrados.stream().map(PesquisaUsuarioDTO::nome).toList();
+    }
+
+}